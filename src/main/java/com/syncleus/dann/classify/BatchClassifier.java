@@ -0,0 +1,52 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A Classifier which can classify many items at once, spreading the work
+ * over several threads. The classifier must not be trained while a batch is
+ * running.
+ * @param <I> The type of item to classify
+ * @param <C> The type of categories to use
+ * @see Classifier
+ */
+public interface BatchClassifier<I, C> extends Classifier<I, C>
+{
+	/**
+	 * Gets the classification of each item.
+	 * @param items The items to classify
+	 * @return The classification of each item, in the order of the items
+	 */
+	List<C> classifyAll(Iterable<? extends I> items);
+
+	/**
+	 * Classifies each item, handing the results to a listener. Only a part
+	 * of the items are held in memory at a time, so the batch may be of any
+	 * size. A Stream can be classified through its iterator.
+	 * @param items The items to classify
+	 * @param listener The listener given each classification
+	 * @param ordered true to receive results in the order of the items from
+	 *   the calling thread, false to receive them from the worker threads
+	 *   as soon as each is ready. Calls to the listener are never concurrent.
+	 */
+	void classifyAll(Iterator<? extends I> items, ClassificationListener<? super I, ? super C> listener, boolean ordered);
+}
@@ -0,0 +1,37 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify;
+
+/**
+ * Receives the results of a batch classification as they are produced.
+ * @param <I> The type of item classified
+ * @param <C> The type of category
+ * @see BatchClassifier
+ */
+public interface ClassificationListener<I, C>
+{
+	/**
+	 * Called once for each item classified.
+	 * @param index The position of the item in the batch, starting at 0
+	 * @param item The item classified
+	 * @param category The classification of the item
+	 * @return true to continue classifying, false to stop the batch.
+	 */
+	boolean classified(long index, I item, C category);
+}
@@ -0,0 +1,257 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Classifies a batch of items on a fork/join pool. Items are read in chunks,
+ * and while one chunk is classified the next is read from the iterator. Each
+ * chunk is split between one task per worker, each holding a scratch object
+ * it reuses for every item it classifies, so scoring need not allocate per
+ * item.
+ *
+ * @param <I> The type of item to classify
+ * @param <C> The type of categories to use
+ * @param <S> The type of scratch space used while classifying
+ */
+public abstract class ParallelClassification<I, C, S>
+{
+	private static final int DEFAULT_CHUNK_SIZE = 4096;
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	protected ParallelClassification(final ForkJoinPool pool)
+	{
+		this(pool, DEFAULT_CHUNK_SIZE);
+	}
+
+	protected ParallelClassification(final ForkJoinPool pool, final int chunkSize)
+	{
+		if( pool == null )
+			throw new IllegalArgumentException("pool can not be null");
+		if( chunkSize <= 0 )
+			throw new IllegalArgumentException("chunkSize must be 1 or more");
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Creates the scratch space for one worker.
+	 * @return New scratch space
+	 */
+	protected abstract S createScratch();
+
+	/**
+	 * Classifies a single item. Called concurrently, though never
+	 * concurrently with the same scratch.
+	 * @param item The item to classify
+	 * @param scratch Scratch space which may be overwritten
+	 * @return The classification of the item
+	 */
+	protected abstract C classification(I item, S scratch);
+
+	/**
+	 * Gets the classification of each item.
+	 * @param items The items to classify
+	 * @return The classification of each item, in the order of the items
+	 */
+	public List<C> classifyAll(final Iterator<? extends I> items)
+	{
+		final List<C> classifications = new ArrayList<C>();
+		this.classifyAll(items, new ClassificationListener<I, C>()
+		{
+			@Override
+			public boolean classified(final long index, final I item, final C category)
+			{
+				classifications.add(category);
+				return true;
+			}
+		}, true);
+		return classifications;
+	}
+
+	/**
+	 * Classifies each item, handing the results to a listener.
+	 * @param items The items to classify
+	 * @param listener The listener given each classification
+	 * @param ordered true to receive results in the order of the items from
+	 *   the calling thread, false to receive them as soon as each is ready.
+	 * @see BatchClassifier#classifyAll(Iterator, ClassificationListener, boolean)
+	 */
+	public void classifyAll(final Iterator<? extends I> items, final ClassificationListener<? super I, ? super C> listener, final boolean ordered)
+	{
+		if( listener == null )
+			throw new IllegalArgumentException("listener can not be null");
+
+		final Batch<I, C, S> batch = new Batch<I, C, S>(this, listener, ordered, Math.max(1, Math.min(this.pool.getParallelism(), this.chunkSize)));
+		Chunk<I, C> current = Chunk.read(items, this.chunkSize, 0L);
+		while( current.size > 0 )
+		{
+			final ForkJoinTask<Void> pending = this.pool.submit(new ChunkTask<I, C, S>(batch, current));
+			// read ahead while the current chunk is classified
+			final Chunk<I, C> next = Chunk.read(items, this.chunkSize, current.firstIndex + current.size);
+			pending.join();
+
+			if( ordered )
+			{
+				for(int itemIndex = 0; (itemIndex < current.size) && !batch.stopped; itemIndex++)
+					if( !listener.classified(current.firstIndex + itemIndex, current.items.get(itemIndex), current.classifications.get(itemIndex)) )
+						batch.stopped = true;
+			}
+			if( batch.stopped )
+				return;
+			current = next;
+		}
+	}
+
+	private static final class Batch<I, C, S>
+	{
+		private final ParallelClassification<I, C, S> classification;
+		private final ClassificationListener<? super I, ? super C> listener;
+		private final boolean ordered;
+		private final List<S> scratches;
+		private volatile boolean stopped;
+
+		private Batch(final ParallelClassification<I, C, S> classification, final ClassificationListener<? super I, ? super C> listener, final boolean ordered, final int workers)
+		{
+			this.classification = classification;
+			this.listener = listener;
+			this.ordered = ordered;
+			this.scratches = new ArrayList<S>(Collections.<S>nCopies(workers, null));
+		}
+
+		/**
+		 * Gets the scratch of a worker, kept for every chunk of the batch.
+		 * Only one task per worker runs at a time.
+		 */
+		private S getScratch(final int worker)
+		{
+			S scratch = this.scratches.get(worker);
+			if( scratch == null )
+			{
+				scratch = this.classification.createScratch();
+				this.scratches.set(worker, scratch);
+			}
+			return scratch;
+		}
+
+		private void deliver(final long index, final I item, final C category)
+		{
+			synchronized( this )
+			{
+				if( !this.stopped && !this.listener.classified(index, item, category) )
+					this.stopped = true;
+			}
+		}
+	}
+
+	private static final class Chunk<I, C>
+	{
+		private final List<I> items;
+		private final List<C> classifications;
+		private final long firstIndex;
+		private final int size;
+
+		private Chunk(final List<I> items, final long firstIndex)
+		{
+			this.items = items;
+			// filled in place by the workers, each setting the items it took
+			this.classifications = new ArrayList<C>(Collections.<C>nCopies(items.size(), null));
+			this.firstIndex = firstIndex;
+			this.size = items.size();
+		}
+
+		private static <I, C> Chunk<I, C> read(final Iterator<? extends I> items, final int chunkSize, final long firstIndex)
+		{
+			final List<I> chunkItems = new ArrayList<I>(chunkSize);
+			while( (chunkItems.size() < chunkSize) && items.hasNext() )
+				chunkItems.add(items.next());
+			return new Chunk<I, C>(chunkItems, firstIndex);
+		}
+	}
+
+	private static final class ChunkTask<I, C, S> extends RecursiveAction
+	{
+		private static final long serialVersionUID = -2270968311472862301L;
+		private final Batch<I, C, S> batch;
+		private final Chunk<I, C> chunk;
+
+		private ChunkTask(final Batch<I, C, S> batch, final Chunk<I, C> chunk)
+		{
+			this.batch = batch;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final AtomicInteger cursor = new AtomicInteger();
+			final int workers = Math.min(this.batch.scratches.size(), this.chunk.size);
+			final List<WorkerTask<I, C, S>> tasks = new ArrayList<WorkerTask<I, C, S>>(workers);
+			for(int worker = 0; worker < workers; worker++)
+				tasks.add(new WorkerTask<I, C, S>(this.batch, this.chunk, cursor, worker));
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * Takes items from the chunk until none remain, so a worker held up by
+	 * expensive items does not hold up the others.
+	 */
+	private static final class WorkerTask<I, C, S> extends RecursiveAction
+	{
+		private static final long serialVersionUID = 4873025718430963127L;
+		private final Batch<I, C, S> batch;
+		private final Chunk<I, C> chunk;
+		private final AtomicInteger cursor;
+		private final int worker;
+
+		private WorkerTask(final Batch<I, C, S> batch, final Chunk<I, C> chunk, final AtomicInteger cursor, final int worker)
+		{
+			this.batch = batch;
+			this.chunk = chunk;
+			this.cursor = cursor;
+			this.worker = worker;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final S scratch = this.batch.getScratch(this.worker);
+			int itemIndex;
+			while( !this.batch.stopped && ((itemIndex = this.cursor.getAndIncrement()) < this.chunk.size) )
+			{
+				final I item = this.chunk.items.get(itemIndex);
+				final C category = this.batch.classification.classification(item, scratch);
+				if( this.batch.ordered )
+					this.chunk.classifications.set(itemIndex, category);
+				else
+					this.batch.deliver(this.chunk.firstIndex + itemIndex, item, category);
+			}
+		}
+	}
+}
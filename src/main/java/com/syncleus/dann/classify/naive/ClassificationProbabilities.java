@@ -26,7 +26,10 @@ import java.util.*;
  *
  * @param <C> The type of category
  * @author Jeffrey Phillips Freeman
+ * @deprecated Naive classifiers keep their counts in a {@link FeatureCountTable}, which holds the count of every
+ * category for a feature in one primitive row.
  */
+@Deprecated
 public class ClassificationProbabilities<C>
 {
 	private int probabilitySum;
@@ -0,0 +1,478 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A TrainableNaiveClassifier which may be trained and read from many threads
+ * at once. Training counts features into striped tables, each guarded by its
+ * own lock, so concurrent calls to train only contend when their features
+ * fall in the same stripe. Items are counted per category with LongAdders.
+ *
+ * <p>Reads are answered by an immutable snapshot of the counts, published as a
+ * new classifier whenever something was trained since the last one and the
+ * publish interval has passed. Training goes into one of two epochs of
+ * tables. Publishing switches training over to the other epoch, waits for the
+ * items still being trained into the old one and adds the old epoch to a copy
+ * of the last snapshot, so training is never blocked by a publish and a
+ * snapshot holds whole items only: every item whose training returned before
+ * it was taken and none which was still being trained. Every read works
+ * against a single snapshot from start to finish. Training is published by
+ * reads at most once per publish interval, publish makes it visible at once.
+ *
+ * @param <I> The type of item to classify
+ * @param <F> The type of features the item has
+ * @param <C> The type of categories to use
+ */
+public class ConcurrentNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<I, F, C>
+{
+	private static final int DEFAULT_STRIPES = 64;
+	private static final long DEFAULT_PUBLISH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final Object NULL_CATEGORY = new Object();
+	private final FeatureExtractor<F, I> extractor;
+	private final Epoch<F, C>[] epochs;
+	private volatile int epochIndex;
+	private final Map<Object, Integer> categoryIds = new ConcurrentHashMap<Object, Integer>();
+	private volatile Object[] categories = new Object[0];
+	private final LongAdder trained = new LongAdder();
+	private final Lock publishLock = new ReentrantLock();
+	private volatile Snapshot<I, F, C> snapshot;
+	private volatile long publishInterval = DEFAULT_PUBLISH_INTERVAL;
+
+	private static final class Snapshot<I, F, C>
+	{
+		private final long trained;
+		private final long publishedNanos;
+		private final FeatureCountTable<F, C> counts;
+		private final NaiveClassifier<I, F, C> classifier;
+
+		Snapshot(final long trained, final FeatureCountTable<F, C> counts, final NaiveClassifier<I, F, C> classifier)
+		{
+			this.trained = trained;
+			this.publishedNanos = System.nanoTime();
+			this.counts = counts;
+			this.classifier = classifier;
+		}
+	}
+
+	/**
+	 * The tables items are trained into between two publishes. Training
+	 * threads count themselves in while they use an epoch, so a publish knows
+	 * when the last of them has left.
+	 */
+	private static final class Epoch<F, C>
+	{
+		private final FeatureCountTable<F, C>[] stripes;
+		private final AtomicInteger training = new AtomicInteger();
+		private volatile LongAdder[] categoryTotals = new LongAdder[0];
+
+		Epoch(final int stripeCount)
+		{
+			this.stripes = newStripes(stripeCount);
+			for(int stripeIndex = 0; stripeIndex < stripeCount; stripeIndex++)
+				this.stripes[stripeIndex] = new FeatureCountTable<F, C>();
+		}
+	}
+
+	/**
+	 * Creates a ConcurrentNaiveClassifier with the given FeatureExtractor.
+	 * @param featureExtractor The FeatureExtractor to use.
+	 */
+	public ConcurrentNaiveClassifier(final FeatureExtractor<F, I> featureExtractor)
+	{
+		this(featureExtractor, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Creates a ConcurrentNaiveClassifier with the given FeatureExtractor.
+	 * @param featureExtractor The FeatureExtractor to use.
+	 * @param stripes The number of separately locked tables features are
+	 *   counted in, rounded up to a power of two.
+	 */
+	public ConcurrentNaiveClassifier(final FeatureExtractor<F, I> featureExtractor, final int stripes)
+	{
+		if( featureExtractor == null )
+			throw new IllegalArgumentException("featureExtractor can not be null");
+		if( stripes <= 0 )
+			throw new IllegalArgumentException("stripes must be 1 or more");
+
+		this.extractor = featureExtractor;
+		int stripeCount = 1;
+		while( stripeCount < stripes )
+			stripeCount <<= 1;
+		this.epochs = newEpochs(2);
+		this.epochs[0] = new Epoch<F, C>(stripeCount);
+		this.epochs[1] = new Epoch<F, C>(stripeCount);
+	}
+
+	/**
+	 * Creates the array of stripes of an epoch. Arrays can only be created of
+	 * the wildcard type, the unchecked cast is safe since the array never
+	 * leaves its epoch and is only filled with tables of F and C.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <F, C> FeatureCountTable<F, C>[] newStripes(final int stripeCount)
+	{
+		return (FeatureCountTable<F, C>[]) new FeatureCountTable<?, ?>[stripeCount];
+	}
+
+	/**
+	 * Creates the array of epochs. Arrays can only be created of the wildcard
+	 * type, the unchecked cast is safe since the array is private and only
+	 * filled with epochs of F and C.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <F, C> Epoch<F, C>[] newEpochs(final int epochCount)
+	{
+		return (Epoch<F, C>[]) new Epoch<?, ?>[epochCount];
+	}
+
+	/**
+	 * Gets a category by its id. Only categories passed to train are ever
+	 * interned, so every element of categories is a C.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <C> C getCategory(final Object[] categories, final int categoryId)
+	{
+		return (C) categories[categoryId];
+	}
+
+	/**
+	 * Gets the FeatureExtractor with the given instance.
+	 * @return The FeatureExtractor currently used.
+	 */
+	protected FeatureExtractor<F, I> getExtractor()
+	{
+		return this.extractor;
+	}
+
+	/**
+	 * Creates the classifier reads are answered with from a copy of the
+	 * counts. Override this to score with a different classifier, such as a
+	 * SimpleNaiveBayesClassifier.
+	 * @param counts The counts of the snapshot, no longer changed.
+	 * @return The classifier of the snapshot
+	 */
+	protected NaiveClassifier<I, F, C> createSnapshot(final FeatureCountTable<F, C> counts)
+	{
+		return new SimpleNaiveClassifier<I, F, C>(this.extractor, counts);
+	}
+
+	/**
+	 * Gets how long a snapshot is read from before a read publishes a newer
+	 * one.
+	 * @return The interval in nanoseconds.
+	 */
+	public long getPublishInterval()
+	{
+		return this.publishInterval;
+	}
+
+	/**
+	 * Sets how long a snapshot is read from before a read publishes a newer
+	 * one, 100 milliseconds by default. At zero any training is published by
+	 * the next read, at the cost of copying the counts for nearly every read.
+	 * publish may always be called directly.
+	 * @param publishInterval The interval in nanoseconds.
+	 */
+	public void setPublishInterval(final long publishInterval)
+	{
+		if( publishInterval < 0 )
+			throw new IllegalArgumentException("publishInterval can not be negative");
+		this.publishInterval = publishInterval;
+	}
+
+	/**
+	 * Increases the association of the given item with the given category.
+	 * May be called from any number of threads at once.
+	 *
+	 * @param item The item
+	 * @param category The category to associate with the item
+	 */
+	@Override
+	public void train(final I item, final C category)
+	{
+		final Set<F> features = this.getTrainingFeatures(item);
+		final Epoch<F, C> epoch = this.enterEpoch();
+		try
+		{
+			// interned within the epoch so a snapshot never holds a category
+			// none of whose items it holds
+			final int categoryId = this.internCategory(category);
+			final FeatureCountTable<F, C>[] stripes = epoch.stripes;
+			final int mask = stripes.length - 1;
+			for(final F feature : features)
+			{
+				final FeatureCountTable<F, C> stripe = stripes[stripeHash(feature) & mask];
+				synchronized( stripe )
+				{
+					stripe.incrementFeature(stripe.internFeature(feature), categoryId);
+				}
+			}
+			epoch.categoryTotals[categoryId].increment();
+			this.trained.increment();
+		}
+		finally
+		{
+			epoch.training.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts the calling thread in to the epoch training currently goes into.
+	 * The epoch is checked again after counting in, so a publish switching
+	 * epochs either sees the thread counted or the thread sees the switch.
+	 * @return The epoch the thread was counted in to
+	 */
+	private Epoch<F, C> enterEpoch()
+	{
+		while( true )
+		{
+			final int index = this.epochIndex;
+			final Epoch<F, C> epoch = this.epochs[index];
+			epoch.training.incrementAndGet();
+			if( this.epochIndex == index )
+				return epoch;
+			epoch.training.decrementAndGet();
+		}
+	}
+
+	private int internCategory(final C category)
+	{
+		final Object key = (category == null ? NULL_CATEGORY : category);
+		Integer categoryId = this.categoryIds.get(key);
+		if( categoryId == null )
+		{
+			synchronized( this.categoryIds )
+			{
+				categoryId = this.categoryIds.get(key);
+				if( categoryId == null )
+				{
+					categoryId = this.categories.length;
+					final Object[] newCategories = new Object[categoryId + 1];
+					System.arraycopy(this.categories, 0, newCategories, 0, categoryId);
+					newCategories[categoryId] = category;
+					for(final Epoch<F, C> epoch : this.epochs)
+					{
+						final LongAdder[] newTotals = new LongAdder[categoryId + 1];
+						System.arraycopy(epoch.categoryTotals, 0, newTotals, 0, categoryId);
+						newTotals[categoryId] = new LongAdder();
+						epoch.categoryTotals = newTotals;
+					}
+					this.categories = newCategories;
+					// published last, so a thread finding the id also finds its total
+					this.categoryIds.put(key, categoryId);
+				}
+			}
+		}
+		return categoryId;
+	}
+
+	private Set<F> getTrainingFeatures(final I item)
+	{
+		if( this.extractor instanceof TrainingFeatureExtractor )
+			return ((TrainingFeatureExtractor<F, I>) this.extractor).getTrainingFeatures(item);
+		return this.extractor.getFeatures(item);
+	}
+
+	private static int stripeHash(final Object feature)
+	{
+		final int hash = (feature == null ? 0 : feature.hashCode() * 0x9E3779B9);
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Publishes a snapshot of everything trained so far, unless nothing was
+	 * trained since the last one. Training carries on while the counts are
+	 * copied, only the items being trained when publish is called are waited
+	 * for.
+	 */
+	public void publish()
+	{
+		this.publishLock.lock();
+		try
+		{
+			this.publishLocked();
+		}
+		finally
+		{
+			this.publishLock.unlock();
+		}
+	}
+
+	private void publishLocked()
+	{
+		final Snapshot<I, F, C> previous = this.snapshot;
+		final long trainedNow = this.trained.sum();
+		if( (previous != null) && (trainedNow == previous.trained) )
+			return;
+
+		// switch training to the other epoch and wait for the old one to empty
+		final int oldIndex = this.epochIndex;
+		final Epoch<F, C> oldEpoch = this.epochs[oldIndex];
+		this.epochIndex = oldIndex ^ 1;
+		while( oldEpoch.training.get() != 0 )
+			Thread.yield();
+
+		final FeatureCountTable<F, C> counts = new FeatureCountTable<F, C>();
+		// a category interned by an item of the new epoch has no items in
+		// this snapshot yet and is left out of it
+		final Object[] currentCategories = this.categories;
+		final LongAdder[] oldTotals = oldEpoch.categoryTotals;
+		final int[] categoryMap = new int[currentCategories.length];
+		for(int categoryId = 0; categoryId < currentCategories.length; categoryId++)
+		{
+			final C category = ConcurrentNaiveClassifier.<C>getCategory(currentCategories, categoryId);
+			long total = oldTotals[categoryId].sumThenReset();
+			final int previousId = (previous == null ? -1 : previous.counts.getCategoryId(category));
+			if( previousId >= 0 )
+				total += previous.counts.getCategoryTotal(previousId);
+			if( total > Integer.MAX_VALUE )
+				throw new IllegalStateException("more items were trained in a category than a snapshot can count");
+			if( total == 0 )
+			{
+				categoryMap[categoryId] = -1;
+				continue;
+			}
+			categoryMap[categoryId] = counts.internCategory(category);
+			counts.incrementCategory(categoryMap[categoryId], (int) total);
+		}
+
+		if( previous != null )
+		{
+			final int[] previousMap = new int[previous.counts.getCategorySize()];
+			for(int previousId = 0; previousId < previousMap.length; previousId++)
+				previousMap[previousId] = counts.getCategoryId(previous.counts.getCategory(previousId));
+			addCounts(counts, previous.counts, previousMap);
+		}
+		// no thread trains into the old epoch until the next publish
+		for(int stripeIndex = 0; stripeIndex < oldEpoch.stripes.length; stripeIndex++)
+		{
+			addCounts(counts, oldEpoch.stripes[stripeIndex], categoryMap);
+			oldEpoch.stripes[stripeIndex] = new FeatureCountTable<F, C>();
+		}
+
+		this.snapshot = new Snapshot<I, F, C>(trainedNow, counts, this.createSnapshot(counts));
+	}
+
+	private static <F, C> void addCounts(final FeatureCountTable<F, C> counts, final FeatureCountTable<F, C> source, final int[] categoryMap)
+	{
+		for(int sourceFeatureId = 0; sourceFeatureId < source.getFeatureSize(); sourceFeatureId++)
+		{
+			final int featureId = counts.internFeature(source.getFeature(sourceFeatureId));
+			for(int sourceCategoryId = 0; sourceCategoryId < categoryMap.length; sourceCategoryId++)
+			{
+				final int count = source.getCount(sourceFeatureId, sourceCategoryId);
+				if( count > 0 )
+					counts.incrementFeature(featureId, categoryMap[sourceCategoryId], count);
+			}
+		}
+	}
+
+	/**
+	 * Gets the snapshot reads are currently answered with, publishing a newer
+	 * one first if training happened and the publish interval has passed. A
+	 * read never waits for a publish another thread is already doing, it is
+	 * answered with the current snapshot instead.
+	 * @return The classifier of the current snapshot
+	 */
+	public NaiveClassifier<I, F, C> getSnapshot()
+	{
+		final Snapshot<I, F, C> current = this.snapshot;
+		// the first snapshot is taken lazily so createSnapshot is never called
+		// before a subclass is constructed
+		if( current == null )
+			this.publish();
+		else if( this.isStale(current) && this.publishLock.tryLock() )
+		{
+			try
+			{
+				// another thread may have published while the lock was free
+				if( this.isStale(this.snapshot) )
+					this.publishLocked();
+			}
+			finally
+			{
+				this.publishLock.unlock();
+			}
+		}
+		return this.snapshot.classifier;
+	}
+
+	private boolean isStale(final Snapshot<I, F, C> current)
+	{
+		return (System.nanoTime() - current.publishedNanos >= this.publishInterval) && (this.trained.sum() != current.trained);
+	}
+
+	@Override
+	public C classification(final I item)
+	{
+		return this.getSnapshot().classification(item);
+	}
+
+	@Override
+	public Map<C, Double> getCategoryProbabilities(final I item)
+	{
+		return this.getSnapshot().getCategoryProbabilities(item);
+	}
+
+	@Override
+	public double classificationProbability(final I item, final C category)
+	{
+		return this.getSnapshot().classificationProbability(item, category);
+	}
+
+	@Override
+	public Set<C> getCategories()
+	{
+		return this.getSnapshot().getCategories();
+	}
+
+	@Override
+	public C featureClassification(final F feature)
+	{
+		return this.getSnapshot().featureClassification(feature);
+	}
+
+	@Override
+	public C featureClassificationWeighted(final F feature)
+	{
+		return this.getSnapshot().featureClassificationWeighted(feature);
+	}
+
+	@Override
+	public double featureClassificationProbability(final F feature, final C category)
+	{
+		return this.getSnapshot().featureClassificationProbability(feature, category);
+	}
+
+	@Override
+	public double featureClassificationWeightedProbability(final F feature, final C category)
+	{
+		return this.getSnapshot().featureClassificationWeightedProbability(feature, category);
+	}
+}
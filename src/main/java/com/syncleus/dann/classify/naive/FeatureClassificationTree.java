@@ -25,7 +25,10 @@ import java.util.HashMap;
  * @param <F> The type of feature to classify
  * @param <C> The type of category to classify the feature into
  * @author Jeffrey Phillips Freeman
+ * @deprecated Naive classifiers keep their counts in a {@link FeatureCountTable}, which interns the features and
+ * categories and holds the counts in primitive arrays.
  */
+@Deprecated
 public class FeatureClassificationTree<F, C> extends HashMap<F, ClassificationProbabilities<C>>
 {
 	private static final long serialVersionUID = 4301941319736756428L;
@@ -0,0 +1,255 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Counts how often each feature was trained into each category. Features and
+ * categories are interned to dense int ids and the counts of a feature are
+ * kept in a primitive row indexed by category id, only as long as the largest
+ * category the feature was counted in.
+ *
+ * @param <F> The type of feature
+ * @param <C> The type of category
+ */
+public class FeatureCountTable<F, C>
+{
+	private static final int INITIAL_FEATURES = 16;
+	private static final int INITIAL_CATEGORIES = 4;
+	private final Interner<F> features = new Interner<F>();
+	private final Interner<C> categories = new Interner<C>();
+	private int[][] featureCounts = new int[INITIAL_FEATURES][];
+	private int[] featureTotals = new int[INITIAL_FEATURES];
+	private int[] categoryTotals = new int[INITIAL_CATEGORIES];
+	private int total;
+	private final Set<C> categorySet = new CategorySet();
+
+	/**
+	 * Gets the id of a feature.
+	 * @param feature The feature to look up
+	 * @return The id of the feature, -1 if it was never interned
+	 */
+	public int getFeatureId(final F feature)
+	{
+		return this.features.getId(feature);
+	}
+
+	/**
+	 * Gets the id of a category.
+	 * @param category The category to look up
+	 * @return The id of the category, -1 if it was never interned
+	 */
+	public int getCategoryId(final C category)
+	{
+		return this.categories.getId(category);
+	}
+
+	public int internFeature(final F feature)
+	{
+		final int featureId = this.features.intern(feature);
+		if( featureId == this.featureTotals.length )
+		{
+			this.featureCounts = Arrays.copyOf(this.featureCounts, featureId * 2);
+			this.featureTotals = Arrays.copyOf(this.featureTotals, featureId * 2);
+		}
+		return featureId;
+	}
+
+	public int internCategory(final C category)
+	{
+		final int categoryId = this.categories.intern(category);
+		if( categoryId == this.categoryTotals.length )
+			this.categoryTotals = Arrays.copyOf(this.categoryTotals, categoryId * 2);
+		return categoryId;
+	}
+
+	/**
+	 * Gets the number of features interned. Feature ids are below this.
+	 * @return The number of features
+	 */
+	public int getFeatureSize()
+	{
+		return this.features.size();
+	}
+
+	/**
+	 * Gets the number of categories interned. Category ids are below this.
+	 * @return The number of categories
+	 */
+	public int getCategorySize()
+	{
+		return this.categories.size();
+	}
+
+	public F getFeature(final int featureId)
+	{
+		return this.features.get(featureId);
+	}
+
+	public C getCategory(final int categoryId)
+	{
+		return this.categories.get(categoryId);
+	}
+
+	/**
+	 * Gets an unmodifiable view of the categories in the order of their ids.
+	 * @return The categories
+	 */
+	public Set<C> getCategories()
+	{
+		return this.categorySet;
+	}
+
+	/**
+	 * Counts a feature once more in a category.
+	 * @param featureId The id of the feature
+	 * @param categoryId The id of the category
+	 */
+	public void incrementFeature(final int featureId, final int categoryId)
+	{
+		this.incrementFeature(featureId, categoryId, 1);
+	}
+
+	/**
+	 * Counts a feature more in a category.
+	 * @param featureId The id of the feature
+	 * @param categoryId The id of the category
+	 * @param count How many more times the feature was seen
+	 */
+	public void incrementFeature(final int featureId, final int categoryId, final int count)
+	{
+		int[] counts = this.featureCounts[featureId];
+		if( counts == null )
+			counts = this.featureCounts[featureId] = new int[categoryId + 1];
+		else if( counts.length <= categoryId )
+			counts = this.featureCounts[featureId] = Arrays.copyOf(counts, Math.max(categoryId + 1, counts.length * 2));
+		counts[categoryId] += count;
+		this.featureTotals[featureId] += count;
+	}
+
+	/**
+	 * Counts an item once more in a category.
+	 * @param categoryId The id of the category
+	 */
+	public void incrementCategory(final int categoryId)
+	{
+		this.incrementCategory(categoryId, 1);
+	}
+
+	/**
+	 * Counts more items in a category.
+	 * @param categoryId The id of the category
+	 * @param count How many more items were seen
+	 */
+	public void incrementCategory(final int categoryId, final int count)
+	{
+		this.categoryTotals[categoryId] += count;
+		this.total += count;
+	}
+
+	/**
+	 * Gets how often a feature was counted in a category.
+	 * @param featureId The id of the feature
+	 * @param categoryId The id of the category
+	 * @return The count
+	 */
+	public int getCount(final int featureId, final int categoryId)
+	{
+		final int[] counts = this.featureCounts[featureId];
+		return ((counts == null) || (categoryId >= counts.length) ? 0 : counts[categoryId]);
+	}
+
+	/**
+	 * Gets how often a feature was counted in any category.
+	 * @param featureId The id of the feature
+	 * @return The count
+	 */
+	public int getFeatureTotal(final int featureId)
+	{
+		return this.featureTotals[featureId];
+	}
+
+	/**
+	 * Gets how many items were counted in a category.
+	 * @param categoryId The id of the category
+	 * @return The count
+	 */
+	public int getCategoryTotal(final int categoryId)
+	{
+		return this.categoryTotals[categoryId];
+	}
+
+	/**
+	 * Gets how many items were counted in any category.
+	 * @return The count
+	 */
+	public int getTotal()
+	{
+		return this.total;
+	}
+
+	private final class CategorySet extends AbstractSet<C>
+	{
+		@Override
+		public boolean contains(final Object category)
+		{
+			return categories.getId(category) >= 0;
+		}
+
+		@Override
+		public int size()
+		{
+			return categories.size();
+		}
+
+		@Override
+		public Iterator<C> iterator()
+		{
+			return new Iterator<C>()
+			{
+				private int nextId;
+
+				@Override
+				public boolean hasNext()
+				{
+					return this.nextId < categories.size();
+				}
+
+				@Override
+				public C next()
+				{
+					if( !this.hasNext() )
+						throw new NoSuchElementException();
+					return categories.get(this.nextId++);
+				}
+
+				@Override
+				public void remove()
+				{
+					throw new UnsupportedOperationException("categories can not be removed");
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.Arrays;
+
+/**
+ * A FeatureCountTable whose features are hashed buckets, such as those of a
+ * HashingWordExtractor. A bucket is its own feature id, so no dictionary of
+ * features is kept and the memory of the table is bounded by its bucket count
+ * and the number of categories. A classifier counts hashed features when it
+ * is created with an extractor and a table of the same bucket count:
+ *
+ * <pre>
+ * HashingWordExtractor extractor = new HashingWordExtractor(1 &lt;&lt; 20);
+ * SimpleNaiveBayesClassifier&lt;String, Integer, C&gt; classifier =
+ *     new SimpleNaiveBayesClassifier&lt;String, Integer, C&gt;(extractor,
+ *         new HashedFeatureCountTable&lt;C&gt;(extractor.getBucketCount()));
+ * </pre>
+ *
+ * @param <C> The type of category
+ * @see HashingWordExtractor
+ */
+public class HashedFeatureCountTable<C> extends FeatureCountTable<Integer, C>
+{
+	private final int[][] bucketCounts;
+	private final int[] bucketTotals;
+
+	/**
+	 * Creates an empty table.
+	 * @param bucketCount The number of buckets features are hashed into
+	 */
+	public HashedFeatureCountTable(final int bucketCount)
+	{
+		if( bucketCount < 1 )
+			throw new IllegalArgumentException("bucketCount must be positive");
+		this.bucketCounts = new int[bucketCount][];
+		this.bucketTotals = new int[bucketCount];
+	}
+
+	/**
+	 * Gets the id of a bucket, which is the bucket itself.
+	 * @param feature The bucket to look up
+	 * @return The bucket, -1 if it is null or out of range
+	 */
+	@Override
+	public int getFeatureId(final Integer feature)
+	{
+		if( (feature == null) || (feature < 0) || (feature >= this.bucketTotals.length) )
+			return -1;
+		return feature;
+	}
+
+	@Override
+	public int internFeature(final Integer feature)
+	{
+		final int featureId = this.getFeatureId(feature);
+		if( featureId < 0 )
+			throw new IllegalArgumentException("feature is not a bucket of this table");
+		return featureId;
+	}
+
+	/**
+	 * Gets the number of buckets, every one of which is a feature id.
+	 * @return The number of buckets
+	 */
+	@Override
+	public int getFeatureSize()
+	{
+		return this.bucketTotals.length;
+	}
+
+	@Override
+	public Integer getFeature(final int featureId)
+	{
+		if( (featureId < 0) || (featureId >= this.bucketTotals.length) )
+			throw new IndexOutOfBoundsException("featureId is not a bucket of this table");
+		return featureId;
+	}
+
+	@Override
+	public void incrementFeature(final int featureId, final int categoryId, final int count)
+	{
+		int[] counts = this.bucketCounts[featureId];
+		if( counts == null )
+			counts = this.bucketCounts[featureId] = new int[categoryId + 1];
+		else if( counts.length <= categoryId )
+			counts = this.bucketCounts[featureId] = Arrays.copyOf(counts, Math.max(categoryId + 1, counts.length * 2));
+		counts[categoryId] += count;
+		this.bucketTotals[featureId] += count;
+	}
+
+	@Override
+	public int getCount(final int featureId, final int categoryId)
+	{
+		final int[] counts = this.bucketCounts[featureId];
+		return ((counts == null) || (categoryId >= counts.length) ? 0 : counts[categoryId]);
+	}
+
+	@Override
+	public int getFeatureTotal(final int featureId)
+	{
+		return this.bucketTotals[featureId];
+	}
+
+	/**
+	 * Gets how many buckets were counted in any category.
+	 * @return The number of trained buckets
+	 */
+	public int getTrainedBuckets()
+	{
+		int trained = 0;
+		for(final int total : this.bucketTotals)
+			if( total > 0 )
+				trained++;
+		return trained;
+	}
+}
@@ -0,0 +1,311 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import com.syncleus.dann.dataprocessing.language.parsing.BasicWordParser;
+import com.syncleus.dann.dataprocessing.language.parsing.StreamingWordParser;
+import com.syncleus.dann.dataprocessing.language.parsing.WordListener;
+
+/**
+ * Extracts the words of a String as hashed buckets rather than as Strings.
+ * Each word is hashed with MurmurHash3 as the parser finds it, so no String is
+ * made for it, and the features of an item are the distinct buckets of its
+ * words. Paired with a HashedFeatureCountTable of the same bucket count the
+ * memory of a classifier is bounded by the bucket count however many
+ * distinct words it is trained with.
+ *
+ * <p>Words which hash to the same bucket are counted as one feature. To tune
+ * the bucket count the extractor remembers a fingerprint of the first word
+ * hashed into each bucket and marks the bucket as collided once a word with a
+ * different fingerprint is hashed into it. Only the words of training items
+ * are recorded, so classifying items does not change the statistics.</p>
+ *
+ * @see HashedFeatureCountTable
+ */
+public class HashingWordExtractor implements TrainingFeatureExtractor<Integer, String>
+{
+	private static final int EMPTY = 0;
+	//fingerprints are always odd so they can not be mistaken for either marker
+	private static final int COLLIDED = 2;
+	private static final int INITIAL_BUCKETS = 16;
+	private final StreamingWordParser parser;
+	private final int bucketCount;
+	private final int seed;
+	private final AtomicIntegerArray fingerprints;
+
+	/**
+	 * Creates an extractor parsing words with a BasicWordParser.
+	 * @param bucketCount The number of buckets words are hashed into
+	 */
+	public HashingWordExtractor(final int bucketCount)
+	{
+		this(new BasicWordParser(), bucketCount);
+	}
+
+	/**
+	 * Creates an extractor parsing words with the given parser.
+	 * @param parser The parser which finds the words
+	 * @param bucketCount The number of buckets words are hashed into
+	 */
+	public HashingWordExtractor(final StreamingWordParser parser, final int bucketCount)
+	{
+		this(parser, bucketCount, 0);
+	}
+
+	/**
+	 * Creates an extractor parsing words with the given parser.
+	 * @param parser The parser which finds the words
+	 * @param bucketCount The number of buckets words are hashed into
+	 * @param seed The seed of the hash
+	 */
+	public HashingWordExtractor(final StreamingWordParser parser, final int bucketCount, final int seed)
+	{
+		if( parser == null )
+			throw new IllegalArgumentException("parser can not be null");
+		if( bucketCount < 1 )
+			throw new IllegalArgumentException("bucketCount must be positive");
+		this.parser = parser;
+		this.bucketCount = bucketCount;
+		this.seed = seed;
+		this.fingerprints = new AtomicIntegerArray(bucketCount);
+	}
+
+	/**
+	 * Gets the distinct buckets the words of an item hash to. The set is
+	 * unmodifiable and iterates the buckets in ascending order.
+	 * @param item The item
+	 * @return The buckets of the item
+	 */
+	@Override
+	public Set<Integer> getFeatures(final String item)
+	{
+		final BucketCollector collector = new BucketCollector(false);
+		this.parser.parse(item, collector);
+		return collector.toSet();
+	}
+
+	/**
+	 * Gets the distinct buckets the words of a training item hash to, and
+	 * records its words in the collision statistics.
+	 * @param item The item
+	 * @return The buckets of the item
+	 */
+	@Override
+	public Set<Integer> getTrainingFeatures(final String item)
+	{
+		final BucketCollector collector = new BucketCollector(true);
+		this.parser.parse(item, collector);
+		return collector.toSet();
+	}
+
+	/**
+	 * Gets the bucket a word hashes to. The word is not recorded in the
+	 * collision statistics.
+	 * @param word The word, as the parser would produce it
+	 * @return The bucket of the word
+	 */
+	public int getBucket(final CharSequence word)
+	{
+		return this.bucket(MurmurHash.hash(word, this.seed));
+	}
+
+	private int bucket(final int hash)
+	{
+		return (int) ((hash & 0xFFFFFFFFL) % this.bucketCount);
+	}
+
+	private void record(final int bucket, final int hash)
+	{
+		final int fingerprint = hash | 1;
+		final int observed = this.fingerprints.get(bucket);
+		if( (observed == fingerprint) || (observed == COLLIDED) )
+			return;
+		if( (observed == EMPTY) && this.fingerprints.compareAndSet(bucket, EMPTY, fingerprint) )
+			return;
+		if( this.fingerprints.get(bucket) != fingerprint )
+			this.fingerprints.set(bucket, COLLIDED);
+	}
+
+	public StreamingWordParser getParser()
+	{
+		return this.parser;
+	}
+
+	public int getBucketCount()
+	{
+		return this.bucketCount;
+	}
+
+	public int getSeed()
+	{
+		return this.seed;
+	}
+
+	/**
+	 * Gets how many buckets any word was hashed into.
+	 * @return The number of occupied buckets
+	 */
+	public int getOccupiedBuckets()
+	{
+		int occupied = 0;
+		for(int bucket = 0; bucket < this.bucketCount; bucket++)
+			if( this.fingerprints.get(bucket) != EMPTY )
+				occupied++;
+		return occupied;
+	}
+
+	/**
+	 * Gets how many buckets more than one distinct word was hashed into. Words
+	 * whose full hashes are equal are not told apart, so this may slightly
+	 * undercount.
+	 * @return The number of collided buckets
+	 */
+	public int getCollidedBuckets()
+	{
+		int collided = 0;
+		for(int bucket = 0; bucket < this.bucketCount; bucket++)
+			if( this.fingerprints.get(bucket) == COLLIDED )
+				collided++;
+		return collided;
+	}
+
+	/**
+	 * Estimates how many distinct words were hashed from the fraction of
+	 * buckets left empty, by linear counting. The estimate is accurate while
+	 * a fair part of the buckets is empty.
+	 * @return The estimated number of distinct words, positive infinity if
+	 *         every bucket is occupied
+	 */
+	public double getEstimatedWordCount()
+	{
+		final int empty = this.bucketCount - this.getOccupiedBuckets();
+		if( empty == 0 )
+			return Double.POSITIVE_INFINITY;
+		return this.bucketCount * Math.log(((double) this.bucketCount) / empty);
+	}
+
+	/**
+	 * Forgets the words recorded for the collision statistics.
+	 */
+	public void resetStatistics()
+	{
+		for(int bucket = 0; bucket < this.bucketCount; bucket++)
+			this.fingerprints.set(bucket, EMPTY);
+	}
+
+	/**
+	 * Collects the buckets of the words of one item.
+	 */
+	private final class BucketCollector implements WordListener
+	{
+		private final boolean recording;
+		private int[] buckets = new int[INITIAL_BUCKETS];
+		private int size;
+
+		BucketCollector(final boolean recording)
+		{
+			this.recording = recording;
+		}
+
+		@Override
+		public boolean wordFound(final CharSequence word)
+		{
+			final int hash = MurmurHash.hash(word, seed);
+			final int wordBucket = bucket(hash);
+			if( this.recording )
+				record(wordBucket, hash);
+			if( this.size == this.buckets.length )
+				this.buckets = Arrays.copyOf(this.buckets, this.size * 2);
+			this.buckets[this.size++] = wordBucket;
+			return true;
+		}
+
+		BucketSet toSet()
+		{
+			Arrays.sort(this.buckets, 0, this.size);
+			int distinct = 0;
+			for(int index = 0; index < this.size; index++)
+				if( (distinct == 0) || (this.buckets[distinct - 1] != this.buckets[index]) )
+					this.buckets[distinct++] = this.buckets[index];
+			return new BucketSet(this.buckets, distinct);
+		}
+	}
+
+	/**
+	 * An unmodifiable set of buckets held in a sorted primitive array.
+	 */
+	private static final class BucketSet extends AbstractSet<Integer>
+	{
+		private final int[] buckets;
+		private final int size;
+
+		BucketSet(final int[] buckets, final int size)
+		{
+			this.buckets = buckets;
+			this.size = size;
+		}
+
+		@Override
+		public boolean contains(final Object bucket)
+		{
+			return (bucket instanceof Integer) && (Arrays.binarySearch(this.buckets, 0, this.size, (Integer) bucket) >= 0);
+		}
+
+		@Override
+		public int size()
+		{
+			return this.size;
+		}
+
+		@Override
+		public Iterator<Integer> iterator()
+		{
+			return new Iterator<Integer>()
+			{
+				private int nextIndex;
+
+				@Override
+				public boolean hasNext()
+				{
+					return this.nextIndex < size;
+				}
+
+				@Override
+				public Integer next()
+				{
+					if( !this.hasNext() )
+						throw new NoSuchElementException();
+					return buckets[this.nextIndex++];
+				}
+
+				@Override
+				public void remove()
+				{
+					throw new UnsupportedOperationException("buckets can not be removed");
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.Arrays;
+
+/**
+ * Numbers distinct elements densely from zero in the order they are first
+ * interned. The ids are found through an open addressing table of the
+ * elements, so no boxed value is kept per element.
+ *
+ * @param <T> The type of element interned
+ */
+final class Interner<T>
+{
+	private static final Object NULL_KEY = new Object();
+	private static final int INITIAL_SLOTS = 16;
+	private Object[] slotKeys = new Object[INITIAL_SLOTS];
+	private int[] slotIds = new int[INITIAL_SLOTS];
+	private Object[] elements = new Object[INITIAL_SLOTS / 2];
+	private int size;
+
+	/**
+	 * Gets the id of an element.
+	 * @param element The element to look up, may be null
+	 * @return The id of the element, -1 if it was never interned
+	 */
+	int getId(final Object element)
+	{
+		final Object key = (element == null ? NULL_KEY : element);
+		final int mask = this.slotKeys.length - 1;
+		for(int slot = hash(key) & mask; this.slotKeys[slot] != null; slot = (slot + 1) & mask)
+			if( this.slotKeys[slot].equals(key) )
+				return this.slotIds[slot];
+		return -1;
+	}
+
+	/**
+	 * Gets the id of an element, giving it the next id if it is new.
+	 * @param element The element to intern, may be null
+	 * @return The id of the element
+	 */
+	int intern(final T element)
+	{
+		final Object key = (element == null ? NULL_KEY : element);
+		final int mask = this.slotKeys.length - 1;
+		int slot = hash(key) & mask;
+		for(; this.slotKeys[slot] != null; slot = (slot + 1) & mask)
+			if( this.slotKeys[slot].equals(key) )
+				return this.slotIds[slot];
+
+		if( this.size == this.elements.length )
+			this.elements = Arrays.copyOf(this.elements, this.size * 2);
+		final int id = this.size++;
+		this.elements[id] = element;
+		this.slotKeys[slot] = key;
+		this.slotIds[slot] = id;
+		//keep the table at most half full so probes stay short
+		if( this.size * 2 > this.slotKeys.length )
+			this.rehash(this.slotKeys.length * 2);
+		return id;
+	}
+
+	/**
+	 * Gets the element with the given id.
+	 * @param id The id of the element
+	 * @return The element
+	 */
+	T get(final int id)
+	{
+		if( (id < 0) || (id >= this.size) )
+			throw new IllegalArgumentException("id is not an interned element");
+		//only elements passed to intern as a T are stored
+		@SuppressWarnings("unchecked")
+		final T element = (T) this.elements[id];
+		return element;
+	}
+
+	/**
+	 * Gets the number of elements interned, which is also the next id.
+	 * @return The number of elements interned
+	 */
+	int size()
+	{
+		return this.size;
+	}
+
+	private void rehash(final int slots)
+	{
+		this.slotKeys = new Object[slots];
+		this.slotIds = new int[slots];
+		final int mask = slots - 1;
+		for(int id = 0; id < this.size; id++)
+		{
+			final Object key = (this.elements[id] == null ? NULL_KEY : this.elements[id]);
+			int slot = hash(key) & mask;
+			while( this.slotKeys[slot] != null )
+				slot = (slot + 1) & mask;
+			this.slotKeys[slot] = key;
+			this.slotIds[slot] = id;
+		}
+	}
+
+	private static int hash(final Object key)
+	{
+		//spread the bits so keys with similar hashes do not form long runs
+		final int hash = key.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
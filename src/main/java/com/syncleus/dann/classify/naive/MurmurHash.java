@@ -0,0 +1,73 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+/**
+ * The 32 bit x86 variant of Austin Appleby's MurmurHash3. Characters are
+ * hashed as their UTF-16 code units in little endian order, two to a block,
+ * so the hash of a CharSequence is the same as that of its UTF-16LE bytes and
+ * no String or byte array has to be made to hash a slice of a buffer.
+ */
+final class MurmurHash
+{
+	private static final int C1 = 0xcc9e2d51;
+	private static final int C2 = 0x1b873593;
+
+	private MurmurHash()
+	{
+		throw new IllegalStateException("This is an utility class, it can not be instantiated");
+	}
+
+	/**
+	 * Hashes the characters of a sequence.
+	 * @param chars The characters to hash
+	 * @param seed The seed of the hash
+	 * @return The hash
+	 */
+	static int hash(final CharSequence chars, final int seed)
+	{
+		final int length = chars.length();
+		int hash = seed;
+		for(int index = 1; index < length; index += 2)
+			hash = mixHash(hash, mixBlock(chars.charAt(index - 1) | (chars.charAt(index) << 16)));
+		if( (length & 1) == 1 )
+			hash ^= mixBlock(chars.charAt(length - 1));
+		return finish(hash, length * 2);
+	}
+
+	private static int mixBlock(final int block)
+	{
+		return Integer.rotateLeft(block * C1, 15) * C2;
+	}
+
+	private static int mixHash(final int hash, final int block)
+	{
+		return (Integer.rotateLeft(hash ^ block, 13) * 5) + 0xe6546b64;
+	}
+
+	private static int finish(final int hash, final int byteLength)
+	{
+		int mixed = hash ^ byteLength;
+		mixed ^= mixed >>> 16;
+		mixed *= 0x85ebca6b;
+		mixed ^= mixed >>> 13;
+		mixed *= 0xc2b2ae35;
+		return mixed ^ (mixed >>> 16);
+	}
+}
@@ -22,6 +22,8 @@ import java.util.*;
 
 /**
  * A SimpleNaiveClassifier is a simple implementation of a TrainableNaiveClassifier.
+ * The training counts are kept in a FeatureCountTable, so items are scored by
+ * looping over primitive counts indexed by category id.
  *
  * @param <I> The type of item to classify
  * @param <F> The type of features the item has
@@ -30,8 +32,8 @@ import java.util.*;
  */
 public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<I, F, C>
 {
-	private final ClassificationProbabilities<C> overallCategoryProbability = new ClassificationProbabilities<C>();
-	private final FeatureClassificationTree<F, C> featureTree = new FeatureClassificationTree<F, C>();
+	private static final double ADDITIONAL_PROOF = 0.5; //UNKNOWN USE
+	private final FeatureCountTable<F, C> counts;
 	private final FeatureExtractor<F, I> extractor;
 
 	/**
@@ -40,7 +42,21 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	 */
 	public SimpleNaiveClassifier(final FeatureExtractor<F, I> featureExtractor)
 	{
+		this(featureExtractor, new FeatureCountTable<F, C>());
+	}
+
+	/**
+	 * Creates a SimpleNaiveClassifier over existing training counts, which it goes on
+	 * adding to when trained.
+	 * @param featureExtractor The FeatureExtractor to use.
+	 * @param counts The training counts.
+	 */
+	public SimpleNaiveClassifier(final FeatureExtractor<F, I> featureExtractor, final FeatureCountTable<F, C> counts)
+	{
+		if( counts == null )
+			throw new IllegalArgumentException("counts can not be null");
 		this.extractor = featureExtractor;
+		this.counts = counts;
 	}
 
 	/**
@@ -52,6 +68,15 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 		return this.extractor;
 	}
 
+	/**
+	 * Gets the table of training counts.
+	 * @return The training counts
+	 */
+	public FeatureCountTable<F, C> getCounts()
+	{
+		return this.counts;
+	}
+
 	/**
 	 * Gets the most likely classification of the given item.
 	 *
@@ -62,25 +87,23 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	public C classification(final I item)
 	{
 		final Set<F> features = this.extractor.getFeatures(item);
-		final Map<C, Double> categoryProbabilities = new HashMap<C, Double>();
-		C topCategory = null;
-		double topProbability = 0.0;
+		final int categorySize = this.counts.getCategorySize();
+		//the last slot counts the features which favor no category
+		final int[] votes = new int[categorySize + 1];
+		int topCategoryId = -1;
+		int topVotes = 0;
 		for(final F feature : features)
 		{
-			final C currentCategory = this.featureClassification(feature);
-			Double newProbability = categoryProbabilities.get(currentCategory);
-			if( newProbability == null )
-				newProbability = 1.0;
-			else
-				newProbability++;
-			categoryProbabilities.put(currentCategory, newProbability);
-			if( newProbability >= topProbability )
+			final int categoryId = this.featureCategoryId(this.counts.getFeatureId(feature));
+			final int slot = (categoryId < 0 ? categorySize : categoryId);
+			votes[slot]++;
+			if( votes[slot] >= topVotes )
 			{
-				topProbability = newProbability;
-				topCategory = currentCategory;
+				topVotes = votes[slot];
+				topCategoryId = categoryId;
 			}
 		}
-		return topCategory;
+		return (topCategoryId < 0 ? null : this.counts.getCategory(topCategoryId));
 	}
 
 	/**
@@ -93,17 +116,21 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	public Map<C, Double> getCategoryProbabilities(final I item)
 	{
 		final Set<F> features = this.extractor.getFeatures(item);
-		final Map<C, Double> categoryProbabilities = new HashMap<C, Double>();
+		final int categorySize = this.counts.getCategorySize();
+		//the last slot counts the features which favor no category
+		final int[] votes = new int[categorySize + 1];
 		for(final F feature : features)
 		{
-			final C currentCategory = this.featureClassification(feature);
-			Double newProbability = categoryProbabilities.get(currentCategory);
-			if( newProbability == null )
-				newProbability = 1.0;
-			else
-				newProbability++;
-			categoryProbabilities.put(currentCategory, newProbability);
+			final int categoryId = this.featureCategoryId(this.counts.getFeatureId(feature));
+			votes[(categoryId < 0 ? categorySize : categoryId)]++;
 		}
+
+		final Map<C, Double> categoryProbabilities = new HashMap<C, Double>();
+		for(int categoryId = 0; categoryId < categorySize; categoryId++)
+			if( votes[categoryId] > 0 )
+				categoryProbabilities.put(this.counts.getCategory(categoryId), (double) votes[categoryId]);
+		if( votes[categorySize] > 0 )
+			categoryProbabilities.put(null, (double) votes[categorySize]);
 		return categoryProbabilities;
 	}
 
@@ -164,6 +191,38 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 		return topCategory;
 	}
 
+	/**
+	 * Gets the id of the category most associated with a feature, as
+	 * featureClassification does for features the extractor produced.
+	 * @param featureId The id of the feature, -1 if it is unknown
+	 * @return The id of the category, -1 if no category is associated
+	 */
+	private int featureCategoryId(final int featureId)
+	{
+		if( featureId < 0 )
+			return -1;
+
+		int topCategoryId = -1;
+		double topProbability = 0.0;
+		for(int categoryId = 0; categoryId < this.counts.getCategorySize(); categoryId++)
+		{
+			final double currentProbability = this.featureProbability(featureId, categoryId);
+			if( topProbability < currentProbability )
+			{
+				topCategoryId = categoryId;
+				topProbability = currentProbability;
+			}
+		}
+		return topCategoryId;
+	}
+
+	private Set<F> getTrainingFeatures(final I item)
+	{
+		if( this.extractor instanceof TrainingFeatureExtractor )
+			return ((TrainingFeatureExtractor<F, I>) this.extractor).getTrainingFeatures(item);
+		return this.extractor.getFeatures(item);
+	}
+
 	/**
 	 * Gets the probability that a given feature is in the given category.
 	 *
@@ -174,15 +233,10 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	@Override
 	public double featureClassificationProbability(final F feature, final C category)
 	{
-		final int overallProb = this.getOverallProbability(category);
-		int featureProb = 0;
-		if( this.featureTree.containsKey(feature) )
-			featureProb = this.featureTree.getFeature(feature).getCategoryProbability(category);
-
-		if( overallProb == 0 )
+		final int categoryId = this.counts.getCategoryId(category);
+		if( categoryId < 0 )
 			return 0.0;
-		else
-			return ((double) featureProb) / ((double) overallProb);
+		return this.featureProbability(this.counts.getFeatureId(feature), categoryId);
 	}
 
 	/**
@@ -195,13 +249,76 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	@Override
 	public double featureClassificationWeightedProbability(final F feature, final C category)
 	{
-		final double unweightedProb = this.featureClassificationProbability(feature, category);
-		double total = 0.0;
-		if( this.featureTree.containsKey(feature) )
-			total = this.featureTree.getFeature(feature).getProbabilitySum();
+		final int featureId = this.counts.getFeatureId(feature);
+		final int categoryId = this.counts.getCategoryId(category);
+		if( categoryId < 0 )
+		{
+			final double total = (featureId < 0 ? 0.0 : this.counts.getFeatureTotal(featureId));
+			return ADDITIONAL_PROOF / (1.0 + total);
+		}
+		return this.featureWeightedProbability(featureId, categoryId);
+	}
 
-		final double additionalProof = 0.5; //UNKNOWN USE
-		return ((total * unweightedProb) + additionalProof) / (1.0 + total);
+	/**
+	 * Gets the probability that a feature is in a category by their ids. Items
+	 * are scored through this method rather than
+	 * featureClassificationProbability, so subclasses changing how the
+	 * probability is calculated override this.
+	 *
+	 * @param featureId The id of the feature, -1 if it is unknown
+	 * @param categoryId The id of the category
+	 * @return The probability that the feature is in the category
+	 */
+	protected double featureProbability(final int featureId, final int categoryId)
+	{
+		final int overallProb = this.counts.getCategoryTotal(categoryId);
+		if( (featureId < 0) || (overallProb == 0) )
+			return 0.0;
+		return ((double) this.counts.getCount(featureId, categoryId)) / ((double) overallProb);
+	}
+
+	/**
+	 * Gets the weighted probability that a feature is in a category by their
+	 * ids.
+	 *
+	 * @param featureId The id of the feature, -1 if it is unknown
+	 * @param categoryId The id of the category
+	 * @return The weighted probability that the feature is in the category
+	 */
+	protected double featureWeightedProbability(final int featureId, final int categoryId)
+	{
+		final double unweightedProb = this.featureProbability(featureId, categoryId);
+		final double total = (featureId < 0 ? 0.0 : this.counts.getFeatureTotal(featureId));
+		return ((total * unweightedProb) + ADDITIONAL_PROOF) / (1.0 + total);
+	}
+
+	/**
+	 * Gets the probability that a feature is in each category, indexed by
+	 * category id. Subclasses whose featureProbability looks at every category
+	 * override this to share that work between the categories.
+	 *
+	 * @param featureId The id of the feature, -1 if it is unknown
+	 * @param probabilities Receives the probability of each category
+	 */
+	protected void featureProbabilities(final int featureId, final double[] probabilities)
+	{
+		for(int categoryId = 0; categoryId < this.counts.getCategorySize(); categoryId++)
+			probabilities[categoryId] = this.featureProbability(featureId, categoryId);
+	}
+
+	/**
+	 * Gets the weighted probability that a feature is in each category,
+	 * indexed by category id.
+	 *
+	 * @param featureId The id of the feature, -1 if it is unknown
+	 * @param probabilities Receives the weighted probability of each category
+	 */
+	protected void featureWeightedProbabilities(final int featureId, final double[] probabilities)
+	{
+		this.featureProbabilities(featureId, probabilities);
+		final double total = (featureId < 0 ? 0.0 : this.counts.getFeatureTotal(featureId));
+		for(int categoryId = 0; categoryId < this.counts.getCategorySize(); categoryId++)
+			probabilities[categoryId] = ((total * probabilities[categoryId]) + ADDITIONAL_PROOF) / (1.0 + total);
 	}
 
 	/**
@@ -211,7 +328,7 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	@Override
 	public Set<C> getCategories()
 	{
-		return Collections.unmodifiableSet(this.overallCategoryProbability.getCategoryProbabilityMap().keySet());
+		return this.counts.getCategories();
 	}
 
 	/**
@@ -223,10 +340,11 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	@Override
 	public void train(final I item, final C category)
 	{
-		final Set<F> features = this.extractor.getFeatures(item);
+		final Set<F> features = this.getTrainingFeatures(item);
+		final int categoryId = this.counts.internCategory(category);
 		for(final F feature : features)
-			this.featureTree.getFeature(feature).incrementCategory(category);
-		this.overallCategoryProbability.incrementCategory(category);
+			this.counts.incrementFeature(this.counts.internFeature(feature), categoryId);
+		this.counts.incrementCategory(categoryId);
 	}
 
 	/**
@@ -236,7 +354,8 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	 */
 	protected int getOverallProbability(final C category)
 	{
-		return this.overallCategoryProbability.getCategoryProbability(category);
+		final int categoryId = this.counts.getCategoryId(category);
+		return (categoryId < 0 ? 0 : this.counts.getCategoryTotal(categoryId));
 	}
 
 	/**
@@ -246,6 +365,6 @@ public class SimpleNaiveClassifier<I, F, C> implements TrainableNaiveClassifier<
 	 */
 	protected int getOverallProbabilitySum()
 	{
-		return this.overallCategoryProbability.getProbabilitySum();
+		return this.counts.getTotal();
 	}
 }
@@ -0,0 +1,40 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.Set;
+
+/**
+ * A feature extractor which is told when an item is being trained with, so it
+ * can keep statistics of the training items only. A classifier gets the
+ * features of the items it is trained with from getTrainingFeatures and the
+ * features of the items it classifies from getFeatures.
+ * @param <F> The type of feature
+ * @param <I> The type of item
+ */
+public interface TrainingFeatureExtractor<F, I> extends FeatureExtractor<F, I>
+{
+	/**
+	 * Gets the list of features for an item being trained with. The features
+	 * are the same as getFeatures gives for the item.
+	 * @param item The item
+	 * @return The set of features for this item
+	 */
+	Set<F> getTrainingFeatures(I item);
+}
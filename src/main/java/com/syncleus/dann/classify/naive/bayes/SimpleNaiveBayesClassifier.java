@@ -19,19 +19,50 @@
 package com.syncleus.dann.classify.naive.bayes;
 
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import com.syncleus.dann.classify.BatchClassifier;
+import com.syncleus.dann.classify.ClassificationListener;
+import com.syncleus.dann.classify.ParallelClassification;
 import com.syncleus.dann.classify.naive.*;
 
 /**
  * A SimpleNaiveBayesClassifier is a simple, naive implementation of a Bayes Classifier.
+ * An item is scored against every category in a single pass over its
+ * features, summing the logs of the probabilities so long items do not
+ * underflow to zero. Batches of items are scored in parallel, each worker
+ * reusing its own ScoringBuffers.
  * @param <I> The type of item to use
  * @param <F> The type of feature to use
  * @param <C> The categories to place items in
  * @author Jeffrey Phillips Freeman
  */
-public class SimpleNaiveBayesClassifier<I, F, C> extends SimpleNaiveClassifier<I, F, C> implements TrainableNaiveBayesClassifier<I, F, C>
+public class SimpleNaiveBayesClassifier<I, F, C> extends SimpleNaiveClassifier<I, F, C> implements TrainableNaiveBayesClassifier<I, F, C>, BatchClassifier<I, C>
 {
+	//products of probabilities below this are moved into a log before they can underflow
+	private static final double UNDERFLOW_LIMIT = 1.0e-250;
 	private final Map<C, Double> categoryThresholds = new HashMap<C, Double>();
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * The arrays an item is scored in, reused from one item to the next by a
+	 * single thread.
+	 */
+	protected static final class ScoringBuffers
+	{
+		private double[] scores = new double[0];
+		private double[] products = new double[0];
+		private double[] featureProbabilities = new double[0];
+
+		private void resize(final int categorySize)
+		{
+			if( this.scores.length != categorySize )
+			{
+				this.scores = new double[categorySize];
+				this.products = new double[categorySize];
+				this.featureProbabilities = new double[categorySize];
+			}
+		}
+	}
 
 	/**
 	 * Uses the given FeatureExtractor to get Features from the given Item.
@@ -42,6 +73,17 @@ public class SimpleNaiveBayesClassifier<I, F, C> extends SimpleNaiveClassifier<I
 		super(extractor);
 	}
 
+	/**
+	 * Creates a SimpleNaiveBayesClassifier over existing training counts, which it goes on
+	 * adding to when trained.
+	 * @param extractor The FeatureExtractor to use.
+	 * @param counts The training counts.
+	 */
+	public SimpleNaiveBayesClassifier(final FeatureExtractor<F, I> extractor, final FeatureCountTable<F, C> counts)
+	{
+		super(extractor, counts);
+	}
+
 	/**
 	 * Gets the threshold for a given category.
 	 * @param category The category to check
@@ -67,6 +109,26 @@ public class SimpleNaiveBayesClassifier<I, F, C> extends SimpleNaiveClassifier<I
 		this.categoryThresholds.put(category, threshold);
 	}
 
+	/**
+	 * Gets the pool batches are classified on.
+	 * @return The fork/join pool used by classifyAll
+	 */
+	public ForkJoinPool getPool()
+	{
+		return this.pool;
+	}
+
+	/**
+	 * Sets the pool batches are classified on, the common pool by default.
+	 * @param pool The fork/join pool used by classifyAll
+	 */
+	public void setPool(final ForkJoinPool pool)
+	{
+		if( pool == null )
+			throw new IllegalArgumentException("pool can not be null");
+		this.pool = pool;
+	}
+
 	/**
 	 * Gets the most likely category for the given threshold. If no suitable category
 	 * passes the threshold, null is returned.
@@ -78,26 +140,40 @@ public class SimpleNaiveBayesClassifier<I, F, C> extends SimpleNaiveClassifier<I
 	@Override
 	public C classification(final I item, final boolean useThreshold)
 	{
-		final Map<C, Double> categoryProbabilities = new HashMap<C, Double>();
+		return this.classification(item, useThreshold, new ScoringBuffers());
+	}
 
-		C topCategory = null;
-		double topProbability = 0.0;
-		for(final C category : this.getCategories())
+	/**
+	 * Gets the most likely category for the given threshold, scoring the item
+	 * in the given buffers.
+	 *
+	 * @param item The item to classify
+	 * @param useThreshold Whether to use the threshold
+	 * @param buffers The buffers to score in
+	 * @return The most likely category for the item
+	 */
+	protected C classification(final I item, final boolean useThreshold, final ScoringBuffers buffers)
+	{
+		final double[] scores = this.getCategoryScores(this.getExtractor().getFeatures(item), buffers);
+		final int topCategoryId = getTopCategoryId(scores);
+		if( topCategoryId < 0 )
+			return null;
+
+		final C topCategory = this.getCounts().getCategory(topCategoryId);
+		if( useThreshold )
 		{
-			final double currentProbability = this.classificationProbability(item, category);
-			categoryProbabilities.put(category, currentProbability);
-			if( topProbability < currentProbability )
+			// a threshold which is not positive is not checked, so it is always
+			// passed
+			final double threshold = this.getCategoryThreshold(topCategory);
+			if( threshold > 0.0 )
 			{
-				topCategory = category;
-				topProbability = currentProbability;
+				final double logThreshold = Math.log(threshold);
+				for(int categoryId = 0; categoryId < scores.length; categoryId++)
+					if( (categoryId != topCategoryId) && (scores[categoryId] + logThreshold > scores[topCategoryId]) )
+						return null;
 			}
 		}
 
-		if( useThreshold )
-			for(final Entry<C, Double> probability : categoryProbabilities.entrySet())
-				if( (probability.getKey() != topCategory) && (probability.getValue() * this.categoryThresholds.get(topCategory) > topProbability) )
-					return null;
-
 		return topCategory;
 	}
 
@@ -112,6 +188,36 @@ public class SimpleNaiveBayesClassifier<I, F, C> extends SimpleNaiveClassifier<I
 		return this.classification(item, false);
 	}
 
+	@Override
+	public List<C> classifyAll(final Iterable<? extends I> items)
+	{
+		return this.createBatch().classifyAll(items.iterator());
+	}
+
+	@Override
+	public void classifyAll(final Iterator<? extends I> items, final ClassificationListener<? super I, ? super C> listener, final boolean ordered)
+	{
+		this.createBatch().classifyAll(items, listener, ordered);
+	}
+
+	private ParallelClassification<I, C, ScoringBuffers> createBatch()
+	{
+		return new ParallelClassification<I, C, ScoringBuffers>(this.pool)
+		{
+			@Override
+			protected ScoringBuffers createScratch()
+			{
+				return new ScoringBuffers();
+			}
+
+			@Override
+			protected C classification(final I item, final ScoringBuffers scratch)
+			{
+				return SimpleNaiveBayesClassifier.this.classification(item, false, scratch);
+			}
+		};
+	}
+
 	/**
 	 * Gets the field of categories and their associated probabilities for a given item.
 	 * @param item The item to get probabilities for
@@ -120,9 +226,26 @@ public class SimpleNaiveBayesClassifier<I, F, C> extends SimpleNaiveClassifier<I
 	@Override
 	public Map<C, Double> getCategoryProbabilities(final I item)
 	{
+		final double[] scores = this.getCategoryScores(this.getExtractor().getFeatures(item), new ScoringBuffers());
 		final Map<C, Double> categoryProbabilities = new HashMap<C, Double>();
-		for(final C category : this.getCategories())
-			categoryProbabilities.put(category, this.classificationProbability(item, category));
+		for(int categoryId = 0; categoryId < scores.length; categoryId++)
+			categoryProbabilities.put(this.getCounts().getCategory(categoryId), Math.exp(scores[categoryId]));
+		return Collections.unmodifiableMap(categoryProbabilities);
+	}
+
+	/**
+	 * Gets the natural log of the probability of each category for a given
+	 * item. Unlike the probabilities themselves these do not underflow to zero
+	 * for items with many features.
+	 * @param item The item to get probabilities for
+	 * @return The log of the probability of each category
+	 */
+	public Map<C, Double> getCategoryLogProbabilities(final I item)
+	{
+		final double[] scores = this.getCategoryScores(this.getExtractor().getFeatures(item), new ScoringBuffers());
+		final Map<C, Double> categoryProbabilities = new HashMap<C, Double>();
+		for(int categoryId = 0; categoryId < scores.length; categoryId++)
+			categoryProbabilities.put(this.getCounts().getCategory(categoryId), scores[categoryId]);
 		return Collections.unmodifiableMap(categoryProbabilities);
 	}
 
@@ -135,10 +258,120 @@ public class SimpleNaiveBayesClassifier<I, F, C> extends SimpleNaiveClassifier<I
 	@Override
 	public double classificationProbability(final I item, final C category)
 	{
-		double probability = ((double) this.getOverallProbability(category)) / ((double) this.getOverallProbabilitySum());
-		final Set<F> features = this.getExtractor().getFeatures(item);
+		final int categoryId = this.getCounts().getCategoryId(category);
+		if( categoryId < 0 )
+			return 0.0;
+		return Math.exp(this.getCategoryScore(this.getExtractor().getFeatures(item), categoryId));
+	}
+
+	/**
+	 * Gets the natural log of the probability of an item with the given
+	 * features being in each category, indexed by category id.
+	 * @param features The features of the item
+	 * @param buffers The buffers to score in
+	 * @return The log probability of each category, an array of the buffers
+	 */
+	protected double[] getCategoryScores(final Set<F> features, final ScoringBuffers buffers)
+	{
+		final FeatureCountTable<F, C> counts = this.getCounts();
+		final double[] scores = this.getFeatureLogProbabilities(features, buffers);
+		final double logTotal = Math.log(counts.getTotal());
+		for(int categoryId = 0; categoryId < scores.length; categoryId++)
+			scores[categoryId] += Math.log(counts.getCategoryTotal(categoryId)) - logTotal;
+		return scores;
+	}
+
+	/**
+	 * Gets the natural log of the probability of an item with the given
+	 * features being in one category.
+	 * @param features The features of the item
+	 * @param categoryId The id of the category
+	 * @return The log probability of the category
+	 */
+	protected double getCategoryScore(final Set<F> features, final int categoryId)
+	{
+		final FeatureCountTable<F, C> counts = this.getCounts();
+		return this.getFeatureLogProbability(features, categoryId) + Math.log(counts.getCategoryTotal(categoryId)) - Math.log(counts.getTotal());
+	}
+
+	/**
+	 * Sums the logs of the weighted probabilities of the features for each
+	 * category, indexed by category id.
+	 * @param features The features to sum
+	 * @param buffers The buffers to sum in
+	 * @return The summed log probabilities of each category, an array of the
+	 *   buffers
+	 */
+	protected double[] getFeatureLogProbabilities(final Set<F> features, final ScoringBuffers buffers)
+	{
+		final FeatureCountTable<F, C> counts = this.getCounts();
+		final int categorySize = counts.getCategorySize();
+		buffers.resize(categorySize);
+		final double[] logProbabilities = buffers.scores;
+		Arrays.fill(logProbabilities, 0.0);
+		final double[] products = buffers.products;
+		Arrays.fill(products, 1.0);
+		final double[] featureProbabilities = buffers.featureProbabilities;
 		for(final F feature : features)
-			probability *= this.featureClassificationWeightedProbability(feature, category);
-		return probability;
+		{
+			this.featureWeightedProbabilities(counts.getFeatureId(feature), featureProbabilities);
+			for(int categoryId = 0; categoryId < categorySize; categoryId++)
+			{
+				// only take the log once the product nears underflow
+				products[categoryId] *= featureProbabilities[categoryId];
+				if( products[categoryId] < UNDERFLOW_LIMIT )
+				{
+					logProbabilities[categoryId] += Math.log(products[categoryId]);
+					products[categoryId] = 1.0;
+				}
+			}
+		}
+		for(int categoryId = 0; categoryId < categorySize; categoryId++)
+			logProbabilities[categoryId] += Math.log(products[categoryId]);
+		return logProbabilities;
+	}
+
+	/**
+	 * Sums the logs of the weighted probabilities of the features for one
+	 * category.
+	 * @param features The features to sum
+	 * @param categoryId The id of the category
+	 * @return The summed log probability
+	 */
+	protected double getFeatureLogProbability(final Set<F> features, final int categoryId)
+	{
+		final FeatureCountTable<F, C> counts = this.getCounts();
+		double logProbability = 0.0;
+		double product = 1.0;
+		for(final F feature : features)
+		{
+			product *= this.featureWeightedProbability(counts.getFeatureId(feature), categoryId);
+			if( product < UNDERFLOW_LIMIT )
+			{
+				logProbability += Math.log(product);
+				product = 1.0;
+			}
+		}
+		return logProbability + Math.log(product);
+	}
+
+	/**
+	 * Gets the id of the highest score, the first on ties.
+	 * @param scores The log probability of each category
+	 * @return The id of the top category, -1 if every probability is zero
+	 */
+	protected static int getTopCategoryId(final double[] scores)
+	{
+		int topCategoryId = -1;
+		double topScore = Double.NEGATIVE_INFINITY;
+		for(int categoryId = 0; categoryId < scores.length; categoryId++)
+		{
+			if( topScore < scores[categoryId] )
+			{
+				topCategoryId = categoryId;
+				topScore = scores[categoryId];
+			}
+		}
+		return topCategoryId;
 	}
 }
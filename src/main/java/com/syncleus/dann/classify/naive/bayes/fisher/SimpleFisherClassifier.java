@@ -19,12 +19,14 @@
 package com.syncleus.dann.classify.naive.bayes.fisher;
 
 import java.util.*;
-import java.util.Map.Entry;
+import com.syncleus.dann.classify.naive.FeatureCountTable;
 import com.syncleus.dann.classify.naive.FeatureExtractor;
 import com.syncleus.dann.classify.naive.bayes.SimpleNaiveBayesClassifier;
 
 /**
  * A SimpleFisherClassifier is a basic implementation of a FisherClassifier.
+ * The inverse chi-square of each category is summed in log space, so items
+ * with many features keep a meaningful probability.
  * @param <I> The type of item to classify
  * @param <F> The type of factors to classify them by
  * @param <C> The type of class to classify them into
@@ -32,6 +34,8 @@ import com.syncleus.dann.classify.naive.bayes.SimpleNaiveBayesClassifier;
  */
 public class SimpleFisherClassifier<I, F, C> extends SimpleNaiveBayesClassifier<I, F, C> implements FisherClassifier<I, F, C>
 {
+	//series sums above this are moved into a log scale before they can overflow
+	private static final double OVERFLOW_LIMIT = 1.0e250;
 	private final Map<C, Double> categoryMinimums = new HashMap<C, Double>();
 
 	/**
@@ -43,6 +47,17 @@ public class SimpleFisherClassifier<I, F, C> extends SimpleNaiveBayesClassifier<
 		super(extractor);
 	}
 
+	/**
+	 * Creates a SimpleFisherClassifier over existing training counts, which it goes on
+	 * adding to when trained.
+	 * @param extractor The FeatureExtractor to use.
+	 * @param counts The training counts.
+	 */
+	public SimpleFisherClassifier(final FeatureExtractor<F, I> extractor, final FeatureCountTable<F, C> counts)
+	{
+		super(extractor, counts);
+	}
+
 	/**
 	 * Sets the minimum value for a given category.
 	 * @param category The category
@@ -73,68 +88,102 @@ public class SimpleFisherClassifier<I, F, C> extends SimpleNaiveBayesClassifier<
 	 *
 	 * @param item The item to classify
 	 * @param useThreshold Whether to use the threshold
+	 * @param buffers The buffers to score in
 	 * @return The most likely classification
 	 */
 	@Override
-	public C classification(final I item, final boolean useThreshold)
+	protected C classification(final I item, final boolean useThreshold, final ScoringBuffers buffers)
 	{
-		final Map<C, Double> categoryProbabilities = new HashMap<C, Double>();
-
-		C topCategory = null;
-		double topProbability = 0.0;
-		for(final C category : this.getCategories())
+		final double[] scores = this.getCategoryScores(this.getExtractor().getFeatures(item), buffers);
+		if( useThreshold )
 		{
-			final double currentProbability = this.classificationProbability(item, category);
-			categoryProbabilities.put(category, currentProbability);
-			if( topProbability < currentProbability )
+			for(int categoryId = 0; categoryId < scores.length; categoryId++)
 			{
-				topCategory = category;
-				topProbability = currentProbability;
+				final C category = this.getCounts().getCategory(categoryId);
+				if( Math.exp(scores[categoryId]) > this.getMinimum(category) )
+					return category;
 			}
-		}
-
-		if( useThreshold )
-		{
-			for(final Entry<C, Double> probability : categoryProbabilities.entrySet())
-				if( probability.getValue() > this.getMinimum(probability.getKey()) )
-					return probability.getKey();
 			return null;
 		}
-		else
-			return topCategory;
+
+		final int topCategoryId = getTopCategoryId(scores);
+		return (topCategoryId < 0 ? null : this.getCounts().getCategory(topCategoryId));
 	}
 
 	@Override
-	public double featureClassificationProbability(final F feature, final C category)
+	protected double featureProbability(final int featureId, final int categoryId)
 	{
-		final double probability = super.featureClassificationProbability(feature, category);
+		final double probability = super.featureProbability(featureId, categoryId);
 		if( probability == 0.0 )
 			return 0.0;
 
 		double probabilitySum = 0.0;
-		for(final C currentCategory : this.getCategories())
-			probabilitySum += super.featureClassificationProbability(feature, currentCategory);
+		for(int currentCategoryId = 0; currentCategoryId < this.getCounts().getCategorySize(); currentCategoryId++)
+			probabilitySum += super.featureProbability(featureId, currentCategoryId);
 
 		return probability / probabilitySum;
 	}
 
 	@Override
-	public double classificationProbability(final I item, final C category)
+	protected void featureProbabilities(final int featureId, final double[] probabilities)
+	{
+		// normalize every category by the same sum rather than summing per category
+		final int categorySize = this.getCounts().getCategorySize();
+		double probabilitySum = 0.0;
+		for(int categoryId = 0; categoryId < categorySize; categoryId++)
+		{
+			probabilities[categoryId] = super.featureProbability(featureId, categoryId);
+			probabilitySum += probabilities[categoryId];
+		}
+		if( probabilitySum > 0.0 )
+			for(int categoryId = 0; categoryId < categorySize; categoryId++)
+				probabilities[categoryId] /= probabilitySum;
+	}
+
+	@Override
+	protected double[] getCategoryScores(final Set<F> features, final ScoringBuffers buffers)
 	{
-		final Set<F> features = this.getExtractor().getFeatures(item);
-		double probability = 1.0;
-		for(final F feature : features)
-			probability *= this.featureClassificationWeightedProbability(feature, category);
-		probability = -Math.log(probability); //originally (-2.0 * Math.log(probability)) / 2.0;
+		final double[] scores = this.getFeatureLogProbabilities(features, buffers);
+		for(int categoryId = 0; categoryId < scores.length; categoryId++)
+			scores[categoryId] = logInverseChiSquare(scores[categoryId], features.size());
+		return scores;
+	}
 
-		double term = Math.exp(-probability);
+	@Override
+	protected double getCategoryScore(final Set<F> features, final int categoryId)
+	{
+		return logInverseChiSquare(this.getFeatureLogProbability(features, categoryId), features.size());
+	}
+
+	/**
+	 * Gets the log of the probability a chi-square value at least as large
+	 * as -2 ln(p) with 2n degrees of freedom occurs, capped at one. The series
+	 * is summed relative to a scale kept as a log, so a small product of
+	 * probabilities does not zero the whole sum.
+	 * @param logProbability The log of the product of the probabilities
+	 * @param featureCount The number of probabilities multiplied
+	 * @return The log of the inverse chi-square probability
+	 */
+	private static double logInverseChiSquare(final double logProbability, final int featureCount)
+	{
+		final double mean = -logProbability; //originally (-2.0 * Math.log(probability)) / 2.0;
+
+		// the sum and term are both relative to exp(logScale)
+		double logScale = -mean;
+		double term = 1.0;
 		double sum = term;
-		for(int i = 1; i < (features.size() * 2) / 2; i++)
+		for(int i = 1; i < featureCount; i++)
 		{
-			term *= probability / i;
+			term *= mean / i;
 			sum += term;
+			if( sum > OVERFLOW_LIMIT )
+			{
+				logScale += Math.log(sum);
+				term /= sum;
+				sum = 1.0;
+			}
 		}
 
-		return Math.min(sum, 1.0);
+		return Math.min(Math.log(sum) + logScale, 0.0);
 	}
 }
@@ -0,0 +1,323 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.syncleus.dann.classify.naive.FeatureCountTable;
+import com.syncleus.dann.graph.io.NodeCodec;
+import com.syncleus.dann.graph.io.RecordHashTable;
+
+/**
+ * Read-only training counts backed by a memory-mapped naive model file, which
+ * can be handed to the constructor of SimpleNaiveClassifier,
+ * SimpleNaiveBayesClassifier or SimpleFisherClassifier. Only the categories
+ * are decoded when the file is opened. A feature is looked up by encoding it
+ * and probing the hash table stored in the file, and counts are read straight
+ * from the mapped rows, so opening a model takes time independent of its
+ * size and the pages of the file are shared by every process mapping it.
+ *
+ * <p>The counts can not change, so a classifier over them throws
+ * UnsupportedOperationException when trained. copy loads the counts on to the
+ * heap, where they can be trained further. Reading from several threads at
+ * once is safe.
+ *
+ * @param <F> The type of feature
+ * @param <C> The type of category
+ * @see NaiveModelWriter
+ */
+public class MappedFeatureCountTable<F, C> extends FeatureCountTable<F, C>
+{
+	private static final long MAX_BLOCK_BYTES = 1L << 30;
+	private final String fileName;
+	private final NodeCodec<F> featureCodec;
+	private final int featureCount;
+	private final int hashSlots;
+	private final int total;
+	private final List<C> categories;
+	private final Map<C, Integer> categoryIds;
+	private final Set<C> categorySet;
+	private final int[] categoryTotals;
+	private final ByteBuffer records;
+	private final LongBuffer recordPositions;
+	private final IntBuffer hashTable;
+	private final IntBuffer featureTotals;
+	private final int rowsPerBlock;
+	private final IntBuffer[] countBlocks;
+
+	/**
+	 * Maps a naive model file.
+	 *
+	 * @param file the file to map.
+	 * @param featureCodec the codec the features were written with.
+	 * @param categoryCodec the codec the categories were written with.
+	 * @throws IOException if the file could not be mapped or does not hold a
+	 *   naive model.
+	 */
+	public MappedFeatureCountTable(final File file, final NodeCodec<F> featureCodec, final NodeCodec<C> categoryCodec) throws IOException
+	{
+		if( file == null )
+			throw new IllegalArgumentException("file can not be null");
+		if( featureCodec == null )
+			throw new IllegalArgumentException("featureCodec can not be null");
+		if( categoryCodec == null )
+			throw new IllegalArgumentException("categoryCodec can not be null");
+		this.fileName = file.getPath();
+		this.featureCodec = featureCodec;
+
+		final RandomAccessFile randomFile = new RandomAccessFile(file, "r");
+		try
+		{
+			final int magic = randomFile.readInt();
+			final int version = randomFile.readInt();
+			this.featureCount = randomFile.readInt();
+			final int categoryCount = randomFile.readInt();
+			this.hashSlots = randomFile.readInt();
+			this.total = randomFile.readInt();
+			NaiveModelFormat.checkHeader(magic, version, this.featureCount, categoryCount, this.hashSlots, this.total);
+
+			final long length = randomFile.length();
+			randomFile.seek(length - NaiveModelFormat.TRAILER_BYTES);
+			final long indexPosition = randomFile.readLong();
+			final long indexBytes = 8L * (this.featureCount + 1);
+			final long hashBytes = 4L * this.hashSlots;
+			final long tableBytes = indexBytes + hashBytes + (4L * categoryCount) + (4L * this.featureCount);
+			final long rowBytes = 4L * categoryCount;
+			final long countBytes = rowBytes * this.featureCount;
+			if( (indexPosition < NaiveModelFormat.HEADER_BYTES) || (indexPosition + tableBytes + countBytes + NaiveModelFormat.TRAILER_BYTES != length) )
+				throw new IOException("corrupt naive model file");
+			if( (indexPosition - NaiveModelFormat.HEADER_BYTES > Integer.MAX_VALUE) || (tableBytes > Integer.MAX_VALUE) )
+				throw new IOException("naive model tables larger than 2 GB are not supported");
+
+			final FileChannel channel = randomFile.getChannel();
+			this.records = channel.map(FileChannel.MapMode.READ_ONLY, NaiveModelFormat.HEADER_BYTES, indexPosition - NaiveModelFormat.HEADER_BYTES);
+			final ByteBuffer tables = channel.map(FileChannel.MapMode.READ_ONLY, indexPosition, tableBytes);
+			this.recordPositions = slice(tables, 0L, indexBytes).asLongBuffer();
+			this.hashTable = slice(tables, indexBytes, hashBytes).asIntBuffer();
+			final IntBuffer categoryTotalBuffer = slice(tables, indexBytes + hashBytes, 4L * categoryCount).asIntBuffer();
+			this.featureTotals = slice(tables, indexBytes + hashBytes + (4L * categoryCount), 4L * this.featureCount).asIntBuffer();
+
+			//the counts may pass 2 GB so they are mapped in blocks of whole rows
+			this.rowsPerBlock = (int) Math.max(1L, Math.min(Math.max(1, this.featureCount), MAX_BLOCK_BYTES / Math.max(1L, rowBytes)));
+			final int blockCount = (this.featureCount + this.rowsPerBlock - 1) / this.rowsPerBlock;
+			this.countBlocks = new IntBuffer[blockCount];
+			long countPosition = indexPosition + tableBytes;
+			for(int blockIndex = 0; blockIndex < blockCount; blockIndex++)
+			{
+				final long blockBytes = rowBytes * Math.min(this.rowsPerBlock, this.featureCount - (blockIndex * this.rowsPerBlock));
+				this.countBlocks[blockIndex] = channel.map(FileChannel.MapMode.READ_ONLY, countPosition, blockBytes).asIntBuffer();
+				countPosition += blockBytes;
+			}
+
+			//categories are few, so they are decoded now
+			this.categories = new ArrayList<C>(categoryCount);
+			this.categoryIds = new HashMap<C, Integer>();
+			this.categoryTotals = new int[categoryCount];
+			int recordPosition = 0;
+			for(int categoryId = 0; categoryId < categoryCount; categoryId++)
+			{
+				final C category = categoryCodec.decode(this.getRecord(recordPosition));
+				recordPosition += 4 + this.records.getInt(recordPosition);
+				this.categories.add(category);
+				this.categoryIds.put(category, categoryId);
+				this.categoryTotals[categoryId] = categoryTotalBuffer.get(categoryId);
+			}
+			this.categorySet = Collections.unmodifiableSet(new LinkedHashSet<C>(this.categories));
+		}
+		finally
+		{
+			//the mappings remain valid once the file is closed
+			randomFile.close();
+		}
+	}
+
+	private static ByteBuffer slice(final ByteBuffer buffer, final long offset, final long length)
+	{
+		final ByteBuffer section = buffer.duplicate();
+		section.position((int) offset);
+		section.limit((int) (offset + length));
+		return section.slice();
+	}
+
+	private ByteBuffer getRecord(final int recordPosition)
+	{
+		return slice(this.records, recordPosition + 4L, this.records.getInt(recordPosition));
+	}
+
+	private int getRecordPosition(final int featureId)
+	{
+		return (int) (this.recordPositions.get(featureId) - NaiveModelFormat.HEADER_BYTES);
+	}
+
+	@Override
+	public int getFeatureId(final F feature)
+	{
+		if( (feature == null) || (this.featureCount == 0) )
+			return -1;
+
+		//compare the encoded bytes so no stored feature needs decoding
+		final byte[] encoded = this.featureCodec.encode(feature);
+		int slot = RecordHashTable.getSlot(encoded, this.hashSlots);
+		int entry;
+		int probes = 0;
+		while( (entry = this.hashTable.get(slot)) != 0 )
+		{
+			//a valid table always has an empty slot and only holds feature ids
+			if( (++probes > this.hashSlots) || (entry < 0) || (entry > this.featureCount) )
+				throw new IllegalStateException("corrupt naive model file " + this.fileName + ", its feature hash table is invalid");
+			final int recordPosition = this.getRecordPosition(entry - 1);
+			if( this.records.getInt(recordPosition) == encoded.length )
+			{
+				int byteIndex = 0;
+				while( (byteIndex < encoded.length) && (this.records.get(recordPosition + 4 + byteIndex) == encoded[byteIndex]) )
+					byteIndex++;
+				if( byteIndex == encoded.length )
+					return entry - 1;
+			}
+			slot = (slot + 1) & (this.hashSlots - 1);
+		}
+		return -1;
+	}
+
+	@Override
+	public int getCategoryId(final C category)
+	{
+		final Integer categoryId = this.categoryIds.get(category);
+		return (categoryId == null ? -1 : categoryId);
+	}
+
+	@Override
+	public int internFeature(final F feature)
+	{
+		throw new UnsupportedOperationException("a mapped naive model can not change");
+	}
+
+	@Override
+	public int internCategory(final C category)
+	{
+		throw new UnsupportedOperationException("a mapped naive model can not change");
+	}
+
+	@Override
+	public int getFeatureSize()
+	{
+		return this.featureCount;
+	}
+
+	@Override
+	public int getCategorySize()
+	{
+		return this.categories.size();
+	}
+
+	@Override
+	public F getFeature(final int featureId)
+	{
+		if( (featureId < 0) || (featureId >= this.featureCount) )
+			throw new IndexOutOfBoundsException("featureId is not a feature of the model");
+		return this.featureCodec.decode(this.getRecord(this.getRecordPosition(featureId)));
+	}
+
+	@Override
+	public C getCategory(final int categoryId)
+	{
+		return this.categories.get(categoryId);
+	}
+
+	@Override
+	public Set<C> getCategories()
+	{
+		return this.categorySet;
+	}
+
+	@Override
+	public void incrementFeature(final int featureId, final int categoryId, final int count)
+	{
+		throw new UnsupportedOperationException("a mapped naive model can not change");
+	}
+
+	@Override
+	public void incrementCategory(final int categoryId, final int count)
+	{
+		throw new UnsupportedOperationException("a mapped naive model can not change");
+	}
+
+	@Override
+	public int getCount(final int featureId, final int categoryId)
+	{
+		if( categoryId >= this.categories.size() )
+			return 0;
+		final int rowIndex = featureId % this.rowsPerBlock;
+		return this.countBlocks[featureId / this.rowsPerBlock].get((rowIndex * this.categories.size()) + categoryId);
+	}
+
+	@Override
+	public int getFeatureTotal(final int featureId)
+	{
+		return this.featureTotals.get(featureId);
+	}
+
+	@Override
+	public int getCategoryTotal(final int categoryId)
+	{
+		return this.categoryTotals[categoryId];
+	}
+
+	@Override
+	public int getTotal()
+	{
+		return this.total;
+	}
+
+	/**
+	 * Copies the counts on to the heap, decoding every feature.
+	 *
+	 * @return trainable counts equal to these.
+	 */
+	public FeatureCountTable<F, C> copy()
+	{
+		final FeatureCountTable<F, C> copy = new FeatureCountTable<F, C>();
+		final int categoryCount = this.categories.size();
+		for(int categoryId = 0; categoryId < categoryCount; categoryId++)
+			copy.incrementCategory(copy.internCategory(this.categories.get(categoryId)), this.categoryTotals[categoryId]);
+		for(int featureId = 0; featureId < this.featureCount; featureId++)
+		{
+			final int copyId = copy.internFeature(this.getFeature(featureId));
+			for(int categoryId = 0; categoryId < categoryCount; categoryId++)
+			{
+				final int count = this.getCount(featureId, categoryId);
+				if( count > 0 )
+					copy.incrementFeature(copyId, categoryId, count);
+			}
+		}
+		return copy;
+	}
+}
@@ -0,0 +1,75 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive.io;
+
+import java.io.IOException;
+import com.syncleus.dann.graph.io.RecordHashTable;
+
+/**
+ * Constants describing the binary naive model format, which holds the
+ * training counts of a naive classifier. All values are big endian. A file
+ * holds, in order:
+ * <ul>
+ * <li>a header of magic, version, feature count, category count, hash slot
+ * count and item total, each an int</li>
+ * <li>the category table, one record per category of an int length followed
+ * by the bytes written by the category codec</li>
+ * <li>the feature table, one record per feature in the same form</li>
+ * <li>the feature index, the long file position of each feature record
+ * followed by the position just past the last record</li>
+ * <li>the feature hash table, an int per slot holding one more than the id
+ * of the feature in that slot, or zero when empty. Features are placed by a
+ * hash of their record bytes</li>
+ * <li>the item total of each category, an int per category</li>
+ * <li>the total of each feature, an int per feature</li>
+ * <li>the counts, a row of an int per category for each feature</li>
+ * <li>a trailer, the long file position of the feature index</li>
+ * </ul>
+ * Ids are the positions of the records in their tables.
+ */
+final class NaiveModelFormat
+{
+	static final int MAGIC = 0x44414E43;
+	static final int VERSION = 2;
+	static final int HEADER_BYTES = 6 * 4;
+	static final int TRAILER_BYTES = 8;
+
+	/**
+	 * This is an utility class, so it may not be instantiated.
+	 */
+	private NaiveModelFormat()
+	{
+		throw new IllegalStateException("This is an utility class, it can not be instantiated");
+	}
+
+	/**
+	 * Checks the header of a file.
+	 */
+	static void checkHeader(final int magic, final int version, final int featureCount, final int categoryCount, final int hashSlots, final int total) throws IOException
+	{
+		if( magic != MAGIC )
+			throw new IOException("not a naive model");
+		if( version != VERSION )
+			throw new IOException("unsupported naive model version " + version);
+		if( (featureCount < 0) || (categoryCount < 0) || (total < 0) )
+			throw new IOException("corrupt naive model header");
+		if( !RecordHashTable.isValidHashSlots(hashSlots, featureCount) )
+			throw new IOException("corrupt naive model header");
+	}
+}
@@ -0,0 +1,153 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import com.syncleus.dann.classify.naive.FeatureCountTable;
+import com.syncleus.dann.classify.naive.SimpleNaiveClassifier;
+import com.syncleus.dann.graph.io.NodeCodec;
+import com.syncleus.dann.graph.io.RecordHashTable;
+
+/**
+ * Writes the training counts of naive classifiers in the binary naive model
+ * format. Features and categories are encoded with the same codecs used for
+ * the nodes of binary graphs, and neither may be null.
+ *
+ * @param <F> The type of feature
+ * @param <C> The type of category
+ * @see MappedFeatureCountTable
+ */
+public class NaiveModelWriter<F, C> implements Closeable
+{
+	private final DataOutputStream out;
+	private final NodeCodec<F> featureCodec;
+	private final NodeCodec<C> categoryCodec;
+
+	public NaiveModelWriter(final OutputStream out, final NodeCodec<F> featureCodec, final NodeCodec<C> categoryCodec)
+	{
+		if( out == null )
+			throw new IllegalArgumentException("out can not be null");
+		if( featureCodec == null )
+			throw new IllegalArgumentException("featureCodec can not be null");
+		if( categoryCodec == null )
+			throw new IllegalArgumentException("categoryCodec can not be null");
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+		this.featureCodec = featureCodec;
+		this.categoryCodec = categoryCodec;
+	}
+
+	/**
+	 * Writes the training counts of a classifier, which must not be trained
+	 * while they are written. This covers the naive Bayes and Fisher
+	 * classifiers, though not their thresholds and minimums.
+	 *
+	 * @param classifier the classifier to write.
+	 * @throws IOException if the stream could not be written.
+	 */
+	public void write(final SimpleNaiveClassifier<?, F, C> classifier) throws IOException
+	{
+		if( classifier == null )
+			throw new IllegalArgumentException("classifier can not be null");
+		this.write(classifier.getCounts());
+	}
+
+	/**
+	 * Writes training counts to the stream. The counts must not change while
+	 * they are written.
+	 *
+	 * @param counts the counts to write.
+	 * @throws IOException if the stream could not be written.
+	 */
+	public void write(final FeatureCountTable<F, C> counts) throws IOException
+	{
+		if( counts == null )
+			throw new IllegalArgumentException("counts can not be null");
+
+		final int featureCount = counts.getFeatureSize();
+		final int categoryCount = counts.getCategorySize();
+		final int slots = RecordHashTable.getHashSlots(featureCount);
+		this.out.writeInt(NaiveModelFormat.MAGIC);
+		this.out.writeInt(NaiveModelFormat.VERSION);
+		this.out.writeInt(featureCount);
+		this.out.writeInt(categoryCount);
+		this.out.writeInt(slots);
+		this.out.writeInt(counts.getTotal());
+		long position = NaiveModelFormat.HEADER_BYTES;
+
+		for(int categoryId = 0; categoryId < categoryCount; categoryId++)
+		{
+			final C category = counts.getCategory(categoryId);
+			if( category == null )
+				throw new IllegalArgumentException("counts has a null category");
+			position += this.writeRecord(this.categoryCodec.encode(category));
+		}
+
+		//feature table, then its index and hash table
+		final long[] recordPositions = new long[featureCount + 1];
+		final int[] hashTable = new int[slots];
+		for(int featureId = 0; featureId < featureCount; featureId++)
+		{
+			final F feature = counts.getFeature(featureId);
+			if( feature == null )
+				throw new IllegalArgumentException("counts has a null feature");
+			final byte[] record = this.featureCodec.encode(feature);
+			recordPositions[featureId] = position;
+			position += this.writeRecord(record);
+
+			int slot = RecordHashTable.getSlot(record, slots);
+			while( hashTable[slot] != 0 )
+				slot = (slot + 1) & (slots - 1);
+			hashTable[slot] = featureId + 1;
+		}
+		recordPositions[featureCount] = position;
+		final long indexPosition = position;
+		for(final long recordPosition : recordPositions)
+			this.out.writeLong(recordPosition);
+		for(final int slot : hashTable)
+			this.out.writeInt(slot);
+
+		for(int categoryId = 0; categoryId < categoryCount; categoryId++)
+			this.out.writeInt(counts.getCategoryTotal(categoryId));
+		for(int featureId = 0; featureId < featureCount; featureId++)
+			this.out.writeInt(counts.getFeatureTotal(featureId));
+		for(int featureId = 0; featureId < featureCount; featureId++)
+			for(int categoryId = 0; categoryId < categoryCount; categoryId++)
+				this.out.writeInt(counts.getCount(featureId, categoryId));
+
+		this.out.writeLong(indexPosition);
+		this.out.flush();
+	}
+
+	private int writeRecord(final byte[] record) throws IOException
+	{
+		this.out.writeInt(record.length);
+		this.out.write(record);
+		return 4 + record.length;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.out.close();
+	}
+}
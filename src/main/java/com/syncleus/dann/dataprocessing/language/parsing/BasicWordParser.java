@@ -18,22 +18,34 @@
  ******************************************************************************/
 package com.syncleus.dann.dataprocessing.language.parsing;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * A BasicWordParser splits words into spaces.
+ * A BasicWordParser splits words into spaces. Words are runs of ASCII
+ * letters, digits and underscores, found by a scanner which reads the text
+ * once and hands each word to a WordListener in lower case.
  * @author Jeffrey Phillips Freeman
  */
-public class BasicWordParser implements WordParser
+public class BasicWordParser implements StreamingWordParser
 {
-	private static final Pattern SPACE_PATTERN = Pattern.compile("\\w++");
+	private static final int READ_CHARS = 8192;
+	private static final long MAPPED_BLOCK_BYTES = 1L << 28;
 	private final Locale locale;
 
 	/**
@@ -62,13 +74,15 @@ public class BasicWordParser implements WordParser
 	public List<String> getWords(final String text)
 	{
 		final List<String> words = new ArrayList<String>();
-		final String textLowerCase = text.toLowerCase(Locale.ENGLISH);
-		final Matcher matches = SPACE_PATTERN.matcher(textLowerCase);
-		while( matches.find() )
+		this.parse(text, new WordListener()
 		{
-			final String word = matches.group();
-			words.add(word.toLowerCase(this.locale));
-		}
+			@Override
+			public boolean wordFound(final CharSequence word)
+			{
+				words.add(word.toString());
+				return true;
+			}
+		});
 		return Collections.unmodifiableList(words);
 	}
 
@@ -80,7 +94,100 @@ public class BasicWordParser implements WordParser
 	@Override
 	public Set<String> getUniqueWords(final String text)
 	{
-		return Collections.unmodifiableSet(new HashSet<String>(this.getWords(text)));
+		final Set<String> words = new HashSet<String>();
+		this.parse(text, new WordListener()
+		{
+			@Override
+			public boolean wordFound(final CharSequence word)
+			{
+				words.add(word.toString());
+				return true;
+			}
+		});
+		return Collections.unmodifiableSet(words);
+	}
+
+	@Override
+	public void parse(final CharSequence text, final WordListener listener)
+	{
+		final WordScanner scanner = new WordScanner(this.chain(listener));
+		scanner.scan(text, 0, text.length());
+		scanner.finish();
+	}
+
+	@Override
+	public void parse(final Reader reader, final WordListener listener) throws IOException
+	{
+		final WordScanner scanner = new WordScanner(this.chain(listener));
+		final char[] block = new char[READ_CHARS];
+		int read;
+		while( ((read = reader.read(block)) >= 0) && scanner.scan(block, 0, read) )
+			continue;
+		scanner.finish();
+	}
+
+	@Override
+	public void parse(final File file, final Charset charset, final WordListener listener) throws IOException
+	{
+		final WordScanner scanner = new WordScanner(this.chain(listener));
+		final CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		final CharBuffer block = CharBuffer.allocate(READ_CHARS);
+		final RandomAccessFile randomFile = new RandomAccessFile(file, "r");
+		try
+		{
+			final FileChannel channel = randomFile.getChannel();
+			final long size = channel.size();
+			long position = 0L;
+			boolean endOfInput = false;
+			while( !endOfInput && !scanner.isStopped() )
+			{
+				//the next mapping starts at any bytes of a character split by this one
+				final long mappedBytes = Math.min(MAPPED_BLOCK_BYTES, size - position);
+				endOfInput = (position + mappedBytes == size);
+				final ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, mappedBytes);
+				CoderResult result;
+				do
+				{
+					result = decoder.decode(bytes, block, endOfInput);
+					if( result.isError() )
+						result.throwException();
+					block.flip();
+					scanner.scan(block, 0, block.remaining());
+					block.clear();
+				}
+				while( result.isOverflow() && !scanner.isStopped() );
+				position += bytes.position();
+			}
+			if( endOfInput && !scanner.isStopped() )
+			{
+				while( decoder.flush(block).isOverflow() )
+				{
+					block.flip();
+					scanner.scan(block, 0, block.remaining());
+					block.clear();
+				}
+				block.flip();
+				scanner.scan(block, 0, block.remaining());
+			}
+		}
+		finally
+		{
+			randomFile.close();
+		}
+		scanner.finish();
+	}
+
+	/**
+	 * Wraps the listener words are handed to, so a subclass can transform the
+	 * words before the listener receives them.
+	 * @param listener The listener of a parse
+	 * @return The listener the scanned words are given to
+	 */
+	protected WordListener chain(final WordListener listener)
+	{
+		if( listener == null )
+			throw new IllegalArgumentException("listener can not be null");
+		return listener;
 	}
 
 	/**
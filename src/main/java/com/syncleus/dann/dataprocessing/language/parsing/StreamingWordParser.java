@@ -0,0 +1,60 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.dataprocessing.language.parsing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * A WordParser which can hand the words of a text to a WordListener one at a
+ * time as it reads the text, rather than collecting them first. The words are
+ * the same as those of getWords.
+ * @see WordListener
+ */
+public interface StreamingWordParser extends WordParser
+{
+	/**
+	 * Parses the words of a sequence of characters, such as a String or a
+	 * CharBuffer.
+	 * @param text The text to parse
+	 * @param listener The listener given each word
+	 */
+	void parse(CharSequence text, WordListener listener);
+
+	/**
+	 * Parses the words of the text read from a Reader, which is read to its
+	 * end or until the listener stops but is not closed.
+	 * @param reader The reader to parse
+	 * @param listener The listener given each word
+	 * @throws IOException if the reader could not be read.
+	 */
+	void parse(Reader reader, WordListener listener) throws IOException;
+
+	/**
+	 * Parses the words of a file, which is memory-mapped and decoded a block at
+	 * a time.
+	 * @param file The file to parse
+	 * @param charset The encoding of the file
+	 * @param listener The listener given each word
+	 * @throws IOException if the file could not be mapped.
+	 */
+	void parse(File file, Charset charset, WordListener listener) throws IOException;
+}
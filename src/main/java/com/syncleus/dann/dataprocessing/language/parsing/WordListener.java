@@ -0,0 +1,36 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.dataprocessing.language.parsing;
+
+/**
+ * Receives the words of a text as a StreamingWordParser finds them.
+ * @see StreamingWordParser
+ */
+public interface WordListener
+{
+	/**
+	 * Called for each word in the order they appear in the text. The word is
+	 * only valid for the duration of the call, as the parser reuses it for the
+	 * next word, so it must be copied, for example with toString, to be kept.
+	 *
+	 * @param word the characters of the word.
+	 * @return true to continue parsing, false to stop.
+	 */
+	boolean wordFound(CharSequence word);
+}
@@ -0,0 +1,123 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.dataprocessing.language.parsing;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits characters into words as they arrive, a block at a time, so a word
+ * may span blocks. A word is a run of the characters matched by the regular
+ * expression \w, the ASCII letters, digits and underscore, and is given to
+ * the listener in lower case through a buffer reused for every word.
+ *
+ * <p>This finds the same words as matching \w++ against the text lower cased
+ * in English. Only two other characters lower case in to \w: the Kelvin sign,
+ * which becomes k, and the capital I with a dot, which becomes an i followed
+ * by a combining dot which ends the word.
+ */
+final class WordScanner
+{
+	private static final char KELVIN_SIGN = '\u212A';
+	private static final char CAPITAL_DOTTED_I = '\u0130';
+	private final WordListener listener;
+	private char[] word = new char[32];
+	private CharBuffer wordBuffer = CharBuffer.wrap(this.word);
+	private int length;
+	private boolean stopped;
+
+	WordScanner(final WordListener listener)
+	{
+		this.listener = listener;
+	}
+
+	boolean isStopped()
+	{
+		return this.stopped;
+	}
+
+	/**
+	 * Scans a block of characters.
+	 * @return false once the listener has stopped the scan
+	 */
+	boolean scan(final char[] text, final int start, final int end)
+	{
+		for(int index = start; (index < end) && !this.stopped; index++)
+			this.scan(text[index]);
+		return !this.stopped;
+	}
+
+	/**
+	 * Scans a block of characters.
+	 * @return false once the listener has stopped the scan
+	 */
+	boolean scan(final CharSequence text, final int start, final int end)
+	{
+		for(int index = start; (index < end) && !this.stopped; index++)
+			this.scan(text.charAt(index));
+		return !this.stopped;
+	}
+
+	private void scan(final char character)
+	{
+		if( ((character >= 'a') && (character <= 'z')) || ((character >= '0') && (character <= '9')) || (character == '_') )
+			this.append(character);
+		else if( (character >= 'A') && (character <= 'Z') )
+			this.append((char) (character + ('a' - 'A')));
+		else if( character == KELVIN_SIGN )
+			this.append('k');
+		else if( character == CAPITAL_DOTTED_I )
+		{
+			this.append('i');
+			this.endWord();
+		}
+		else
+			this.endWord();
+	}
+
+	private void append(final char character)
+	{
+		if( this.length == this.word.length )
+		{
+			this.word = Arrays.copyOf(this.word, this.length * 2);
+			this.wordBuffer = CharBuffer.wrap(this.word);
+		}
+		this.word[this.length++] = character;
+	}
+
+	private void endWord()
+	{
+		if( this.length == 0 )
+			return;
+		this.wordBuffer.clear();
+		this.wordBuffer.limit(this.length);
+		this.length = 0;
+		if( !this.listener.wordFound(this.wordBuffer) )
+			this.stopped = true;
+	}
+
+	/**
+	 * Ends the last word once every block was scanned.
+	 */
+	void finish()
+	{
+		if( !this.stopped )
+			this.endWord();
+	}
+}
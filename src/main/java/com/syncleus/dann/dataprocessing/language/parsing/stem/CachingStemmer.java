@@ -0,0 +1,171 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.dataprocessing.language.parsing.stem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A Stemmer which remembers the stems of the words it most recently stemmed.
+ * Word frequencies in natural language fall off steeply, so a small cache
+ * answers most words of a text. The cache is split into segments, each a
+ * bounded least recently used map behind its own lock, so it may be shared
+ * by any number of threads when the stemmer it wraps can be.
+ * @see PorterStemmer
+ */
+public class CachingStemmer implements Stemmer
+{
+	private static final int SEGMENTED_CAPACITY = 256;
+	private static final int SEGMENTS = 16;
+	private final Stemmer stemmer;
+	private final Segment[] segments;
+
+	/**
+	 * A least recently used map of word to stem.
+	 */
+	private static final class Segment extends LinkedHashMap<WordKey, String>
+	{
+		private static final long serialVersionUID = 2716359310434786471L;
+		private final int capacity;
+
+		private Segment(final int capacity)
+		{
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<WordKey, String> eldest)
+		{
+			return this.size() > this.capacity;
+		}
+	}
+
+	/**
+	 * A word held as a range of characters, so the range of a larger text can
+	 * be looked up without being copied into a String.
+	 */
+	private static final class WordKey
+	{
+		private final CharSequence text;
+		private final int start;
+		private final int end;
+		private final int hash;
+
+		private WordKey(final CharSequence text, final int start, final int end)
+		{
+			this.text = text;
+			this.start = start;
+			this.end = end;
+			int textHash = 0;
+			for(int index = start; index < end; index++)
+				textHash = (31 * textHash) + text.charAt(index);
+			this.hash = textHash;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(final Object compareWith)
+		{
+			if( !(compareWith instanceof WordKey) )
+				return false;
+			final WordKey key = (WordKey) compareWith;
+			if( (this.hash != key.hash) || (this.end - this.start != key.end - key.start) )
+				return false;
+			for(int offset = 0; offset < this.end - this.start; offset++)
+				if( this.text.charAt(this.start + offset) != key.text.charAt(key.start + offset) )
+					return false;
+			return true;
+		}
+	}
+
+	/**
+	 * Creates a CachingStemmer in front of the given Stemmer.
+	 * @param stemmer The Stemmer used for words not in the cache
+	 * @param capacity The most words the cache holds
+	 */
+	public CachingStemmer(final Stemmer stemmer, final int capacity)
+	{
+		if( stemmer == null )
+			throw new IllegalArgumentException("stemmer can not be null");
+		if( capacity <= 0 )
+			throw new IllegalArgumentException("capacity must be 1 or more");
+
+		this.stemmer = stemmer;
+		final int segmentCount = (capacity >= SEGMENTED_CAPACITY ? SEGMENTS : 1);
+		this.segments = new Segment[segmentCount];
+		for(int segmentIndex = 0; segmentIndex < segmentCount; segmentIndex++)
+			this.segments[segmentIndex] = new Segment((capacity + segmentCount - 1) / segmentCount);
+	}
+
+	/**
+	 * Gets the Stemmer used for words not in the cache.
+	 * @return The wrapped Stemmer
+	 */
+	public Stemmer getStemmer()
+	{
+		return this.stemmer;
+	}
+
+	@Override
+	public String stemWord(final String word)
+	{
+		return this.stem(word, 0, word.length());
+	}
+
+	/**
+	 * Gets the word stem of a range of characters. A range already in the
+	 * cache is looked up without copying it.
+	 * @param text The text holding the word
+	 * @param start The index of the first character of the word
+	 * @param end The index just past the last character of the word
+	 * @return The stem of the word
+	 */
+	public String stem(final CharSequence text, final int start, final int end)
+	{
+		final WordKey probe = new WordKey(text, start, end);
+		final Segment segment = this.getSegment(probe);
+		synchronized( segment )
+		{
+			final String stem = segment.get(probe);
+			if( stem != null )
+				return stem;
+		}
+
+		//only a missed word is copied, as it is kept as the key
+		final String word = text.subSequence(start, end).toString();
+		final String stem = this.stemmer.stemWord(word);
+		synchronized( segment )
+		{
+			segment.put(new WordKey(word, 0, word.length()), stem);
+		}
+		return stem;
+	}
+
+	private Segment getSegment(final WordKey key)
+	{
+		final int hash = key.hashCode() * 0x9E3779B9;
+		return this.segments[(hash ^ (hash >>> 16)) & (this.segments.length - 1)];
+	}
+}
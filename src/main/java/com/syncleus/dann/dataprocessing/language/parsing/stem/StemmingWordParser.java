@@ -18,16 +18,15 @@
  ******************************************************************************/
 package com.syncleus.dann.dataprocessing.language.parsing.stem;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import com.syncleus.dann.dataprocessing.language.parsing.BasicWordParser;
+import com.syncleus.dann.dataprocessing.language.parsing.WordListener;
 
 /**
- * A StemmingWordParser parses Strings into their stems.
+ * A StemmingWordParser parses Strings into their stems. Each word found by
+ * the BasicWordParser is stemmed before it reaches the WordListener, through
+ * a reused buffer when the Stemmer is a PorterStemmer.
  * @author Jeffrey Phillips Freeman
  */
 public class StemmingWordParser extends BasicWordParser implements Stemmer
@@ -64,53 +63,57 @@ public class StemmingWordParser extends BasicWordParser implements Stemmer
 	}
 
 	/**
-	 * Converts a collection of Strings to a list of its stems - one stem per word.
-	 * Convenience method for stemWord().
-	 * @param unstemmed The collection of unstemmed words
-	 * @return An unmodifiable list of the word stems from the given collection.
-	 * @see com.syncleus.dann.dataprocessing.language.parsing.stem.StemmingWordParser#stemWord(String)
-	 */
-	private List<String> stemList(final Collection<String> unstemmed)
-	{
-		final List<String> stemmedWords = new ArrayList<String>(unstemmed.size());
-		for(final String word : unstemmed)
-			stemmedWords.add(stemmer.stemWord(word.toLowerCase(this.getLocale())));
-		return Collections.unmodifiableList(stemmedWords);
-	}
-
-	/**
-	 * Converts a collection of Strings to a set of its stems. A maximum of one stem per word,
-	 * but duplicates are removed from output.
-	 * @param unstemmed A collection of unstemmed words
-	 * @return An unmodifiable set of word stems from the given collection
-	 */
-	private Set<String> stemSet(final Collection<String> unstemmed)
-	{
-		final Set<String> stemmedWords = new HashSet<String>(unstemmed.size());
-		for(final String word : unstemmed)
-			stemmedWords.add(stemmer.stemWord(word.toLowerCase(this.getLocale())));
-		return Collections.unmodifiableSet(stemmedWords);
-	}
-
-	/**
-	 * Gets a collection of stems from the given text.
-	 * @param text The string to parse
-	 * @return The stems from the given text
+	 * Stems the words scanned before they reach the listener.
+	 * @param listener The listener of a parse
+	 * @return The listener the scanned words are given to
 	 */
 	@Override
-	public List<String> getWords(final String text)
+	protected WordListener chain(final WordListener listener)
 	{
-		return stemList(super.getWords(text));
-	}
+		final WordListener stemListener = super.chain(listener);
+		if( this.stemmer instanceof PorterStemmer )
+		{
+			final PorterStemmer porterStemmer = (PorterStemmer) this.stemmer;
+			return new WordListener()
+			{
+				private char[] stem = new char[32];
+				private CharBuffer stemBuffer = CharBuffer.wrap(this.stem);
 
-	/**
-	 * Gets the unique stems from the string of text.
-	 * @param text The text to process
-	 * @return The unique set of stems
-	 */
-	@Override
-	public Set<String> getUniqueWords(final String text)
-	{
-		return stemSet(super.getUniqueWords(text));
+				@Override
+				public boolean wordFound(final CharSequence word)
+				{
+					if( this.stem.length < word.length() )
+					{
+						this.stem = Arrays.copyOf(this.stem, Math.max(word.length(), this.stem.length * 2));
+						this.stemBuffer = CharBuffer.wrap(this.stem);
+					}
+					final int stemLength = porterStemmer.stem(word, 0, word.length(), this.stem);
+					this.stemBuffer.clear();
+					this.stemBuffer.limit(stemLength);
+					return stemListener.wordFound(this.stemBuffer);
+				}
+			};
+		}
+		if( this.stemmer instanceof CachingStemmer )
+		{
+			final CachingStemmer cachingStemmer = (CachingStemmer) this.stemmer;
+			return new WordListener()
+			{
+				@Override
+				public boolean wordFound(final CharSequence word)
+				{
+					return stemListener.wordFound(cachingStemmer.stem(word, 0, word.length()));
+				}
+			};
+		}
+		return new WordListener()
+		{
+			@Override
+			public boolean wordFound(final CharSequence word)
+			{
+				//scanned words are already in lower case
+				return stemListener.wordFound(StemmingWordParser.this.stemmer.stemWord(word.toString()));
+			}
+		};
 	}
 }
@@ -0,0 +1,43 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.dataprocessing.signal.transform;
+
+/**
+ * A FastFourierTransformer which can transform many signals of the same block
+ * size at once, spreading the work over several threads and writing the
+ * transforms into arrays given by the caller so no DiscreteFourierTransform is
+ * made per signal.
+ * @see FastFourierTransformer
+ */
+public interface BatchFastFourierTransformer extends FastFourierTransformer
+{
+	/**
+	 * Transforms each signal as transform does, writing the whole transform of
+	 * the signal at each index into the arrays at the same index. Signals
+	 * shorter than the block size are padded with zeros and longer ones are
+	 * truncated.
+	 * @param signals The signals to transform
+	 * @param real Receives the real components of each transform, each array
+	 *   must hold at least the block size
+	 * @param imaginary Receives the imaginary components of each transform,
+	 *   each array must hold at least the block size
+	 * @see #transform(double[])
+	 */
+	void transformAll(double[][] signals, double[][] real, double[][] imaginary);
+}
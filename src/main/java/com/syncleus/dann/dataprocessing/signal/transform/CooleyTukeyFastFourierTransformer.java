@@ -24,20 +24,28 @@
 package com.syncleus.dann.dataprocessing.signal.transform;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import com.syncleus.dann.math.ComplexNumber;
 
 /**
  * A CooleyTukeyFastFourierTransformer implements a fast fourier transform to
  * reduce computation time for O(N log N) for smooth numbers. See
  * <a href="http://en.wikipedia.org/wiki/Cooley-Tukey_FFT_algorithm">the
- * wikipedia page</a> for more information.
+ * wikipedia page</a> for more information. The transform is an iterative
+ * radix-2 transform done in place over separate arrays of real and imaginary
+ * components, with the bit-reversal permutation and twiddle factors of each
+ * block size computed once and cached. Real signals are transformed as a
+ * complex transform of half the block size.
  * @author Jeffrey Phillips Freeman
  */
-public class CooleyTukeyFastFourierTransformer implements FastFourierTransformer
+public class CooleyTukeyFastFourierTransformer implements BatchFastFourierTransformer
 {
+	//the fewest values transformed by each task of a batch
+	private static final int BATCH_TASK_VALUES = 1 << 16;
 	private int blockSize;
 	private int bitRate;
-	private static final double EPSILON = .0000000001;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
 
 	/**
 	 * Creates a new CooleyTukeyFastFourierTransformer with the given block size
@@ -54,16 +62,39 @@ public class CooleyTukeyFastFourierTransformer implements FastFourierTransformer
 	@Override
 	public DiscreteFourierTransform transform(final double[] signal)
 	{
-		final double[] signalPadded = pad(signal);
-		final ComplexNumber[] frequencyDomain = transformMatrix(doubleArrayToComplexArray(signalPadded));
-		return new DiscreteFourierTransform(frequencyDomain, this.bitRate);
+		final double[] real = new double[this.blockSize];
+		final double[] imaginary = new double[this.blockSize];
+		FourierPlan.forSize(this.blockSize).transformReal(signal, real, imaginary);
+		return DiscreteFourierTransform.wrap(real, imaginary, this.bitRate);
+	}
+
+	@Override
+	public void transformAll(final double[][] signals, final double[][] real, final double[][] imaginary)
+	{
+		if( (signals.length != real.length) || (signals.length != imaginary.length) )
+			throw new IllegalArgumentException("signals, real and imaginary must have the same number of elements");
+		for(int index = 0; index < signals.length; index++)
+		{
+			if( signals[index] == null )
+				throw new IllegalArgumentException("signals can not contain null");
+			if( (real[index] == null) || (real[index].length < this.blockSize) || (imaginary[index] == null) || (imaginary[index].length < this.blockSize) )
+				throw new IllegalArgumentException("real and imaginary must hold a transform of the block size at every index");
+		}
+		if( signals.length == 0 )
+			return;
+
+		final FourierPlan plan = FourierPlan.forSize(this.blockSize);
+		final int signalsPerTask = Math.max(1, BATCH_TASK_VALUES / this.blockSize);
+		this.pool.invoke(new TransformTask(plan, signals, real, imaginary, 0, signals.length, signalsPerTask));
 	}
 
 	@Override
 	public double[] inverseTransform(final DiscreteFourierTransform transform)
 	{
-		final ComplexNumber[] complexSignal = inverseTransformMatrix(pad(transform.getTransform()));
-		return complexArrayToDoubleArray(complexSignal);
+		final double[] real = fit(transform.getRealTransform(), this.blockSize, this.blockSize);
+		final double[] imaginary = fit(transform.getImaginaryTransform(), this.blockSize, this.blockSize);
+		FourierPlan.forSize(this.blockSize).inverseTransform(real, imaginary);
+		return magnitudes(real, imaginary);
 	}
 
 	/**
@@ -73,21 +104,13 @@ public class CooleyTukeyFastFourierTransformer implements FastFourierTransformer
 	@Override
 	public double[] circularConvolve(final double[] first, final double[] second)
 	{
-		final ComplexNumber[] firstComplex = pad(doubleArrayToComplexArray(first));
-		final ComplexNumber[] secondComplex = pad(doubleArrayToComplexArray(second));
-
-		final ComplexNumber[] resultComplex = circularConvolveMatrix(firstComplex, secondComplex);
-		return complexArrayToDoubleArray(resultComplex);
+		return convolve(fit(first, this.blockSize, this.blockSize), fit(second, this.blockSize, this.blockSize));
 	}
 
 	@Override
 	public double[] linearConvolve(final double[] first, final double[] second)
 	{
-		final ComplexNumber[] firstComplex = pad(doubleArrayToComplexArray(first));
-		final ComplexNumber[] secondComplex = pad(doubleArrayToComplexArray(second));
-
-		final ComplexNumber[] resultComplex = linearConvolveMatrix(firstComplex, secondComplex);
-		return complexArrayToDoubleArray(resultComplex);
+		return convolve(fit(first, this.blockSize, this.blockSize * 2), fit(second, this.blockSize, this.blockSize * 2));
 	}
 
 	@Override
@@ -104,10 +127,11 @@ public class CooleyTukeyFastFourierTransformer implements FastFourierTransformer
 	@Override
 	public void setBlockSize(final int blockSize)
 	{
-		final double exponentOf2 = Math.log(blockSize) / Math.log(2.0);
-		if( Math.abs(exponentOf2 - Math.floor(exponentOf2)) > EPSILON)
+		if( (blockSize > 0) && !isPowerOf2(blockSize) )
 		{
-			this.blockSize = (int) Math.pow(2.0, Math.ceil(exponentOf2));
+			if( blockSize > (1 << 30) )
+				throw new IllegalArgumentException("blockSize is larger than the largest power of 2");
+			this.blockSize = Integer.highestOneBit(blockSize) << 1;
 		}
 		else
 		{
@@ -115,6 +139,26 @@ public class CooleyTukeyFastFourierTransformer implements FastFourierTransformer
 		}
 	}
 
+	/**
+	 * Gets the pool batches are transformed on.
+	 * @return The fork/join pool used by transformAll
+	 */
+	public ForkJoinPool getPool()
+	{
+		return this.pool;
+	}
+
+	/**
+	 * Sets the pool batches are transformed on, the common pool by default.
+	 * @param pool The fork/join pool used by transformAll
+	 */
+	public void setPool(final ForkJoinPool pool)
+	{
+		if( pool == null )
+			throw new IllegalArgumentException("pool can not be null");
+		this.pool = pool;
+	}
+
 	@Override
 	public int getBitRate()
 	{
@@ -128,142 +172,171 @@ public class CooleyTukeyFastFourierTransformer implements FastFourierTransformer
 	}
 
 	/**
-	 * Converts a double[] to a ComplexNumber[], using each double as the real
-	 * component with a 0.0 imaginary component.
-	 * @param from The array to convert from
-	 * @return The complex result
+	 * Copies the start of a signal into a new array padded with zeros.
+	 * @param signal The signal to copy
+	 * @param copied The most elements of the signal to copy
+	 * @param length The length of the new array
+	 * @return The padded copy
 	 */
-	private static ComplexNumber[] doubleArrayToComplexArray(final double[] from)
+	private static double[] fit(final double[] signal, final int copied, final int length)
 	{
-		final ComplexNumber[] complexNumbers = new ComplexNumber[from.length];
-		for(int index = 0; index < from.length; index++)
-			complexNumbers[index] = new ComplexNumber(from[index], 0.0);
-		return complexNumbers;
+		final double[] fitted = new double[length];
+		System.arraycopy(signal, 0, fitted, 0, Math.min(signal.length, copied));
+		return fitted;
 	}
 
 	/**
-	 * Converts a ComplexNumber[] to a double[], using the absScalar() function.
-	 * @param from The ComplexNumber to convert from
-	 * @return The real number representation
-	 * @see com.syncleus.dann.math.ComplexNumber#absScalar()
+	 * Circularly convolves two real signals of the same power of two length,
+	 * both of which are overwritten.
+	 * @param first The first signal
+	 * @param second The second signal
+	 * @return The magnitudes of the convolution
 	 */
-	private static double[] complexArrayToDoubleArray(final ComplexNumber[] from)
+	private static double[] convolve(final double[] first, final double[] second)
 	{
-		final double[] doubleNumbers = new double[from.length];
-		for(int index = 0; index < from.length; index++)
-			doubleNumbers[index] = from[index].absScalar();
-		return doubleNumbers;
+		final FourierPlan plan = FourierPlan.forSize(first.length);
+		final double[] firstImaginary = new double[first.length];
+		final double[] secondImaginary = new double[second.length];
+		plan.transform(first, firstImaginary);
+		plan.transform(second, secondImaginary);
+		multiply(first, firstImaginary, second, secondImaginary);
+		plan.inverseTransform(first, firstImaginary);
+		return magnitudes(first, firstImaginary);
 	}
 
 	/**
-	 * Returns a double[] array containing the same elements as signal,
-	 * with length equal to the current block size.
-	 * @param signal The signal to copy
-	 * @return A double[] containing the same elements of proper size
+	 * Multiplies complex values element by element, leaving the products in
+	 * the first values.
 	 */
-	private double[] pad(final double[] signal)
+	private static void multiply(final double[] firstReal, final double[] firstImaginary, final double[] secondReal, final double[] secondImaginary)
 	{
-		if( signal.length != this.blockSize )
-			return Arrays.copyOf(signal, this.blockSize);
-		return signal;
+		for(int index = 0; index < firstReal.length; index++)
+		{
+			final double real = (firstReal[index] * secondReal[index]) - (firstImaginary[index] * secondImaginary[index]);
+			firstImaginary[index] = (firstReal[index] * secondImaginary[index]) + (firstImaginary[index] * secondReal[index]);
+			firstReal[index] = real;
+		}
 	}
 
 	/**
-	 * Pads a ComplexNumber[] to have size equal to the current block size.
-	 * Returns a ComplexNumber[] of length equal to current block size, with
-	 * uninitialized elements equal to ComplexNumber.ZERO.
-	 * @param signal The signal to pad
-	 * @return The padding
-	 * @see com.syncleus.dann.dataprocessing.signal.transform.CooleyTukeyFastFourierTransformer#pad(double[])
+	 * Gets the absolute values of complex values, as ComplexNumber's
+	 * absScalar() does.
+	 * @param real The real components
+	 * @param imaginary The imaginary components
+	 * @return The absolute values
+	 * @see com.syncleus.dann.math.ComplexNumber#absScalar()
 	 */
-	private ComplexNumber[] pad(final ComplexNumber[] signal)
+	private static double[] magnitudes(final double[] real, final double[] imaginary)
 	{
-		if( signal.length < this.blockSize )
-		{
-			final ComplexNumber[] paddedSignal = Arrays.copyOf(signal, this.blockSize);
-			for(int index = signal.length; index < this.blockSize; index++)
-				paddedSignal[index] = ComplexNumber.ZERO;
-			return paddedSignal;
-		}
-		else if( signal.length > this.blockSize )
-			return Arrays.copyOf(signal, this.blockSize);
-		return signal;
+		final double[] magnitudes = new double[real.length];
+		for(int index = 0; index < real.length; index++)
+			magnitudes[index] = Math.hypot(real[index], imaginary[index]);
+		return magnitudes;
+	}
+
+	private static ComplexNumber[] toComplexArray(final double[] real, final double[] imaginary)
+	{
+		final ComplexNumber[] complexNumbers = new ComplexNumber[real.length];
+		for(int index = 0; index < real.length; index++)
+			complexNumbers[index] = new ComplexNumber(real[index], imaginary[index]);
+		return complexNumbers;
+	}
+
+	private static double[] realValues(final ComplexNumber[] complexNumbers)
+	{
+		final double[] real = new double[complexNumbers.length];
+		for(int index = 0; index < complexNumbers.length; index++)
+			real[index] = complexNumbers[index].getRealValue();
+		return real;
+	}
+
+	private static double[] imaginaryValues(final ComplexNumber[] complexNumbers)
+	{
+		final double[] imaginary = new double[complexNumbers.length];
+		for(int index = 0; index < complexNumbers.length; index++)
+			imaginary[index] = complexNumbers[index].getImaginaryValue();
+		return imaginary;
 	}
 
 	/**
-	 * Determines whether a number is a power of two via logarithms.
+	 * Determines whether a number is a power of two.
 	 * @param value The value to check
 	 * @return Whether the number is a power of two
 	 */
 	private static boolean isPowerOf2(final int value)
 	{
-		final double exponentOf2 = Math.log(value) / Math.log(2.0);
-		return !(Math.abs(exponentOf2 - Math.floor(exponentOf2)) > EPSILON);
+		return (value & (value - 1)) == 0;
+	}
+
+	/**
+	 * Applies the FFT to the given values in place.
+	 * @param real The real components, replaced by those of the transform
+	 * @param imaginary The imaginary components, replaced by those of the
+	 *   transform
+	 */
+	public static void transformInPlace(final double[] real, final double[] imaginary)
+	{
+		if( real.length != imaginary.length )
+			throw new IllegalArgumentException("real and imaginary must have the same number of elements");
+		if( real.length > 0 )
+			FourierPlan.forSize(real.length).transform(real, imaginary);
+	}
+
+	/**
+	 * Inverts the FFT of the given values in place.
+	 * @param real The real components, replaced by those of the signal
+	 * @param imaginary The imaginary components, replaced by those of the
+	 *   signal
+	 */
+	public static void inverseTransformInPlace(final double[] real, final double[] imaginary)
+	{
+		if( real.length != imaginary.length )
+			throw new IllegalArgumentException("real and imaginary must have the same number of elements");
+		if( real.length > 0 )
+			FourierPlan.forSize(real.length).inverseTransform(real, imaginary);
 	}
 
 	/**
-	 * Applies the FFT to the given matrix recursively.
+	 * Applies the FFT to the given matrix.
 	 * @param dataPoints The data points to transform
 	 * @return The transformed matrix
 	 */
 	public static ComplexNumber[] transformMatrix(final ComplexNumber[] dataPoints)
 	{
-		final int dataPointCount = dataPoints.length;
-		if( !isPowerOf2(dataPointCount) )
+		if( !isPowerOf2(dataPoints.length) )
 			throw new IllegalArgumentException("dataPoints size is not a power of 2");
-		if( dataPointCount == 1 )
-			return new ComplexNumber[]{dataPoints[0]};
-		//process odd points
-		final ComplexNumber[] oddDataPoints = new ComplexNumber[dataPointCount / 2];
-		for(int oddIndex = 0; oddIndex < (dataPointCount / 2); oddIndex++)
-			oddDataPoints[oddIndex] = dataPoints[2 * oddIndex + 1];
-		final ComplexNumber[] oddTransform = transformMatrix(oddDataPoints);
-		//process even points
-		final ComplexNumber[] evenDataPoints = new ComplexNumber[dataPointCount / 2];
-		for(int evenIndex = 0; evenIndex < (dataPointCount / 2); evenIndex++)
-			evenDataPoints[evenIndex] = dataPoints[evenIndex * 2];
-		final ComplexNumber[] evenTransform = transformMatrix(evenDataPoints);
-		final ComplexNumber[] completeTransform = new ComplexNumber[dataPointCount];
-		for(int transformIndex = 0; transformIndex < (dataPointCount / 2); transformIndex++)
-		{
-			final int correction = -2;
-			final double kth = correction * Math.PI * transformIndex / dataPointCount;
-			final ComplexNumber wk = new ComplexNumber(Math.cos(kth), Math.sin(kth));
-			completeTransform[transformIndex] = evenTransform[transformIndex].add(wk.multiply(oddTransform[transformIndex]));
-			completeTransform[transformIndex + (dataPointCount / 2)] = evenTransform[transformIndex].subtract(wk.multiply(oddTransform[transformIndex]));
-		}
-		return completeTransform;
+		final double[] real = realValues(dataPoints);
+		final double[] imaginary = imaginaryValues(dataPoints);
+		transformInPlace(real, imaginary);
+		return toComplexArray(real, imaginary);
 	}
 
 	public static ComplexNumber[] inverseTransformMatrix(final ComplexNumber[] transforms)
 	{
-		final int transformSize = transforms.length;
-		ComplexNumber[] signal = new ComplexNumber[transformSize];
-		for(int signalIndex = 0; signalIndex < transformSize; signalIndex++)
-			signal[signalIndex] = transforms[signalIndex].conjugate();
-		signal = transformMatrix(signal);
-		for(int signalIndex = 0; signalIndex < transformSize; signalIndex++)
-			signal[signalIndex] = signal[signalIndex].conjugate();
-		for(int signalIndex = 0; signalIndex < transformSize; signalIndex++)
-			signal[signalIndex] = signal[signalIndex].multiply(1.0 / ((double) transformSize));
-		return signal;
+		if( !isPowerOf2(transforms.length) )
+			throw new IllegalArgumentException("transforms size is not a power of 2");
+		final double[] real = realValues(transforms);
+		final double[] imaginary = imaginaryValues(transforms);
+		inverseTransformInPlace(real, imaginary);
+		return toComplexArray(real, imaginary);
 	}
 
 	public static ComplexNumber[] circularConvolveMatrix(final ComplexNumber[] first, final ComplexNumber[] second)
 	{
 		if( first.length != second.length )
 			throw new IllegalArgumentException("first and second must have the same number of elements");
+		if( !isPowerOf2(first.length) )
+			throw new IllegalArgumentException("first and second size is not a power of 2");
 
-		final int dataPointsSize = first.length;
-
-		final ComplexNumber[] firstTransformed = transformMatrix(first);
-		final ComplexNumber[] secondTransformed = transformMatrix(second);
-
-		final ComplexNumber[] result = new ComplexNumber[dataPointsSize];
-		for(int dataPointIndex = 0; dataPointIndex < dataPointsSize; dataPointIndex++)
-			result[dataPointIndex] = firstTransformed[dataPointIndex].multiply(secondTransformed[dataPointIndex]);
-
-		return inverseTransformMatrix(result);
+		final double[] firstReal = realValues(first);
+		final double[] firstImaginary = imaginaryValues(first);
+		final double[] secondReal = realValues(second);
+		final double[] secondImaginary = imaginaryValues(second);
+		transformInPlace(firstReal, firstImaginary);
+		transformInPlace(secondReal, secondImaginary);
+		multiply(firstReal, firstImaginary, secondReal, secondImaginary);
+		inverseTransformInPlace(firstReal, firstImaginary);
+		return toComplexArray(firstReal, firstImaginary);
 	}
 
 	/**
@@ -287,4 +360,46 @@ public class CooleyTukeyFastFourierTransformer implements FastFourierTransformer
 
 		return circularConvolveMatrix(firstLinear, secondLinear);
 	}
+
+	/**
+	 * Transforms a range of the signals of a batch, splitting it in halves
+	 * until each task holds few enough signals.
+	 */
+	private static final class TransformTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 2830195947283016543L;
+		private final FourierPlan plan;
+		private final double[][] signals;
+		private final double[][] real;
+		private final double[][] imaginary;
+		private final int start;
+		private final int end;
+		private final int signalsPerTask;
+
+		TransformTask(final FourierPlan plan, final double[][] signals, final double[][] real, final double[][] imaginary, final int start, final int end, final int signalsPerTask)
+		{
+			this.plan = plan;
+			this.signals = signals;
+			this.real = real;
+			this.imaginary = imaginary;
+			this.start = start;
+			this.end = end;
+			this.signalsPerTask = signalsPerTask;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if( (this.end - this.start) <= this.signalsPerTask )
+			{
+				for(int index = this.start; index < this.end; index++)
+					this.plan.transformReal(this.signals[index], this.real[index], this.imaginary[index]);
+				return;
+			}
+
+			final int middle = (this.start + this.end) >>> 1;
+			invokeAll(new TransformTask(this.plan, this.signals, this.real, this.imaginary, this.start, middle, this.signalsPerTask),
+					new TransformTask(this.plan, this.signals, this.real, this.imaginary, middle, this.end, this.signalsPerTask));
+		}
+	}
 }
@@ -27,12 +27,17 @@ import com.syncleus.dann.math.ComplexNumber;
 
 /**
  * A DiscreteFourierTransform is a Fourier transform that operates on a discrete input function.
+ * The transform is held as primitive arrays of real and imaginary components,
+ * and the frequency of the phasor at index i is i times the frequency
+ * resolution, up to half of the transform.
  * @author Jeffrey Phillips Freeman
  */
 public class DiscreteFourierTransform
 {
-	private final ComplexNumber[] transform;
-	private final NavigableMap<Double, ComplexNumber> frequencies;
+	private final double[] real;
+	private final double[] imaginary;
+	private final double frequencyStep;
+	private final int frequencyCount;
 
 	/**
 	 * Creates a new DiscreteFourierTransform with the given frequencies and the
@@ -42,16 +47,57 @@ public class DiscreteFourierTransform
 	 */
 	public DiscreteFourierTransform(final ComplexNumber[] ourFrequencies, final int bitrate)
 	{
-		final double frequencySize = ((double) ourFrequencies.length) / 2.0;
-		final double frequencyStep = frequencyResolution(ourFrequencies.length, bitrate);
-		final NavigableMap<Double, ComplexNumber> newFrequencies = new TreeMap<Double, ComplexNumber>();
-		for(int index = 0; index <= (int) frequencySize; index++)
-		{
-			final Double currentFrequency = ((double) index) * frequencyStep;
-			newFrequencies.put(currentFrequency, ourFrequencies[index]);
-		}
-		this.frequencies = newFrequencies;
-		this.transform = ourFrequencies.clone();
+		this(bitrate, realValues(ourFrequencies), imaginaryValues(ourFrequencies));
+	}
+
+	/**
+	 * Creates a new DiscreteFourierTransform with the given real and imaginary
+	 * components of its frequencies and the given bit-rate. The arrays are
+	 * copied.
+	 * @param ourReal The real components of the frequencies
+	 * @param ourImaginary The imaginary components of the frequencies
+	 * @param bitrate The bit-rate to use
+	 */
+	public DiscreteFourierTransform(final double[] ourReal, final double[] ourImaginary, final int bitrate)
+	{
+		this(bitrate, ourReal.clone(), ourImaginary.clone());
+	}
+
+	private DiscreteFourierTransform(final int bitrate, final double[] ourReal, final double[] ourImaginary)
+	{
+		if( ourReal.length != ourImaginary.length )
+			throw new IllegalArgumentException("real and imaginary must have the same number of elements");
+		if( ourReal.length == 0 )
+			throw new IllegalArgumentException("there must be at least one frequency");
+		this.real = ourReal;
+		this.imaginary = ourImaginary;
+		this.frequencyStep = frequencyResolution(ourReal.length, bitrate);
+		this.frequencyCount = (ourReal.length / 2) + 1;
+	}
+
+	/**
+	 * Creates a DiscreteFourierTransform which takes ownership of the given
+	 * arrays rather than copying them.
+	 */
+	static DiscreteFourierTransform wrap(final double[] real, final double[] imaginary, final int bitrate)
+	{
+		return new DiscreteFourierTransform(bitrate, real, imaginary);
+	}
+
+	private static double[] realValues(final ComplexNumber[] frequencies)
+	{
+		final double[] realValues = new double[frequencies.length];
+		for(int index = 0; index < frequencies.length; index++)
+			realValues[index] = frequencies[index].getRealValue();
+		return realValues;
+	}
+
+	private static double[] imaginaryValues(final ComplexNumber[] frequencies)
+	{
+		final double[] imaginaryValues = new double[frequencies.length];
+		for(int index = 0; index < frequencies.length; index++)
+			imaginaryValues[index] = frequencies[index].getImaginaryValue();
+		return imaginaryValues;
 	}
 
 	/**
@@ -75,6 +121,60 @@ public class DiscreteFourierTransform
 		return upperFrequency(bitrate) / (((double) blockSize) / 2.0);
 	}
 
+	private double frequency(final int index)
+	{
+		return ((double) index) * this.frequencyStep;
+	}
+
+	/**
+	 * Finds the first index whose frequency is above the given frequency, or
+	 * equal to it when inclusive.
+	 * @return The index, frequencyCount if there is none
+	 */
+	private int search(final double frequency, final boolean inclusive)
+	{
+		int low = 0;
+		int high = this.frequencyCount;
+		while( low < high )
+		{
+			final int middle = (low + high) >>> 1;
+			final double middleFrequency = this.frequency(middle);
+			if( (inclusive ? middleFrequency >= frequency : middleFrequency > frequency) )
+				high = middle;
+			else
+				low = middle + 1;
+		}
+		return low;
+	}
+
+	private int closestIndex(final double frequency)
+	{
+		final int index = this.search(frequency, true);
+		if( index == this.frequencyCount )
+			throw new IllegalArgumentException("frequency is above the maximum frequency");
+		return index;
+	}
+
+	/**
+	 * Gets the index of a frequency of the transform.
+	 * @return The index, -1 if the frequency is not one of the transform
+	 */
+	private int exactIndex(final double frequency)
+	{
+		final int index = this.search(frequency, true);
+		if( (index == this.frequencyCount) || (Double.compare(this.frequency(index), frequency) != 0) )
+			return -1;
+		return index;
+	}
+
+	private int requireExactIndex(final double frequency)
+	{
+		final int index = this.exactIndex(frequency);
+		if( index < 0 )
+			throw new IllegalArgumentException("frequency is not a frequency of the transform");
+		return index;
+	}
+
 	/**
 	 * Gets the closest discrete frequency to the supplied frequency.
 	 * @param frequency The input frequency
@@ -82,84 +182,167 @@ public class DiscreteFourierTransform
 	 */
 	public double getClosestFrequency(final double frequency)
 	{
-		return this.frequencies.ceilingEntry(frequency).getKey();
+		return this.frequency(this.closestIndex(frequency));
 	}
 
 	public ComplexNumber getClosestPhasor(final double frequency)
 	{
-		return this.frequencies.ceilingEntry(frequency).getValue();
+		final int index = this.closestIndex(frequency);
+		return new ComplexNumber(this.real[index], this.imaginary[index]);
 	}
 
 	public ComplexNumber getPhasor(final double frequency)
 	{
-		return this.frequencies.get(frequency);
+		final int index = this.exactIndex(frequency);
+		return (index < 0 ? null : new ComplexNumber(this.real[index], this.imaginary[index]));
 	}
 
 	public double getClosestAmplitude(final double frequency)
 	{
-		return this.frequencies.ceilingEntry(frequency).getValue().absScalar();
+		final int index = this.closestIndex(frequency);
+		return Math.hypot(this.real[index], this.imaginary[index]);
 	}
 
 	public double getAmplitude(final double frequency)
 	{
-		return this.frequencies.get(frequency).absScalar();
+		final int index = this.requireExactIndex(frequency);
+		return Math.hypot(this.real[index], this.imaginary[index]);
 	}
 
 	public double getClosestPhase(final double frequency)
 	{
-		return this.frequencies.ceilingEntry(frequency).getValue().phase();
+		final int index = this.closestIndex(frequency);
+		return Math.atan2(this.imaginary[index], this.real[index]);
 	}
 
 	public double getPhase(final double frequency)
 	{
-		return this.frequencies.get(frequency).phase();
+		final int index = this.requireExactIndex(frequency);
+		return Math.atan2(this.imaginary[index], this.real[index]);
+	}
+
+	private int bandStart(final double startFrequency, final double endFrequency)
+	{
+		if( startFrequency > endFrequency )
+			throw new IllegalArgumentException("startFrequency can not be greater than endFrequency");
+		return this.search(startFrequency, true);
 	}
 
-	private ComplexNumber[] amplitudes(final double startFrequency, final double endFrequency)
+	private int bandEnd(final double endFrequency)
 	{
-		final NavigableMap<Double, ComplexNumber> subFrequencies = this.frequencies.subMap(startFrequency, true, endFrequency, true);
-		final ComplexNumber[] amplitudes = new ComplexNumber[subFrequencies.size()];
-		subFrequencies.values().toArray(amplitudes);
-		return amplitudes;
+		return this.search(endFrequency, false);
+	}
+
+	private double bandSum(final int start, final int end)
+	{
+		double realSum = 0.0;
+		double imaginarySum = 0.0;
+		for(int index = start; index < end; index++)
+		{
+			realSum += this.real[index];
+			imaginarySum += this.imaginary[index];
+		}
+		return Math.hypot(realSum, imaginarySum);
 	}
 
 	public double getBandSum(final double startFrequency, final double endFrequency)
 	{
-		return ComplexNumber.sum(amplitudes(startFrequency, endFrequency)).absScalar();
+		return this.bandSum(this.bandStart(startFrequency, endFrequency), this.bandEnd(endFrequency));
 	}
 
 	public double getBandRms(final double startFrequency, final double endFrequency)
 	{
-		return Averages.rms(amplitudes(startFrequency, endFrequency)).absScalar();
+		final int start = this.bandStart(startFrequency, endFrequency);
+		final int end = this.bandEnd(endFrequency);
+		double realSum = 0.0;
+		double imaginarySum = 0.0;
+		for(int index = start; index < end; index++)
+		{
+			realSum += (this.real[index] * this.real[index]) - (this.imaginary[index] * this.imaginary[index]);
+			imaginarySum += 2.0 * this.real[index] * this.imaginary[index];
+		}
+		return Math.hypot(realSum, imaginarySum) / (end - start);
 	}
 
 	public double getBandMean(final double startFrequency, final double endFrequency)
 	{
-		return Averages.mean(amplitudes(startFrequency, endFrequency)).absScalar();
+		final int start = this.bandStart(startFrequency, endFrequency);
+		final int end = this.bandEnd(endFrequency);
+		return this.bandSum(start, end) / (end - start);
 	}
 
 	public double getBandGeometricMean(final double startFrequency, final double endFrequency)
 	{
-		return Averages.geometricMean(amplitudes(startFrequency, endFrequency)).absScalar();
+		final int start = this.bandStart(startFrequency, endFrequency);
+		final int end = this.bandEnd(endFrequency);
+		final ComplexNumber[] phasors = new ComplexNumber[Math.max(0, end - start)];
+		for(int index = start; index < end; index++)
+			phasors[index - start] = new ComplexNumber(this.real[index], this.imaginary[index]);
+		return Averages.geometricMean(phasors).absScalar();
 	}
 
 	public ComplexNumber[] getTransform()
 	{
-		return this.transform.clone();
+		final ComplexNumber[] transform = new ComplexNumber[this.real.length];
+		for(int index = 0; index < this.real.length; index++)
+			transform[index] = new ComplexNumber(this.real[index], this.imaginary[index]);
+		return transform;
+	}
+
+	/**
+	 * Gets the number of phasors in the transform, which is the block size it
+	 * was transformed with.
+	 * @return The number of phasors
+	 */
+	public int getTransformSize()
+	{
+		return this.real.length;
+	}
+
+	/**
+	 * Gets the real components of the whole transform.
+	 * @return A copy of the real components
+	 */
+	public double[] getRealTransform()
+	{
+		return this.real.clone();
+	}
+
+	/**
+	 * Gets the imaginary components of the whole transform.
+	 * @return A copy of the imaginary components
+	 */
+	public double[] getImaginaryTransform()
+	{
+		return this.imaginary.clone();
+	}
+
+	/**
+	 * Copies the whole transform into the given arrays.
+	 * @param destinationReal Receives the real components
+	 * @param destinationImaginary Receives the imaginary components
+	 */
+	public void getTransform(final double[] destinationReal, final double[] destinationImaginary)
+	{
+		System.arraycopy(this.real, 0, destinationReal, 0, this.real.length);
+		System.arraycopy(this.imaginary, 0, destinationImaginary, 0, this.imaginary.length);
 	}
 
 	public SortedMap<Double, ComplexNumber> getFrequencyPhasors()
 	{
-		return Collections.unmodifiableSortedMap(this.frequencies);
+		final NavigableMap<Double, ComplexNumber> frequencies = new TreeMap<Double, ComplexNumber>();
+		for(int index = 0; index < this.frequencyCount; index++)
+			frequencies.put(this.frequency(index), new ComplexNumber(this.real[index], this.imaginary[index]));
+		return Collections.unmodifiableSortedMap(frequencies);
 	}
 
 	public double getMinimumFrequency()
 	{
-		return this.frequencies.firstEntry().getKey();
+		return this.frequency(0);
 	}
 
 	public double getMaximumFrequency()
 	{
-		return this.frequencies.lastEntry().getKey();
+		return this.frequency(this.frequencyCount - 1);
 	}
 }
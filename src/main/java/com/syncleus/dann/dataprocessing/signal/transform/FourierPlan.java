@@ -0,0 +1,224 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.dataprocessing.signal.transform;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The precomputed tables of an in-place, iterative radix-2 fast fourier
+ * transform of one power of two size: the pairs of indexes swapped by the
+ * bit-reversal permutation and the cosines and sines of the twiddle factors.
+ * Plans hold no state while transforming, so one plan of each size is cached
+ * and shared between threads.
+ */
+final class FourierPlan
+{
+	private static final AtomicReferenceArray<FourierPlan> PLANS = new AtomicReferenceArray<FourierPlan>(Integer.SIZE - 1);
+	private final int size;
+	private final int[] swaps;
+	private final double[] cosines;
+	private final double[] sines;
+
+	private FourierPlan(final int size)
+	{
+		this.size = size;
+
+		final int bits = Integer.numberOfTrailingZeros(size);
+		int swapCount = 0;
+		final int[] swapPairs = new int[size];
+		for(int index = 0; index < size; index++)
+		{
+			final int reversed = (bits == 0 ? 0 : Integer.reverse(index) >>> (Integer.SIZE - bits));
+			if( index < reversed )
+			{
+				swapPairs[swapCount++] = index;
+				swapPairs[swapCount++] = reversed;
+			}
+		}
+		this.swaps = Arrays.copyOf(swapPairs, swapCount);
+
+		this.cosines = new double[size / 2];
+		this.sines = new double[size / 2];
+		for(int index = 0; index < (size / 2); index++)
+		{
+			final double angle = (2.0 * Math.PI * index) / size;
+			this.cosines[index] = Math.cos(angle);
+			this.sines[index] = Math.sin(angle);
+		}
+	}
+
+	/**
+	 * Gets the shared plan of a size.
+	 * @param size The number of complex values transformed
+	 * @return The plan
+	 */
+	static FourierPlan forSize(final int size)
+	{
+		if( (size < 1) || ((size & (size - 1)) != 0) )
+			throw new IllegalArgumentException("size is not a power of 2");
+		final int exponent = Integer.numberOfTrailingZeros(size);
+		final FourierPlan plan = PLANS.get(exponent);
+		if( plan != null )
+			return plan;
+		PLANS.compareAndSet(exponent, null, new FourierPlan(size));
+		return PLANS.get(exponent);
+	}
+
+	int getSize()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Transforms complex values in place.
+	 * @param real The real components, replaced by those of the transform
+	 * @param imaginary The imaginary components, replaced by those of the
+	 *   transform
+	 */
+	void transform(final double[] real, final double[] imaginary)
+	{
+		this.butterflies(real, imaginary, -1.0);
+	}
+
+	/**
+	 * Inverts a transform in place.
+	 * @param real The real components, replaced by those of the signal
+	 * @param imaginary The imaginary components, replaced by those of the
+	 *   signal
+	 */
+	void inverseTransform(final double[] real, final double[] imaginary)
+	{
+		this.butterflies(real, imaginary, 1.0);
+		final double scale = 1.0 / this.size;
+		for(int index = 0; index < this.size; index++)
+		{
+			real[index] *= scale;
+			imaginary[index] *= scale;
+		}
+	}
+
+	/**
+	 * Transforms a real signal by packing its even and odd samples into one
+	 * complex transform of half the size, then separating the two halves.
+	 * Samples past the end of the signal are taken as zero, samples past the
+	 * size of the plan are ignored and the whole transform, including the
+	 * conjugate symmetric upper half, is written.
+	 * @param signal The real signal
+	 * @param real Receives the real components of the transform
+	 * @param imaginary Receives the imaginary components of the transform
+	 */
+	void transformReal(final double[] signal, final double[] real, final double[] imaginary)
+	{
+		if( (real.length < this.size) || (imaginary.length < this.size) )
+			throw new IllegalArgumentException("real and imaginary must hold size values");
+		if( this.size == 1 )
+		{
+			real[0] = sample(signal, 0);
+			imaginary[0] = 0.0;
+			return;
+		}
+
+		final int half = this.size / 2;
+		for(int index = 0; index < half; index++)
+		{
+			real[index] = sample(signal, 2 * index);
+			imaginary[index] = sample(signal, (2 * index) + 1);
+		}
+		forSize(half).transform(real, imaginary);
+
+		//Z[k] holds E[k] + i O[k], the transforms of the even and odd samples,
+		//so E[k] = (Z[k] + conj(Z[half - k])) / 2, O[k] = (Z[k] - conj(Z[half - k])) / 2i
+		//and X[k] = E[k] + W^k O[k], computed for k and half - k together
+		final double zeroReal = real[0];
+		final double zeroImaginary = imaginary[0];
+		for(int index = 1; index <= (half - index); index++)
+		{
+			final int mirror = half - index;
+			final double indexReal = real[index];
+			final double indexImaginary = imaginary[index];
+			final double mirrorReal = real[mirror];
+			final double mirrorImaginary = imaginary[mirror];
+			final double evenReal = (indexReal + mirrorReal) * 0.5;
+			final double evenImaginary = (indexImaginary - mirrorImaginary) * 0.5;
+			final double oddReal = (indexImaginary + mirrorImaginary) * 0.5;
+			final double oddImaginary = (mirrorReal - indexReal) * 0.5;
+			final double twiddleReal = this.cosines[index];
+			final double twiddleImaginary = -this.sines[index];
+			real[index] = evenReal + ((twiddleReal * oddReal) - (twiddleImaginary * oddImaginary));
+			imaginary[index] = evenImaginary + ((twiddleReal * oddImaginary) + (twiddleImaginary * oddReal));
+			//the mirror takes the conjugates of E and O and W^(half - k) = -conj(W^k)
+			real[mirror] = evenReal - ((twiddleReal * oddReal) - (twiddleImaginary * oddImaginary));
+			imaginary[mirror] = ((twiddleReal * oddImaginary) + (twiddleImaginary * oddReal)) - evenImaginary;
+		}
+		real[0] = zeroReal + zeroImaginary;
+		imaginary[0] = 0.0;
+		real[half] = zeroReal - zeroImaginary;
+		imaginary[half] = 0.0;
+		for(int index = 1; index < half; index++)
+		{
+			real[this.size - index] = real[index];
+			imaginary[this.size - index] = -imaginary[index];
+		}
+	}
+
+	private static double sample(final double[] signal, final int index)
+	{
+		return (index < signal.length ? signal[index] : 0.0);
+	}
+
+	private void butterflies(final double[] real, final double[] imaginary, final double direction)
+	{
+		if( (real.length < this.size) || (imaginary.length < this.size) )
+			throw new IllegalArgumentException("real and imaginary must hold size values");
+
+		for(int index = 0; index < this.swaps.length; index += 2)
+		{
+			final int first = this.swaps[index];
+			final int second = this.swaps[index + 1];
+			final double swappedReal = real[first];
+			real[first] = real[second];
+			real[second] = swappedReal;
+			final double swappedImaginary = imaginary[first];
+			imaginary[first] = imaginary[second];
+			imaginary[second] = swappedImaginary;
+		}
+
+		//each pass merges pairs of transforms of half points into one of span points
+		for(int half = 1, stride = this.size / 2; half < this.size; half *= 2, stride /= 2)
+		{
+			final int span = half * 2;
+			for(int offset = 0, twiddle = 0; offset < half; offset++, twiddle += stride)
+			{
+				final double twiddleReal = this.cosines[twiddle];
+				final double twiddleImaginary = direction * this.sines[twiddle];
+				for(int even = offset; even < this.size; even += span)
+				{
+					final int odd = even + half;
+					final double oddReal = (real[odd] * twiddleReal) - (imaginary[odd] * twiddleImaginary);
+					final double oddImaginary = (real[odd] * twiddleImaginary) + (imaginary[odd] * twiddleReal);
+					real[odd] = real[even] - oddReal;
+					imaginary[odd] = imaginary[even] - oddImaginary;
+					real[even] += oddReal;
+					imaginary[even] += oddImaginary;
+				}
+			}
+		}
+	}
+}
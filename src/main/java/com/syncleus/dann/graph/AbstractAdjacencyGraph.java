@@ -18,13 +18,14 @@
  ******************************************************************************/
 package com.syncleus.dann.graph;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import com.syncleus.dann.UnexpectedDannError;
 import com.syncleus.dann.graph.context.ContextGraphElement;
 import com.syncleus.dann.graph.xml.*;
@@ -36,18 +37,68 @@ import org.apache.log4j.Logger;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
 /**
- * An AbstractAdjacencyGraph is a Graph implemented using adjacency lists.
+ * An AbstractAdjacencyGraph is a Graph implemented using adjacency lists. The
+ * edge set and the maps from each node to its adjacent edges and nodes are
+ * persistent hash tries, so a graph derived through cloneAdd or cloneRemove
+ * shares everything it did not change with the graph it came from. Deriving a
+ * graph costs time logarithmic to its size plus the degree of the nodes whose
+ * adjacency changed, rather than a copy of the whole graph.
+ *
+ * <p>When context is enabled the nodes and edges a derived graph inherits are
+ * not asked to join it up front. They are only asked to join once they would
+ * have to leave it, so leaving a derived graph is always legal. Elements which
+ * may only be in one graph at a time are the exception, they are asked to join
+ * every derived graph straight away so they can refuse it.
  * @param <N> The node type
  * @param <E> The type of edge for the given node type
  */
 @XmlJavaTypeAdapter( com.syncleus.dann.xml.XmlSerializableAdapter.class )
-public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Graph<N, E>
+public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements ListenableGraph<N, E>
 {
 	private static final Logger LOGGER = Logger.getLogger(AbstractAdjacencyGraph.class);
-	private Set<E> edges;
-	private Map<N, Set<E>> adjacentEdges = new HashMap<N, Set<E>>();
-	private Map<N, List<N>> adjacentNodes = new HashMap<N, List<N>>();
+	private PersistentHashSet<E> edges;
+	private PersistentHashMap<N, Set<E>> adjacentEdges = new PersistentHashMap<N, Set<E>>(new EdgeSetCopier<E>());
+	private PersistentHashMap<N, List<N>> adjacentNodes = new PersistentHashMap<N, List<N>>(new NodeListCopier<N>());
 	private final boolean contextEnabled;
+	//inherited elements which were not yet asked to join this graph
+	private PersistentHashSet<E> unjoinedEdges = new PersistentHashSet<E>();
+	private PersistentHashMap<N, Set<E>> unjoinedNodes = new PersistentHashMap<N, Set<E>>(null);
+	//joined elements which do not allow joining multiple graphs
+	private PersistentHashSet<E> exclusiveEdges = new PersistentHashSet<E>();
+	private PersistentHashSet<N> exclusiveNodes = new PersistentHashSet<N>();
+	private transient List<GraphListener<N, E>> listeners;
+
+	/**
+	 * Copies the adjacent edges of a node when they are shared with a derived
+	 * graph. Edge sets created by this class are forked rather than copied.
+	 */
+	private static final class EdgeSetCopier<E> implements PersistentHashMap.ValueCopier<Set<E>>, Serializable
+	{
+		private static final long serialVersionUID = 3129482290367115012L;
+
+		@Override
+		public Set<E> copy(final Set<E> value)
+		{
+			if( value instanceof PersistentHashSet )
+				return ((PersistentHashSet<E>) value).fork();
+			return new PersistentHashSet<E>(value);
+		}
+	}
+
+	/**
+	 * Copies the adjacent nodes of a node when they are shared with a derived
+	 * graph.
+	 */
+	private static final class NodeListCopier<N> implements PersistentHashMap.ValueCopier<List<N>>, Serializable
+	{
+		private static final long serialVersionUID = -6408157305981360287L;
+
+		@Override
+		public List<N> copy(final List<N> value)
+		{
+			return new ArrayList<N>(value);
+		}
+	}
 
 
 	/**
@@ -64,7 +115,7 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 	 */
 	protected AbstractAdjacencyGraph(final boolean contextEnabled)
 	{
-		this.edges = new HashSet<E>();
+		this.edges = new PersistentHashSet<E>();
 		this.contextEnabled = contextEnabled;
 	}
 
@@ -126,25 +177,21 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 		for(final N attemptNode : attemptNodes)
 		{
 			// lets see if this ContextEdge will allow itself to join the graph
-			if(this.contextEnabled
-					&& (attemptNode instanceof ContextGraphElement)
-					&& !((ContextGraphElement)attemptNode).joiningGraph(this) )
+			if( !this.isNodeJoining(attemptNode) )
 				continue;
 
 			this.adjacentNodes.put(attemptNode, new ArrayList<N>());
-			this.adjacentEdges.put(attemptNode, new HashSet<E>());
+			this.adjacentEdges.put(attemptNode, new PersistentHashSet<E>());
 		}
 
 		//Add the edges checking for Edge Context.
 		if( this.contextEnabled )
 		{
-			this.edges = new HashSet<E>(attemptEdges.size());
+			this.edges = new PersistentHashSet<E>();
 			for(E attemptEdge : attemptEdges)
 			{
 				// lets see if this ContextEdge will allow itself to join the graph
-				if(this.contextEnabled
-						&& (attemptEdge instanceof ContextGraphElement)
-						&& !((ContextGraphElement)attemptEdge).joiningGraph(this) )
+				if( !this.isEdgeJoining(attemptEdge) )
 					continue;
 
 
@@ -177,7 +224,33 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 		}
 		else
 		{
-			this.edges = new HashSet<E>(attemptEdges);
+			this.edges = new PersistentHashSet<E>(attemptEdges);
+		}
+	}
+
+	/**
+	 * Creates a new AbstractAdjacencyGraph from the nodes and edges collected by
+	 * a builder. The adjacency of every node is built in bulk rather than one
+	 * edge at a time.
+	 *
+	 * @param builder The builder holding the nodes and edges of the graph
+	 * @see GraphBuilder
+	 */
+	protected AbstractAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		if( builder == null )
+			throw new IllegalArgumentException("builder can not be null");
+		this.contextEnabled = builder.isContextEnabled();
+		this.edges = new PersistentHashSet<E>();
+		builder.load(this, this.edges, this.adjacentEdges, this.adjacentNodes);
+		if( this.contextEnabled )
+		{
+			for(final N node : this.adjacentEdges.keySet())
+				if( isExclusive(node) )
+					this.exclusiveNodes.add(node);
+			for(final E edge : this.edges)
+				if( isExclusive(edge) )
+					this.exclusiveEdges.add(edge);
 		}
 	}
 
@@ -214,6 +287,78 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 		return this.contextEnabled;
 	}
 
+	@Override
+	public void addGraphListener(final GraphListener<N, E> listener)
+	{
+		if( listener == null )
+			throw new IllegalArgumentException("listener can not be null");
+		synchronized(this)
+		{
+			if( this.listeners == null )
+				this.listeners = new CopyOnWriteArrayList<GraphListener<N, E>>();
+		}
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public boolean removeGraphListener(final GraphListener<N, E> listener)
+	{
+		final List<GraphListener<N, E>> currentListeners = this.listeners;
+		return (currentListeners != null) && currentListeners.remove(listener);
+	}
+
+	/**
+	 * Tells the listeners of this graph a node was added. Called by subclasses
+	 * after they add a node.
+	 * @param node the node added
+	 */
+	protected void fireNodeAdded(final N node)
+	{
+		final List<GraphListener<N, E>> currentListeners = this.listeners;
+		if( currentListeners != null )
+			for(final GraphListener<N, E> listener : currentListeners)
+				listener.nodeAdded(this, node);
+	}
+
+	/**
+	 * Tells the listeners of this graph a node was removed. Called by
+	 * subclasses after they remove a node and its edges.
+	 * @param node the node removed
+	 */
+	protected void fireNodeRemoved(final N node)
+	{
+		final List<GraphListener<N, E>> currentListeners = this.listeners;
+		if( currentListeners != null )
+			for(final GraphListener<N, E> listener : currentListeners)
+				listener.nodeRemoved(this, node);
+	}
+
+	/**
+	 * Tells the listeners of this graph an edge was added. Called by
+	 * subclasses after they add an edge.
+	 * @param edge the edge added
+	 */
+	protected void fireEdgeAdded(final E edge)
+	{
+		final List<GraphListener<N, E>> currentListeners = this.listeners;
+		if( currentListeners != null )
+			for(final GraphListener<N, E> listener : currentListeners)
+				listener.edgeAdded(this, edge);
+	}
+
+	/**
+	 * Tells the listeners of this graph an edge was removed. Called by
+	 * subclasses after they remove an edge.
+	 * @param edge the edge removed
+	 */
+	protected void fireEdgeRemoved(final E edge)
+	{
+		final List<GraphListener<N, E>> currentListeners = this.listeners;
+		if( currentListeners != null )
+			for(final GraphListener<N, E> listener : currentListeners)
+				listener.edgeRemoved(this, edge);
+	}
+
 	/**
 	 * Gets all nodes in the map.
 	 * @return The unmodifiable set of nodes
@@ -242,8 +387,9 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 	@Override
 	public Set<E> getAdjacentEdges(final N node)
 	{
-		if( this.adjacentEdges.containsKey(node) )
-			return Collections.unmodifiableSet(this.adjacentEdges.get(node));
+		final Set<E> nodeEdges = this.adjacentEdges.peek(node);
+		if( nodeEdges != null )
+			return Collections.unmodifiableSet(nodeEdges);
 		else
 			return Collections.<E>emptySet();
 	}
@@ -256,7 +402,7 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 	@Override
 	public List<N> getAdjacentNodes(final N node)
 	{
-		return Collections.unmodifiableList(new ArrayList<N>(this.adjacentNodes.get(node)));
+		return Collections.unmodifiableList(new ArrayList<N>(this.adjacentNodes.peek(node)));
 	}
 
 	/**
@@ -290,9 +436,254 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 		return Collections.unmodifiableSet(traversableEdges);
 	}
 
+	/**
+	 * Creates a copy of this graph which shares its edges and adjacency with
+	 * this graph until either of them changes. Every element of the copy is
+	 * inherited and not yet asked to join it, once the copy has been changed
+	 * joinInherited must be called on it.
+	 * @return A copy of this graph sharing its structure
+	 */
+	private AbstractAdjacencyGraph<N, E> fork()
+	{
+		try
+		{
+			final AbstractAdjacencyGraph<N, E> copy = this.shallowClone();
+			copy.edges = this.edges.fork();
+			copy.adjacentEdges = this.adjacentEdges.fork();
+			copy.adjacentNodes = this.adjacentNodes.fork();
+			copy.exclusiveEdges = this.exclusiveEdges.fork();
+			copy.exclusiveNodes = this.exclusiveNodes.fork();
+			if( this.contextEnabled )
+			{
+				copy.unjoinedEdges = this.edges.fork();
+				copy.unjoinedNodes = this.adjacentEdges.fork();
+			}
+			copy.listeners = null;
+			return copy;
+		}
+		catch(CloneNotSupportedException caught)
+		{
+			LOGGER.error("Unexpectedly could not clone Graph.", caught);
+			throw new UnexpectedDannError("Unexpectedly could not clone graph", caught);
+		}
+	}
+
+	/**
+	 * Object.clone returns an instance of the class of this graph, so the
+	 * unchecked cast is safe.
+	 */
+	@SuppressWarnings("unchecked")
+	private AbstractAdjacencyGraph<N, E> shallowClone() throws CloneNotSupportedException
+	{
+		return (AbstractAdjacencyGraph<N, E>) super.clone();
+	}
+
+	/**
+	 * Asks the inherited elements of the given copy which may only be in one
+	 * graph at a time to join the copy, just as clone does. The other inherited
+	 * elements are left to join lazily, so this costs time proportional to the
+	 * number of such elements only. Inherited edges which will not join are
+	 * removed from the copy.
+	 * @param copy A copy of this graph made by fork
+	 */
+	private void joinInherited(final AbstractAdjacencyGraph<N, E> copy)
+	{
+		if( !this.contextEnabled )
+			return;
+
+		final List<N> refusedNodes = new ArrayList<N>();
+		for(final N inheritedNode : this.exclusiveNodes)
+		{
+			copy.exclusiveNodes.remove(inheritedNode);
+			if( copy.adjacentEdges.containsKey(inheritedNode) && !copy.isNodeJoining(inheritedNode) )
+				refusedNodes.add(inheritedNode);
+		}
+
+		final List<E> refusedEdges = new ArrayList<E>();
+		for(final E inheritedEdge : this.exclusiveEdges)
+		{
+			copy.exclusiveEdges.remove(inheritedEdge);
+			if( copy.edges.contains(inheritedEdge) && !copy.isEdgeJoining(inheritedEdge) )
+				refusedEdges.add(inheritedEdge);
+		}
+		for(final E refusedEdge : refusedEdges)
+			copy.removeEdgeStructure(refusedEdge);
+
+		for(final N refusedNode : refusedNodes)
+		{
+			if( !copy.adjacentEdges.peek(refusedNode).isEmpty() )
+				throw new IllegalStateException("After edges and nodes have applied their context restrictions an edge remained connected to a node not in this graph");
+			copy.adjacentEdges.remove(refusedNode);
+			copy.adjacentNodes.remove(refusedNode);
+		}
+	}
+
+	/**
+	 * Asks a node which is not in this graph to join it, if context is
+	 * enabled.
+	 * @param node The node to join
+	 * @return true if the node may be added to this graph
+	 */
+	protected boolean isNodeJoining(final N node)
+	{
+		if( !this.contextEnabled || !(node instanceof ContextGraphElement) )
+			return true;
+		this.unjoinedNodes.remove(node);
+		if( !joiningGraph((ContextGraphElement<?>) node, this) )
+			return false;
+		if( isExclusive(node) )
+			this.exclusiveNodes.add(node);
+		return true;
+	}
+
+	/**
+	 * Asks an edge which is not in this graph to join it, if context is
+	 * enabled.
+	 * @param edge The edge to join
+	 * @return true if the edge may be added to this graph
+	 */
+	protected boolean isEdgeJoining(final E edge)
+	{
+		if( !this.contextEnabled || !(edge instanceof ContextGraphElement) )
+			return true;
+		this.unjoinedEdges.remove(edge);
+		if( !joiningGraph((ContextGraphElement<?>) edge, this) )
+			return false;
+		if( isExclusive(edge) )
+			this.exclusiveEdges.add(edge);
+		return true;
+	}
+
+	/**
+	 * Asks a node of this graph to leave it, if context is enabled. A node this
+	 * graph inherited and never asked to join has nothing to leave.
+	 * @param node The node to leave
+	 * @return true if the node may be removed from this graph
+	 */
+	protected boolean isNodeLeaving(final N node)
+	{
+		if( !this.contextEnabled || !(node instanceof ContextGraphElement) )
+			return true;
+		if( this.unjoinedNodes.remove(node) != null )
+			return true;
+		if( !leavingGraph((ContextGraphElement<?>) node, this) )
+			return false;
+		this.exclusiveNodes.remove(node);
+		return true;
+	}
+
+	/**
+	 * Asks an edge of this graph to leave it, if context is enabled. An edge
+	 * this graph inherited and never asked to join has nothing to leave.
+	 * @param edge The edge to leave
+	 * @return true if the edge may be removed from this graph
+	 */
+	protected boolean isEdgeLeaving(final E edge)
+	{
+		if( !this.contextEnabled || !(edge instanceof ContextGraphElement) )
+			return true;
+		if( this.unjoinedEdges.remove(edge) )
+			return true;
+		if( !leavingGraph((ContextGraphElement<?>) edge, this) )
+			return false;
+		this.exclusiveEdges.remove(edge);
+		return true;
+	}
+
+	private static boolean isExclusive(final Object element)
+	{
+		return (element instanceof ContextGraphElement) && !((ContextGraphElement<?>) element).isAllowingMultipleGraphs();
+	}
+
+	/**
+	 * Asks an element to join a graph. The type of graph an element accepts is
+	 * not known here, the unchecked cast is safe as long as nodes and edges are
+	 * only put in graphs of the type they accept, which holds for every graph
+	 * they are added to.
+	 */
+	@SuppressWarnings("unchecked")
+	static boolean joiningGraph(final ContextGraphElement<?> element, final Graph<?, ?> graph)
+	{
+		return ((ContextGraphElement<Graph<?, ?>>) element).joiningGraph(graph);
+	}
+
+	/**
+	 * Asks an element to leave a graph, the cast is safe for the same reason
+	 * as in joiningGraph.
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean leavingGraph(final ContextGraphElement<?> element, final Graph<?, ?> graph)
+	{
+		return ((ContextGraphElement<Graph<?, ?>>) element).leavingGraph(graph);
+	}
+
+	/**
+	 * Disconnects a node from an edge. Every edge type disconnects into an edge
+	 * of its own type, so the unchecked cast is safe.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <N, E extends Edge<N>> E disconnect(final E edge, final N node)
+	{
+		return (E) edge.disconnect(node);
+	}
+
+	private void addEdgeStructure(final E newEdge)
+	{
+		this.edges.add(newEdge);
+		for(final N currentNode : newEdge.getNodes())
+		{
+			this.adjacentEdges.get(currentNode).add(newEdge);
+
+			final List<N> currentAdjacentNodes = new ArrayList<N>(newEdge.getNodes());
+			currentAdjacentNodes.remove(currentNode);
+			final List<N> nodeNeighbors = this.adjacentNodes.get(currentNode);
+			for(final N currentAdjacentNode : currentAdjacentNodes)
+				nodeNeighbors.add(currentAdjacentNode);
+		}
+	}
+
+	private void removeEdgeStructure(final E edgeToRemove)
+	{
+		this.edges.remove(edgeToRemove);
+		for(final N removeNode : edgeToRemove.getNodes())
+		{
+			this.adjacentEdges.get(removeNode).remove(edgeToRemove);
+
+			final List<N> removeAdjacentNodes = new ArrayList<N>(edgeToRemove.getNodes());
+			removeAdjacentNodes.remove(removeNode);
+			final List<N> nodeNeighbors = this.adjacentNodes.get(removeNode);
+			for(final N removeAdjacentNode : removeAdjacentNodes)
+				nodeNeighbors.remove(removeAdjacentNode);
+		}
+	}
+
+	private void removeNodeStructure(final N nodeToRemove)
+	{
+		final List<E> removeEdges = new ArrayList<E>(this.adjacentEdges.peek(nodeToRemove));
+		for(final E removeEdge : removeEdges)
+			this.removeEdgeStructure(removeEdge);
+
+		//edges joining more than two nodes stay in the graph without the
+		//removed node
+		for(final E removeEdge : removeEdges)
+		{
+			if( removeEdge.getNodes().size() <= 2 )
+				continue;
+			E newEdge = disconnect(removeEdge, nodeToRemove);
+			while( (newEdge != null) && newEdge.getNodes().contains(nodeToRemove) )
+				newEdge = disconnect(newEdge, nodeToRemove);
+			if( (newEdge != null) && (newEdge.getNodes().size() >= 2) && !this.edges.contains(newEdge) && this.isEdgeJoining(newEdge) )
+				this.addEdgeStructure(newEdge);
+		}
+
+		this.adjacentEdges.remove(nodeToRemove);
+		this.adjacentNodes.remove(nodeToRemove);
+	}
+
 	/**
 	 * Adds the given edge to a clone of this object. Returns null if the given
-	 * edge could not be added.
+	 * edge could not be added. The clone shares all but the changed adjacency
+	 * with this graph.
 	 * @param newEdge the edge to add to the cloned graph.
 	 * @return A clone, with the given edge added
 	 */
@@ -304,75 +695,144 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 		if( !this.getNodes().containsAll(newEdge.getNodes()) )
 			throw new IllegalArgumentException("newEdge has a node as an end point that is not part of the graph");
 
-		final Set<E> newEdges = new HashSet<E>(this.edges);
-		if( newEdges.add(newEdge) )
-		{
-			final Map<N, Set<E>> newAdjacentEdges = new HashMap<N, Set<E>>();
-			for(final Map.Entry<N, Set<E>> neighborEdgeEntry : this.adjacentEdges.entrySet())
-				newAdjacentEdges.put(neighborEdgeEntry.getKey(), new HashSet<E>(neighborEdgeEntry.getValue()));
-			final Map<N, List<N>> newAdjacentNodes = new HashMap<N, List<N>>();
-			for(final Map.Entry<N, List<N>> neighborNodeEntry : this.adjacentNodes.entrySet())
-				newAdjacentNodes.put(neighborNodeEntry.getKey(), new ArrayList<N>(neighborNodeEntry.getValue()));
-
-			for(final N currentNode : newEdge.getNodes())
-			{
-				newAdjacentEdges.get(currentNode).add(newEdge);
-
-				final List<N> currentAdjacentNodes = new ArrayList<N>(newEdge.getNodes());
-				currentAdjacentNodes.remove(currentNode);
-				for(final N currentAdjacentNode : currentAdjacentNodes)
-					newAdjacentNodes.get(currentNode).add(currentAdjacentNode);
-			}
-
-			final AbstractAdjacencyGraph<N, E> copy = this.clone();
-			copy.edges = newEdges;
-			copy.adjacentEdges = newAdjacentEdges;
-			copy.adjacentNodes = newAdjacentNodes;
-			return copy;
-		}
+		if( this.edges.contains(newEdge) )
+			return null;
 
-		return null;
+		final AbstractAdjacencyGraph<N, E> copy = this.fork();
+		if( !copy.isEdgeJoining(newEdge) )
+			return null;
+		copy.addEdgeStructure(newEdge);
+		this.joinInherited(copy);
+		return copy;
 	}
 
 	/**
-	 * Creates a clone of this graph with the given node added.
-	 * NOTE: Returns null.
+	 * Creates a clone of this graph with the given node added. Returns null if
+	 * the node is already present or could not be added.
 	 * @param newNode the node to add to the cloned graph.
-	 * @return null
+	 * @return A clone, with the given node added
 	 */
 	@Override
 	public AbstractAdjacencyGraph<N, E> cloneAdd(final N newNode)
 	{
-		// TODO Implement this method
-		return null;
+		if( newNode == null )
+			throw new IllegalArgumentException("newNode can not be null");
+
+		if( this.adjacentEdges.containsKey(newNode) )
+			return null;
+
+		final AbstractAdjacencyGraph<N, E> copy = this.fork();
+		if( !copy.isNodeJoining(newNode) )
+			return null;
+		copy.adjacentEdges.put(newNode, new PersistentHashSet<E>());
+		copy.adjacentNodes.put(newNode, new ArrayList<N>());
+		this.joinInherited(copy);
+		return copy;
 	}
 
+	/**
+	 * Creates a clone of this graph with the given nodes and edges added. Nodes
+	 * and edges already present, or which will not join the graph, are skipped.
+	 * @param newNodes the nodes to add to the cloned graph.
+	 * @param newEdges the edges to add to the cloned graph.
+	 * @return A clone, with the given nodes and edges added
+	 */
 	@Override
 	public AbstractAdjacencyGraph<N, E> cloneAdd(final Set<N> newNodes, final Set<E> newEdges)
 	{
-		// TODO Implement this method
-		return null;
+		if( newNodes == null )
+			throw new IllegalArgumentException("newNodes can not be null");
+		if( newEdges == null )
+			throw new IllegalArgumentException("newEdges can not be null");
+
+		final AbstractAdjacencyGraph<N, E> copy = this.fork();
+		for(final N newNode : newNodes)
+		{
+			if( copy.adjacentEdges.containsKey(newNode) || !copy.isNodeJoining(newNode) )
+				continue;
+			copy.adjacentEdges.put(newNode, new PersistentHashSet<E>());
+			copy.adjacentNodes.put(newNode, new ArrayList<N>());
+		}
+		for(final E newEdge : newEdges)
+		{
+			for(final N endPoint : newEdge.getNodes())
+				if( !copy.adjacentEdges.containsKey(endPoint) )
+					throw new IllegalArgumentException("A node that is an end point in one of the newEdges was not in the graph");
+			if( copy.edges.contains(newEdge) || !copy.isEdgeJoining(newEdge) )
+				continue;
+			copy.addEdgeStructure(newEdge);
+		}
+		this.joinInherited(copy);
+		return copy;
 	}
 
+	/**
+	 * Creates a clone of this graph with the given edge removed. Returns null
+	 * if the edge is not in this graph.
+	 * @param edgeToRemove the edge to remove from the cloned graph.
+	 * @return A clone, with the given edge removed
+	 */
 	@Override
 	public AbstractAdjacencyGraph<N, E> cloneRemove(final E edgeToRemove)
 	{
-		// TODO Implement this method
-		return null;
+		if( edgeToRemove == null )
+			throw new IllegalArgumentException("edgeToRemove can not be null");
+
+		if( !this.edges.contains(edgeToRemove) )
+			return null;
+
+		final AbstractAdjacencyGraph<N, E> copy = this.fork();
+		copy.removeEdgeStructure(edgeToRemove);
+		this.joinInherited(copy);
+		return copy;
 	}
 
+	/**
+	 * Creates a clone of this graph with the given node and the edges to it
+	 * removed. Returns null if the node is not in this graph.
+	 * @param nodeToRemove the node to remove from the cloned graph.
+	 * @return A clone, with the given node removed
+	 */
 	@Override
 	public AbstractAdjacencyGraph<N, E> cloneRemove(final N nodeToRemove)
 	{
-		// TODO Implement this method
-		return null;
+		if( nodeToRemove == null )
+			throw new IllegalArgumentException("nodeToRemove can not be null");
+
+		if( !this.adjacentEdges.containsKey(nodeToRemove) )
+			return null;
+
+		final AbstractAdjacencyGraph<N, E> copy = this.fork();
+		copy.removeNodeStructure(nodeToRemove);
+		this.joinInherited(copy);
+		return copy;
 	}
 
+	/**
+	 * Creates a clone of this graph with the given nodes and edges removed,
+	 * along with any other edges to the removed nodes. Nodes and edges which
+	 * are not in this graph are ignored.
+	 * @param deleteNodes the nodes to remove from the cloned graph.
+	 * @param deleteEdges the edges to remove from the cloned graph.
+	 * @return A clone, with the given nodes and edges removed
+	 */
 	@Override
 	public AbstractAdjacencyGraph<N, E> cloneRemove(final Set<N> deleteNodes, final Set<E> deleteEdges)
 	{
-		// TODO Implement this method
-		return null;
+		if( deleteNodes == null )
+			throw new IllegalArgumentException("deleteNodes can not be null");
+		if( deleteEdges == null )
+			throw new IllegalArgumentException("deleteEdges can not be null");
+
+		final AbstractAdjacencyGraph<N, E> copy = this.fork();
+		for(final E deleteEdge : deleteEdges)
+			if( copy.edges.contains(deleteEdge) )
+				copy.removeEdgeStructure(deleteEdge);
+		for(final N deleteNode : deleteNodes)
+			if( copy.adjacentEdges.containsKey(deleteNode) )
+				copy.removeNodeStructure(deleteNode);
+		this.joinInherited(copy);
+		return copy;
 	}
 
 	/**
@@ -384,35 +844,36 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 	{
 		try
 		{
-			final AbstractAdjacencyGraph<N, E> cloneGraph = (AbstractAdjacencyGraph<N, E>) super.clone();
+			final AbstractAdjacencyGraph<N, E> cloneGraph = this.shallowClone();
+			cloneGraph.listeners = null;
 
 			//lets instantiate some new data structures for our clone
-			cloneGraph.adjacentEdges = new HashMap<N, Set<E>>();
-			cloneGraph.adjacentNodes = new HashMap<N, List<N>>();
+			cloneGraph.adjacentEdges = new PersistentHashMap<N, Set<E>>(new EdgeSetCopier<E>());
+			cloneGraph.adjacentNodes = new PersistentHashMap<N, List<N>>(new NodeListCopier<N>());
+			cloneGraph.unjoinedEdges = new PersistentHashSet<E>();
+			cloneGraph.unjoinedNodes = new PersistentHashMap<N, Set<E>>(null);
+			cloneGraph.exclusiveEdges = new PersistentHashSet<E>();
+			cloneGraph.exclusiveNodes = new PersistentHashSet<N>();
 
 			//add all the nodes before we worry about edges. check for NodeContext
 			for(N attemptNode : this.getNodes())
 			{
 				// lets see if this ContextEdge will allow itself to join the graph
-				if(this.contextEnabled
-						&& (attemptNode instanceof ContextGraphElement)
-						&& !((ContextGraphElement)attemptNode).joiningGraph(cloneGraph) )
+				if( !cloneGraph.isNodeJoining(attemptNode) )
 					continue;
 
 				cloneGraph.adjacentNodes.put(attemptNode, new ArrayList<N>());
-				cloneGraph.adjacentEdges.put(attemptNode, new HashSet<E>());
+				cloneGraph.adjacentEdges.put(attemptNode, new PersistentHashSet<E>());
 			}
 
 			//Add the edges checking for Edge Context.
 			if( this.contextEnabled )
 			{
-				cloneGraph.edges = new HashSet<E>(this.getEdges().size());
+				cloneGraph.edges = new PersistentHashSet<E>();
 				for(E attemptEdge : this.getEdges())
 				{
 					// lets see if this ContextEdge will allow itself to join the graph
-					if(this.contextEnabled
-							&& (attemptEdge instanceof ContextGraphElement)
-							&& !((ContextGraphElement)attemptEdge).joiningGraph(cloneGraph) )
+					if( !cloneGraph.isEdgeJoining(attemptEdge) )
 						continue;
 
 					cloneGraph.edges.add(attemptEdge);
@@ -444,7 +905,7 @@ public abstract class AbstractAdjacencyGraph<N, E extends Edge<N>> implements Gr
 			}
 			else
 			{
-				cloneGraph.edges = new HashSet<E>(this.getEdges());
+				cloneGraph.edges = new PersistentHashSet<E>(this.getEdges());
 			}
 
 			return cloneGraph;
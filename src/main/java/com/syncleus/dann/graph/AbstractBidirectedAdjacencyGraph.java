@@ -41,6 +41,11 @@ public abstract class AbstractBidirectedAdjacencyGraph<N, E extends BidirectedEd
 		super(nodes, edges);
 	}
 
+	protected AbstractBidirectedAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	@Override
 	public Set<E> getInEdges(final N node)
 	{
@@ -37,6 +37,11 @@ public abstract class AbstractDirectedAdjacencyGraph<N, E extends DirectedEdge<N
 		super(nodes, edges);
 	}
 
+	protected AbstractDirectedAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	@Override
 	public AbstractDirectedAdjacencyGraph<N, E> cloneAdd(final E newEdge)
 	{
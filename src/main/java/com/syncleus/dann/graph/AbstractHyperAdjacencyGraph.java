@@ -37,6 +37,11 @@ public abstract class AbstractHyperAdjacencyGraph<N, E extends HyperEdge<N>> ext
 		super(nodes, edges);
 	}
 
+	protected AbstractHyperAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	/**
 	 * This will always return false.
 	 *
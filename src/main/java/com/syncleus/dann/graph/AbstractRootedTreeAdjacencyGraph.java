@@ -46,6 +46,13 @@ public abstract class AbstractRootedTreeAdjacencyGraph<N, E extends DirectedEdge
 			throw new IllegalArgumentException("edges do not form a rooted tree");
 	}
 
+	protected AbstractRootedTreeAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+		if( !this.isRootedTree() )
+			throw new IllegalArgumentException("edges do not form a rooted tree");
+	}
+
 	@Override
 	public boolean isRootedTree()
 	{
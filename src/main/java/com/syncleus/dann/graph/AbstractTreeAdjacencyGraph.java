@@ -46,6 +46,13 @@ public abstract class AbstractTreeAdjacencyGraph<N, E extends BidirectedEdge<N>>
 			throw new IllegalArgumentException("edges do not form a tree graph");
 	}
 
+	protected AbstractTreeAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+		if( !Trees.isTree(this) )
+			throw new IllegalArgumentException("edges do not form a tree graph");
+	}
+
 	@Override
 	public boolean isTree()
 	{
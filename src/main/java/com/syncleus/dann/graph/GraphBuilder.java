@@ -0,0 +1,436 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import com.syncleus.dann.graph.context.ContextGraphElement;
+
+/**
+ * Collects the nodes and edges of a graph so an adjacency graph can be built
+ * from all of them at once. Where the set based constructors insert one edge
+ * at a time into the adjacency structures, a builder numbers the nodes,
+ * resolves the end points of every edge, sizes each node's adjacency exactly
+ * and then loads the hash tries of the graph in bulk. The end points, the
+ * adjacency of each node and the tries are built across the threads of a
+ * fork/join pool when one is set.
+ *
+ * <p>Context elements are asked to join the graph in two batches, the nodes
+ * first and then the edges, before any structure is built. They are always
+ * asked on the thread calling the graph constructor, in the order they were
+ * added to the builder.
+ *
+ * <p>A builder may be used to construct any number of graphs, including graphs
+ * of different types, for example:
+ * <pre>
+ * GraphBuilder&lt;N, E&gt; builder = new GraphBuilder&lt;N, E&gt;(nodeCount, edgeCount);
+ * builder.addNodes(nodes).addEdges(edges);
+ * ImmutableDirectedAdjacencyGraph&lt;N, E&gt; graph = new ImmutableDirectedAdjacencyGraph&lt;N, E&gt;(builder);
+ * </pre>
+ *
+ * @param <N> The node type
+ * @param <E> The type of edge for the given node type
+ */
+public class GraphBuilder<N, E extends Edge<N>>
+{
+	//ranges smaller than this are handled on the calling thread
+	private static final int PARALLEL_THRESHOLD = 4096;
+
+	private final List<N> nodes;
+	private final List<E> edges;
+	private boolean contextEnabled = true;
+	private ForkJoinPool pool;
+
+	/**
+	 * Creates an empty builder with context enabled which builds on the calling
+	 * thread.
+	 */
+	public GraphBuilder()
+	{
+		this(16, 16);
+	}
+
+	/**
+	 * Creates an empty builder sized for the expected number of nodes and
+	 * edges.
+	 *
+	 * @param expectedNodes the number of nodes expected to be added.
+	 * @param expectedEdges the number of edges expected to be added.
+	 */
+	public GraphBuilder(final int expectedNodes, final int expectedEdges)
+	{
+		if( expectedNodes < 0 )
+			throw new IllegalArgumentException("expectedNodes can not be negative");
+		if( expectedEdges < 0 )
+			throw new IllegalArgumentException("expectedEdges can not be negative");
+		this.nodes = new ArrayList<N>(expectedNodes);
+		this.edges = new ArrayList<E>(expectedEdges);
+	}
+
+	public GraphBuilder<N, E> addNode(final N node)
+	{
+		if( node == null )
+			throw new IllegalArgumentException("node can not be null");
+		this.nodes.add(node);
+		return this;
+	}
+
+	public GraphBuilder<N, E> addNodes(final Collection<? extends N> newNodes)
+	{
+		if( newNodes == null )
+			throw new IllegalArgumentException("newNodes can not be null");
+		if( newNodes.contains(null) )
+			throw new IllegalArgumentException("newNodes can not contain null");
+		this.nodes.addAll(newNodes);
+		return this;
+	}
+
+	public GraphBuilder<N, E> addEdge(final E edge)
+	{
+		if( edge == null )
+			throw new IllegalArgumentException("edge can not be null");
+		this.edges.add(edge);
+		return this;
+	}
+
+	public GraphBuilder<N, E> addEdges(final Collection<? extends E> newEdges)
+	{
+		if( newEdges == null )
+			throw new IllegalArgumentException("newEdges can not be null");
+		if( newEdges.contains(null) )
+			throw new IllegalArgumentException("newEdges can not contain null");
+		this.edges.addAll(newEdges);
+		return this;
+	}
+
+	public boolean isContextEnabled()
+	{
+		return this.contextEnabled;
+	}
+
+	/**
+	 * Sets if the graphs built will have context enabled, it is enabled by
+	 * default.
+	 */
+	public GraphBuilder<N, E> setContextEnabled(final boolean contextEnabled)
+	{
+		this.contextEnabled = contextEnabled;
+		return this;
+	}
+
+	public ForkJoinPool getPool()
+	{
+		return this.pool;
+	}
+
+	/**
+	 * Sets the pool the graph structures are built on, null builds them on the
+	 * calling thread which is the default.
+	 */
+	public GraphBuilder<N, E> setPool(final ForkJoinPool pool)
+	{
+		this.pool = pool;
+		return this;
+	}
+
+	public int getNodeCount()
+	{
+		return this.nodes.size();
+	}
+
+	public int getEdgeCount()
+	{
+		return this.edges.size();
+	}
+
+	/**
+	 * Builds an immutable graph from the nodes and edges added so far.
+	 */
+	public ImmutableAdjacencyGraph<N, E> buildImmutable()
+	{
+		return new ImmutableAdjacencyGraph<N, E>(this);
+	}
+
+	/**
+	 * Builds a mutable graph from the nodes and edges added so far.
+	 */
+	public MutableAdjacencyGraph<N, E> buildMutable()
+	{
+		return new MutableAdjacencyGraph<N, E>(this);
+	}
+
+	/**
+	 * Runs a range of indexes either on the calling thread or split across the
+	 * pool.
+	 */
+	private abstract static class RangeAction extends RecursiveAction
+	{
+		private static final long serialVersionUID = 5803561286601327404L;
+		private final int from;
+		private final int to;
+
+		RangeAction(final int from, final int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		protected abstract void compute(int rangeFrom, int rangeTo);
+
+		protected abstract RangeAction split(int rangeFrom, int rangeTo);
+
+		@Override
+		protected void compute()
+		{
+			if( this.to - this.from <= PARALLEL_THRESHOLD )
+			{
+				this.compute(this.from, this.to);
+				return;
+			}
+			final int middle = (this.from + this.to) >>> 1;
+			invokeAll(this.split(this.from, middle), this.split(middle, this.to));
+		}
+
+		void run(final ForkJoinPool pool)
+		{
+			if( (pool == null) || (this.to - this.from <= PARALLEL_THRESHOLD) )
+				this.compute(this.from, this.to);
+			else
+				pool.invoke(this);
+		}
+	}
+
+	/**
+	 * Fills the structures of a graph under construction. The edges are
+	 * validated before any element is asked to join the graph, and an
+	 * IllegalArgumentException is thrown if an edge has an end point which was
+	 * not added as a node.
+	 */
+	void load(final Graph<N, E> graph, final PersistentHashSet<E> edgeSet, final PersistentHashMap<N, Set<E>> adjacentEdges, final PersistentHashMap<N, List<N>> adjacentNodes)
+	{
+		//number the distinct nodes
+		final Map<N, Integer> nodeIndexes = new HashMap<N, Integer>(Math.max(16, (int) (this.nodes.size() / 0.75f) + 1));
+		final List<N> nodeList = new ArrayList<N>(this.nodes.size());
+		for(final N node : this.nodes)
+			if( !nodeIndexes.containsKey(node) )
+			{
+				nodeIndexes.put(node, nodeList.size());
+				nodeList.add(node);
+			}
+		final int nodeCount = nodeList.size();
+
+		//collect the distinct edges and size the end point table
+		final Set<E> seenEdges = new HashSet<E>(Math.max(16, (int) (this.edges.size() / 0.75f) + 1));
+		final List<E> edgeList = new ArrayList<E>(this.edges.size());
+		for(final E edge : this.edges)
+			if( seenEdges.add(edge) )
+				edgeList.add(edge);
+		final int edgeCount = edgeList.size();
+		final int[] endStarts = new int[edgeCount + 1];
+		for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+			endStarts[edgeIndex + 1] = endStarts[edgeIndex] + edgeList.get(edgeIndex).getNodes().size();
+
+		//resolve the end points of every edge
+		final int[] ends = new int[endStarts[edgeCount]];
+		new EndResolver<N, E>(0, edgeCount, edgeList, nodeIndexes, endStarts, ends).run(this.pool);
+
+		//ask the nodes and then the edges if they will join the graph
+		final boolean[] nodeJoined = new boolean[nodeCount];
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			nodeJoined[nodeIndex] = this.isJoining(nodeList.get(nodeIndex), graph);
+		final boolean[] edgeJoined = new boolean[edgeCount];
+		for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+		{
+			edgeJoined[edgeIndex] = this.isJoining(edgeList.get(edgeIndex), graph);
+			if( edgeJoined[edgeIndex] )
+				for(int end = endStarts[edgeIndex]; end < endStarts[edgeIndex + 1]; end++)
+					if( !nodeJoined[ends[end]] )
+						throw new IllegalStateException("After edges and nodes have applied their context restrictions an edge remained connected to a node not in this graph");
+		}
+
+		//count the adjacency of each node so it can be filled in place
+		final int[] edgeStarts = new int[nodeCount + 1];
+		final int[] neighborStarts = new int[nodeCount + 1];
+		int joinedEdgeCount = 0;
+		for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+		{
+			if( !edgeJoined[edgeIndex] )
+				continue;
+			joinedEdgeCount++;
+			final int neighbors = endStarts[edgeIndex + 1] - endStarts[edgeIndex] - 1;
+			for(int end = endStarts[edgeIndex]; end < endStarts[edgeIndex + 1]; end++)
+			{
+				edgeStarts[ends[end] + 1]++;
+				neighborStarts[ends[end] + 1] += neighbors;
+			}
+		}
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+		{
+			edgeStarts[nodeIndex + 1] += edgeStarts[nodeIndex];
+			neighborStarts[nodeIndex + 1] += neighborStarts[nodeIndex];
+		}
+
+		final Object[] joinedEdges = new Object[joinedEdgeCount];
+		final int[] nodeEdges = new int[edgeStarts[nodeCount]];
+		final int[] nodeNeighbors = new int[neighborStarts[nodeCount]];
+		final int[] edgeFill = new int[nodeCount];
+		final int[] neighborFill = new int[nodeCount];
+		joinedEdgeCount = 0;
+		for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+		{
+			if( !edgeJoined[edgeIndex] )
+				continue;
+			joinedEdges[joinedEdgeCount++] = edgeList.get(edgeIndex);
+			for(int end = endStarts[edgeIndex]; end < endStarts[edgeIndex + 1]; end++)
+			{
+				final int node = ends[end];
+				nodeEdges[edgeStarts[node] + edgeFill[node]++] = edgeIndex;
+				for(int neighbor = endStarts[edgeIndex]; neighbor < endStarts[edgeIndex + 1]; neighbor++)
+					if( neighbor != end )
+						nodeNeighbors[neighborStarts[node] + neighborFill[node]++] = ends[neighbor];
+			}
+		}
+
+		//build the adjacency of each joined node
+		final int[] joinedIndexes = new int[nodeCount];
+		int joinedNodeCount = 0;
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			if( nodeJoined[nodeIndex] )
+				joinedIndexes[joinedNodeCount++] = nodeIndex;
+		final Object[] joinedNodes = new Object[joinedNodeCount];
+		for(int joined = 0; joined < joinedNodeCount; joined++)
+			joinedNodes[joined] = nodeList.get(joinedIndexes[joined]);
+		final Object[] edgeSets = new Object[joinedNodeCount];
+		final Object[] neighborLists = new Object[joinedNodeCount];
+		new AdjacencyBuilder<N, E>(0, joinedNodeCount, joinedIndexes, edgeList, nodeList, edgeStarts, nodeEdges, neighborStarts, nodeNeighbors, edgeSets, neighborLists).run(this.pool);
+
+		edgeSet.load(joinedEdges, joinedEdges.length, this.pool);
+		adjacentEdges.load(joinedNodes, edgeSets, joinedNodeCount, this.pool);
+		adjacentNodes.load(joinedNodes, neighborLists, joinedNodeCount, this.pool);
+	}
+
+	private boolean isJoining(final Object element, final Graph<N, E> graph)
+	{
+		return !(this.contextEnabled
+				&& (element instanceof ContextGraphElement)
+				&& !AbstractAdjacencyGraph.joiningGraph((ContextGraphElement<?>) element, graph));
+	}
+
+	private static final class EndResolver<N, E extends Edge<N>> extends RangeAction
+	{
+		private static final long serialVersionUID = -2281903569473962410L;
+		private final List<E> edges;
+		private final Map<N, Integer> nodeIndexes;
+		private final int[] endStarts;
+		private final int[] ends;
+
+		EndResolver(final int from, final int to, final List<E> edges, final Map<N, Integer> nodeIndexes, final int[] endStarts, final int[] ends)
+		{
+			super(from, to);
+			this.edges = edges;
+			this.nodeIndexes = nodeIndexes;
+			this.endStarts = endStarts;
+			this.ends = ends;
+		}
+
+		@Override
+		protected void compute(final int rangeFrom, final int rangeTo)
+		{
+			for(int edgeIndex = rangeFrom; edgeIndex < rangeTo; edgeIndex++)
+			{
+				int end = this.endStarts[edgeIndex];
+				for(final N node : this.edges.get(edgeIndex).getNodes())
+				{
+					final Integer nodeIndex = this.nodeIndexes.get(node);
+					if( nodeIndex == null )
+						throw new IllegalArgumentException("A node that is an end point in one of the edges was not in the nodes list");
+					this.ends[end++] = nodeIndex;
+				}
+			}
+		}
+
+		@Override
+		protected RangeAction split(final int rangeFrom, final int rangeTo)
+		{
+			return new EndResolver<N, E>(rangeFrom, rangeTo, this.edges, this.nodeIndexes, this.endStarts, this.ends);
+		}
+	}
+
+	private static final class AdjacencyBuilder<N, E extends Edge<N>> extends RangeAction
+	{
+		private static final long serialVersionUID = 7391006424815627133L;
+		private final int[] joinedIndexes;
+		private final List<E> edges;
+		private final List<N> nodes;
+		private final int[] edgeStarts;
+		private final int[] nodeEdges;
+		private final int[] neighborStarts;
+		private final int[] nodeNeighbors;
+		private final Object[] edgeSets;
+		private final Object[] neighborLists;
+
+		AdjacencyBuilder(final int from, final int to, final int[] joinedIndexes, final List<E> edges, final List<N> nodes, final int[] edgeStarts, final int[] nodeEdges, final int[] neighborStarts, final int[] nodeNeighbors, final Object[] edgeSets, final Object[] neighborLists)
+		{
+			super(from, to);
+			this.joinedIndexes = joinedIndexes;
+			this.edges = edges;
+			this.nodes = nodes;
+			this.edgeStarts = edgeStarts;
+			this.nodeEdges = nodeEdges;
+			this.neighborStarts = neighborStarts;
+			this.nodeNeighbors = nodeNeighbors;
+			this.edgeSets = edgeSets;
+			this.neighborLists = neighborLists;
+		}
+
+		@Override
+		protected void compute(final int rangeFrom, final int rangeTo)
+		{
+			for(int joined = rangeFrom; joined < rangeTo; joined++)
+			{
+				final int node = this.joinedIndexes[joined];
+
+				final Object[] adjacentEdges = new Object[this.edgeStarts[node + 1] - this.edgeStarts[node]];
+				for(int adjacent = 0; adjacent < adjacentEdges.length; adjacent++)
+					adjacentEdges[adjacent] = this.edges.get(this.nodeEdges[this.edgeStarts[node] + adjacent]);
+				final PersistentHashSet<E> edgeSet = new PersistentHashSet<E>();
+				edgeSet.load(adjacentEdges, adjacentEdges.length, null);
+				this.edgeSets[joined] = edgeSet;
+
+				final List<N> neighbors = new ArrayList<N>(this.neighborStarts[node + 1] - this.neighborStarts[node]);
+				for(int neighbor = this.neighborStarts[node]; neighbor < this.neighborStarts[node + 1]; neighbor++)
+					neighbors.add(this.nodes.get(this.nodeNeighbors[neighbor]));
+				this.neighborLists[joined] = neighbors;
+			}
+		}
+
+		@Override
+		protected RangeAction split(final int rangeFrom, final int rangeTo)
+		{
+			return new AdjacencyBuilder<N, E>(rangeFrom, rangeTo, this.joinedIndexes, this.edges, this.nodes, this.edgeStarts, this.nodeEdges, this.neighborStarts, this.nodeNeighbors, this.edgeSets, this.neighborLists);
+		}
+	}
+}
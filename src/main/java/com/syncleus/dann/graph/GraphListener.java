@@ -0,0 +1,36 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph;
+
+/**
+ * Receives the changes made to a ListenableGraph. Each method is called after
+ * the change has been made, on the thread which made it. Removing a node first
+ * removes each of its edges, so edgeRemoved is called for them before
+ * nodeRemoved.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
+public interface GraphListener<N, E extends Edge<N>>
+{
+	void nodeAdded(Graph<N, E> graph, N node);
+	void nodeRemoved(Graph<N, E> graph, N node);
+	void edgeAdded(Graph<N, E> graph, E edge);
+	void edgeRemoved(Graph<N, E> graph, E edge);
+}
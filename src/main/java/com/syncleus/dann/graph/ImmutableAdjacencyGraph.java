@@ -49,6 +49,11 @@ public class ImmutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjac
 		super(nodes, edges);
 	}
 
+	public ImmutableAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	@Override
 	protected Set<E> getInternalEdges()
 	{
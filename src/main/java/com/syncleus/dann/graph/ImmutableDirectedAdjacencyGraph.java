@@ -46,6 +46,11 @@ public class ImmutableDirectedAdjacencyGraph<N, E extends DirectedEdge<N>> exten
 		super(nodes, edges);
 	}
 
+	public ImmutableDirectedAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	@Override
 	protected Set<E> getInternalEdges()
 	{
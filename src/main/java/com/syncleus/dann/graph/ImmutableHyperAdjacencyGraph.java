@@ -46,6 +46,11 @@ public class ImmutableHyperAdjacencyGraph<N, E extends HyperEdge<N>> extends Abs
 		super(nodes, edges);
 	}
 
+	public ImmutableHyperAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	@Override
 	protected Set<E> getInternalEdges()
 	{
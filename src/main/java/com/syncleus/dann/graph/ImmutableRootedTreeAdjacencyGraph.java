@@ -45,6 +45,11 @@ public class ImmutableRootedTreeAdjacencyGraph<N, E extends DirectedEdge<N>> ext
 		super(nodes, edges);
 	}
 
+	public ImmutableRootedTreeAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	@Override
 	protected Set<E> getInternalEdges()
 	{
@@ -46,6 +46,11 @@ public class ImmutableTreeAdjacencyGraph<N, E extends BidirectedEdge<N>> extends
 		super(nodes, edges);
 	}
 
+	public ImmutableTreeAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	@Override
 	protected Set<E> getInternalEdges()
 	{
@@ -0,0 +1,33 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph;
+
+/**
+ * A graph which reports the changes made to it to any registered
+ * GraphListener. Copies of the graph, such as those made by clone, cloneAdd and
+ * cloneRemove, do not inherit its listeners.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
+public interface ListenableGraph<N, E extends Edge<N>> extends Graph<N, E>
+{
+	void addGraphListener(GraphListener<N, E> listener);
+	boolean removeGraphListener(GraphListener<N, E> listener);
+}
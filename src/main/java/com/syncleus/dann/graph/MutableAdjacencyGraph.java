@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import com.syncleus.dann.graph.context.ContextGraphElement;
 
 public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacencyGraph<N, E> implements MutableGraph<N, E>
 {
@@ -43,6 +42,11 @@ public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacen
 		super(nodes, edges);
 	}
 
+	public MutableAdjacencyGraph(final GraphBuilder<N, E> builder)
+	{
+		super(builder);
+	}
+
 	@Override
 	public boolean add(final E newEdge)
 	{
@@ -52,8 +56,7 @@ public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacen
 			throw new IllegalArgumentException("newEdge has a node as an end point that is not part of the graph");
 
 		// if context is enabled lets check if it can join
-		if( this.isContextEnabled() && (newEdge instanceof ContextGraphElement)
-				&& !((ContextGraphElement)newEdge).joiningGraph(this) )
+		if( !this.isEdgeJoining(newEdge) )
 			return false;
 
 		if( this.getInternalEdges().add(newEdge) )
@@ -67,6 +70,7 @@ public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacen
 				for(final N newAdjacentNode : newAdjacentNodes)
 					this.getInternalAdjacencyNodes().get(currentNode).add(newAdjacentNode);
 			}
+			this.fireEdgeAdded(newEdge);
 			return true;
 		}
 
@@ -83,12 +87,12 @@ public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacen
 			return false;
 
 		// if context is enabled lets check if it can join
-		if( this.isContextEnabled() && (newNode instanceof ContextGraphElement)
-				&& !((ContextGraphElement)newNode).joiningGraph(this) )
+		if( !this.isNodeJoining(newNode) )
 			return false;
 
 		this.getInternalAdjacencyEdges().put(newNode, new HashSet<E>());
 		this.getInternalAdjacencyNodes().put(newNode, new ArrayList<N>());
+		this.fireNodeAdded(newNode);
 		return true;
 	}
 
@@ -102,9 +106,7 @@ public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacen
 			return false;
 
 		// if context is enabled lets check if it can join
-		if( this.isContextEnabled()
-				&& (edgeToRemove instanceof ContextGraphElement)
-				&& !((ContextGraphElement)edgeToRemove).leavingGraph(this) )
+		if( !this.isEdgeLeaving(edgeToRemove) )
 			return false;
 
 		if( !this.getInternalEdges().remove(edgeToRemove) )
@@ -119,6 +121,7 @@ public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacen
 			for(final N removeAdjacentNode : removeAdjacentNodes)
 				this.getInternalAdjacencyNodes().get(removeNode).remove(removeAdjacentNode);
 		}
+		this.fireEdgeRemoved(edgeToRemove);
 		return true;
 	}
 
@@ -132,9 +135,7 @@ public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacen
 			return false;
 
 		// if context is enabled lets check if it can join
-		if( this.isContextEnabled()
-				&& (nodeToRemove instanceof ContextGraphElement)
-				&& !((ContextGraphElement)nodeToRemove).leavingGraph(this) )
+		if( !this.isNodeLeaving(nodeToRemove) )
 			return false;
 
 		final Set<E> removeEdges = this.getInternalAdjacencyEdges().get(nodeToRemove);
@@ -161,6 +162,7 @@ public class MutableAdjacencyGraph<N, E extends Edge<N>> extends AbstractAdjacen
 		//remove the node itself
 		this.getInternalAdjacencyEdges().remove(nodeToRemove);
 		this.getInternalAdjacencyNodes().remove(nodeToRemove);
+		this.fireNodeRemoved(nodeToRemove);
 
 		return true;
 	}
@@ -0,0 +1,696 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A hash array mapped trie which shares its structure with the maps it is
+ * forked from. Each map owns the trie nodes it created since it was last
+ * forked and changes those in place, any other node is copied along with the
+ * path to it before it is changed. Forking is therefore constant time and a
+ * change made after a fork costs time and memory logarithmic to the size of
+ * the map.
+ *
+ * <p>Values may be mutable collections, in which case a copier must be given.
+ * A value obtained through get is copied the first time it is fetched after
+ * the map was forked, so the caller can change it without affecting the other
+ * map. Values seen while iterating are never copied and must not be changed.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+final class PersistentHashMap<K, V> extends AbstractMap<K, V> implements Serializable
+{
+	private static final long serialVersionUID = 4396280937219185426L;
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+	private static final int MAX_SHIFT = 32;
+	//every entry is stored as its key, its value and the edit which owns the value
+	private static final int STRIDE = 3;
+	private static final Object ABSENT = new Object();
+	//ranges smaller than this are loaded on the calling thread
+	private static final int PARALLEL_LOAD_THRESHOLD = 8192;
+
+	/**
+	 * Copies values which are shared with a forked map.
+	 */
+	interface ValueCopier<V>
+	{
+		V copy(V value);
+	}
+
+	private static final class Edit implements Serializable
+	{
+		private static final long serialVersionUID = -2958392836021944714L;
+	}
+
+	private static final class Node implements Serializable
+	{
+		private static final long serialVersionUID = 7265093164522904582L;
+		private final Edit edit;
+		private int dataMap;
+		private int nodeMap;
+		//entries first, child nodes at the end in reverse order
+		private Object[] content;
+
+		Node(final Edit edit, final int dataMap, final int nodeMap, final Object[] content)
+		{
+			this.edit = edit;
+			this.dataMap = dataMap;
+			this.nodeMap = nodeMap;
+			this.content = content;
+		}
+
+		int getEntryCount(final int shift)
+		{
+			return (shift >= MAX_SHIFT ? this.content.length / STRIDE : Integer.bitCount(this.dataMap));
+		}
+
+		int getChildCount(final int shift)
+		{
+			return (shift >= MAX_SHIFT ? 0 : Integer.bitCount(this.nodeMap));
+		}
+	}
+
+	private final ValueCopier<V> copier;
+	private Edit edit;
+	private Node root;
+	private int size;
+	private boolean changed;
+	private Object previousValue;
+
+	PersistentHashMap(final ValueCopier<V> copier)
+	{
+		this.copier = copier;
+		this.edit = new Edit();
+		this.root = new Node(this.edit, 0, 0, new Object[0]);
+	}
+
+	private PersistentHashMap(final PersistentHashMap<K, V> source)
+	{
+		this.copier = source.copier;
+		this.edit = new Edit();
+		this.root = source.root;
+		this.size = source.size;
+	}
+
+	/**
+	 * Creates a map holding the same entries which shares the trie with this
+	 * one. From then on neither map changes the shared nodes in place.
+	 */
+	PersistentHashMap<K, V> fork()
+	{
+		this.edit = new Edit();
+		return new PersistentHashMap<K, V>(this);
+	}
+
+	private static int hash(final Object key)
+	{
+		if( key == null )
+			return 0;
+		final int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equal(final Object first, final Object second)
+	{
+		return (first == second) || ((first != null) && first.equals(second));
+	}
+
+	private static int index(final int map, final int bit)
+	{
+		return Integer.bitCount(map & (bit - 1));
+	}
+
+	/**
+	 * Node content is an untyped array, but the key and value slots of an
+	 * entry only ever hold the keys and values put into this map, so reading
+	 * one back as K or V can not fail.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T stored(final Object content)
+	{
+		return (T) content;
+	}
+
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Finds the entry for a key and returns one of its fields, the key at
+	 * offset 0, the value at 1 and the owner of the value at 2. Returns ABSENT
+	 * if the key is not present. Lookups never change the map so any number of
+	 * threads may read it at once.
+	 */
+	private Object lookup(final Object key, final int offset)
+	{
+		final int hash = hash(key);
+		Node node = this.root;
+		int shift = 0;
+		while( true )
+		{
+			if( shift >= MAX_SHIFT )
+			{
+				for(int position = 0; position < node.content.length; position += STRIDE)
+					if( equal(node.content[position], key) )
+						return node.content[position + offset];
+				return ABSENT;
+			}
+
+			final int bit = 1 << ((hash >>> shift) & MASK);
+			if( (node.dataMap & bit) != 0 )
+			{
+				final int position = STRIDE * index(node.dataMap, bit);
+				return (equal(node.content[position], key) ? node.content[position + offset] : ABSENT);
+			}
+			else if( (node.nodeMap & bit) != 0 )
+			{
+				node = (Node) node.content[node.content.length - 1 - index(node.nodeMap, bit)];
+				shift += BITS;
+			}
+			else
+				return ABSENT;
+		}
+	}
+
+	@Override
+	public boolean containsKey(final Object key)
+	{
+		return (this.lookup(key, 0) != ABSENT);
+	}
+
+	/**
+	 * Gets the value for a key without copying it, the value must not be
+	 * changed.
+	 */
+	V peek(final Object key)
+	{
+		final Object value = this.lookup(key, 1);
+		return (value == ABSENT ? null : PersistentHashMap.<V>stored(value));
+	}
+
+	/**
+	 * Gets the value for a key, copying it first if it is shared with a forked
+	 * map so it may be changed by the caller.
+	 */
+	@Override
+	public V get(final Object key)
+	{
+		final Object value = this.lookup(key, 1);
+		if( value == ABSENT )
+			return null;
+		if( (this.copier == null) || (value == null) || (this.lookup(key, 2) == this.edit) )
+			return stored(value);
+
+		final V copy = this.copier.copy(PersistentHashMap.<V>stored(value));
+		this.root = this.put(this.root, PersistentHashMap.<K>stored(this.lookup(key, 0)), hash(key), copy, 0);
+		return copy;
+	}
+
+	@Override
+	public V put(final K key, final V value)
+	{
+		this.changed = false;
+		this.previousValue = null;
+		this.root = this.put(this.root, key, hash(key), value, 0);
+		if( this.changed )
+			this.size++;
+		return stored(this.previousValue);
+	}
+
+	@Override
+	public V remove(final Object key)
+	{
+		this.changed = false;
+		this.previousValue = null;
+		this.root = this.remove(this.root, key, hash(key), 0);
+		if( this.changed )
+			this.size--;
+		return stored(this.previousValue);
+	}
+
+	@Override
+	public void clear()
+	{
+		this.root = new Node(this.edit, 0, 0, new Object[0]);
+		this.size = 0;
+	}
+
+	private Node editable(final Node node)
+	{
+		if( node.edit == this.edit )
+			return node;
+		return new Node(this.edit, node.dataMap, node.nodeMap, node.content.clone());
+	}
+
+	private Node put(final Node node, final K key, final int hash, final V value, final int shift)
+	{
+		if( shift >= MAX_SHIFT )
+		{
+			for(int position = 0; position < node.content.length; position += STRIDE)
+			{
+				if( equal(node.content[position], key) )
+				{
+					this.previousValue = node.content[position + 1];
+					final Node edited = this.editable(node);
+					edited.content[position + 1] = value;
+					edited.content[position + 2] = this.edit;
+					return edited;
+				}
+			}
+			final Object[] content = new Object[node.content.length + STRIDE];
+			System.arraycopy(node.content, 0, content, 0, node.content.length);
+			content[node.content.length] = key;
+			content[node.content.length + 1] = value;
+			content[node.content.length + 2] = this.edit;
+			this.changed = true;
+			return this.replaceContent(node, node.dataMap, node.nodeMap, content);
+		}
+
+		final int bit = 1 << ((hash >>> shift) & MASK);
+		if( (node.dataMap & bit) != 0 )
+		{
+			final int position = STRIDE * index(node.dataMap, bit);
+			final Object existingKey = node.content[position];
+			if( equal(existingKey, key) )
+			{
+				this.previousValue = node.content[position + 1];
+				final Node edited = this.editable(node);
+				edited.content[position + 1] = value;
+				edited.content[position + 2] = this.edit;
+				return edited;
+			}
+
+			//two keys share this slot so they move down into a new child
+			final Node child = this.merge(existingKey, hash(existingKey), node.content[position + 1], node.content[position + 2], key, hash, value, shift + BITS);
+			final int childPosition = node.content.length - STRIDE - index(node.nodeMap, bit);
+			final Object[] content = new Object[node.content.length - STRIDE + 1];
+			System.arraycopy(node.content, 0, content, 0, position);
+			System.arraycopy(node.content, position + STRIDE, content, position, childPosition - position);
+			content[childPosition] = child;
+			System.arraycopy(node.content, childPosition + STRIDE, content, childPosition + 1, node.content.length - childPosition - STRIDE);
+			this.changed = true;
+			return this.replaceContent(node, node.dataMap ^ bit, node.nodeMap | bit, content);
+		}
+		else if( (node.nodeMap & bit) != 0 )
+		{
+			final int childPosition = node.content.length - 1 - index(node.nodeMap, bit);
+			final Node child = (Node) node.content[childPosition];
+			final Node newChild = this.put(child, key, hash, value, shift + BITS);
+			if( newChild == child )
+				return node;
+			final Node edited = this.editable(node);
+			edited.content[childPosition] = newChild;
+			return edited;
+		}
+
+		final int position = STRIDE * index(node.dataMap, bit);
+		final Object[] content = new Object[node.content.length + STRIDE];
+		System.arraycopy(node.content, 0, content, 0, position);
+		content[position] = key;
+		content[position + 1] = value;
+		content[position + 2] = this.edit;
+		System.arraycopy(node.content, position, content, position + STRIDE, node.content.length - position);
+		this.changed = true;
+		return this.replaceContent(node, node.dataMap | bit, node.nodeMap, content);
+	}
+
+	private Node replaceContent(final Node node, final int dataMap, final int nodeMap, final Object[] content)
+	{
+		if( node.edit != this.edit )
+			return new Node(this.edit, dataMap, nodeMap, content);
+		node.dataMap = dataMap;
+		node.nodeMap = nodeMap;
+		node.content = content;
+		return node;
+	}
+
+	private Node merge(final Object firstKey, final int firstHash, final Object firstValue, final Object firstOwner, final Object secondKey, final int secondHash, final Object secondValue, final int shift)
+	{
+		if( shift >= MAX_SHIFT )
+			return new Node(this.edit, 0, 0, new Object[] {firstKey, firstValue, firstOwner, secondKey, secondValue, this.edit});
+
+		final int firstBit = 1 << ((firstHash >>> shift) & MASK);
+		final int secondBit = 1 << ((secondHash >>> shift) & MASK);
+		if( firstBit == secondBit )
+			return new Node(this.edit, 0, firstBit, new Object[] {this.merge(firstKey, firstHash, firstValue, firstOwner, secondKey, secondHash, secondValue, shift + BITS)});
+		if( Integer.compareUnsigned(firstBit, secondBit) < 0 )
+			return new Node(this.edit, firstBit | secondBit, 0, new Object[] {firstKey, firstValue, firstOwner, secondKey, secondValue, this.edit});
+		return new Node(this.edit, firstBit | secondBit, 0, new Object[] {secondKey, secondValue, this.edit, firstKey, firstValue, firstOwner});
+	}
+
+	private Node remove(final Node node, final Object key, final int hash, final int shift)
+	{
+		if( shift >= MAX_SHIFT )
+		{
+			for(int position = 0; position < node.content.length; position += STRIDE)
+			{
+				if( equal(node.content[position], key) )
+				{
+					this.previousValue = node.content[position + 1];
+					this.changed = true;
+					final Object[] content = new Object[node.content.length - STRIDE];
+					System.arraycopy(node.content, 0, content, 0, position);
+					System.arraycopy(node.content, position + STRIDE, content, position, node.content.length - position - STRIDE);
+					return this.replaceContent(node, 0, 0, content);
+				}
+			}
+			return node;
+		}
+
+		final int bit = 1 << ((hash >>> shift) & MASK);
+		if( (node.dataMap & bit) != 0 )
+		{
+			final int position = STRIDE * index(node.dataMap, bit);
+			if( !equal(node.content[position], key) )
+				return node;
+			this.previousValue = node.content[position + 1];
+			this.changed = true;
+			final Object[] content = new Object[node.content.length - STRIDE];
+			System.arraycopy(node.content, 0, content, 0, position);
+			System.arraycopy(node.content, position + STRIDE, content, position, node.content.length - position - STRIDE);
+			return this.replaceContent(node, node.dataMap ^ bit, node.nodeMap, content);
+		}
+		else if( (node.nodeMap & bit) != 0 )
+		{
+			final int childPosition = node.content.length - 1 - index(node.nodeMap, bit);
+			final Node child = (Node) node.content[childPosition];
+			final Node newChild = this.remove(child, key, hash, shift + BITS);
+			if( !this.changed )
+				return node;
+
+			final int childShift = shift + BITS;
+			if( (newChild.getChildCount(childShift) == 0) && (newChild.getEntryCount(childShift) == 1) )
+			{
+				//a child left with a single entry is pulled back up into this node
+				final int position = STRIDE * index(node.dataMap, bit);
+				final Object[] content = new Object[node.content.length - 1 + STRIDE];
+				System.arraycopy(node.content, 0, content, 0, position);
+				System.arraycopy(newChild.content, 0, content, position, STRIDE);
+				System.arraycopy(node.content, position, content, position + STRIDE, childPosition - position);
+				System.arraycopy(node.content, childPosition + 1, content, childPosition + STRIDE, node.content.length - childPosition - 1);
+				return this.replaceContent(node, node.dataMap | bit, node.nodeMap ^ bit, content);
+			}
+
+			final Node edited = this.editable(node);
+			edited.content[childPosition] = newChild;
+			return edited;
+		}
+		return node;
+	}
+
+	/**
+	 * Fills an empty map with many entries at once. Rather than inserting one
+	 * entry at a time the entries are partitioned by their hash at each level
+	 * of the trie and every node is created once at its final size. When a
+	 * pool is given the subtries of large ranges are built in parallel. Keys
+	 * which are equal are stored once, the value of one of them is kept.
+	 *
+	 * @param keys the keys to load.
+	 * @param values the value of each key.
+	 * @param count the number of entries to load from the start of the arrays.
+	 * @param pool the pool to build on, or null to build on this thread.
+	 */
+	void load(final Object[] keys, final Object[] values, final int count, final ForkJoinPool pool)
+	{
+		if( this.size != 0 )
+			throw new IllegalStateException("only an empty map can be loaded");
+
+		final int[] hashes = new int[count];
+		final int[] order = new int[count];
+		for(int entry = 0; entry < count; entry++)
+		{
+			hashes[entry] = hash(keys[entry]);
+			order[entry] = entry;
+		}
+
+		final Loader loader = new Loader(keys, values, hashes, order, 0, count, 0, pool);
+		this.root = (((pool == null) || (count < PARALLEL_LOAD_THRESHOLD)) ? loader.compute() : pool.invoke(loader));
+		this.size = countEntries(this.root, 0);
+	}
+
+	private static int countEntries(final Node node, final int shift)
+	{
+		int count = node.getEntryCount(shift);
+		for(int child = 0; child < node.getChildCount(shift); child++)
+			count += countEntries((Node) node.content[node.content.length - 1 - child], shift + BITS);
+		return count;
+	}
+
+	/**
+	 * Builds the subtrie for a range of entries which share their hash bits
+	 * above the given shift.
+	 */
+	private final class Loader extends RecursiveTask<Node>
+	{
+		private static final long serialVersionUID = -1432683392950184017L;
+		private final Object[] keys;
+		private final Object[] values;
+		private final int[] hashes;
+		private final int[] order;
+		private final int from;
+		private final int to;
+		private final int shift;
+		private final ForkJoinPool pool;
+
+		Loader(final Object[] keys, final Object[] values, final int[] hashes, final int[] order, final int from, final int to, final int shift, final ForkJoinPool pool)
+		{
+			this.keys = keys;
+			this.values = values;
+			this.hashes = hashes;
+			this.order = order;
+			this.from = from;
+			this.to = to;
+			this.shift = shift;
+			this.pool = pool;
+		}
+
+		@Override
+		protected Node compute()
+		{
+			final Edit edit = PersistentHashMap.this.edit;
+			if( this.shift >= MAX_SHIFT )
+			{
+				final Object[] content = new Object[STRIDE * (this.to - this.from)];
+				int length = 0;
+				for(int position = this.from; position < this.to; position++)
+				{
+					final Object key = this.keys[this.order[position]];
+					boolean duplicate = false;
+					for(int existing = 0; (existing < length) && !duplicate; existing += STRIDE)
+						duplicate = equal(content[existing], key);
+					if( duplicate )
+						continue;
+					content[length] = key;
+					content[length + 1] = this.values[this.order[position]];
+					content[length + 2] = edit;
+					length += STRIDE;
+				}
+				return new Node(edit, 0, 0, (length == content.length ? content : Arrays.copyOf(content, length)));
+			}
+
+			//counting sort of the range by the hash bits at this level
+			final int[] bucketStarts = new int[MASK + 2];
+			for(int position = this.from; position < this.to; position++)
+				bucketStarts[((this.hashes[this.order[position]] >>> this.shift) & MASK) + 1]++;
+			for(int bucket = 0; bucket <= MASK; bucket++)
+				bucketStarts[bucket + 1] += bucketStarts[bucket];
+			final int[] fill = Arrays.copyOf(bucketStarts, MASK + 1);
+			final int[] sorted = new int[this.to - this.from];
+			for(int position = this.from; position < this.to; position++)
+				sorted[fill[(this.hashes[this.order[position]] >>> this.shift) & MASK]++] = this.order[position];
+
+			final Node[] children = new Node[MASK + 1];
+			final List<Loader> forked = new ArrayList<Loader>(Collections.<Loader>nCopies(MASK + 1, null));
+			for(int bucket = 0; bucket <= MASK; bucket++)
+			{
+				if( bucketStarts[bucket + 1] - bucketStarts[bucket] < 2 )
+					continue;
+				final Loader child = new Loader(this.keys, this.values, this.hashes, sorted, bucketStarts[bucket], bucketStarts[bucket + 1], this.shift + BITS, this.pool);
+				if( (this.pool != null) && (bucketStarts[bucket + 1] - bucketStarts[bucket] >= PARALLEL_LOAD_THRESHOLD) )
+				{
+					forked.set(bucket, child);
+					child.fork();
+				}
+				else
+					children[bucket] = child.compute();
+			}
+
+			int dataMap = 0;
+			int nodeMap = 0;
+			int dataCount = 0;
+			int nodeCount = 0;
+			final Object[] data = new Object[STRIDE * (MASK + 1)];
+			final Node[] nodes = new Node[MASK + 1];
+			for(int bucket = 0; bucket <= MASK; bucket++)
+			{
+				final int bucketSize = bucketStarts[bucket + 1] - bucketStarts[bucket];
+				if( bucketSize == 0 )
+					continue;
+				final int bit = 1 << bucket;
+				if( forked.get(bucket) != null )
+					children[bucket] = forked.get(bucket).join();
+
+				if( bucketSize == 1 )
+				{
+					final int entry = sorted[bucketStarts[bucket]];
+					data[STRIDE * dataCount] = this.keys[entry];
+					data[STRIDE * dataCount + 1] = this.values[entry];
+					data[STRIDE * dataCount + 2] = edit;
+					dataCount++;
+					dataMap |= bit;
+				}
+				else if( (children[bucket].getChildCount(this.shift + BITS) == 0) && (children[bucket].getEntryCount(this.shift + BITS) == 1) )
+				{
+					//equal keys collapsed into a single entry
+					System.arraycopy(children[bucket].content, 0, data, STRIDE * dataCount, STRIDE);
+					dataCount++;
+					dataMap |= bit;
+				}
+				else
+				{
+					nodes[nodeCount++] = children[bucket];
+					nodeMap |= bit;
+				}
+			}
+
+			final Object[] content = new Object[STRIDE * dataCount + nodeCount];
+			System.arraycopy(data, 0, content, 0, STRIDE * dataCount);
+			for(int child = 0; child < nodeCount; child++)
+				content[content.length - 1 - child] = nodes[child];
+			return new Node(edit, dataMap, nodeMap, content);
+		}
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet()
+	{
+		return new AbstractSet<Map.Entry<K, V>>()
+		{
+			@Override
+			public int size()
+			{
+				return PersistentHashMap.this.size;
+			}
+
+			@Override
+			public boolean contains(final Object entry)
+			{
+				if( !(entry instanceof Map.Entry) )
+					return false;
+				final Object value = PersistentHashMap.this.lookup(((Map.Entry) entry).getKey(), 1);
+				return (value != ABSENT) && equal(value, ((Map.Entry) entry).getValue());
+			}
+
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator()
+			{
+				return new EntryIterator();
+			}
+		};
+	}
+
+	/**
+	 * Walks the trie depth first. A change to the map replaces the content of
+	 * any node whose layout changes, so the iterator carries on over the
+	 * content it started with and may remove the entry it last returned.
+	 */
+	private final class EntryIterator implements Iterator<Map.Entry<K, V>>
+	{
+		private final Object[][] contents = new Object[MAX_SHIFT / BITS + 2][];
+		private final int[] entryEnds = new int[MAX_SHIFT / BITS + 2];
+		private final int[] positions = new int[MAX_SHIFT / BITS + 2];
+		private final int[] childPositions = new int[MAX_SHIFT / BITS + 2];
+		private int depth;
+		private Object lastKey;
+		private boolean removable;
+
+		EntryIterator()
+		{
+			this.push(PersistentHashMap.this.root, 0);
+		}
+
+		private void push(final Node node, final int shift)
+		{
+			this.contents[this.depth] = node.content;
+			this.entryEnds[this.depth] = STRIDE * node.getEntryCount(shift);
+			this.positions[this.depth] = 0;
+			this.childPositions[this.depth] = node.content.length - 1;
+			this.depth++;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while( this.depth > 0 )
+			{
+				final int level = this.depth - 1;
+				if( this.positions[level] < this.entryEnds[level] )
+					return true;
+				if( this.childPositions[level] >= this.entryEnds[level] )
+				{
+					final Node child = (Node) this.contents[level][this.childPositions[level]--];
+					this.push(child, BITS * this.depth);
+				}
+				else
+					this.depth--;
+			}
+			return false;
+		}
+
+		@Override
+		public Map.Entry<K, V> next()
+		{
+			if( !this.hasNext() )
+				throw new NoSuchElementException();
+			final int level = this.depth - 1;
+			final Object[] content = this.contents[level];
+			final int position = this.positions[level];
+			this.positions[level] += STRIDE;
+			this.lastKey = content[position];
+			this.removable = true;
+			return new AbstractMap.SimpleImmutableEntry<K, V>(PersistentHashMap.<K>stored(content[position]), PersistentHashMap.<V>stored(content[position + 1]));
+		}
+
+		@Override
+		public void remove()
+		{
+			if( !this.removable )
+				throw new IllegalStateException();
+			this.removable = false;
+			PersistentHashMap.this.remove(this.lastKey);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A set backed by a PersistentHashMap, so forking it is constant time and a
+ * change made after a fork only copies the path to the changed element.
+ *
+ * @param <E> The element type
+ */
+final class PersistentHashSet<E> extends AbstractSet<E> implements Serializable
+{
+	private static final long serialVersionUID = -1873410581593285021L;
+	private final PersistentHashMap<E, Boolean> elements;
+
+	PersistentHashSet()
+	{
+		this.elements = new PersistentHashMap<E, Boolean>(null);
+	}
+
+	PersistentHashSet(final Collection<? extends E> copyElements)
+	{
+		this();
+		for(final E element : copyElements)
+			this.elements.put(element, Boolean.TRUE);
+	}
+
+	private PersistentHashSet(final PersistentHashMap<E, Boolean> elements)
+	{
+		this.elements = elements;
+	}
+
+	/**
+	 * Fills an empty set with many elements at once.
+	 *
+	 * @see PersistentHashMap#load
+	 */
+	void load(final Object[] loadElements, final int count, final ForkJoinPool pool)
+	{
+		final Object[] present = new Object[count];
+		Arrays.fill(present, Boolean.TRUE);
+		this.elements.load(loadElements, present, count, pool);
+	}
+
+	/**
+	 * Creates a set holding the same elements which shares its structure with
+	 * this one.
+	 */
+	PersistentHashSet<E> fork()
+	{
+		return new PersistentHashSet<E>(this.elements.fork());
+	}
+
+	@Override
+	public int size()
+	{
+		return this.elements.size();
+	}
+
+	@Override
+	public boolean contains(final Object element)
+	{
+		return this.elements.containsKey(element);
+	}
+
+	@Override
+	public boolean add(final E element)
+	{
+		return (this.elements.put(element, Boolean.TRUE) == null);
+	}
+
+	@Override
+	public boolean remove(final Object element)
+	{
+		return (this.elements.remove(element) != null);
+	}
+
+	@Override
+	public void clear()
+	{
+		this.elements.clear();
+	}
+
+	@Override
+	public Iterator<E> iterator()
+	{
+		final Iterator<Map.Entry<E, Boolean>> entries = this.elements.entrySet().iterator();
+		return new Iterator<E>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return entries.hasNext();
+			}
+
+			@Override
+			public E next()
+			{
+				return entries.next().getKey();
+			}
+
+			@Override
+			public void remove()
+			{
+				entries.remove();
+			}
+		};
+	}
+}
@@ -0,0 +1,709 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.cycle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.syncleus.dann.graph.Cycle;
+import com.syncleus.dann.graph.Edge;
+import com.syncleus.dann.graph.Graph;
+import com.syncleus.dann.graph.SimpleCycle;
+
+/**
+ * A resumable search for the elementary cycles of a graph. Nodes and edges are
+ * given dense indexes and every traversable edge of a node is stored as an
+ * entry leading to one of its other end points. Each call to nextCycle runs
+ * the search until the next cycle is found, so cycles can be consumed one at a
+ * time without ever holding all of them.
+ *
+ * Without a length bound this is Johnson's algorithm: cycles are found from
+ * their lowest indexed node within the strongly connected component of that
+ * node, and nodes which could not lead back to the start stay blocked until a
+ * cycle is found through one of their successors. With a length bound the
+ * blocking is replaced by pruning on the distance from each node back to the
+ * start, which is what keeps bounded searches exact.
+ *
+ * A cycle made only of edges which can be traversed in either direction would
+ * be found once in each direction, only one of which is reported. An edge is
+ * never used twice in the same cycle, so walking back over an undirected edge
+ * is not a cycle, though two parallel edges are.
+ */
+final class CircuitSearch<N, E extends Edge<N>>
+{
+	private final List<N> nodes;
+	private final List<E> edges;
+	private final int nodeCount;
+	private final int maximumLength;
+
+	private final int[] entryStarts;
+	private final int[] entryEdges;
+	private final int[] entryNodes;
+	private final boolean[] entryReversible;
+	private final int[] reverseStarts;
+	private final int[] reverseNodes;
+	private final int[] reverseEdges;
+
+	//per start node state
+	private int start = -1;
+	private final boolean[] inComponent;
+	private final int[] componentNodes;
+	private int componentSize;
+	private final int[] componentLabels;
+	private final int[] componentSizes;
+	private final int[] bridgeRounds;
+	private final int[] parentEdges;
+	private int round;
+	private final int[] distances;
+	private final int[] visitOrders;
+	private final int[] lowLinks;
+	private final boolean[] blocked;
+	private final int[][] blockedBy;
+	private final int[] blockedByCounts;
+	private final int[] unblockStack;
+
+	//search path state
+	private final int[] pathNodes;
+	private final int[] pathPositions;
+	private final int[] pathEntries;
+	private final boolean[] pathFound;
+	private final int[] edgeUses;
+	private int depth;
+	private int cycleLength;
+
+	CircuitSearch(final Graph<N, E> graph, final int maximumLength)
+	{
+		this.maximumLength = maximumLength;
+		this.nodes = new ArrayList<N>(graph.getNodes());
+		this.nodeCount = this.nodes.size();
+		this.edges = new ArrayList<E>(graph.getEdges());
+		final Map<N, Integer> nodeIndexes = new HashMap<N, Integer>(this.nodeCount * 2);
+		for(int nodeIndex = 0; nodeIndex < this.nodeCount; nodeIndex++)
+			nodeIndexes.put(this.nodes.get(nodeIndex), nodeIndex);
+		final Map<E, Integer> edgeIndexes = new HashMap<E, Integer>(this.edges.size() * 2);
+		for(int edgeIndex = 0; edgeIndex < this.edges.size(); edgeIndex++)
+			edgeIndexes.put(this.edges.get(edgeIndex), edgeIndex);
+
+		this.entryStarts = new int[this.nodeCount + 1];
+		int[] buildEdges = new int[Math.max(16, this.edges.size() * 2)];
+		int[] buildNodes = new int[buildEdges.length];
+		boolean[] buildReversible = new boolean[buildEdges.length];
+		int entryCount = 0;
+		for(int nodeIndex = 0; nodeIndex < this.nodeCount; nodeIndex++)
+		{
+			final N node = this.nodes.get(nodeIndex);
+			this.entryStarts[nodeIndex] = entryCount;
+			for(final E traversableEdge : graph.getTraversableEdges(node))
+			{
+				final List<N> neighborNodes = new ArrayList<N>(traversableEdge.getNodes());
+				neighborNodes.remove(node);
+				for(final N neighborNode : neighborNodes)
+				{
+					if( entryCount == buildEdges.length )
+					{
+						buildEdges = Arrays.copyOf(buildEdges, entryCount * 2);
+						buildNodes = Arrays.copyOf(buildNodes, entryCount * 2);
+						buildReversible = Arrays.copyOf(buildReversible, entryCount * 2);
+					}
+					buildEdges[entryCount] = edgeIndexes.get(traversableEdge);
+					buildNodes[entryCount] = nodeIndexes.get(neighborNode);
+					buildReversible[entryCount] = traversableEdge.isTraversable(neighborNode) && traversableEdge.getTraversableNodes(neighborNode).contains(node);
+					entryCount++;
+				}
+			}
+		}
+		this.entryStarts[this.nodeCount] = entryCount;
+		this.entryEdges = Arrays.copyOf(buildEdges, entryCount);
+		this.entryNodes = Arrays.copyOf(buildNodes, entryCount);
+		this.entryReversible = Arrays.copyOf(buildReversible, entryCount);
+
+		//the same entries indexed by the node they lead to
+		this.reverseStarts = new int[this.nodeCount + 1];
+		for(int entry = 0; entry < entryCount; entry++)
+			this.reverseStarts[this.entryNodes[entry] + 1]++;
+		for(int nodeIndex = 0; nodeIndex < this.nodeCount; nodeIndex++)
+			this.reverseStarts[nodeIndex + 1] += this.reverseStarts[nodeIndex];
+		final int[] fill = Arrays.copyOf(this.reverseStarts, this.nodeCount);
+		this.reverseNodes = new int[entryCount];
+		this.reverseEdges = new int[entryCount];
+		for(int nodeIndex = 0; nodeIndex < this.nodeCount; nodeIndex++)
+		{
+			for(int entry = this.entryStarts[nodeIndex]; entry < this.entryStarts[nodeIndex + 1]; entry++)
+			{
+				final int position = fill[this.entryNodes[entry]]++;
+				this.reverseNodes[position] = nodeIndex;
+				this.reverseEdges[position] = this.entryEdges[entry];
+			}
+		}
+
+		this.inComponent = new boolean[this.nodeCount];
+		this.componentNodes = new int[this.nodeCount];
+		this.componentLabels = new int[this.nodeCount];
+		this.componentSizes = new int[this.nodeCount];
+		this.bridgeRounds = new int[this.edges.size()];
+		this.parentEdges = new int[this.nodeCount];
+		this.distances = new int[this.nodeCount];
+		Arrays.fill(this.distances, Integer.MAX_VALUE);
+		this.visitOrders = new int[this.nodeCount];
+		this.lowLinks = new int[this.nodeCount];
+		this.blocked = new boolean[this.nodeCount];
+		this.blockedBy = new int[this.nodeCount][];
+		this.blockedByCounts = new int[this.nodeCount];
+		this.unblockStack = new int[this.nodeCount];
+		this.pathNodes = new int[this.nodeCount + 1];
+		this.pathPositions = new int[this.nodeCount + 1];
+		this.pathEntries = new int[this.nodeCount + 1];
+		this.pathFound = new boolean[this.nodeCount + 1];
+		this.edgeUses = new int[this.edges.size()];
+	}
+
+	int getNodeCount()
+	{
+		return this.nodeCount;
+	}
+
+	/**
+	 * Gets the number of edges in the cycle most recently found.
+	 */
+	int getCycleLength()
+	{
+		return this.cycleLength;
+	}
+
+	/**
+	 * Builds the cycle most recently found.
+	 */
+	Cycle<N, E> getCycle()
+	{
+		final List<E> cycleEdges = new ArrayList<E>(this.cycleLength);
+		final List<N> cycleNodes = new ArrayList<N>(this.cycleLength + 1);
+		cycleNodes.add(this.nodes.get(this.start));
+		for(int step = 0; step < this.cycleLength; step++)
+		{
+			cycleEdges.add(this.edges.get(this.entryEdges[this.pathEntries[step]]));
+			cycleNodes.add(this.nodes.get(this.entryNodes[this.pathEntries[step]]));
+		}
+		return new SimpleCycle<N, E>(cycleEdges, cycleNodes);
+	}
+
+	/**
+	 * Runs the search until the next cycle is found.
+	 *
+	 * @return true if a cycle was found, false once every cycle has been found.
+	 */
+	boolean nextCycle()
+	{
+		while( true )
+		{
+			if( this.depth == 0 )
+			{
+				if( !this.nextStart() )
+					return false;
+				continue;
+			}
+
+			final int top = this.depth - 1;
+			final int node = this.pathNodes[top];
+			if( this.pathPositions[top] == this.entryStarts[node + 1] )
+			{
+				this.finish(node, this.pathFound[top]);
+				this.depth--;
+				if( this.depth > 0 )
+				{
+					this.edgeUses[this.entryEdges[this.pathEntries[this.depth - 1]]]--;
+					if( this.pathFound[top] )
+						this.pathFound[this.depth - 1] = true;
+				}
+				continue;
+			}
+
+			final int entry = this.pathPositions[top]++;
+			final int neighbor = this.entryNodes[entry];
+			if( !this.inComponent[neighbor] )
+				continue;
+			if( this.edgeUses[this.entryEdges[entry]] > 0 )
+			{
+				//a cycle may still pass through this node over other edges, so
+				//it must not remain blocked
+				this.pathFound[top] = true;
+				continue;
+			}
+
+			if( neighbor == this.start )
+			{
+				if( (this.maximumLength > 0) && (this.depth > this.maximumLength) )
+					continue;
+				this.pathFound[top] = true;
+				this.pathEntries[top] = entry;
+				if( this.isCanonical(entry) )
+				{
+					this.cycleLength = this.depth;
+					return true;
+				}
+			}
+			else if( !this.blocked[neighbor] && ((this.maximumLength <= 0) || (this.depth + this.distances[neighbor] <= this.maximumLength)) )
+			{
+				this.pathEntries[top] = entry;
+				this.edgeUses[this.entryEdges[entry]]++;
+				this.push(neighbor);
+			}
+		}
+	}
+
+	private void push(final int node)
+	{
+		this.blocked[node] = true;
+		this.pathNodes[this.depth] = node;
+		this.pathPositions[this.depth] = this.entryStarts[node];
+		this.pathFound[this.depth] = false;
+		this.depth++;
+	}
+
+	private void finish(final int node, final boolean found)
+	{
+		if( (this.maximumLength > 0) || found )
+		{
+			this.unblock(node);
+			return;
+		}
+
+		for(int entry = this.entryStarts[node]; entry < this.entryStarts[node + 1]; entry++)
+		{
+			final int neighbor = this.entryNodes[entry];
+			if( !this.inComponent[neighbor] )
+				continue;
+			int[] neighborBlockedBy = this.blockedBy[neighbor];
+			final int count = this.blockedByCounts[neighbor];
+			boolean present = false;
+			for(int index = 0; (index < count) && !present; index++)
+				present = (neighborBlockedBy[index] == node);
+			if( present )
+				continue;
+			if( neighborBlockedBy == null )
+				neighborBlockedBy = this.blockedBy[neighbor] = new int[4];
+			else if( count == neighborBlockedBy.length )
+				neighborBlockedBy = this.blockedBy[neighbor] = Arrays.copyOf(neighborBlockedBy, count * 2);
+			neighborBlockedBy[count] = node;
+			this.blockedByCounts[neighbor] = count + 1;
+		}
+	}
+
+	private void unblock(final int node)
+	{
+		int stackSize = 0;
+		this.blocked[node] = false;
+		this.unblockStack[stackSize++] = node;
+		while( stackSize > 0 )
+		{
+			final int current = this.unblockStack[--stackSize];
+			final int count = this.blockedByCounts[current];
+			this.blockedByCounts[current] = 0;
+			for(int index = 0; index < count; index++)
+			{
+				final int waiting = this.blockedBy[current][index];
+				if( this.blocked[waiting] )
+				{
+					this.blocked[waiting] = false;
+					this.unblockStack[stackSize++] = waiting;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A cycle whose every step could be walked backwards is also found in the
+	 * opposite direction, only the direction whose second node has the lower
+	 * index is reported. Two node cycles are told apart by their edges instead.
+	 */
+	private boolean isCanonical(final int closingEntry)
+	{
+		for(int step = 0; step < this.depth; step++)
+			if( !this.entryReversible[this.pathEntries[step]] )
+				return true;
+		if( this.depth == 1 )
+			return true;
+		if( this.depth == 2 )
+			return ( this.entryEdges[this.pathEntries[0]] < this.entryEdges[closingEntry] );
+		return ( this.entryNodes[this.pathEntries[0]] < this.pathNodes[this.depth - 1] );
+	}
+
+	/**
+	 * Moves on to the next start node which lies on a cycle and marks the
+	 * nodes which may be on a cycle through it.
+	 */
+	private boolean nextStart()
+	{
+		//clear the state left behind by the previous start
+		for(int index = 0; index < this.componentSize; index++)
+		{
+			final int node = this.componentNodes[index];
+			this.inComponent[node] = false;
+			this.blocked[node] = false;
+			this.blockedByCounts[node] = 0;
+			this.distances[node] = Integer.MAX_VALUE;
+		}
+		this.componentSize = 0;
+
+		if( this.maximumLength > 0 )
+			return this.nextBoundedStart();
+
+		//the next start is the lowest node of a strongly connected component,
+		//among the nodes after the current start, which contains a cycle
+		if( this.start + 1 >= this.nodeCount )
+			return false;
+		this.labelComponents(this.start + 1);
+		for(int node = this.start + 1; node < this.nodeCount; node++)
+		{
+			if( this.isCyclicComponent(node) )
+			{
+				this.start = node;
+				final int label = this.componentLabels[node];
+				for(int member = node; member < this.nodeCount; member++)
+				{
+					if( this.componentLabels[member] == label )
+					{
+						this.inComponent[member] = true;
+						this.componentNodes[this.componentSize++] = member;
+					}
+				}
+				this.push(this.start);
+				return true;
+			}
+		}
+		this.start = this.nodeCount;
+		return false;
+	}
+
+	/**
+	 * Every cycle lies within a strongly connected component of the whole
+	 * graph, and with a bounded length it can only reach nodes close enough to
+	 * the start to return in time. Those are found with a breadth first search
+	 * backwards from the start, which also records the distance used to prune
+	 * the search.
+	 */
+	private boolean nextBoundedStart()
+	{
+		if( this.start < 0 )
+			this.labelComponents(0);
+
+		while( ++this.start < this.nodeCount )
+		{
+			if( !this.isCyclicComponent(this.start) )
+				continue;
+
+			final int label = this.componentLabels[this.start];
+			this.distances[this.start] = 0;
+			this.inComponent[this.start] = true;
+			this.componentNodes[this.componentSize++] = this.start;
+			for(int queueHead = 0; queueHead < this.componentSize; queueHead++)
+			{
+				final int node = this.componentNodes[queueHead];
+				if( this.distances[node] >= this.maximumLength )
+					continue;
+				for(int position = this.reverseStarts[node]; position < this.reverseStarts[node + 1]; position++)
+				{
+					final int previous = this.reverseNodes[position];
+					if( (previous > this.start) && !this.inComponent[previous] && (this.componentLabels[previous] == label) )
+					{
+						this.distances[previous] = this.distances[node] + 1;
+						this.inComponent[previous] = true;
+						this.componentNodes[this.componentSize++] = previous;
+					}
+				}
+			}
+			this.push(this.start);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean isCyclicComponent(final int node)
+	{
+		if( this.componentSizes[this.componentLabels[node]] > 1 )
+			return true;
+		for(int entry = this.entryStarts[node]; entry < this.entryStarts[node + 1]; entry++)
+			if( this.entryNodes[entry] == node )
+				return true;
+		return false;
+	}
+
+	/**
+	 * Marks the bridges of the subgraph made of the nodes from minimumNode
+	 * onward, ignoring the direction of every edge. A cycle never uses the same
+	 * edge twice, so it can never cross a bridge. Bridges are found with an
+	 * iterative depth first search which never returns over the edge it
+	 * arrived by, an edge is a bridge when nothing below it reaches back above
+	 * it.
+	 */
+	private void markBridges(final int minimumNode)
+	{
+		this.round++;
+		final int[] visitOrder = this.visitOrders;
+		final int[] lowLinks = this.lowLinks;
+		Arrays.fill(visitOrder, minimumNode, this.nodeCount, -1);
+
+		int visitCount = 0;
+		for(int rootIndex = minimumNode; rootIndex < this.nodeCount; rootIndex++)
+		{
+			if( visitOrder[rootIndex] >= 0 )
+				continue;
+
+			visitOrder[rootIndex] = lowLinks[rootIndex] = visitCount++;
+			this.parentEdges[rootIndex] = -1;
+			this.pathNodes[0] = rootIndex;
+			this.pathPositions[0] = 0;
+			int callDepth = 1;
+			while( callDepth > 0 )
+			{
+				final int node = this.pathNodes[callDepth - 1];
+				final int outgoing = this.entryStarts[node + 1] - this.entryStarts[node];
+				final int incoming = this.reverseStarts[node + 1] - this.reverseStarts[node];
+				if( this.pathPositions[callDepth - 1] < outgoing + incoming )
+				{
+					final int position = this.pathPositions[callDepth - 1]++;
+					final int neighbor;
+					final int edge;
+					if( position < outgoing )
+					{
+						neighbor = this.entryNodes[this.entryStarts[node] + position];
+						edge = this.entryEdges[this.entryStarts[node] + position];
+					}
+					else
+					{
+						neighbor = this.reverseNodes[this.reverseStarts[node] + position - outgoing];
+						edge = this.reverseEdges[this.reverseStarts[node] + position - outgoing];
+					}
+					if( (neighbor < minimumNode) || (edge == this.parentEdges[node]) )
+						continue;
+					if( visitOrder[neighbor] < 0 )
+					{
+						visitOrder[neighbor] = lowLinks[neighbor] = visitCount++;
+						this.parentEdges[neighbor] = edge;
+						this.pathNodes[callDepth] = neighbor;
+						this.pathPositions[callDepth] = 0;
+						callDepth++;
+					}
+					else if( visitOrder[neighbor] < lowLinks[node] )
+						lowLinks[node] = visitOrder[neighbor];
+					continue;
+				}
+
+				callDepth--;
+				if( callDepth > 0 )
+				{
+					final int parent = this.pathNodes[callDepth - 1];
+					if( lowLinks[node] < lowLinks[parent] )
+						lowLinks[parent] = lowLinks[node];
+					if( lowLinks[node] > visitOrder[parent] )
+						this.bridgeRounds[this.parentEdges[node]] = this.round;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Labels the strongly connected components of the subgraph made of the
+	 * nodes from minimumNode onward, using an iterative form of Tarjan's
+	 * algorithm, and counts the size of each component. Bridges are left out
+	 * first, otherwise every connected undirected graph would form a single
+	 * component even where it has no cycles.
+	 */
+	private void labelComponents(final int minimumNode)
+	{
+		this.markBridges(minimumNode);
+		final int[] visitOrder = this.visitOrders;
+		final int[] lowLinks = this.lowLinks;
+		final int[] componentStack = this.unblockStack;
+		Arrays.fill(visitOrder, minimumNode, this.nodeCount, -1);
+
+		int visitCount = 0;
+		int componentCount = 0;
+		int componentDepth = 0;
+		for(int rootIndex = minimumNode; rootIndex < this.nodeCount; rootIndex++)
+		{
+			if( visitOrder[rootIndex] >= 0 )
+				continue;
+
+			visitOrder[rootIndex] = lowLinks[rootIndex] = visitCount++;
+			componentStack[componentDepth++] = rootIndex;
+			this.blocked[rootIndex] = true;
+			this.pathNodes[0] = rootIndex;
+			this.pathPositions[0] = this.entryStarts[rootIndex];
+			int callDepth = 1;
+			while( callDepth > 0 )
+			{
+				final int node = this.pathNodes[callDepth - 1];
+				if( this.pathPositions[callDepth - 1] < this.entryStarts[node + 1] )
+				{
+					final int entry = this.pathPositions[callDepth - 1]++;
+					final int neighbor = this.entryNodes[entry];
+					if( (neighbor < minimumNode) || (this.bridgeRounds[this.entryEdges[entry]] == this.round) )
+						continue;
+					if( visitOrder[neighbor] < 0 )
+					{
+						visitOrder[neighbor] = lowLinks[neighbor] = visitCount++;
+						componentStack[componentDepth++] = neighbor;
+						this.blocked[neighbor] = true;
+						this.pathNodes[callDepth] = neighbor;
+						this.pathPositions[callDepth] = this.entryStarts[neighbor];
+						callDepth++;
+					}
+					else if( this.blocked[neighbor] && (visitOrder[neighbor] < lowLinks[node]) )
+						lowLinks[node] = visitOrder[neighbor];
+					continue;
+				}
+
+				callDepth--;
+				if( lowLinks[node] == visitOrder[node] )
+				{
+					int member;
+					int size = 0;
+					do
+					{
+						member = componentStack[--componentDepth];
+						this.blocked[member] = false;
+						this.componentLabels[member] = componentCount;
+						size++;
+					}
+					while( member != node );
+					this.componentSizes[componentCount++] = size;
+				}
+				if( (callDepth > 0) && (lowLinks[node] < lowLinks[this.pathNodes[callDepth - 1]]) )
+					lowLinks[this.pathNodes[callDepth - 1]] = lowLinks[node];
+			}
+		}
+	}
+
+	/**
+	 * Calculates the length of the shortest cycle with a breadth first search
+	 * from every node. Each search only visits the nodes after its source, since
+	 * a shortest cycle is found exactly from its lowest node, and stops once it
+	 * can no longer improve on the shortest cycle already found.
+	 *
+	 * When some but not all edges can be walked both ways a single search from
+	 * the source can not tell a cycle from walking back over the edge it left
+	 * by, and keeping only the first way to each node would hide other cycles.
+	 * Instead a search is run from the far end of each edge leaving the source
+	 * without that edge, and the shortest way back closes a cycle with it.
+	 *
+	 * @return the length of the shortest cycle, 0 if there are no cycles.
+	 */
+	int getGirth()
+	{
+		int reversibleCount = 0;
+		for(final boolean reversible : this.entryReversible)
+			if( reversible )
+				reversibleCount++;
+		final boolean reversible = ( reversibleCount == this.entryReversible.length );
+		final boolean mixed = !reversible && (reversibleCount > 0);
+
+		final int[] distances = new int[this.nodeCount];
+		final int[] queue = new int[this.nodeCount];
+		final int[] parentEdges = new int[this.nodeCount];
+		int girth = Integer.MAX_VALUE;
+		for(int source = 0; (source < this.nodeCount) && (girth > 1); source++)
+		{
+			if( mixed )
+			{
+				for(int first = this.entryStarts[source]; (first < this.entryStarts[source + 1]) && (girth > 1); first++)
+				{
+					final int firstNode = this.entryNodes[first];
+					if( firstNode == source )
+						girth = 1;
+					else if( firstNode > source )
+						girth = Math.min(girth, 1 + this.returnDistance(source, firstNode, this.entryEdges[first], girth - 1, distances, queue));
+				}
+				continue;
+			}
+
+			Arrays.fill(distances, -1);
+			distances[source] = 0;
+			parentEdges[source] = -1;
+			queue[0] = source;
+			int queueHead = 0;
+			int queueTail = 1;
+			while( queueHead < queueTail )
+			{
+				final int node = queue[queueHead++];
+				if( (reversible ? (distances[node] * 2) + 1 : distances[node] + 1) >= girth )
+					break;
+				for(int entry = this.entryStarts[node]; entry < this.entryStarts[node + 1]; entry++)
+				{
+					final int neighbor = this.entryNodes[entry];
+					final int edge = this.entryEdges[entry];
+					if( neighbor < source )
+						continue;
+					if( distances[neighbor] < 0 )
+					{
+						distances[neighbor] = distances[node] + 1;
+						parentEdges[neighbor] = edge;
+						queue[queueTail++] = neighbor;
+					}
+					else if( reversible )
+					{
+						if( (edge != parentEdges[node]) && (edge != parentEdges[neighbor]) )
+							girth = Math.min(girth, distances[node] + distances[neighbor] + 1);
+					}
+					else if( neighbor == source )
+						girth = Math.min(girth, distances[node] + 1);
+				}
+			}
+		}
+		return ( girth == Integer.MAX_VALUE ? 0 : girth );
+	}
+
+	/**
+	 * Finds the length of the shortest path from a node back to the source
+	 * which does not use the given edge and only visits nodes after the source.
+	 * A shortest path never repeats a node, so it never repeats an edge either.
+	 *
+	 * @return the length of the path, Integer.MAX_VALUE - 1 if there is none
+	 *         within the limit.
+	 */
+	private int returnDistance(final int source, final int from, final int excludedEdge, final int limit, final int[] distances, final int[] queue)
+	{
+		Arrays.fill(distances, -1);
+		distances[from] = 0;
+		queue[0] = from;
+		int queueHead = 0;
+		int queueTail = 1;
+		while( queueHead < queueTail )
+		{
+			final int node = queue[queueHead++];
+			if( distances[node] + 1 >= limit )
+				break;
+			for(int entry = this.entryStarts[node]; entry < this.entryStarts[node + 1]; entry++)
+			{
+				final int neighbor = this.entryNodes[entry];
+				if( (neighbor < source) || (this.entryEdges[entry] == excludedEdge) )
+					continue;
+				if( neighbor == source )
+					return distances[node] + 1;
+				if( distances[neighbor] < 0 )
+				{
+					distances[neighbor] = distances[node] + 1;
+					queue[queueTail++] = neighbor;
+				}
+			}
+		}
+		return Integer.MAX_VALUE - 1;
+	}
+}
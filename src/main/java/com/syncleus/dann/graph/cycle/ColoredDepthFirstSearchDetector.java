@@ -19,65 +19,123 @@
 package com.syncleus.dann.graph.cycle;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import com.syncleus.dann.graph.Edge;
 import com.syncleus.dann.graph.Graph;
 
+/**
+ * Detects cycles with a depth first search which colors every node white
+ * (unvisited), grey (on the current search path) or black (finished). A cycle
+ * exists if, and only if, the search reaches a grey node over an edge it has
+ * not already traversed, so an undirected edge is never counted as a cycle by
+ * walking back over it. Nodes and edges are given dense indexes and the search
+ * keeps its path on an explicit stack, so it runs in time and memory linear to
+ * the number of nodes and edges and can not overflow the thread's stack on
+ * long paths.
+ */
 public class ColoredDepthFirstSearchDetector implements CycleDetector
 {
+	private static final byte WHITE = 0;
+	private static final byte GREY = 1;
+	private static final byte BLACK = 2;
+
 	public <N, E extends Edge<N>> boolean hasCycle(final Graph<N, E> graph)
 	{
-		//A map of the current Node colors. Key is the node, value is null for
-		//white, false for grey, true for black.
-		final Map<N, Boolean> colorMap = new HashMap<N, Boolean>();
-
-		final Set<E> traversedEdges = new HashSet<E>();
+		final List<N> nodes = new ArrayList<N>(graph.getNodes());
+		final int nodeCount = nodes.size();
+		final Map<N, Integer> nodeIndexes = new HashMap<N, Integer>(nodeCount * 2);
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			nodeIndexes.put(nodes.get(nodeIndex), nodeIndex);
+		final Map<E, Integer> edgeIndexes = new HashMap<E, Integer>(graph.getEdges().size() * 2);
+		for(final E edge : graph.getEdges())
+			edgeIndexes.put(edge, edgeIndexes.size());
 
-		for(final N node : graph.getNodes())
+		//every traversable edge of a node is stored once for each of the
+		//nodes it leads to, along with the index of the edge itself
+		final int[] entryStarts = new int[nodeCount + 1];
+		int[] entryEdges = new int[Math.max(16, edgeIndexes.size() * 2)];
+		int[] entryNodes = new int[entryEdges.length];
+		int entryCount = 0;
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
 		{
-			if( !colorMap.containsKey(node)
-					&& visit(graph, colorMap, traversedEdges, node) )
-				return true;
+			final N node = nodes.get(nodeIndex);
+			entryStarts[nodeIndex] = entryCount;
+			for(final E traversableEdge : graph.getTraversableEdges(node))
+			{
+				final int edgeIndex = edgeIndexes.get(traversableEdge);
+				final List<N> neighborNodes = new ArrayList<N>(traversableEdge.getNodes());
+				neighborNodes.remove(node);
+				for(final N neighborNode : neighborNodes)
+				{
+					if( entryCount == entryEdges.length )
+					{
+						entryEdges = Arrays.copyOf(entryEdges, entryCount * 2);
+						entryNodes = Arrays.copyOf(entryNodes, entryCount * 2);
+					}
+					entryEdges[entryCount] = edgeIndex;
+					entryNodes[entryCount] = nodeIndexes.get(neighborNode);
+					entryCount++;
+				}
+			}
 		}
+		entryStarts[nodeCount] = entryCount;
 
-		return false;
+		return hasCycle(nodeCount, edgeIndexes.size(), entryStarts, entryEdges, entryNodes);
 	}
 
-	private static <N, E extends Edge<N>> boolean visit(final Graph<N, E> graph, final Map<N, Boolean> colorMap, final Set<E> traversedEdges, final N node)
+	private static boolean hasCycle(final int nodeCount, final int edgeCount, final int[] entryStarts, final int[] entryEdges, final int[] entryNodes)
 	{
-		colorMap.put(node, Boolean.FALSE);
+		final byte[] colors = new byte[nodeCount];
+		//the node which first traversed each edge, an edge is only followed
+		//from that node
+		final int[] edgeOwners = new int[edgeCount];
+		Arrays.fill(edgeOwners, -1);
+		final int[] pathNodes = new int[nodeCount];
+		final int[] pathPositions = new int[nodeCount];
 
-		final Set<E> traversableEdges = graph.getTraversableEdges(node);
-		for(final E neighborEdge : traversableEdges)
+		for(int rootIndex = 0; rootIndex < nodeCount; rootIndex++)
 		{
-			if( !ColoredDepthFirstSearchDetector.<E>traversed(traversedEdges, neighborEdge) )
+			if( colors[rootIndex] != WHITE )
+				continue;
+
+			colors[rootIndex] = GREY;
+			pathNodes[0] = rootIndex;
+			pathPositions[0] = entryStarts[rootIndex];
+			int pathLength = 1;
+			while( pathLength > 0 )
 			{
-				traversedEdges.add(neighborEdge);
-				final List<N> neighborNodes = new ArrayList<N>(neighborEdge.getNodes());
-				neighborNodes.remove(node);
-				for(final N neighborNode : neighborNodes)
+				final int nodeIndex = pathNodes[pathLength - 1];
+				final int position = pathPositions[pathLength - 1];
+				if( position == entryStarts[nodeIndex + 1] )
 				{
-					if( colorMap.get(neighborNode) == Boolean.FALSE )
-						return true;
-					else if( !colorMap.containsKey(neighborNode)
-							&& visit(graph, colorMap, traversedEdges, neighborNode) )
-						return true;
+					colors[nodeIndex] = BLACK;
+					pathLength--;
+					continue;
+				}
+				pathPositions[pathLength - 1]++;
+
+				final int edgeIndex = entryEdges[position];
+				if( edgeOwners[edgeIndex] < 0 )
+					edgeOwners[edgeIndex] = nodeIndex;
+				else if( edgeOwners[edgeIndex] != nodeIndex )
+					continue;
+
+				final int neighborIndex = entryNodes[position];
+				if( colors[neighborIndex] == GREY )
+					return true;
+				else if( colors[neighborIndex] == WHITE )
+				{
+					colors[neighborIndex] = GREY;
+					pathNodes[pathLength] = neighborIndex;
+					pathPositions[pathLength] = entryStarts[neighborIndex];
+					pathLength++;
 				}
 			}
 		}
-		colorMap.put(node, Boolean.TRUE);
-		return false;
-	}
 
-	private static <E extends Edge> boolean traversed(final Set<E> traversedEdges, final E edge)
-	{
-		for(final E traversedEdge : traversedEdges)
-			if( traversedEdge == edge )
-				return true;
 		return false;
 	}
 }
@@ -0,0 +1,33 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.cycle;
+
+import com.syncleus.dann.graph.Cycle;
+import com.syncleus.dann.graph.Edge;
+
+public interface CycleListener<N, E extends Edge<N>>
+{
+	/**
+	 * Called for each cycle as soon as it is found.
+	 *
+	 * @param cycle the cycle found.
+	 * @return true to continue searching, false to stop the search.
+	 */
+	boolean cycleFound(Cycle<N, E> cycle);
+}
@@ -0,0 +1,218 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.cycle;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import com.syncleus.dann.graph.Cycle;
+import com.syncleus.dann.graph.Edge;
+import com.syncleus.dann.graph.Graph;
+import com.syncleus.dann.graph.topological.Topography;
+
+/**
+ * Finds the elementary cycles of a graph using Johnson's algorithm, which
+ * spends time linear to the size of the graph for every cycle found. Cycles
+ * can be streamed to a CycleListener or pulled one at a time from an
+ * Iterator, so they never need to be held in memory all at once. Girth is
+ * calculated with breadth first searches rather than by enumerating cycles,
+ * and searches for cycles up to a given length prune every path which can not
+ * return to its start in time.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
+public class JohnsonCycleFinder<N, E extends Edge<N>> extends ColoredDepthFirstSearchDetector implements CycleFinder<N, E>
+{
+	/**
+	 * Passes every cycle in the graph to the listener as it is found.
+	 *
+	 * @param graph the graph to search.
+	 * @param listener receives each cycle, the search stops early if it
+	 *        returns false.
+	 */
+	public void findCycles(final Graph<N, E> graph, final CycleListener<N, E> listener)
+	{
+		JohnsonCycleFinder.<N, E>stream(new CircuitSearch<N, E>(graph, 0), listener);
+	}
+
+	/**
+	 * Passes every cycle with at most maximumLength edges to the listener as it
+	 * is found.
+	 *
+	 * @param graph the graph to search.
+	 * @param maximumLength the largest number of edges a cycle may have.
+	 * @param listener receives each cycle, the search stops early if it
+	 *        returns false.
+	 */
+	public void findCycles(final Graph<N, E> graph, final int maximumLength, final CycleListener<N, E> listener)
+	{
+		if( maximumLength < 1 )
+			throw new IllegalArgumentException("maximumLength must be at least 1");
+		JohnsonCycleFinder.<N, E>stream(new CircuitSearch<N, E>(graph, maximumLength), listener);
+	}
+
+	private static <N, E extends Edge<N>> void stream(final CircuitSearch<N, E> search, final CycleListener<N, E> listener)
+	{
+		while( search.nextCycle() )
+			if( !listener.cycleFound(search.getCycle()) )
+				return;
+	}
+
+	/**
+	 * Gets an iterator which finds each cycle of the graph only when it is
+	 * requested. The graph should not be modified while it is in use.
+	 *
+	 * @param graph the graph to search.
+	 * @return a lazy iterator over the cycles of the graph.
+	 */
+	public Iterator<Cycle<N, E>> iterateCycles(final Graph<N, E> graph)
+	{
+		final CircuitSearch<N, E> search = new CircuitSearch<N, E>(graph, 0);
+		return new Iterator<Cycle<N, E>>()
+		{
+			private Cycle<N, E> nextCycle;
+			private boolean exhausted;
+
+			@Override
+			public boolean hasNext()
+			{
+				if( (this.nextCycle == null) && !this.exhausted )
+				{
+					if( search.nextCycle() )
+						this.nextCycle = search.getCycle();
+					else
+						this.exhausted = true;
+				}
+				return ( this.nextCycle != null );
+			}
+
+			@Override
+			public Cycle<N, E> next()
+			{
+				if( !this.hasNext() )
+					throw new NoSuchElementException();
+				final Cycle<N, E> cycle = this.nextCycle;
+				this.nextCycle = null;
+				return cycle;
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException("cycles can not be removed");
+			}
+		};
+	}
+
+	@Override
+	public Set<Cycle<N, E>> findCycles(final Graph<N, E> graph)
+	{
+		final Set<Cycle<N, E>> cycles = new HashSet<Cycle<N, E>>();
+		final CircuitSearch<N, E> search = new CircuitSearch<N, E>(graph, 0);
+		while( search.nextCycle() )
+			cycles.add(search.getCycle());
+		return cycles;
+	}
+
+	@Override
+	public int cycleCount(final Graph<N, E> graph)
+	{
+		final CircuitSearch<N, E> search = new CircuitSearch<N, E>(graph, 0);
+		int count = 0;
+		while( search.nextCycle() )
+			count++;
+		return count;
+	}
+
+	@Override
+	public boolean isUnicyclic(final Graph<N, E> graph)
+	{
+		if( !Topography.isSimple(graph) )
+			return false;
+		final CircuitSearch<N, E> search = new CircuitSearch<N, E>(graph, 0);
+		return ( search.nextCycle() && !search.nextCycle() );
+	}
+
+	@Override
+	public boolean isPancyclic(final Graph<N, E> graph)
+	{
+		if( !Topography.isSimple(graph) )
+			return false;
+
+		final int graphOrder = Topography.getOrder(graph);
+		if( graphOrder < 3 )
+			return false;
+		final CircuitSearch<N, E> search = new CircuitSearch<N, E>(graph, 0);
+		if( search.getGirth() != 3 )
+			return false;
+
+		final boolean[] foundLengths = new boolean[graphOrder + 1];
+		int missingLengths = graphOrder - 2;
+		while( search.nextCycle() )
+		{
+			final int length = search.getCycleLength();
+			if( (length >= 3) && !foundLengths[length] )
+			{
+				foundLengths[length] = true;
+				if( --missingLengths == 0 )
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the length of the shortest cycle in the graph.
+	 *
+	 * @return the length of the shortest cycle, 0 if the graph is acyclic.
+	 */
+	@Override
+	public int girth(final Graph<N, E> graph)
+	{
+		return new CircuitSearch<N, E>(graph, 0).getGirth();
+	}
+
+	/**
+	 * Gets the length of the longest cycle in the graph. Cycles are streamed
+	 * rather than collected, and the search stops as soon as a cycle covers an
+	 * entire strongly connected component since no cycle can be longer.
+	 *
+	 * @return the length of the longest cycle, 0 if the graph is acyclic.
+	 */
+	@Override
+	public int circumference(final Graph<N, E> graph)
+	{
+		final int[] componentSizes = new int[graph.getNodes().size()];
+		int largestComponent = 0;
+		for(final Integer component : Topography.getStronglyConnectedComponents(graph).values())
+			largestComponent = Math.max(largestComponent, ++componentSizes[component]);
+
+		final CircuitSearch<N, E> search = new CircuitSearch<N, E>(graph, 0);
+		int circumference = 0;
+		while( search.nextCycle() )
+		{
+			circumference = Math.max(circumference, search.getCycleLength());
+			if( circumference >= largestComponent )
+				break;
+		}
+		return circumference;
+	}
+}
@@ -18,7 +18,6 @@
  ******************************************************************************/
 package com.syncleus.dann.graph.drawing.hyperassociativemap;
 
-import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import com.syncleus.dann.neural.Brain;
 import com.syncleus.dann.neural.InputNeuron;
@@ -69,17 +68,14 @@ public class BrainHyperassociativeMap extends HyperassociativeMap<Brain<InputNeu
 	}
 
 	@Override
-	Map<Neuron, Double> getNeighbors(final Neuron nodeToQuery)
+	void collectNeighbors(final Neuron nodeToQuery, final Neighbors neighbors)
 	{
-		final Map<Neuron, Double> associations = super.getNeighbors(nodeToQuery);
+		super.collectNeighbors(nodeToQuery, neighbors);
 		if( nodeToQuery instanceof InputNeuron )
 			for(final InputNeuron neuron : this.getGraph().getInputNeurons())
-				associations.put(neuron, this.getEquilibriumDistance());
+				neighbors.put(neuron, this.getEquilibriumDistance());
 		else if( nodeToQuery instanceof OutputNeuron )
 			for(final OutputNeuron neuron : this.getGraph().getOutputNeurons())
-				associations.put(neuron, this.getEquilibriumDistance());
-		associations.remove(nodeToQuery);
-
-		return associations;
+				neighbors.put(neuron, this.getEquilibriumDistance());
 	}
 }
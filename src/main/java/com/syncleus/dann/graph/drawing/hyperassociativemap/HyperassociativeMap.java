@@ -23,14 +23,22 @@ import java.util.concurrent.*;
 import com.syncleus.dann.*;
 import com.syncleus.dann.graph.*;
 import com.syncleus.dann.graph.drawing.GraphDrawer;
-import com.syncleus.dann.graph.topological.Topography;
 import com.syncleus.dann.math.Vector;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.log4j.Logger;
 
 /**
@@ -41,6 +49,23 @@ import org.apache.log4j.Logger;
  * For more info, please see the
  * <a href ="http://wiki.syncleus.com/index.php/dANN:Hyperassociative_Map">
  * Hyperassociative-Map dANN Wiki page</a>.
+ *
+ * <p>The coordinates of the nodes are kept in a single array, the nodes being
+ * numbered densely. Each alignment reads the coordinates of the previous
+ * alignment and writes the new coordinates into a second array, so every node
+ * moves based on the same positions no matter the order or thread it is
+ * aligned on. Nodes are aligned in fixed blocks whose movement is totaled
+ * separately and combined in order, and the layout uses StrictMath rather
+ * than Math so no intrinsic chosen by the JIT can change the result, so an
+ * alignment gives the same result with or without an executor. Each block
+ * gathers the neighbors of its nodes into reusable buffers rather than
+ * allocating collections per node.
+ *
+ * <p>In incremental mode an alignment only moves the nodes within a number of
+ * hops of the nodes added, removed or reconnected since the last global
+ * alignment, leaving the rest of the layout where it is. Changes are seen
+ * through a GraphListener when the graph is a ListenableGraph, otherwise only
+ * added nodes are noticed. New nodes are placed near their neighbors.
  * @author Jeffrey Phillips Freeman
  * @param <G> The graph type
  * @param <N> The node type
@@ -57,12 +82,15 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 	private static final double EQUILIBRIUM_ALIGNMENT_FACTOR = 0.005;
 	private static final double LEARNING_RATE_INCREASE_FACTOR = 0.9;
 	private static final double LEARNING_RATE_PROCESSING_ADJUSTMENT = 1.01;
+	private static final double DEFAULT_REPULSION_THETA = 0.0;
+	private static final int DEFAULT_INCREMENTAL_HOPS = 2;
+	//number of nodes aligned by each task
+	private static final int ALIGN_BLOCK_SIZE = 256;
 
 	private final G graph;
 	private final int dimensions;
 	private final ExecutorService threadExecutor;
 	private static final Logger LOGGER = Logger.getLogger(HyperassociativeMap.class);
-	private Map<N, Vector> coordinates = Collections.synchronizedMap(new HashMap<N, Vector>());
 	private static final Random RANDOM = new Random();
 	private final boolean useWeights;
 	private double equilibriumDistance;
@@ -70,20 +98,159 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 	private double maxMovement = DEFAULT_MAX_MOVEMENT;
 	private double totalMovement = DEFAULT_TOTAL_MOVEMENT;
 	private double acceptableDistanceFactor = DEFAULT_ACCEPTABLE_DISTANCE_FACTOR;
+	private double repulsionTheta = DEFAULT_REPULSION_THETA;
+	private boolean incremental;
+	private int incrementalHops = DEFAULT_INCREMENTAL_HOPS;
+	//nodes touched by a change to the graph since the last alignment
+	private final Set<N> changedNodes = Collections.synchronizedSet(new HashSet<N>());
+	//nodes moved by incremental alignments until the next global alignment
+	private final Set<N> relaxingNodes = new HashSet<N>();
+	private int alignedNodeCount;
+	//the coordinates of the node at index i start at i * dimensions
+	private Map<N, Integer> nodeIndexes = new HashMap<N, Integer>();
+	private List<N> nodes = new ArrayList<N>();
+	private double[] coordinates = new double[0];
+	private double[] nextCoordinates = new double[0];
+	//built over the coordinates at the start of an alignment when repulsion is approximated
+	private RepulsionTree repulsionTree;
+	private final Map<N, Vector> coordinateView = new CoordinateMap();
+	//neighbor buffers not in use by a block, reused by later blocks
+	private final Queue<Neighbors> idleNeighbors = new ConcurrentLinkedQueue<Neighbors>();
 
-	private class Align implements Callable<Vector>
+	/**
+	 * The movement of a block of aligned nodes.
+	 */
+	private static final class BlockMovement
 	{
-		private final N node;
+		private double maxMovement = DEFAULT_MAX_MOVEMENT;
+		private double totalMovement = DEFAULT_TOTAL_MOVEMENT;
+		private double smallestLearningRate = Double.POSITIVE_INFINITY;
+		private int overshoots;
+		private final double[] pointSum;
 
-		public Align(final N node)
+		BlockMovement(final int dimensions)
 		{
-			this.node = node;
+			this.pointSum = new double[dimensions];
+		}
+	}
+
+	/**
+	 * The neighbors of the node being aligned, numbered by node index. A stamp
+	 * per node marks the ones already added, so the buffers are reused for
+	 * every node without being cleared. The first neighborCount entries were
+	 * added by collectNeighbors and carry an equilibrium distance, the rest
+	 * are only adjacent to the node.
+	 */
+	final class Neighbors
+	{
+		private int[] stamps = new int[0];
+		private int[] slots = new int[0];
+		private int[] indexes = new int[0];
+		private double[] distances = new double[0];
+		private int stamp;
+		private int nodeIndex;
+		private int count;
+		private int neighborCount;
+
+		private void reset(final int alignedIndex)
+		{
+			final int nodeCount = nodes.size();
+			if (stamps.length < nodeCount)
+			{
+				stamps = new int[nodeCount];
+				slots = new int[nodeCount];
+				indexes = new int[nodeCount];
+				distances = new double[nodeCount];
+				stamp = 0;
+			}
+			stamp++;
+			if (stamp == 0)
+			{
+				// the stamp wrapped around, so old marks could match it
+				Arrays.fill(stamps, 0);
+				stamp = 1;
+			}
+			nodeIndex = alignedIndex;
+			count = 0;
+			neighborCount = 0;
+		}
+
+		/**
+		 * Adds a neighbor at the given equilibrium distance, replacing the
+		 * distance when it was already added. The node being aligned and
+		 * nodes without coordinates are ignored.
+		 */
+		void put(final N neighbor, final double associationEquilibriumDistance)
+		{
+			final int slot = add(neighbor);
+			if (slot >= 0)
+			{
+				distances[slot] = associationEquilibriumDistance;
+			}
+		}
+
+		private int add(final N node)
+		{
+			final Integer index = nodeIndexes.get(node);
+			if ((index == null) || (index == nodeIndex))
+			{
+				return -1;
+			}
+			if (stamps[index] != stamp)
+			{
+				stamps[index] = stamp;
+				slots[index] = count;
+				indexes[count++] = index;
+			}
+			return slots[index];
+		}
+	}
+
+	private class Align implements Callable<BlockMovement>
+	{
+		private final int[] alignIndexes;
+		private final int start;
+		private final int end;
+
+		public Align(final int[] alignIndexes, final int start, final int end)
+		{
+			this.alignIndexes = alignIndexes;
+			this.start = start;
+			this.end = end;
 		}
 
 		@Override
-		public Vector call()
+		public BlockMovement call()
 		{
-			return align(node);
+			return alignBlock(alignIndexes, start, end);
+		}
+	}
+
+	private class ChangeListener<E extends Edge<N>> implements GraphListener<N, E>
+	{
+		@Override
+		public void nodeAdded(final Graph<N, E> changedGraph, final N node)
+		{
+			changedNodes.add(node);
+		}
+
+		@Override
+		public void nodeRemoved(final Graph<N, E> changedGraph, final N node)
+		{
+			// its neighbors were already marked as its edges were removed
+			changedNodes.remove(node);
+		}
+
+		@Override
+		public void edgeAdded(final Graph<N, E> changedGraph, final E edge)
+		{
+			changedNodes.addAll(edge.getNodes());
+		}
+
+		@Override
+		public void edgeRemoved(final Graph<N, E> changedGraph, final E edge)
+		{
+			changedNodes.addAll(edge.getNodes());
 		}
 	}
 
@@ -100,11 +267,19 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 		this.equilibriumDistance = equilibriumDistance;
 		this.useWeights = useWeights;
 
-		// refresh all nodes
-		for (final N node : this.graph.getNodes())
+		if (graph instanceof ListenableGraph)
 		{
-			this.coordinates.put(node, randomCoordinates(this.dimensions));
+			listenTo((ListenableGraph<N, ?>) graph);
 		}
+
+		// refresh all nodes
+		refreshNodes();
+		changedNodes.clear();
+	}
+
+	private <E extends Edge<N>> void listenTo(final ListenableGraph<N, E> listenableGraph)
+	{
+		listenableGraph.addGraphListener(new ChangeListener<E>());
 	}
 
 	public HyperassociativeMap(final G graph, final int dimensions, final ExecutorService threadExecutor)
@@ -138,6 +313,64 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 		this.equilibriumDistance = equilibriumDistance;
 	}
 
+	public double getRepulsionTheta()
+	{
+		return repulsionTheta;
+	}
+
+	/**
+	 * Sets how closely the repulsion between nodes which are not neighbors is
+	 * approximated. At zero, the default, every node is repelled by every
+	 * other node exactly, costing time quadratic to the number of nodes each
+	 * alignment. Above zero the repulsion is calculated with a Barnes-Hut tree
+	 * rebuilt each alignment, where a group of nodes whose extent is less than
+	 * theta times its distance acts as a single node at its center of mass.
+	 * Values around 0.5 to 1.0 make each alignment roughly n log n.
+	 *
+	 * @param repulsionTheta the largest ratio of extent to distance at which a
+	 *   group of nodes is approximated.
+	 */
+	public void setRepulsionTheta(final double repulsionTheta)
+	{
+		if ((repulsionTheta < 0.0) || Double.isNaN(repulsionTheta))
+			throw new IllegalArgumentException("repulsionTheta can not be negative");
+		this.repulsionTheta = repulsionTheta;
+	}
+
+	public boolean isIncremental()
+	{
+		return incremental;
+	}
+
+	/**
+	 * Sets whether align only moves the nodes near changes to the graph. The
+	 * rest of the layout stays frozen until alignGlobally is called.
+	 *
+	 * @param incremental true to align incrementally.
+	 */
+	public void setIncremental(final boolean incremental)
+	{
+		this.incremental = incremental;
+	}
+
+	public int getIncrementalHops()
+	{
+		return incrementalHops;
+	}
+
+	/**
+	 * Sets how many hops from a changed node an incremental alignment reaches.
+	 * At zero only the changed nodes themselves move.
+	 *
+	 * @param incrementalHops the largest number of hops from a change.
+	 */
+	public void setIncrementalHops(final int incrementalHops)
+	{
+		if (incrementalHops < 0)
+			throw new IllegalArgumentException("incrementalHops can not be negative");
+		this.incrementalHops = incrementalHops;
+	}
+
 	public void resetLearning()
 	{
 		learningRate = DEFAULT_LEARNING_RATE;
@@ -151,9 +384,9 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 	{
 		resetLearning();
 		// randomize all nodes
-		for (final N node : coordinates.keySet())
+		for (int nodeIndex = 0; nodeIndex < nodes.size(); nodeIndex++)
 		{
-			coordinates.put(node, randomCoordinates(dimensions));
+			randomizeCoordinates(coordinates, nodeIndex);
 		}
 	}
 
@@ -173,66 +406,292 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 
 	private double getAverageMovement()
 	{
-		return totalMovement / Topography.getOrder((Graph<N, ?>) graph);
+		return totalMovement / alignedNodeCount;
+	}
+
+	/**
+	 * Numbers the nodes of the graph if they changed, keeping the coordinates
+	 * of the nodes which remain and placing new nodes randomly.
+	 */
+	private void refreshNodes()
+	{
+		if (nodeIndexes.keySet().equals(graph.getNodes()))
+		{
+			return;
+		}
+
+		final List<N> newNodes = new ArrayList<N>(graph.getNodes());
+		final Map<N, Integer> newIndexes = new HashMap<N, Integer>();
+		final double[] newCoordinates = new double[newNodes.size() * dimensions];
+		for (int nodeIndex = 0; nodeIndex < newNodes.size(); nodeIndex++)
+		{
+			final N node = newNodes.get(nodeIndex);
+			newIndexes.put(node, nodeIndex);
+			final Integer oldIndex = nodeIndexes.get(node);
+			if (oldIndex != null)
+			{
+				System.arraycopy(coordinates, oldIndex * dimensions, newCoordinates, nodeIndex * dimensions, dimensions);
+			}
+			else
+			{
+				changedNodes.add(node);
+				if (!(incremental && placeNearNeighbors(node, nodeIndex, newCoordinates)))
+				{
+					randomizeCoordinates(newCoordinates, nodeIndex);
+				}
+			}
+		}
+
+		nodes = newNodes;
+		nodeIndexes = newIndexes;
+		coordinates = newCoordinates;
+		nextCoordinates = new double[newCoordinates.length];
+	}
+
+	/**
+	 * Places a new node at the center of its neighbors which already have
+	 * coordinates, offset randomly so they do not coincide.
+	 *
+	 * @return false if none of its neighbors had coordinates.
+	 */
+	private boolean placeNearNeighbors(final N node, final int nodeIndex, final double[] newCoordinates)
+	{
+		int placedNeighbors = 0;
+		final int offset = nodeIndex * dimensions;
+		for (final N neighbor : graph.getAdjacentNodes(node))
+		{
+			final Integer neighborIndex = nodeIndexes.get(neighbor);
+			if (neighborIndex != null)
+			{
+				for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
+				{
+					newCoordinates[offset + dimensionIndex] += coordinates[neighborIndex * dimensions + dimensionIndex];
+				}
+				placedNeighbors++;
+			}
+		}
+		if (placedNeighbors == 0)
+		{
+			return false;
+		}
+
+		final double spread = Math.abs(equilibriumDistance) * 0.5;
+		for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
+		{
+			newCoordinates[offset + dimensionIndex] = (newCoordinates[offset + dimensionIndex] / placedNeighbors) + (((RANDOM.nextDouble() * 2.0) - 1.0) * spread);
+		}
+		return true;
 	}
 
+	/**
+	 * Aligns the nodes, or in incremental mode only the nodes near the changes
+	 * made to the graph since the last global alignment.
+	 */
 	@Override
 	public void align()
+	{
+		if (!incremental)
+		{
+			alignGlobally();
+			return;
+		}
+
+		// refresh all nodes
+		refreshNodes();
+		relaxingNodes.retainAll(nodeIndexes.keySet());
+		addNearbyNodes();
+		if (relaxingNodes.isEmpty())
+		{
+			return;
+		}
+
+		final int[] alignIndexes = new int[relaxingNodes.size()];
+		int alignIndex = 0;
+		for (final N relaxingNode : relaxingNodes)
+		{
+			alignIndexes[alignIndex++] = nodeIndexes.get(relaxingNode);
+		}
+		// keep the order of the blocks independent of the set's iteration order
+		Arrays.sort(alignIndexes);
+		alignNodes(alignIndexes);
+	}
+
+	/**
+	 * Aligns every node even in incremental mode. Afterwards incremental
+	 * alignments only move the nodes near changes made from then on.
+	 */
+	public void alignGlobally()
 	{
 		// refresh all nodes
-		if (!coordinates.keySet().equals(graph.getNodes()))
+		refreshNodes();
+		changedNodes.clear();
+		relaxingNodes.clear();
+		if (nodes.isEmpty())
+		{
+			return;
+		}
+		alignNodes(null);
+	}
+
+	/**
+	 * Adds the nodes within the incremental hops of the changed nodes to the
+	 * nodes being relaxed.
+	 */
+	private void addNearbyNodes()
+	{
+		Set<N> frontier = new HashSet<N>();
+		synchronized (changedNodes)
 		{
-			final Map<N, Vector> newCoordinates = new HashMap<N, Vector>();
-			for (final N node : graph.getNodes())
+			for (final N changedNode : changedNodes)
 			{
-				if (coordinates.containsKey(node))
+				if (nodeIndexes.containsKey(changedNode))
 				{
-					newCoordinates.put(node, coordinates.get(node));
+					frontier.add(changedNode);
 				}
-				else
+			}
+			changedNodes.clear();
+		}
+
+		final Set<N> nearbyNodes = new HashSet<N>(frontier);
+		for (int hop = 0; (hop < incrementalHops) && !frontier.isEmpty(); hop++)
+		{
+			final Set<N> nextFrontier = new HashSet<N>();
+			for (final N frontierNode : frontier)
+			{
+				for (final N adjacentNode : graph.getAdjacentNodes(frontierNode))
 				{
-					newCoordinates.put(node, randomCoordinates(dimensions));
+					if (nearbyNodes.add(adjacentNode))
+					{
+						nextFrontier.add(adjacentNode);
+					}
 				}
 			}
-			coordinates = Collections.synchronizedMap(newCoordinates);
+			frontier = nextFrontier;
 		}
+		relaxingNodes.addAll(nearbyNodes);
+	}
 
-		totalMovement = DEFAULT_TOTAL_MOVEMENT;
-		maxMovement = DEFAULT_MAX_MOVEMENT;
-		Vector center;
+	/**
+	 * Aligns the nodes at the given indexes, every node when null. The rest
+	 * keep their coordinates and the layout is only recentered when every node
+	 * moved.
+	 */
+	private void alignNodes(final int[] alignIndexes)
+	{
+		alignedNodeCount = (alignIndexes == null ? nodes.size() : alignIndexes.length);
+		if (alignIndexes != null)
+		{
+			System.arraycopy(coordinates, 0, nextCoordinates, 0, coordinates.length);
+		}
+		repulsionTree = (repulsionTheta > 0.0 ? new RepulsionTree(coordinates, dimensions) : null);
+
+		final List<BlockMovement> blocks;
 		if (threadExecutor == null)
 		{
-			center = processLocally();
+			blocks = new ArrayList<BlockMovement>();
+			for (int start = 0; start < alignedNodeCount; start += ALIGN_BLOCK_SIZE)
+			{
+				blocks.add(alignBlock(alignIndexes, start, Math.min(start + ALIGN_BLOCK_SIZE, alignedNodeCount)));
+			}
 		}
 		else
 		{
 			// align all nodes in parallel
-			final List<Future<Vector>> futures = submitFutureAligns();
+			final List<Future<BlockMovement>> futures = submitFutureAligns(alignIndexes);
 
-			// wait for all nodes to finish aligning and calculate new sum of
-			// all the points
+			// wait for all nodes to finish aligning
 			try
 			{
-				center = waitAndProcessFutures(futures);
+				blocks = waitForFutures(futures);
 			}
 			catch (InterruptedException caught)
 			{
-				LOGGER.warn("waitAndProcessFutures was unexpectedly interrupted", caught);
+				LOGGER.warn("waitForFutures was unexpectedly interrupted", caught);
 				throw new UnexpectedInterruptedException("Unexpected interruption. Get should block indefinitely", caught);
 			}
 		}
+		repulsionTree = null;
+
+		// combine the movement of each block in order so the result does not
+		// depend on which blocks finished first
+		final double[] center = new double[dimensions];
+		maxMovement = DEFAULT_MAX_MOVEMENT;
+		totalMovement = DEFAULT_TOTAL_MOVEMENT;
+		double smallestLearningRate = Double.POSITIVE_INFINITY;
+		int overshoots = 0;
+		for (final BlockMovement block : blocks)
+		{
+			maxMovement = Math.max(maxMovement, block.maxMovement);
+			totalMovement += block.totalMovement;
+			smallestLearningRate = Math.min(smallestLearningRate, block.smallestLearningRate);
+			overshoots += block.overshoots;
+			for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
+			{
+				center[dimensionIndex] += block.pointSum[dimensionIndex];
+			}
+		}
+		adjustLearning(smallestLearningRate, overshoots);
 
 		LOGGER.debug("maxMove: " + maxMovement + ", Average Move: " + getAverageMovement());
 
+		if (alignIndexes == null)
+		{
+			recenterNodes(center);
+		}
+
+		final double[] previousCoordinates = coordinates;
+		coordinates = nextCoordinates;
+		nextCoordinates = previousCoordinates;
+	}
+
+	private void recenterNodes(final double[] center)
+	{
 		// divide each coordinate of the sum of all the points by the number of
 		// nodes in order to calculate the average point, or center of all the
 		// points
-		for (int dimensionIndex = 1; dimensionIndex <= dimensions; dimensionIndex++)
+		for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
+		{
+			center[dimensionIndex] /= nodes.size();
+		}
+
+		for (int coordinateIndex = 0; coordinateIndex < nextCoordinates.length; coordinateIndex++)
+		{
+			nextCoordinates[coordinateIndex] -= center[coordinateIndex % dimensions];
+		}
+	}
+
+	/**
+	 * Adjusts the learning rate once all the nodes were aligned.
+	 *
+	 * @param smallestLearningRate the smallest learning rate at which every
+	 *   node which moved too far would have moved an acceptable distance.
+	 * @param overshoots the number of nodes which moved too far.
+	 */
+	private void adjustLearning(final double smallestLearningRate, final int overshoots)
+	{
+		if (overshoots > 0)
 		{
-			center = center.setCoordinate(center.getCoordinate(dimensionIndex) / graph.getNodes().size(), dimensionIndex);
+			if (smallestLearningRate < learningRate)
+			{
+				learningRate = smallestLearningRate;
+			}
+			else
+			{
+				learningRate *= LEARNING_RATE_INCREASE_FACTOR;
+			}
+			LOGGER.debug("learning rate: " + learningRate);
 		}
 
-		recenterNodes(center);
+		if ((learningRate * LEARNING_RATE_PROCESSING_ADJUSTMENT) < DEFAULT_LEARNING_RATE)
+		{
+			final double acceptableDistanceAdjustment = 0.1;
+			if (getAverageMovement() < (equilibriumDistance * acceptableDistanceFactor * acceptableDistanceAdjustment))
+			{
+				acceptableDistanceFactor *= LEARNING_RATE_INCREASE_FACTOR;
+			}
+			learningRate *= LEARNING_RATE_PROCESSING_ADJUSTMENT;
+			LOGGER.debug("learning rate: " + learningRate + ", acceptableDistanceFactor: " + acceptableDistanceFactor);
+		}
 	}
 
 	@Override
@@ -241,17 +700,103 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 		return dimensions;
 	}
 
+	/**
+	 * Gets the coordinates of each node. The map is a read only view of the
+	 * current coordinates, each lookup creating a new Vector.
+	 * @return The coordinates of each node
+	 */
 	@Override
 	public Map<N, Vector> getCoordinates()
 	{
-		return Collections.unmodifiableMap(coordinates);
+		return coordinateView;
+	}
+
+	/**
+	 * Moves a node to the given coordinates, such as to start from a known
+	 * layout rather than a random one.
+	 * @param node The node to move
+	 * @param nodeCoordinates The new coordinates of the node
+	 */
+	public void setCoordinates(final N node, final Vector nodeCoordinates)
+	{
+		final Integer nodeIndex = nodeIndexes.get(node);
+		if (nodeIndex == null)
+			throw new IllegalArgumentException("node is not in the map");
+		if (nodeCoordinates.getDimensions() != dimensions)
+			throw new IllegalArgumentException("nodeCoordinates must have the dimensions of the map");
+		for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
+		{
+			coordinates[nodeIndex * dimensions + dimensionIndex] = nodeCoordinates.getCoordinate(dimensionIndex + 1);
+		}
+	}
+
+	private Vector getCoordinates(final int nodeIndex)
+	{
+		return new Vector(Arrays.copyOfRange(coordinates, nodeIndex * dimensions, (nodeIndex + 1) * dimensions));
 	}
 
-	private void recenterNodes(final Vector center)
+	private final class CoordinateMap extends AbstractMap<N, Vector>
 	{
-		for (final N node : graph.getNodes())
+		@Override
+		public Vector get(final Object node)
+		{
+			final Integer nodeIndex = nodeIndexes.get(node);
+			return (nodeIndex == null ? null : getCoordinates(nodeIndex));
+		}
+
+		@Override
+		public boolean containsKey(final Object node)
+		{
+			return nodeIndexes.containsKey(node);
+		}
+
+		@Override
+		public int size()
+		{
+			return nodes.size();
+		}
+
+		@Override
+		public Set<Entry<N, Vector>> entrySet()
 		{
-			coordinates.put(node, coordinates.get(node).calculateRelativeTo(center));
+			return new AbstractSet<Entry<N, Vector>>()
+			{
+				@Override
+				public Iterator<Entry<N, Vector>> iterator()
+				{
+					return new Iterator<Entry<N, Vector>>()
+					{
+						private int nextIndex;
+
+						@Override
+						public boolean hasNext()
+						{
+							return nextIndex < nodes.size();
+						}
+
+						@Override
+						public Entry<N, Vector> next()
+						{
+							if (!hasNext())
+								throw new NoSuchElementException();
+							final int nodeIndex = nextIndex++;
+							return new SimpleImmutableEntry<N, Vector>(nodes.get(nodeIndex), getCoordinates(nodeIndex));
+						}
+
+						@Override
+						public void remove()
+						{
+							throw new UnsupportedOperationException("coordinates can not be removed");
+						}
+					};
+				}
+
+				@Override
+				public int size()
+				{
+					return nodes.size();
+				}
+			};
 		}
 	}
 
@@ -260,105 +805,174 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 		return useWeights;
 	}
 
-	Map<N, Double> getNeighbors(final N nodeToQuery)
+	/**
+	 * Adds the neighbors a node is attracted to, along with the equilibrium
+	 * distance to each, by default the nodes sharing an edge with it.
+	 *
+	 * @param nodeToQuery the node being aligned.
+	 * @param neighbors the neighbors of the node.
+	 */
+	void collectNeighbors(final N nodeToQuery, final Neighbors neighbors)
 	{
-		final Map<N, Double> neighbors = new HashMap<N, Double>();
 		for (final Edge<N> neighborEdge : graph.getAdjacentEdges(nodeToQuery))
 		{
-			final Double currentWeight = (((neighborEdge instanceof Weighted) && useWeights) ? ((Weighted) neighborEdge).getWeight() : equilibriumDistance);
+			final double currentWeight = (((neighborEdge instanceof Weighted) && useWeights) ? ((Weighted) neighborEdge).getWeight() : equilibriumDistance);
 			for (final N neighbor : neighborEdge.getNodes())
 			{
-				if (!neighbor.equals(nodeToQuery))
-				{
-					neighbors.put(neighbor, currentWeight);
-				}
+				neighbors.put(neighbor, currentWeight);
 			}
 		}
-		return neighbors;
 	}
 
-	private Vector align(final N nodeToAlign)
+	private BlockMovement alignBlock(final int[] alignIndexes, final int start, final int end)
+	{
+		final BlockMovement movement = new BlockMovement(dimensions);
+		final double[] compositeVector = new double[dimensions];
+		Neighbors neighbors = idleNeighbors.poll();
+		if (neighbors == null)
+		{
+			neighbors = new Neighbors();
+		}
+		for (int alignIndex = start; alignIndex < end; alignIndex++)
+		{
+			align((alignIndexes == null ? alignIndex : alignIndexes[alignIndex]), compositeVector, neighbors, movement);
+		}
+		idleNeighbors.offer(neighbors);
+		return movement;
+	}
+
+	/**
+	 * Aligns one node, writing its new coordinates to the next coordinates.
+	 *
+	 * @param nodeIndex the index of the node to align.
+	 * @param compositeVector scratch space for the movement of the node.
+	 * @param neighbors scratch space for the neighbors of the node.
+	 * @param movement the movement of the block the node is in.
+	 */
+	private void align(final int nodeIndex, final double[] compositeVector, final Neighbors neighbors, final BlockMovement movement)
 	{
-		// calculate equilibrium with neighbors
-		final Vector location = coordinates.get(nodeToAlign);
-		final Map<N, Double> neighbors = getNeighbors(nodeToAlign);
+		final N nodeToAlign = nodes.get(nodeIndex);
+		final int offset = nodeIndex * dimensions;
+		Arrays.fill(compositeVector, 0.0);
 
-		Vector compositeVector = new Vector(location.getDimensions());
 		// align with neighbours
-		for (final Entry<N, Double> neighborEntry : neighbors.entrySet())
+		neighbors.reset(nodeIndex);
+		collectNeighbors(nodeToAlign, neighbors);
+		neighbors.neighborCount = neighbors.count;
+		for (int neighbor = 0; neighbor < neighbors.neighborCount; neighbor++)
 		{
-			final N neighbor = neighborEntry.getKey();
-			final double associationEquilibriumDistance = neighborEntry.getValue();
+			attract(offset, neighbors.indexes[neighbor] * dimensions, neighbors.distances[neighbor], compositeVector);
+		}
 
-			Vector neighborVector = coordinates.get(neighbor).calculateRelativeTo(location);
-			if (Math.abs(neighborVector.getDistance()) > associationEquilibriumDistance)
-			{
-				double newDistance = Math.pow(Math.abs(neighborVector.getDistance()) - associationEquilibriumDistance, ATTRACTION_STRENGTH);
-				if (Math.abs(newDistance) > Math.abs(Math.abs(neighborVector.getDistance()) - associationEquilibriumDistance))
-				{
-					newDistance = Math.copySign(Math.abs(Math.abs(neighborVector.getDistance()) - associationEquilibriumDistance), newDistance);
-				}
-				newDistance *= learningRate;
-				neighborVector = neighborVector.setDistance(Math.signum(neighborVector.getDistance()) * newDistance);
-			}
-			else
-			{
-				double newDistance = -EQUILIBRIUM_DISTANCE * atanh((associationEquilibriumDistance - Math.abs(neighborVector.getDistance())) / associationEquilibriumDistance);
-				if (Math.abs(newDistance) > (Math.abs(associationEquilibriumDistance - Math.abs(neighborVector.getDistance()))))
-				{
-					newDistance = -EQUILIBRIUM_DISTANCE * (associationEquilibriumDistance - Math.abs(neighborVector.getDistance()));
-				}
-				newDistance *= learningRate;
-				neighborVector = neighborVector.setDistance(Math.signum(neighborVector.getDistance()) * newDistance);
-			}
-			compositeVector = compositeVector.add(neighborVector);
+		// calculate repulsion with all non-neighbors, by taking the share of
+		// the associated nodes back out of the repulsion from every node
+		final double maximumRepulsion = Math.abs(equilibriumDistance);
+		if (repulsionTree != null)
+		{
+			repulsionTree.addRepulsion(nodeIndex, repulsionTheta, REPULSIVE_WEAKNESS, maximumRepulsion, learningRate, compositeVector);
 		}
-		// calculate repulsion with all non-neighbors
-		for (final N node : graph.getNodes())
+		else
 		{
-			if ((!neighbors.containsKey(node)) && (node != nodeToAlign)
-					&& (!graph.getAdjacentNodes(node).contains(nodeToAlign)))
+			for (int otherIndex = 0; otherIndex < nodes.size(); otherIndex++)
 			{
-				Vector nodeVector = coordinates.get(node).calculateRelativeTo(location);
-				double newDistance = -EQUILIBRIUM_DISTANCE / Math.pow(nodeVector.getDistance(), REPULSIVE_WEAKNESS);
-				if (Math.abs(newDistance) > Math.abs(equilibriumDistance))
+				if (otherIndex != nodeIndex)
 				{
-					newDistance = Math.copySign(equilibriumDistance, newDistance);
+					RepulsionTree.addRepulsion(coordinates, dimensions, nodeIndex, otherIndex, REPULSIVE_WEAKNESS, maximumRepulsion, learningRate, compositeVector);
 				}
-				newDistance *= learningRate;
-				nodeVector = nodeVector.setDistance(newDistance);
-				compositeVector = compositeVector.add(nodeVector);
 			}
 		}
-		Vector newLocation = location.add(compositeVector);
-		final Vector oldLocation = coordinates.get(nodeToAlign);
-		double moveDistance = Math.abs(newLocation.calculateRelativeTo(oldLocation).getDistance());
+		// adjacency is symmetric, so these are also the nodes adjacent to this one
+		for (final N adjacentNode : graph.getAdjacentNodes(nodeToAlign))
+		{
+			neighbors.add(adjacentNode);
+		}
+		for (int associated = 0; associated < neighbors.count; associated++)
+		{
+			RepulsionTree.addRepulsion(coordinates, dimensions, nodeIndex, neighbors.indexes[associated], REPULSIVE_WEAKNESS, maximumRepulsion, -learningRate, compositeVector);
+		}
+
+		double moveDistance = length(compositeVector, 0, compositeVector, 0);
 		if (moveDistance > equilibriumDistance * acceptableDistanceFactor)
 		{
-			final double newLearningRate = ((equilibriumDistance * acceptableDistanceFactor) / moveDistance);
-			if (newLearningRate < learningRate)
+			// the movement is proportional to the learning rate, so this is
+			// the rate at which the node would have moved an acceptable distance
+			movement.smallestLearningRate = Math.min(movement.smallestLearningRate, (learningRate * equilibriumDistance * acceptableDistanceFactor) / moveDistance);
+			movement.overshoots++;
+			// stay where it was
+			Arrays.fill(compositeVector, 0.0);
+			moveDistance = DEFAULT_TOTAL_MOVEMENT;
+		}
+
+		for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
+		{
+			final double newCoordinate = coordinates[offset + dimensionIndex] + compositeVector[dimensionIndex];
+			nextCoordinates[offset + dimensionIndex] = newCoordinate;
+			movement.pointSum[dimensionIndex] += newCoordinate;
+		}
+		movement.maxMovement = Math.max(movement.maxMovement, moveDistance);
+		movement.totalMovement += moveDistance;
+	}
+
+	/**
+	 * Adds the pull of a neighbor towards or away from its equilibrium
+	 * distance.
+	 */
+	private void attract(final int offset, final int neighborOffset, final double associationEquilibriumDistance, final double[] compositeVector)
+	{
+		final double distance = length(coordinates, neighborOffset, coordinates, offset);
+		// coincident nodes have no direction to move in
+		if (distance == 0.0)
+		{
+			return;
+		}
+
+		double newDistance;
+		if (distance > associationEquilibriumDistance)
+		{
+			newDistance = StrictMath.pow(distance - associationEquilibriumDistance, ATTRACTION_STRENGTH);
+			if (Math.abs(newDistance) > Math.abs(distance - associationEquilibriumDistance))
 			{
-				learningRate = newLearningRate;
-				LOGGER.debug("learning rate: " + learningRate);
+				newDistance = Math.copySign(Math.abs(distance - associationEquilibriumDistance), newDistance);
 			}
-			else
+		}
+		else
+		{
+			newDistance = -EQUILIBRIUM_DISTANCE * atanh((associationEquilibriumDistance - distance) / associationEquilibriumDistance);
+			if (Math.abs(newDistance) > (Math.abs(associationEquilibriumDistance - distance)))
 			{
-				learningRate *= LEARNING_RATE_INCREASE_FACTOR;
-				LOGGER.debug("learning rate: " + learningRate);
+				newDistance = -EQUILIBRIUM_DISTANCE * (associationEquilibriumDistance - distance);
 			}
+		}
+		newDistance *= learningRate;
 
-			newLocation = oldLocation;
-			moveDistance = DEFAULT_TOTAL_MOVEMENT;
+		final double scale = newDistance / distance;
+		for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
+		{
+			compositeVector[dimensionIndex] += (coordinates[neighborOffset + dimensionIndex] - coordinates[offset + dimensionIndex]) * scale;
 		}
+	}
 
-		if (moveDistance > maxMovement)
+	/**
+	 * Gets the distance between two points, or the length of a vector when it
+	 * is given as both points.
+	 */
+	private double length(final double[] to, final int toOffset, final double[] from, final int fromOffset)
+	{
+		double squared = 0.0;
+		for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
 		{
-			maxMovement = moveDistance;
+			final double difference = (to == from && toOffset == fromOffset ? to[toOffset + dimensionIndex] : to[toOffset + dimensionIndex] - from[fromOffset + dimensionIndex]);
+			squared += difference * difference;
 		}
-		totalMovement += moveDistance;
+		return Math.sqrt(squared);
+	}
 
-		coordinates.put(nodeToAlign, newLocation);
-		return newLocation;
+	private void randomizeCoordinates(final double[] allCoordinates, final int nodeIndex)
+	{
+		for (int dimensionIndex = 0; dimensionIndex < dimensions; dimensionIndex++)
+		{
+			allCoordinates[nodeIndex * dimensions + dimensionIndex] = (RANDOM.nextDouble() * 2.0) - 1.0;
+		}
 	}
 
 	/**
@@ -391,56 +1005,28 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 	 */
 	private static double atanh(final double value)
 	{
-		return Math.log(Math.abs((value + 1.0) / (1.0 - value))) / 2;
+		return StrictMath.log(Math.abs((value + 1.0) / (1.0 - value))) / 2;
 	}
 
-	private List<Future<Vector>> submitFutureAligns()
+	private List<Future<BlockMovement>> submitFutureAligns(final int[] alignIndexes)
 	{
-		final ArrayList<Future<Vector>> futures = new ArrayList<Future<Vector>>();
-		for (final N node : graph.getNodes())
+		final ArrayList<Future<BlockMovement>> futures = new ArrayList<Future<BlockMovement>>();
+		for (int start = 0; start < alignedNodeCount; start += ALIGN_BLOCK_SIZE)
 		{
-			futures.add(threadExecutor.submit(new Align(node)));
+			futures.add(threadExecutor.submit(new Align(alignIndexes, start, Math.min(start + ALIGN_BLOCK_SIZE, alignedNodeCount))));
 		}
 		return futures;
 	}
 
-	private Vector processLocally()
-	{
-		Vector pointSum = new Vector(dimensions);
-		for (final N node : graph.getNodes())
-		{
-			final Vector newPoint = align(node);
-			for (int dimensionIndex = 1; dimensionIndex <= dimensions; dimensionIndex++)
-			{
-				pointSum = pointSum.setCoordinate(pointSum.getCoordinate(dimensionIndex) + newPoint.getCoordinate(dimensionIndex), dimensionIndex);
-			}
-		}
-		if ((learningRate * LEARNING_RATE_PROCESSING_ADJUSTMENT) < DEFAULT_LEARNING_RATE)
-		{
-			final double acceptableDistanceAdjustment = 0.1;
-			if (getAverageMovement() < (equilibriumDistance * acceptableDistanceFactor * acceptableDistanceAdjustment))
-			{
-				acceptableDistanceFactor *= LEARNING_RATE_INCREASE_FACTOR;
-			}
-			learningRate *= LEARNING_RATE_PROCESSING_ADJUSTMENT;
-			LOGGER.debug("learning rate: " + learningRate + ", acceptableDistanceFactor: " + acceptableDistanceFactor);
-		}
-		return pointSum;
-	}
-
-	private Vector waitAndProcessFutures(final List<Future<Vector>> futures) throws InterruptedException
+	private List<BlockMovement> waitForFutures(final List<Future<BlockMovement>> futures) throws InterruptedException
 	{
-		// wait for all nodes to finish aligning and calculate the new center point
-		Vector pointSum = new Vector(dimensions);
+		// wait for all blocks to finish aligning, keeping their order
+		final List<BlockMovement> blocks = new ArrayList<BlockMovement>(futures.size());
 		try
 		{
-			for (final Future<Vector> future : futures)
+			for (final Future<BlockMovement> future : futures)
 			{
-				final Vector newPoint = future.get();
-				for (int dimensionIndex = 1; dimensionIndex <= dimensions; dimensionIndex++)
-				{
-					pointSum = pointSum.setCoordinate(pointSum.getCoordinate(dimensionIndex) + newPoint.getCoordinate(dimensionIndex), dimensionIndex);
-				}
+				blocks.add(future.get());
 			}
 		}
 		catch (ExecutionException caught)
@@ -448,16 +1034,6 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements GraphDrawe
 			LOGGER.error("Align had an unexpected problem executing.", caught);
 			throw new UnexpectedDannError("Unexpected execution exception. Get should block indefinitely", caught);
 		}
-		if (learningRate * LEARNING_RATE_PROCESSING_ADJUSTMENT < DEFAULT_LEARNING_RATE)
-		{
-			final double acceptableDistanceAdjustment = 0.1;
-			if (getAverageMovement() < (equilibriumDistance * acceptableDistanceFactor * acceptableDistanceAdjustment))
-			{
-				acceptableDistanceFactor = maxMovement * 2.0;
-			}
-			learningRate *= LEARNING_RATE_PROCESSING_ADJUSTMENT;
-			LOGGER.debug("learning rate: " + learningRate + ", acceptableDistanceFactor: " + acceptableDistanceFactor);
-		}
-		return pointSum;
+		return blocks;
 	}
 }
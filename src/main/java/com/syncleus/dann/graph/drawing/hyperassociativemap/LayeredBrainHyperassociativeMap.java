@@ -77,7 +77,15 @@ public class LayeredBrainHyperassociativeMap extends HyperassociativeMap<Feedfor
 	}
 
 	@Override
-	Map<BackpropNeuron, Double> getNeighbors(final BackpropNeuron nodeToQuery)
+	void collectNeighbors(final BackpropNeuron nodeToQuery, final Neighbors collected)
+	{
+		for (final Map.Entry<BackpropNeuron, Double> association : getAssociations(nodeToQuery).entrySet())
+		{
+			collected.put(association.getKey(), association.getValue());
+		}
+	}
+
+	private Map<BackpropNeuron, Double> getAssociations(final BackpropNeuron nodeToQuery)
 	{
 		final BackpropNeuron neuronToQuery = nodeToQuery;
 
@@ -0,0 +1,265 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.drawing.hyperassociativemap;
+
+import java.util.Arrays;
+
+/**
+ * A Barnes-Hut tree over the positions of the nodes of a hyperassociative map,
+ * used to approximate the repulsion a node receives from every other node.
+ * Cells are split in two along their widest dimension at the median point, so
+ * the tree works for any number of dimensions without creating the 2^d
+ * children per cell of an orthant tree. A cell which is small compared to its
+ * distance from the node being aligned acts as a single point at its center of
+ * mass, weighted by the number of points in it.
+ */
+final class RepulsionTree
+{
+	private static final int LEAF_SIZE = 8;
+
+	private final int dimensions;
+	private final double[] points;
+	//points are reordered so every cell is a contiguous range
+	private final int[] order;
+	private final int[] orderPositions;
+	private final int[] cellStarts;
+	private final int[] cellEnds;
+	private final int[] cellLefts;
+	private final int[] cellRights;
+	private final double[] cellSizes;
+	private final double[] cellCenters;
+	private int cellCount;
+	private int depth;
+
+	/**
+	 * Builds the tree.
+	 *
+	 * @param points the coordinates of each point, dimensions values per point.
+	 * @param dimensions the number of dimensions.
+	 */
+	RepulsionTree(final double[] points, final int dimensions)
+	{
+		this.dimensions = dimensions;
+		this.points = points;
+		final int pointCount = points.length / dimensions;
+		this.order = new int[pointCount];
+		for(int point = 0; point < pointCount; point++)
+			this.order[point] = point;
+
+		//every split leaves points on both sides so there are fewer than twice
+		//as many cells as points
+		final int maximumCells = Math.max(1, 2 * pointCount);
+		this.cellStarts = new int[maximumCells];
+		this.cellEnds = new int[maximumCells];
+		this.cellLefts = new int[maximumCells];
+		this.cellRights = new int[maximumCells];
+		this.cellSizes = new double[maximumCells];
+		this.cellCenters = new double[maximumCells * dimensions];
+		if( pointCount > 0 )
+			this.build(0, pointCount, 1);
+
+		this.orderPositions = new int[pointCount];
+		for(int position = 0; position < pointCount; position++)
+			this.orderPositions[this.order[position]] = position;
+	}
+
+	/**
+	 * Builds the cell holding a range of the ordered points, along with all the
+	 * cells under it.
+	 *
+	 * @return the index of the cell.
+	 */
+	private int build(final int start, final int end, final int cellDepth)
+	{
+		final int cell = this.cellCount++;
+		this.depth = Math.max(this.depth, cellDepth);
+		this.cellStarts[cell] = start;
+		this.cellEnds[cell] = end;
+		this.cellLefts[cell] = -1;
+
+		final double[] minimum = new double[this.dimensions];
+		final double[] maximum = new double[this.dimensions];
+		Arrays.fill(minimum, Double.POSITIVE_INFINITY);
+		Arrays.fill(maximum, Double.NEGATIVE_INFINITY);
+		for(int position = start; position < end; position++)
+		{
+			final int offset = this.order[position] * this.dimensions;
+			for(int dimension = 0; dimension < this.dimensions; dimension++)
+			{
+				final double coordinate = this.points[offset + dimension];
+				this.cellCenters[cell * this.dimensions + dimension] += coordinate;
+				minimum[dimension] = Math.min(minimum[dimension], coordinate);
+				maximum[dimension] = Math.max(maximum[dimension], coordinate);
+			}
+		}
+
+		int widest = 0;
+		for(int dimension = 0; dimension < this.dimensions; dimension++)
+		{
+			this.cellCenters[cell * this.dimensions + dimension] /= (end - start);
+			if( maximum[dimension] - minimum[dimension] > maximum[widest] - minimum[widest] )
+				widest = dimension;
+		}
+		this.cellSizes[cell] = maximum[widest] - minimum[widest];
+
+		if( (end - start > LEAF_SIZE) && (this.cellSizes[cell] > 0.0) )
+		{
+			final int middle = (start + end) >>> 1;
+			this.select(start, end, middle, widest);
+			this.cellLefts[cell] = this.build(start, middle, cellDepth + 1);
+			this.cellRights[cell] = this.build(middle, end, cellDepth + 1);
+		}
+		return cell;
+	}
+
+	/**
+	 * Partially sorts a range of the ordered points along one dimension so the
+	 * point at the middle position is the median and no point before it is
+	 * greater than any point after it.
+	 */
+	private void select(final int start, final int end, final int middle, final int dimension)
+	{
+		int low = start;
+		int high = end - 1;
+		while( low < high )
+		{
+			final double pivot = this.coordinate(this.order[(low + high) >>> 1], dimension);
+			int left = low;
+			int right = high;
+			while( left <= right )
+			{
+				while( this.coordinate(this.order[left], dimension) < pivot )
+					left++;
+				while( this.coordinate(this.order[right], dimension) > pivot )
+					right--;
+				if( left <= right )
+				{
+					final int swap = this.order[left];
+					this.order[left] = this.order[right];
+					this.order[right] = swap;
+					left++;
+					right--;
+				}
+			}
+			if( middle <= right )
+				high = right;
+			else if( middle >= left )
+				low = left;
+			else
+				return;
+		}
+	}
+
+	private double coordinate(final int point, final int dimension)
+	{
+		return this.points[point * this.dimensions + dimension];
+	}
+
+	/**
+	 * Adds the repulsion from every point other than the given one to a force.
+	 * A point at distance r pushes with a magnitude of the scale times the
+	 * smaller of r raised to the negative exponent and the maximum.
+	 *
+	 * @param self the point being aligned.
+	 * @param theta the largest ratio of cell size to distance at which a cell
+	 *   is treated as a single point, zero computes the exact repulsion.
+	 * @param exponent how quickly repulsion weakens with distance.
+	 * @param maximum the largest magnitude of repulsion from a single point.
+	 * @param scale the factor applied to every repulsion.
+	 * @param force the force to add the repulsion to.
+	 */
+	void addRepulsion(final int self, final double theta, final double exponent, final double maximum, final double scale, final double[] force)
+	{
+		if( this.cellCount == 0 )
+			return;
+		final int selfOffset = self * this.dimensions;
+		final int selfPosition = this.orderPositions[self];
+		//each level leaves at most one sibling waiting on the stack
+		final int[] stack = new int[this.depth + 1];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		while( stackSize > 0 )
+		{
+			final int cell = stack[--stackSize];
+			final int count = this.cellEnds[cell] - this.cellStarts[cell];
+			final boolean containsSelf = (selfPosition >= this.cellStarts[cell]) && (selfPosition < this.cellEnds[cell]);
+			if( !containsSelf )
+			{
+				final double distance = distance(this.cellCenters, cell * this.dimensions, this.points, selfOffset, this.dimensions);
+				if( (this.cellLefts[cell] < 0) ? (count == 1) : (this.cellSizes[cell] < theta * distance) )
+				{
+					push(this.cellCenters, cell * this.dimensions, this.points, selfOffset, this.dimensions, distance, count, exponent, maximum, scale, force);
+					continue;
+				}
+			}
+
+			if( this.cellLefts[cell] >= 0 )
+			{
+				stack[stackSize++] = this.cellLefts[cell];
+				stack[stackSize++] = this.cellRights[cell];
+			}
+			else
+			{
+				for(int position = this.cellStarts[cell]; position < this.cellEnds[cell]; position++)
+				{
+					if( position == selfPosition )
+						continue;
+					final int pointOffset = this.order[position] * this.dimensions;
+					push(this.points, pointOffset, this.points, selfOffset, this.dimensions, distance(this.points, pointOffset, this.points, selfOffset, this.dimensions), 1, exponent, maximum, scale, force);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the exact repulsion from a single point to a force.
+	 *
+	 * @param points the coordinates of each point, dimensions values per point.
+	 * @param dimensions the number of dimensions.
+	 * @see #addRepulsion(int, double, double, double, double, double[])
+	 */
+	static void addRepulsion(final double[] points, final int dimensions, final int self, final int point, final double exponent, final double maximum, final double scale, final double[] force)
+	{
+		final int pointOffset = point * dimensions;
+		final int selfOffset = self * dimensions;
+		push(points, pointOffset, points, selfOffset, dimensions, distance(points, pointOffset, points, selfOffset, dimensions), 1, exponent, maximum, scale, force);
+	}
+
+	private static double distance(final double[] from, final int fromOffset, final double[] points, final int selfOffset, final int dimensions)
+	{
+		double squared = 0.0;
+		for(int dimension = 0; dimension < dimensions; dimension++)
+		{
+			final double difference = from[fromOffset + dimension] - points[selfOffset + dimension];
+			squared += difference * difference;
+		}
+		return Math.sqrt(squared);
+	}
+
+	private static void push(final double[] from, final int fromOffset, final double[] points, final int selfOffset, final int dimensions, final double distance, final int count, final double exponent, final double maximum, final double scale, final double[] force)
+	{
+		//coincident points have no direction to push in
+		if( distance == 0.0 )
+			return;
+		final double magnitude = -Math.min(1.0 / StrictMath.pow(distance, exponent), maximum) * scale;
+		final double factor = count * magnitude / distance;
+		for(int dimension = 0; dimension < dimensions; dimension++)
+			force[dimension] += (from[fromOffset + dimension] - points[selfOffset + dimension]) * factor;
+	}
+}
@@ -0,0 +1,108 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.io;
+
+import java.io.IOException;
+import com.syncleus.dann.graph.BidirectedEdge;
+import com.syncleus.dann.graph.ImmutableDirectedEdge;
+import com.syncleus.dann.graph.ImmutableUndirectedEdge;
+import com.syncleus.dann.graph.ImmutableWeightedDirectedEdge;
+import com.syncleus.dann.graph.ImmutableWeightedUndirectedEdge;
+
+/**
+ * Constants describing the binary graph format. All values are big endian.
+ * A file holds, in order:
+ * <ul>
+ * <li>a header of magic, version, flags, node count, edge count and hash slot
+ * count, each an int</li>
+ * <li>the node table, one record per node of an int length followed by the
+ * bytes written by the node codec</li>
+ * <li>the node index, the long file position of each node record followed by
+ * the position just past the last record</li>
+ * <li>the node hash table, an int per slot holding one more than the index of
+ * the node in that slot, or zero when empty. Nodes are placed by a hash of
+ * their record bytes</li>
+ * <li>the out edges in compressed sparse row form, an int offset per node
+ * followed by the total, then an int destination and, when weighted, a
+ * double weight per edge. The position of an edge in this table is its
+ * id</li>
+ * <li>the in edges in the same form, an int offset per node followed by the
+ * total, then an int source and int edge id per edge</li>
+ * <li>a trailer, the long file position of the node index</li>
+ * </ul>
+ * The directed flag is set for every graph of directed edges, including a
+ * DirectedGraph with no edges. The sections after the node table have sizes
+ * known from the header, so the trailer lets a reader locate every section
+ * without reading the nodes.
+ */
+final class BinaryGraphFormat
+{
+	static final int MAGIC = 0x44414E47;
+	static final int VERSION = 2;
+	static final int DIRECTED = 1;
+	static final int WEIGHTED = 2;
+	static final int HEADER_BYTES = 6 * 4;
+	static final int TRAILER_BYTES = 8;
+
+	/**
+	 * This is an utility class, so it may not be instantiated.
+	 */
+	private BinaryGraphFormat()
+	{
+		throw new IllegalStateException("This is an utility class, it can not be instantiated");
+	}
+
+	static int getEdgeRecordBytes(final boolean weighted)
+	{
+		return (weighted ? 4 + 8 : 4);
+	}
+
+	/**
+	 * Checks the header of a file.
+	 */
+	static void checkHeader(final int magic, final int version, final int nodeCount, final int edgeCount, final int hashSlots) throws IOException
+	{
+		if( magic != MAGIC )
+			throw new IOException("not a binary graph");
+		if( version != VERSION )
+			throw new IOException("unsupported binary graph version " + version);
+		if( (nodeCount < 0) || (edgeCount < 0) )
+			throw new IOException("corrupt binary graph header");
+		if( !RecordHashTable.isValidHashSlots(hashSlots, nodeCount) )
+			throw new IOException("corrupt binary graph header");
+	}
+
+	/**
+	 * Creates the edge read from a file.
+	 */
+	static <N> BidirectedEdge<N> createEdge(final N source, final N destination, final int flags, final double weight)
+	{
+		switch(flags & (DIRECTED | WEIGHTED))
+		{
+		case DIRECTED | WEIGHTED:
+			return new ImmutableWeightedDirectedEdge<N>(source, destination, weight);
+		case DIRECTED:
+			return new ImmutableDirectedEdge<N>(source, destination);
+		case WEIGHTED:
+			return new ImmutableWeightedUndirectedEdge<N>(source, destination, weight);
+		default:
+			return new ImmutableUndirectedEdge<N>(source, destination);
+		}
+	}
+}
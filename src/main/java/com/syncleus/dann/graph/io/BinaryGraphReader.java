@@ -0,0 +1,243 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import com.syncleus.dann.graph.BidirectedEdge;
+import com.syncleus.dann.graph.DirectedEdge;
+import com.syncleus.dann.graph.GraphBuilder;
+
+/**
+ * Reads graphs in the binary graph format from a stream. The nodes are read
+ * first, in the order they were written, and then the edges grouped by their
+ * source node, so a graph can be processed as it is read. Reading an edge
+ * before all the nodes were read skips over the remaining nodes. Only the
+ * nodes and the row offsets of the edges are held in memory.
+ *
+ * @param <N> The node type
+ * @see BinaryGraphWriter
+ */
+public class BinaryGraphReader<N> implements Closeable
+{
+	private final DataInputStream in;
+	private final NodeCodec<N> codec;
+	private final int flags;
+	private final int nodeCount;
+	private final int edgeCount;
+	private final int hashSlots;
+	private final List<N> nodes;
+	private int[] outStarts;
+	private int edgesRead;
+	private int currentSource;
+
+	/**
+	 * Creates a reader and reads the header of the graph.
+	 *
+	 * @param in the stream to read.
+	 * @param codec the codec the nodes were written with.
+	 * @throws IOException if the stream could not be read or does not hold a
+	 *   binary graph.
+	 */
+	public BinaryGraphReader(final InputStream in, final NodeCodec<N> codec) throws IOException
+	{
+		if( in == null )
+			throw new IllegalArgumentException("in can not be null");
+		if( codec == null )
+			throw new IllegalArgumentException("codec can not be null");
+		this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+		this.codec = codec;
+
+		final int magic = this.in.readInt();
+		final int version = this.in.readInt();
+		this.flags = this.in.readInt();
+		this.nodeCount = this.in.readInt();
+		this.edgeCount = this.in.readInt();
+		this.hashSlots = this.in.readInt();
+		BinaryGraphFormat.checkHeader(magic, version, this.nodeCount, this.edgeCount, this.hashSlots);
+		this.nodes = new ArrayList<N>(this.nodeCount);
+	}
+
+	public boolean isDirected()
+	{
+		return ((this.flags & BinaryGraphFormat.DIRECTED) != 0);
+	}
+
+	public boolean isWeighted()
+	{
+		return ((this.flags & BinaryGraphFormat.WEIGHTED) != 0);
+	}
+
+	public int getNodeCount()
+	{
+		return this.nodeCount;
+	}
+
+	public int getEdgeCount()
+	{
+		return this.edgeCount;
+	}
+
+	/**
+	 * Gets the nodes read so far, in the order they were read. The index of a
+	 * node in this list is its index in the file.
+	 */
+	public List<N> getNodesRead()
+	{
+		return Collections.unmodifiableList(this.nodes);
+	}
+
+	public boolean hasNextNode()
+	{
+		return (this.nodes.size() < this.nodeCount);
+	}
+
+	/**
+	 * Reads the next node.
+	 *
+	 * @throws NoSuchElementException if all the nodes were read.
+	 */
+	public N nextNode() throws IOException
+	{
+		if( !this.hasNextNode() )
+			throw new NoSuchElementException("all nodes were read");
+		final int length = this.in.readInt();
+		if( length < 0 )
+			throw new IOException("corrupt binary graph node record");
+		final byte[] record = new byte[length];
+		this.in.readFully(record);
+		final N node = this.codec.decode(ByteBuffer.wrap(record));
+		this.nodes.add(node);
+		return node;
+	}
+
+	public boolean hasNextEdge()
+	{
+		return (this.edgesRead < this.edgeCount);
+	}
+
+	/**
+	 * Reads the next edge. The edges are created as immutable directed or
+	 * undirected edges, weighted when the graph was written with weights.
+	 *
+	 * @throws NoSuchElementException if all the edges were read.
+	 */
+	public BidirectedEdge<N> nextEdge() throws IOException
+	{
+		if( !this.hasNextEdge() )
+			throw new NoSuchElementException("all edges were read");
+		if( this.outStarts == null )
+			this.readOutStarts();
+
+		while( this.outStarts[this.currentSource + 1] <= this.edgesRead )
+			this.currentSource++;
+		final int destination = this.in.readInt();
+		if( (destination < 0) || (destination >= this.nodeCount) )
+			throw new IOException("corrupt binary graph edge record");
+		final double weight = (this.isWeighted() ? this.in.readDouble() : 0.0);
+		this.edgesRead++;
+		return BinaryGraphFormat.createEdge(this.nodes.get(this.currentSource), this.nodes.get(destination), this.flags, weight);
+	}
+
+	private void readOutStarts() throws IOException
+	{
+		while( this.hasNextNode() )
+			this.nextNode();
+
+		//skip the node index and hash table which are only used when mapped
+		this.skip(8L * (this.nodeCount + 1) + 4L * this.hashSlots);
+
+		this.outStarts = new int[this.nodeCount + 1];
+		for(int nodeIndex = 0; nodeIndex <= this.nodeCount; nodeIndex++)
+			this.outStarts[nodeIndex] = this.in.readInt();
+		if( this.outStarts[this.nodeCount] != this.edgeCount )
+			throw new IOException("corrupt binary graph edge table");
+	}
+
+	private void skip(final long count) throws IOException
+	{
+		long remaining = count;
+		while( remaining > 0 )
+		{
+			final long skipped = this.in.skip(remaining);
+			if( skipped <= 0 )
+			{
+				if( this.in.read() < 0 )
+					throw new EOFException("binary graph ended early");
+				remaining--;
+			}
+			else
+				remaining -= skipped;
+		}
+	}
+
+	/**
+	 * Reads the rest of the graph into a builder of bidirected edges, which
+	 * can construct an undirected adjacency graph such as
+	 * ImmutableAdjacencyGraph. The edges are DirectedEdges when the graph was
+	 * written as directed, use readDirectedGraph to build a DirectedGraph. The
+	 * builder holds every node and the edges which were not read before.
+	 */
+	public GraphBuilder<N, BidirectedEdge<N>> readGraph() throws IOException
+	{
+		final GraphBuilder<N, BidirectedEdge<N>> builder = new GraphBuilder<N, BidirectedEdge<N>>(this.nodeCount, this.edgeCount);
+		while( this.hasNextNode() )
+			this.nextNode();
+		builder.addNodes(this.nodes);
+		while( this.hasNextEdge() )
+			builder.addEdge(this.nextEdge());
+		return builder;
+	}
+
+	/**
+	 * Reads the rest of a directed graph into a builder of directed edges,
+	 * which can construct a directed adjacency graph such as
+	 * ImmutableDirectedAdjacencyGraph. The builder holds every node and the
+	 * edges which were not read before.
+	 *
+	 * @throws IllegalStateException if the graph was not written as directed.
+	 */
+	public GraphBuilder<N, DirectedEdge<N>> readDirectedGraph() throws IOException
+	{
+		if( !this.isDirected() )
+			throw new IllegalStateException("graph was not written as directed");
+		final GraphBuilder<N, DirectedEdge<N>> builder = new GraphBuilder<N, DirectedEdge<N>>(this.nodeCount, this.edgeCount);
+		while( this.hasNextNode() )
+			this.nextNode();
+		builder.addNodes(this.nodes);
+		while( this.hasNextEdge() )
+			builder.addEdge((DirectedEdge<N>) this.nextEdge());
+		return builder;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.in.close();
+	}
+}
@@ -0,0 +1,200 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.syncleus.dann.graph.BidirectedEdge;
+import com.syncleus.dann.graph.DirectedEdge;
+import com.syncleus.dann.graph.DirectedGraph;
+import com.syncleus.dann.graph.Graph;
+import com.syncleus.dann.graph.Weighted;
+
+/**
+ * Writes graphs in the binary graph format. The file is written straight to the
+ * stream as it is produced, so only the numbering of the nodes and edges is
+ * held in memory rather than a document of the whole graph. The edges are
+ * written as directed when the graph is a DirectedGraph or every edge is a
+ * DirectedEdge, and with weights when every edge is Weighted. The format holds
+ * these once for the whole graph, so a graph that mixes directed and undirected
+ * edges, or weighted and unweighted edges, can not be written.
+ *
+ * @param <N> The node type
+ * @see BinaryGraphReader
+ * @see MappedGraph
+ */
+public class BinaryGraphWriter<N> implements Closeable
+{
+	private final DataOutputStream out;
+	private final NodeCodec<N> codec;
+
+	public BinaryGraphWriter(final OutputStream out, final NodeCodec<N> codec)
+	{
+		if( out == null )
+			throw new IllegalArgumentException("out can not be null");
+		if( codec == null )
+			throw new IllegalArgumentException("codec can not be null");
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+		this.codec = codec;
+	}
+
+	/**
+	 * Writes a graph to the stream. The graph must not change while it is
+	 * being written.
+	 *
+	 * @param graph the graph to write.
+	 * @throws IOException if the stream could not be written.
+	 * @throws IllegalArgumentException if the graph mixes directed and
+	 *   undirected edges or weighted and unweighted edges.
+	 */
+	public void write(final Graph<N, ? extends BidirectedEdge<N>> graph) throws IOException
+	{
+		if( graph == null )
+			throw new IllegalArgumentException("graph can not be null");
+
+		final List<N> nodes = new ArrayList<N>(graph.getNodes());
+		final int nodeCount = nodes.size();
+		final Map<N, Integer> nodeIndexes = new HashMap<N, Integer>(Math.max(16, (int) (nodeCount / 0.75f) + 1));
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			nodeIndexes.put(nodes.get(nodeIndex), nodeIndex);
+
+		//number the end points of the edges
+		final List<BidirectedEdge<N>> edges = new ArrayList<BidirectedEdge<N>>(graph.getEdges());
+		final int edgeCount = edges.size();
+		final int[] sources = new int[edgeCount];
+		final int[] destinations = new int[edgeCount];
+		final boolean directed = (graph instanceof DirectedGraph) || ((edgeCount > 0) && (edges.get(0) instanceof DirectedEdge));
+		final boolean weighted = (edgeCount > 0) && (edges.get(0) instanceof Weighted);
+		for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+		{
+			final BidirectedEdge<N> edge = edges.get(edgeIndex);
+			if( (edge instanceof DirectedEdge) != directed )
+				throw new IllegalArgumentException("graph can not mix directed and undirected edges");
+			if( (edge instanceof Weighted) != weighted )
+				throw new IllegalArgumentException("graph can not mix weighted and unweighted edges");
+			sources[edgeIndex] = getIndex(nodeIndexes, edge.getLeftNode());
+			destinations[edgeIndex] = getIndex(nodeIndexes, edge.getRightNode());
+		}
+
+		final int slots = RecordHashTable.getHashSlots(nodeCount);
+		this.out.writeInt(BinaryGraphFormat.MAGIC);
+		this.out.writeInt(BinaryGraphFormat.VERSION);
+		this.out.writeInt((directed ? BinaryGraphFormat.DIRECTED : 0) | (weighted ? BinaryGraphFormat.WEIGHTED : 0));
+		this.out.writeInt(nodeCount);
+		this.out.writeInt(edgeCount);
+		this.out.writeInt(slots);
+		long position = BinaryGraphFormat.HEADER_BYTES;
+
+		//node table, then its index and hash table
+		final long[] recordPositions = new long[nodeCount + 1];
+		final int[] hashTable = new int[slots];
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+		{
+			recordPositions[nodeIndex] = position;
+			final byte[] record = this.codec.encode(nodes.get(nodeIndex));
+			this.out.writeInt(record.length);
+			this.out.write(record);
+			position += 4 + record.length;
+
+			int slot = RecordHashTable.getSlot(record, slots);
+			while( hashTable[slot] != 0 )
+				slot = (slot + 1) & (slots - 1);
+			hashTable[slot] = nodeIndex + 1;
+		}
+		recordPositions[nodeCount] = position;
+		final long indexPosition = position;
+		for(final long recordPosition : recordPositions)
+			this.out.writeLong(recordPosition);
+		for(final int slot : hashTable)
+			this.out.writeInt(slot);
+
+		//out edges grouped by source, their order gives the edge ids
+		final int[] outStarts = countingSort(sources, nodeCount);
+		final int[] outOrder = order(sources, outStarts);
+		for(final int outStart : outStarts)
+			this.out.writeInt(outStart);
+		final int[] edgeIds = new int[edgeCount];
+		for(int edgeId = 0; edgeId < edgeCount; edgeId++)
+		{
+			final int edgeIndex = outOrder[edgeId];
+			edgeIds[edgeIndex] = edgeId;
+			this.out.writeInt(destinations[edgeIndex]);
+			if( weighted )
+				this.out.writeDouble(((Weighted) edges.get(edgeIndex)).getWeight());
+		}
+
+		//in edges grouped by destination
+		final int[] inStarts = countingSort(destinations, nodeCount);
+		final int[] inOrder = order(destinations, inStarts);
+		for(final int inStart : inStarts)
+			this.out.writeInt(inStart);
+		for(final int edgeIndex : inOrder)
+		{
+			this.out.writeInt(sources[edgeIndex]);
+			this.out.writeInt(edgeIds[edgeIndex]);
+		}
+
+		this.out.writeLong(indexPosition);
+		this.out.flush();
+	}
+
+	private static <N> int getIndex(final Map<N, Integer> nodeIndexes, final N node)
+	{
+		final Integer nodeIndex = nodeIndexes.get(node);
+		if( nodeIndex == null )
+			throw new IllegalArgumentException("graph has an edge connected to a node not in the graph");
+		return nodeIndex;
+	}
+
+	/**
+	 * Gets the offset of each key's group when the keys are sorted, followed by
+	 * the total.
+	 */
+	private static int[] countingSort(final int[] keys, final int keyCount)
+	{
+		final int[] starts = new int[keyCount + 1];
+		for(final int key : keys)
+			starts[key + 1]++;
+		for(int key = 0; key < keyCount; key++)
+			starts[key + 1] += starts[key];
+		return starts;
+	}
+
+	private static int[] order(final int[] keys, final int[] starts)
+	{
+		final int[] fill = new int[starts.length - 1];
+		final int[] sorted = new int[keys.length];
+		for(int index = 0; index < keys.length; index++)
+			sorted[starts[keys[index]] + fill[keys[index]]++] = index;
+		return sorted;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.out.close();
+	}
+}
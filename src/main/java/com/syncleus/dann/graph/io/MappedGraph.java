@@ -0,0 +1,537 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import com.syncleus.dann.graph.BidirectedEdge;
+import com.syncleus.dann.graph.BidirectedGraph;
+import com.syncleus.dann.graph.Graph;
+import com.syncleus.dann.graph.GraphBuilder;
+import com.syncleus.dann.graph.ImmutableAdjacencyGraph;
+import com.syncleus.dann.graph.xml.GraphXml;
+import com.syncleus.dann.xml.Namer;
+
+/**
+ * A read-only graph backed by a memory-mapped binary graph file. Opening the
+ * graph only maps the file, the nodes and edges are created the first time they
+ * are reached and then kept so each is always the same object. Looking a node
+ * up encodes it and compares the bytes with the records found through the hash
+ * table stored in the file, so nodes are matched by their encoding rather than
+ * by equals. Finding the edges of a node reads its rows of the stored out and
+ * in edge tables, so nothing proportional to the size of the graph is built
+ * when it is opened. The node table and the remaining sections of the file may
+ * each be up to 2 GB.
+ *
+ * <p>The graph can not change. The clone methods and the XML and java
+ * serialization of the graph work on an ImmutableAdjacencyGraph copy of it.
+ * Reading the graph from several threads at once is safe.
+ *
+ * @param <N> The node type
+ * @see BinaryGraphWriter
+ */
+public class MappedGraph<N> implements BidirectedGraph<N, BidirectedEdge<N>>
+{
+	private static final long serialVersionUID = -3904752216049573262L;
+	private final String fileName;
+	private final NodeCodec<N> codec;
+	private final int flags;
+	private final int nodeCount;
+	private final int edgeCount;
+	private final int hashSlots;
+	private final int edgeRecordBytes;
+	private final ByteBuffer nodeRecords;
+	private final LongBuffer recordPositions;
+	private final IntBuffer hashTable;
+	private final IntBuffer outStarts;
+	private final ByteBuffer outRecords;
+	private final IntBuffer inStarts;
+	private final IntBuffer inRecords;
+	private final AtomicReferenceArray<N> nodes;
+	private final AtomicReferenceArray<BidirectedEdge<N>> edges;
+
+	/**
+	 * Maps a binary graph file.
+	 *
+	 * @param file the file to map.
+	 * @param codec the codec the nodes were written with.
+	 * @throws IOException if the file could not be mapped or does not hold a
+	 *   binary graph.
+	 */
+	public MappedGraph(final File file, final NodeCodec<N> codec) throws IOException
+	{
+		if( file == null )
+			throw new IllegalArgumentException("file can not be null");
+		if( codec == null )
+			throw new IllegalArgumentException("codec can not be null");
+		this.fileName = file.getPath();
+		this.codec = codec;
+
+		final RandomAccessFile randomFile = new RandomAccessFile(file, "r");
+		try
+		{
+			final int magic = randomFile.readInt();
+			final int version = randomFile.readInt();
+			this.flags = randomFile.readInt();
+			this.nodeCount = randomFile.readInt();
+			this.edgeCount = randomFile.readInt();
+			this.hashSlots = randomFile.readInt();
+			BinaryGraphFormat.checkHeader(magic, version, this.nodeCount, this.edgeCount, this.hashSlots);
+			this.edgeRecordBytes = BinaryGraphFormat.getEdgeRecordBytes(this.isWeighted());
+
+			final long length = randomFile.length();
+			randomFile.seek(length - BinaryGraphFormat.TRAILER_BYTES);
+			final long indexPosition = randomFile.readLong();
+			final long indexBytes = 8L * (this.nodeCount + 1);
+			final long hashBytes = 4L * this.hashSlots;
+			final long rowBytes = 4L * (this.nodeCount + 1);
+			final long outBytes = (long) this.edgeRecordBytes * this.edgeCount;
+			final long inBytes = 8L * this.edgeCount;
+			final long tableBytes = indexBytes + hashBytes + rowBytes + outBytes + rowBytes + inBytes;
+			if( (indexPosition < BinaryGraphFormat.HEADER_BYTES) || (indexPosition + tableBytes + BinaryGraphFormat.TRAILER_BYTES != length) )
+				throw new IOException("corrupt binary graph file");
+			if( (indexPosition - BinaryGraphFormat.HEADER_BYTES > Integer.MAX_VALUE) || (tableBytes > Integer.MAX_VALUE) )
+				throw new IOException("binary graph file is too large to map");
+
+			final FileChannel channel = randomFile.getChannel();
+			this.nodeRecords = channel.map(FileChannel.MapMode.READ_ONLY, BinaryGraphFormat.HEADER_BYTES, indexPosition - BinaryGraphFormat.HEADER_BYTES);
+			final ByteBuffer tables = channel.map(FileChannel.MapMode.READ_ONLY, indexPosition, tableBytes);
+			int offset = 0;
+			this.recordPositions = section(tables, offset, indexBytes).asLongBuffer();
+			offset += indexBytes;
+			this.hashTable = section(tables, offset, hashBytes).asIntBuffer();
+			offset += hashBytes;
+			this.outStarts = section(tables, offset, rowBytes).asIntBuffer();
+			offset += rowBytes;
+			this.outRecords = section(tables, offset, outBytes);
+			offset += outBytes;
+			this.inStarts = section(tables, offset, rowBytes).asIntBuffer();
+			offset += rowBytes;
+			this.inRecords = section(tables, offset, inBytes).asIntBuffer();
+		}
+		finally
+		{
+			//the mappings remain valid once the file is closed
+			randomFile.close();
+		}
+
+		this.nodes = new AtomicReferenceArray<N>(this.nodeCount);
+		this.edges = new AtomicReferenceArray<BidirectedEdge<N>>(this.edgeCount);
+	}
+
+	private static ByteBuffer section(final ByteBuffer tables, final int offset, final long length)
+	{
+		final ByteBuffer section = tables.duplicate();
+		section.position(offset);
+		section.limit(offset + (int) length);
+		return section.slice();
+	}
+
+	public boolean isDirected()
+	{
+		return ((this.flags & BinaryGraphFormat.DIRECTED) != 0);
+	}
+
+	public boolean isWeighted()
+	{
+		return ((this.flags & BinaryGraphFormat.WEIGHTED) != 0);
+	}
+
+	private N getNode(final int nodeIndex)
+	{
+		final N node = this.nodes.get(nodeIndex);
+		if( node != null )
+			return node;
+
+		final ByteBuffer record = this.nodeRecords.duplicate();
+		final int start = (int) (this.recordPositions.get(nodeIndex) - BinaryGraphFormat.HEADER_BYTES);
+		record.limit(start + 4 + record.getInt(start));
+		record.position(start + 4);
+		final N decoded = this.codec.decode(record.slice());
+		//another thread may have decoded the node first
+		if( this.nodes.compareAndSet(nodeIndex, null, decoded) )
+			return decoded;
+		return this.nodes.get(nodeIndex);
+	}
+
+	/**
+	 * Encodes a node being looked up, or returns null when it is not of the
+	 * node type and so can not be in the graph.
+	 */
+	private byte[] encodeLookup(final Object node)
+	{
+		try
+		{
+			//the codec throws ClassCastException for an object of another type
+			@SuppressWarnings("unchecked")
+			final N lookup = (N) node;
+			return this.codec.encode(lookup);
+		}
+		catch(ClassCastException caught)
+		{
+			return null;
+		}
+	}
+
+	private int getNodeIndex(final Object node)
+	{
+		if( node == null )
+			return -1;
+		final byte[] encoded = this.encodeLookup(node);
+		if( encoded == null )
+			return -1;
+
+		//compare the encoded bytes so nodes with identity equality are found
+		int slot = RecordHashTable.getSlot(encoded, this.hashSlots);
+		int entry;
+		int probes = 0;
+		while( (entry = this.hashTable.get(slot)) != 0 )
+		{
+			//a valid table always has an empty slot and only holds node indexes
+			if( (++probes > this.hashSlots) || (entry < 0) || (entry > this.nodeCount) )
+				throw new IllegalStateException("corrupt binary graph file " + this.fileName + ", its node hash table is invalid");
+			final int start = (int) (this.recordPositions.get(entry - 1) - BinaryGraphFormat.HEADER_BYTES);
+			if( this.nodeRecords.getInt(start) == encoded.length )
+			{
+				int byteIndex = 0;
+				while( (byteIndex < encoded.length) && (this.nodeRecords.get(start + 4 + byteIndex) == encoded[byteIndex]) )
+					byteIndex++;
+				if( byteIndex == encoded.length )
+					return entry - 1;
+			}
+			slot = (slot + 1) & (this.hashSlots - 1);
+		}
+		return -1;
+	}
+
+	private int getSourceIndex(final int edgeId)
+	{
+		//the last node whose row starts at or before the edge
+		int low = 0;
+		int high = this.nodeCount - 1;
+		while( low < high )
+		{
+			final int middle = (low + high + 1) >>> 1;
+			if( this.outStarts.get(middle) <= edgeId )
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	private BidirectedEdge<N> getEdge(final int edgeId)
+	{
+		final BidirectedEdge<N> edge = this.edges.get(edgeId);
+		if( edge != null )
+			return edge;
+
+		final int recordStart = edgeId * this.edgeRecordBytes;
+		final N source = this.getNode(this.getSourceIndex(edgeId));
+		final N destination = this.getNode(this.outRecords.getInt(recordStart));
+		final double weight = (this.isWeighted() ? this.outRecords.getDouble(recordStart + 4) : 0.0);
+		final BidirectedEdge<N> created = BinaryGraphFormat.createEdge(source, destination, this.flags, weight);
+		//another thread may have created the edge first
+		if( this.edges.compareAndSet(edgeId, null, created) )
+			return created;
+		return this.edges.get(edgeId);
+	}
+
+	@Override
+	public Set<N> getNodes()
+	{
+		return new AbstractSet<N>()
+		{
+			@Override
+			public Iterator<N> iterator()
+			{
+				return new IndexIterator<N>(MappedGraph.this.nodeCount)
+				{
+					@Override
+					protected N get(final int index)
+					{
+						return MappedGraph.this.getNode(index);
+					}
+				};
+			}
+
+			@Override
+			public int size()
+			{
+				return MappedGraph.this.nodeCount;
+			}
+
+			@Override
+			public boolean contains(final Object node)
+			{
+				return (MappedGraph.this.getNodeIndex(node) >= 0);
+			}
+		};
+	}
+
+	@Override
+	public Set<BidirectedEdge<N>> getEdges()
+	{
+		return new AbstractSet<BidirectedEdge<N>>()
+		{
+			@Override
+			public Iterator<BidirectedEdge<N>> iterator()
+			{
+				return new IndexIterator<BidirectedEdge<N>>(MappedGraph.this.edgeCount)
+				{
+					@Override
+					protected BidirectedEdge<N> get(final int index)
+					{
+						return MappedGraph.this.getEdge(index);
+					}
+				};
+			}
+
+			@Override
+			public int size()
+			{
+				return MappedGraph.this.edgeCount;
+			}
+
+			@Override
+			public boolean contains(final Object edge)
+			{
+				if( !(edge instanceof BidirectedEdge) )
+					return false;
+				final int sourceIndex = MappedGraph.this.getNodeIndex(((BidirectedEdge) edge).getLeftNode());
+				if( sourceIndex < 0 )
+					return false;
+				for(int edgeId = MappedGraph.this.outStarts.get(sourceIndex); edgeId < MappedGraph.this.outStarts.get(sourceIndex + 1); edgeId++)
+					if( MappedGraph.this.edges.get(edgeId) == edge )
+						return true;
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Iterates over the elements of the graph by their index.
+	 */
+	private abstract static class IndexIterator<T> implements Iterator<T>
+	{
+		private final int count;
+		private int next;
+
+		IndexIterator(final int count)
+		{
+			this.count = count;
+		}
+
+		protected abstract T get(int index);
+
+		@Override
+		public boolean hasNext()
+		{
+			return (this.next < this.count);
+		}
+
+		@Override
+		public T next()
+		{
+			if( !this.hasNext() )
+				throw new NoSuchElementException();
+			return this.get(this.next++);
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException("a mapped graph can not be changed");
+		}
+	}
+
+	private void addOutEdges(final int nodeIndex, final Set<BidirectedEdge<N>> edgeSet)
+	{
+		for(int edgeId = this.outStarts.get(nodeIndex); edgeId < this.outStarts.get(nodeIndex + 1); edgeId++)
+			edgeSet.add(this.getEdge(edgeId));
+	}
+
+	private void addInEdges(final int nodeIndex, final Set<BidirectedEdge<N>> edgeSet)
+	{
+		for(int inEdge = this.inStarts.get(nodeIndex); inEdge < this.inStarts.get(nodeIndex + 1); inEdge++)
+			edgeSet.add(this.getEdge(this.inRecords.get(2 * inEdge + 1)));
+	}
+
+	@Override
+	public Set<BidirectedEdge<N>> getAdjacentEdges(final N node)
+	{
+		final int nodeIndex = this.getNodeIndex(node);
+		if( nodeIndex < 0 )
+			return Collections.<BidirectedEdge<N>>emptySet();
+		final Set<BidirectedEdge<N>> adjacentEdges = new HashSet<BidirectedEdge<N>>();
+		this.addOutEdges(nodeIndex, adjacentEdges);
+		this.addInEdges(nodeIndex, adjacentEdges);
+		return Collections.unmodifiableSet(adjacentEdges);
+	}
+
+	@Override
+	public List<N> getAdjacentNodes(final N node)
+	{
+		final int nodeIndex = this.getNodeIndex(node);
+		if( nodeIndex < 0 )
+			return Collections.<N>emptyList();
+		final List<N> adjacentNodes = new ArrayList<N>();
+		for(int edgeId = this.outStarts.get(nodeIndex); edgeId < this.outStarts.get(nodeIndex + 1); edgeId++)
+			adjacentNodes.add(this.getNode(this.outRecords.getInt(edgeId * this.edgeRecordBytes)));
+		for(int inEdge = this.inStarts.get(nodeIndex); inEdge < this.inStarts.get(nodeIndex + 1); inEdge++)
+			adjacentNodes.add(this.getNode(this.inRecords.get(2 * inEdge)));
+		return Collections.unmodifiableList(adjacentNodes);
+	}
+
+	@Override
+	public List<N> getTraversableNodes(final N node)
+	{
+		final List<N> traversableNodes = new ArrayList<N>();
+		for(final BidirectedEdge<N> adjacentEdge : this.getAdjacentEdges(node))
+			traversableNodes.addAll(adjacentEdge.getTraversableNodes(node));
+		return Collections.unmodifiableList(traversableNodes);
+	}
+
+	@Override
+	public Set<BidirectedEdge<N>> getTraversableEdges(final N node)
+	{
+		final Set<BidirectedEdge<N>> traversableEdges = new HashSet<BidirectedEdge<N>>();
+		for(final BidirectedEdge<N> adjacentEdge : this.getAdjacentEdges(node))
+			if( adjacentEdge.isTraversable(node) )
+				traversableEdges.add(adjacentEdge);
+		return Collections.unmodifiableSet(traversableEdges);
+	}
+
+	@Override
+	public Set<BidirectedEdge<N>> getInEdges(final N node)
+	{
+		if( !this.isDirected() )
+			return this.getAdjacentEdges(node);
+		final int nodeIndex = this.getNodeIndex(node);
+		if( nodeIndex < 0 )
+			return Collections.<BidirectedEdge<N>>emptySet();
+		final Set<BidirectedEdge<N>> inEdges = new HashSet<BidirectedEdge<N>>();
+		this.addInEdges(nodeIndex, inEdges);
+		return Collections.unmodifiableSet(inEdges);
+	}
+
+	/**
+	 * Elements of a mapped graph are not asked to join it.
+	 */
+	@Override
+	public boolean isContextEnabled()
+	{
+		return false;
+	}
+
+	/**
+	 * Copies this graph onto the heap.
+	 *
+	 * @return an immutable graph with the same nodes and edges.
+	 */
+	public ImmutableAdjacencyGraph<N, BidirectedEdge<N>> toGraph()
+	{
+		//the cached edges are shared by every copy, so they are not asked to
+		//join the copies and are never held on to by them
+		final GraphBuilder<N, BidirectedEdge<N>> builder = new GraphBuilder<N, BidirectedEdge<N>>(this.nodeCount, this.edgeCount);
+		builder.setContextEnabled(false);
+		builder.addNodes(this.getNodes()).addEdges(this.getEdges());
+		return builder.buildImmutable();
+	}
+
+	@Override
+	public Graph<N, BidirectedEdge<N>> cloneAdd(final BidirectedEdge<N> newEdge)
+	{
+		return this.toGraph().cloneAdd(newEdge);
+	}
+
+	@Override
+	public Graph<N, BidirectedEdge<N>> cloneAdd(final N newNode)
+	{
+		return this.toGraph().cloneAdd(newNode);
+	}
+
+	@Override
+	public Graph<N, BidirectedEdge<N>> cloneAdd(final Set<N> newNodes, final Set<BidirectedEdge<N>> newEdges)
+	{
+		return this.toGraph().cloneAdd(newNodes, newEdges);
+	}
+
+	@Override
+	public Graph<N, BidirectedEdge<N>> cloneRemove(final BidirectedEdge<N> edgeToRemove)
+	{
+		return this.toGraph().cloneRemove(edgeToRemove);
+	}
+
+	@Override
+	public Graph<N, BidirectedEdge<N>> cloneRemove(final N nodeToRemove)
+	{
+		return this.toGraph().cloneRemove(nodeToRemove);
+	}
+
+	@Override
+	public Graph<N, BidirectedEdge<N>> cloneRemove(final Set<N> deleteNodes, final Set<BidirectedEdge<N>> deleteEdges)
+	{
+		return this.toGraph().cloneRemove(deleteNodes, deleteEdges);
+	}
+
+	@Override
+	public Graph<N, BidirectedEdge<N>> clone()
+	{
+		return this.toGraph();
+	}
+
+	@Override
+	public GraphXml toXml()
+	{
+		return this.toGraph().toXml();
+	}
+
+	@Override
+	public GraphXml toXml(final Namer<Object> namer)
+	{
+		return this.toGraph().toXml(namer);
+	}
+
+	@Override
+	public void toXml(final GraphXml jaxbObject, final Namer<Object> namer)
+	{
+		this.toGraph().toXml(jaxbObject, namer);
+	}
+
+	private Object writeReplace() throws ObjectStreamException
+	{
+		return this.toGraph();
+	}
+}
@@ -0,0 +1,49 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the nodes of a graph to and from the bytes of a binary graph node
+ * record. Mapped files find nodes by their encoded bytes, so a codec must
+ * always encode a node, and any node equal to it, to the same bytes.
+ *
+ * @param <N> The node type
+ * @see NodeCodecs
+ */
+public interface NodeCodec<N>
+{
+	/**
+	 * Encodes a node.
+	 *
+	 * @param node the node to encode.
+	 * @return the bytes of the node record.
+	 */
+	byte[] encode(N node);
+
+	/**
+	 * Decodes a node from the remaining bytes of a buffer, which are exactly the
+	 * bytes returned when the node was encoded.
+	 *
+	 * @param record the node record.
+	 * @return the node.
+	 */
+	N decode(ByteBuffer record);
+}
@@ -0,0 +1,152 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import com.syncleus.dann.UnexpectedDannError;
+
+/**
+ * Node codecs for common node types.
+ */
+public final class NodeCodecs
+{
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Encodes strings as UTF-8.
+	 */
+	public static final NodeCodec<String> STRING = new NodeCodec<String>()
+	{
+		@Override
+		public byte[] encode(final String node)
+		{
+			return node.getBytes(UTF_8);
+		}
+
+		@Override
+		public String decode(final ByteBuffer record)
+		{
+			return UTF_8.decode(record).toString();
+		}
+	};
+
+	/**
+	 * Encodes integers as four bytes.
+	 */
+	public static final NodeCodec<Integer> INTEGER = new NodeCodec<Integer>()
+	{
+		@Override
+		public byte[] encode(final Integer node)
+		{
+			return ByteBuffer.allocate(4).putInt(node).array();
+		}
+
+		@Override
+		public Integer decode(final ByteBuffer record)
+		{
+			return record.getInt();
+		}
+	};
+
+	/**
+	 * Encodes longs as eight bytes.
+	 */
+	public static final NodeCodec<Long> LONG = new NodeCodec<Long>()
+	{
+		@Override
+		public byte[] encode(final Long node)
+		{
+			return ByteBuffer.allocate(8).putLong(node).array();
+		}
+
+		@Override
+		public Long decode(final ByteBuffer record)
+		{
+			return record.getLong();
+		}
+	};
+
+	/**
+	 * This is an utility class, so it may not be instantiated.
+	 */
+	private NodeCodecs()
+	{
+		throw new IllegalStateException("This is an utility class, it can not be instantiated");
+	}
+
+	/**
+	 * Gets a codec which encodes nodes with java serialization. It works for
+	 * any serializable node but is slower and larger than a dedicated codec.
+	 * Nodes are looked up by their serialized bytes, so a node type whose
+	 * serialized form depends on more than its value, such as the iteration
+	 * order of a hash set it holds, may not be found in a mapped file.
+	 */
+	public static <N extends Serializable> NodeCodec<N> serializable()
+	{
+		return new NodeCodec<N>()
+		{
+			@Override
+			public byte[] encode(final N node)
+			{
+				try
+				{
+					final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					final ObjectOutputStream out = new ObjectOutputStream(bytes);
+					out.writeObject(node);
+					out.close();
+					return bytes.toByteArray();
+				}
+				catch(IOException caught)
+				{
+					throw new UnexpectedDannError("Unexpectedly could not write to memory", caught);
+				}
+			}
+
+			@Override
+			public N decode(final ByteBuffer record)
+			{
+				final byte[] bytes = new byte[record.remaining()];
+				record.get(bytes);
+				try
+				{
+					final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+					//the record was written by encode from an N
+					@SuppressWarnings("unchecked")
+					final N node = (N) in.readObject();
+					return node;
+				}
+				catch(IOException caught)
+				{
+					throw new IllegalArgumentException("record is not a serialized node", caught);
+				}
+				catch(ClassNotFoundException caught)
+				{
+					throw new IllegalArgumentException("record is not a serialized node", caught);
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,83 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.io;
+
+import java.util.Arrays;
+
+/**
+ * The open addressing hash table binary files use to find a record by its
+ * encoded bytes. A table has a power of two slots, each holding one more than
+ * the id of the record in it or zero when empty, and is probed linearly from
+ * the slot of the record.
+ */
+public final class RecordHashTable
+{
+	/**
+	 * This is an utility class, so it may not be instantiated.
+	 */
+	private RecordHashTable()
+	{
+		throw new IllegalStateException("This is an utility class, it can not be instantiated");
+	}
+
+	/**
+	 * Gets the number of slots used for the given number of records, the
+	 * smallest power of two at least twice the record count.
+	 *
+	 * @param recordCount the number of records in the table.
+	 * @return the number of slots.
+	 */
+	public static int getHashSlots(final int recordCount)
+	{
+		int slots = 2;
+		while( slots < 2L * recordCount )
+			slots <<= 1;
+		return slots;
+	}
+
+	/**
+	 * Gets the first slot probed for an encoded record. Hashing the record
+	 * rather than the object it encodes keeps the slot the same across runs and
+	 * for types whose hashCode is based on identity, so a decoded object is
+	 * found in the slot its original was written to.
+	 *
+	 * @param record the encoded record.
+	 * @param slots the number of slots in the table.
+	 * @return the first slot to probe.
+	 */
+	public static int getSlot(final byte[] record, final int slots)
+	{
+		final int hash = Arrays.hashCode(record) * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & (slots - 1);
+	}
+
+	/**
+	 * Checks the slot count read from a file. It must be a power of two, as
+	 * probing wraps around with a mask, and at least one more than the record
+	 * count so every probe ends at an empty slot.
+	 *
+	 * @param slots the number of slots in the table.
+	 * @param recordCount the number of records in the table.
+	 * @return true if a table of this size can be probed safely.
+	 */
+	public static boolean isValidHashSlots(final int slots, final int recordCount)
+	{
+		return (slots > recordCount) && ((slots & (slots - 1)) == 0);
+	}
+}
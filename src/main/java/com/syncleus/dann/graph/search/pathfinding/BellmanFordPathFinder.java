@@ -19,24 +19,62 @@
 package com.syncleus.dann.graph.search.pathfinding;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import com.syncleus.dann.graph.DirectedEdge;
 import com.syncleus.dann.graph.Graph;
 import com.syncleus.dann.graph.Weighted;
 
+/**
+ * Finds shortest paths from a single node on graphs which may contain negative
+ * edge weights. Nodes are assigned dense indexes when the steps are calculated
+ * so relaxation works on primitive arrays instead of looking up each end point
+ * of every edge. Two strategies are available: rounds over every edge which
+ * stop as soon as a round makes no change, or a queue-driven variant (SPFA)
+ * which only relaxes edges leaving nodes whose distance has changed.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
 public class BellmanFordPathFinder<N, E extends DirectedEdge<N>> implements PathFinder<N, E>
 {
+	private static final int NO_EDGE = -1;
+
 	private final Graph<N, E> graph;
-	private Map<N, PathedStep> pathedSteps;
+	private final boolean queueBased;
+	private N calculatedBegin;
+	private Map<N, Integer> nodeIndexes;
+	private List<E> edges;
+	private int[] edgeSources;
+	private double[] distances;
+	private int[] parentEdges;
 
 	public BellmanFordPathFinder(final Graph<N, E> graph)
+	{
+		this(graph, false);
+	}
+
+	/**
+	 * Creates a path finder for the given graph.
+	 *
+	 * @param graph the graph to search.
+	 * @param queueBased true to relax edges from a queue of changed nodes, false
+	 * to relax every edge in rounds until a round makes no change.
+	 */
+	public BellmanFordPathFinder(final Graph<N, E> graph, final boolean queueBased)
 	{
 		if( graph == null )
 			throw new IllegalArgumentException("graph can not be null");
 		this.graph = graph;
+		this.queueBased = queueBased;
+	}
+
+	public boolean isQueueBased()
+	{
+		return this.queueBased;
 	}
 
 	@Override
@@ -47,168 +85,181 @@ public class BellmanFordPathFinder<N, E extends DirectedEdge<N>> implements Path
 
 	public List<E> getBestPath(final N begin, final N end, final boolean refresh)
 	{
-		if( (refresh) || (this.pathedSteps == null) )
+		if( (refresh) || (this.distances == null) || (!this.calculatedBegin.equals(begin)) )
 			this.calculateSteps(begin);
-		//construct a walk from the end node
-		final PathedStep endPathedStep = pathedSteps.get(end);
-		final PathedStep beginPathedStep = pathedSteps.get(begin);
-		assert ((endPathedStep != null) && (beginPathedStep != null));
-		return this.pathedStepToWalk(endPathedStep);
-	}
 
-	public void calculateSteps(final N begin)
-	{
-		final Set<? extends N> nodes = this.graph.getNodes();
-		final Set<? extends E> edges = this.graph.getEdges();
-		this.pathedSteps = new HashMap<N, PathedStep>(nodes.size());
-		//relax edges
-		for(int lcv = 0; lcv < (nodes.size() - 1); lcv++)
-		{
-			for(final E edge : edges)
-			{
-				if( edge.getDestinationNode() == begin )
-					continue;
-				PathedStep sourcePathedStep = pathedSteps.get(edge.getSourceNode());
-				if( sourcePathedStep == null )
-				{
-					sourcePathedStep = new PathedStep(edge.getSourceNode(), (edge.getSourceNode().equals(begin) ? 0.0 : Double.POSITIVE_INFINITY));
-					pathedSteps.put(edge.getSourceNode(), sourcePathedStep);
-				}
-				PathedStep destinationPathedStep = pathedSteps.get(edge.getDestinationNode());
-				if( destinationPathedStep == null )
-				{
-					destinationPathedStep = new PathedStep(edge.getDestinationNode(), Double.POSITIVE_INFINITY);
-					pathedSteps.put(edge.getDestinationNode(), destinationPathedStep);
-				}
-				destinationPathedStep.updateParent(sourcePathedStep, edge);
-			}
-		}
-		//check for negative cycles
-		for(final E edge : edges)
+		final Integer endIndex = this.nodeIndexes.get(end);
+		if( endIndex == null )
+			throw new IllegalArgumentException("end is not a node in the graph");
+		if( (this.parentEdges[endIndex] == NO_EDGE) && (!end.equals(this.calculatedBegin)) )
+			return null;
+
+		//construct a walk from the end node
+		final List<E> path = new ArrayList<E>();
+		int currentIndex = endIndex;
+		while( this.parentEdges[currentIndex] != NO_EDGE )
 		{
-			if( edge.getDestinationNode() == begin )
-				continue;
-			final PathedStep sourcePathedStep = pathedSteps.get(edge.getSourceNode());
-			final PathedStep destinationPathedStep = pathedSteps.get(edge.getDestinationNode());
-			assert ((sourcePathedStep != null) && (destinationPathedStep != null));
-			if( destinationPathedStep.updateParent(sourcePathedStep, edge) )
-				throw new NegativeWeightCycleException("negative-weight cycle found in graph");
+			path.add(this.edges.get(this.parentEdges[currentIndex]));
+			currentIndex = this.edgeSources[this.parentEdges[currentIndex]];
 		}
+		Collections.reverse(path);
+		return path;
 	}
 
-	@Override
-	public boolean isReachable(final N begin, final N end)
+	/**
+	 * Gets the weight of the best path to the specified node as of the last
+	 * calculation.
+	 *
+	 * @param end the node the path ends at.
+	 * @return the weight of the best path, positive infinity if end can not be
+	 *         reached.
+	 */
+	public double getPathWeight(final N end)
 	{
-		return (this.getBestPath(begin, end) != null);
+		if( this.distances == null )
+			throw new IllegalStateException("steps have not been calculated");
+		final Integer endIndex = this.nodeIndexes.get(end);
+		if( endIndex == null )
+			throw new IllegalArgumentException("end is not a node in the graph");
+		return this.distances[endIndex];
 	}
 
-	@Override
-	public boolean isConnected(final N begin, final N end)
+	public void calculateSteps(final N begin)
 	{
-		return (this.getBestPath(begin, end) != null);
-	}
+		final Map<N, Integer> indexes = new HashMap<N, Integer>(this.graph.getNodes().size() * 2);
+		for(final N node : this.graph.getNodes())
+			indexes.put(node, indexes.size());
+		final Integer beginIndex = indexes.get(begin);
+		if( beginIndex == null )
+			throw new IllegalArgumentException("begin is not a node in the graph");
+		final int nodeCount = indexes.size();
 
-	private List<E> pathedStepToWalk(final PathedStep endPathedStep)
-	{
-		final List<E> edges = new ArrayList<E>();
-		PathedStep currentStep = endPathedStep;
-		while( currentStep != null )
+		final List<E> allEdges = new ArrayList<E>(this.graph.getEdges());
+		final int[] sources = new int[allEdges.size()];
+		final int[] destinations = new int[allEdges.size()];
+		final double[] costs = new double[allEdges.size()];
+		for(int edgeIndex = 0; edgeIndex < allEdges.size(); edgeIndex++)
 		{
-			if( currentStep.getParentEdge() != null )
-				edges.add(0, currentStep.getParentEdge());
-			currentStep = currentStep.getParent();
+			final E edge = allEdges.get(edgeIndex);
+			sources[edgeIndex] = indexes.get(edge.getSourceNode());
+			destinations[edgeIndex] = indexes.get(edge.getDestinationNode());
+			costs[edgeIndex] = (edge instanceof Weighted ? ((Weighted) edge).getWeight() : 1.0);
+			if( edge.getDestinationNode() instanceof Weighted )
+				costs[edgeIndex] += ((Weighted) edge.getDestinationNode()).getWeight();
 		}
-		return edges;
-	}
 
-	private final class PathedStep implements Comparable<PathedStep>
-	{
-		private final N node;
-		private PathedStep parent;
-		private E parentEdge;
-		private double cachedPathWeight;
+		final double[] newDistances = new double[nodeCount];
+		final int[] newParentEdges = new int[nodeCount];
+		Arrays.fill(newDistances, Double.POSITIVE_INFINITY);
+		Arrays.fill(newParentEdges, NO_EDGE);
+		newDistances[beginIndex] = 0.0;
 
-		public PathedStep(final N node, final double initialWeight)
-		{
-			if( node == null )
-				throw new IllegalArgumentException("node can not be null");
-
-			this.node = node;
-			this.cachedPathWeight = initialWeight;
-		}
+		if( this.queueBased )
+			relaxQueued(beginIndex, sources, destinations, costs, newDistances, newParentEdges);
+		else
+			relaxRounds(beginIndex, sources, destinations, costs, newDistances, newParentEdges);
 
-		private boolean updateParent(final PathedStep newParent, final E newParentEdge)
-		{
-			double newWeight = (newParentEdge instanceof Weighted ? ((Weighted) newParentEdge).getWeight() : 1.0);
-			if( this.node instanceof Weighted )
-				newWeight += ((Weighted) this.node).getWeight();
-			if( (this.parent == null) || (newParent.cachedPathWeight + newWeight < this.cachedPathWeight) )
-			{
-				this.parent = newParent;
-				this.parentEdge = newParentEdge;
-				this.cachedPathWeight = newParent.cachedPathWeight + newWeight;
-				return true;
-			}
-			else
-				return false;
-		}
-
-		public N getNode()
-		{
-			return this.node;
-		}
+		this.calculatedBegin = begin;
+		this.nodeIndexes = indexes;
+		this.edges = allEdges;
+		this.edgeSources = sources;
+		this.distances = newDistances;
+		this.parentEdges = newParentEdges;
+	}
 
-		public PathedStep getParent()
+	private static boolean relax(final int edgeIndex, final int beginIndex, final int[] sources, final int[] destinations, final double[] costs, final double[] distances, final int[] parentEdges)
+	{
+		final int destination = destinations[edgeIndex];
+		if( destination == beginIndex )
+			return false;
+		final double candidate = distances[sources[edgeIndex]] + costs[edgeIndex];
+		if( candidate < distances[destination] )
 		{
-			return this.parent;
+			distances[destination] = candidate;
+			parentEdges[destination] = edgeIndex;
+			return true;
 		}
+		return false;
+	}
 
-		public double getCachedPathWeight()
+	private static void relaxRounds(final int beginIndex, final int[] sources, final int[] destinations, final double[] costs, final double[] distances, final int[] parentEdges)
+	{
+		//a round without a change means every distance has converged
+		for(int round = 0; round < (distances.length - 1); round++)
 		{
-			return this.cachedPathWeight;
+			boolean changed = false;
+			for(int edgeIndex = 0; edgeIndex < sources.length; edgeIndex++)
+				if( relax(edgeIndex, beginIndex, sources, destinations, costs, distances, parentEdges) )
+					changed = true;
+			if( !changed )
+				return;
 		}
 
-		@Override
-		public boolean equals(final Object compareToObj)
-		{
-			if( compareToObj == null )
-				return false;
-
-			if( !(compareToObj.getClass().isInstance(this)) )
-				return false;
+		//check for negative cycles
+		for(int edgeIndex = 0; edgeIndex < sources.length; edgeIndex++)
+			if( relax(edgeIndex, beginIndex, sources, destinations, costs, distances, parentEdges) )
+				throw new NegativeWeightCycleException("negative-weight cycle found in graph");
+	}
 
-			final PathedStep compareTo = (PathedStep) compareToObj;
-			return ((this.node.equals(compareTo)) || (this.node.equals(compareTo.node)));
-		}
+	private static void relaxQueued(final int beginIndex, final int[] sources, final int[] destinations, final double[] costs, final double[] distances, final int[] parentEdges)
+	{
+		final int nodeCount = distances.length;
 
-		@Override
-		public int hashCode()
-		{
-			return this.node.hashCode();
-		}
+		//lay the edges out contiguously by source node
+		final int[] outStarts = new int[nodeCount + 1];
+		for(final int source : sources)
+			outStarts[source + 1]++;
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			outStarts[nodeIndex + 1] += outStarts[nodeIndex];
+		final int[] outEdges = new int[sources.length];
+		final int[] fill = Arrays.copyOf(outStarts, nodeCount);
+		for(int edgeIndex = 0; edgeIndex < sources.length; edgeIndex++)
+			outEdges[fill[sources[edgeIndex]]++] = edgeIndex;
 
-		@Override
-		public int compareTo(final PathedStep compareWith)
+		//a node is never queued twice so a ring of nodeCount slots is enough
+		final int[] queue = new int[nodeCount];
+		final boolean[] queued = new boolean[nodeCount];
+		final int[] pathLengths = new int[nodeCount];
+		int head = 0;
+		int size = 1;
+		queue[0] = beginIndex;
+		queued[beginIndex] = true;
+		while( size > 0 )
 		{
-			//the natural ordering is inverse cause the smallest path weight is
-			//the best weight.
-			if( this.cachedPathWeight < compareWith.cachedPathWeight )
-				return -1;
-			else if( this.cachedPathWeight > compareWith.cachedPathWeight )
-				return 1;
-			else
-				return 0;
+			final int current = queue[head];
+			head = (head + 1) % nodeCount;
+			size--;
+			queued[current] = false;
+			for(int outIndex = outStarts[current]; outIndex < outStarts[current + 1]; outIndex++)
+			{
+				final int edgeIndex = outEdges[outIndex];
+				if( relax(edgeIndex, beginIndex, sources, destinations, costs, distances, parentEdges) )
+				{
+					final int destination = destinations[edgeIndex];
+					//a shortest path never needs more edges than there are nodes
+					pathLengths[destination] = pathLengths[current] + 1;
+					if( pathLengths[destination] >= nodeCount )
+						throw new NegativeWeightCycleException("negative-weight cycle found in graph");
+					if( !queued[destination] )
+					{
+						queue[(head + size) % nodeCount] = destination;
+						queued[destination] = true;
+						size++;
+					}
+				}
+			}
 		}
+	}
 
-		public E getParentEdge()
-		{
-			return this.parentEdge;
-		}
+	@Override
+	public boolean isReachable(final N begin, final N end)
+	{
+		return (this.getBestPath(begin, end) != null);
+	}
 
-		@Override
-		public String toString()
-		{
-			return this.node.toString();
-		}
+	@Override
+	public boolean isConnected(final N begin, final N end)
+	{
+		return (this.getBestPath(begin, end) != null);
 	}
 }
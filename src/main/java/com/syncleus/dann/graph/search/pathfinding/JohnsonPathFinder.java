@@ -18,14 +18,26 @@
  ******************************************************************************/
 package com.syncleus.dann.graph.search.pathfinding;
 
+import com.syncleus.dann.UnexpectedDannError;
 import com.syncleus.dann.graph.BidirectedGraph;
+import com.syncleus.dann.graph.Weighted;
 import com.syncleus.dann.graph.WeightedDirectedEdge;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class JohnsonPathFinder<N, E extends WeightedDirectedEdge<N>> implements PathFinder<N, WeightedDirectedEdge<N>>
 {
 	private final BidirectedGraph<N, E> graph;
 	private final JohnsonGraphTransformer<N> transformer = new JohnsonGraphTransformer<N>();
+	private ShortestPathMatrix<N, E> allPairs;
 
 	public JohnsonPathFinder(final BidirectedGraph<N, E> graph)
 	{
@@ -37,6 +49,14 @@ public class JohnsonPathFinder<N, E extends WeightedDirectedEdge<N>> implements
 	@Override
 	public List<WeightedDirectedEdge<N>> getBestPath(final N begin, final N end)
 	{
+		if( (this.allPairs != null) && this.allPairs.contains(begin) && this.allPairs.contains(end) )
+		{
+			final List<E> path = this.allPairs.getPath(begin, end);
+			if( path == null )
+				return null;
+			return Collections.<WeightedDirectedEdge<N>>unmodifiableList(path);
+		}
+
 		final BidirectedGraph<N, WeightedDirectedEdge<N>> johnsonGraph = transformer.transform(this.graph);
 		final DijkstraPathFinder<N, WeightedDirectedEdge<N>> pathFinder = new DijkstraPathFinder<N, WeightedDirectedEdge<N>>(johnsonGraph);
 		final List<WeightedDirectedEdge<N>> pathWalk = pathFinder.getBestPath(begin, end);
@@ -56,4 +76,296 @@ public class JohnsonPathFinder<N, E extends WeightedDirectedEdge<N>> implements
 	{
 		return (this.getBestPath(begin, end) != null);
 	}
+
+	/**
+	 * Gets the all-pairs table calculated by the last call to calculateAllPairs.
+	 *
+	 * @return the all-pairs table, null if it has not been calculated.
+	 */
+	public ShortestPathMatrix<N, E> getAllPairs()
+	{
+		return this.allPairs;
+	}
+
+	/**
+	 * Calculates the shortest paths between every pair of nodes using all
+	 * available processors. Once calculated getBestPath answers from the table
+	 * rather than searching the graph, so the table should be recalculated if
+	 * the graph changes.
+	 *
+	 * @return the calculated all-pairs table.
+	 * @throws NegativeWeightCycleException if the graph has a negative-weight
+	 * cycle.
+	 */
+	public ShortestPathMatrix<N, E> calculateAllPairs()
+	{
+		final ForkJoinPool pool = new ForkJoinPool();
+		try
+		{
+			return this.calculateAllPairs(pool);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Calculates the shortest paths between every pair of nodes, holding the
+	 * table on the heap.
+	 *
+	 * @param pool the pool the single-source searches are run on.
+	 * @return the calculated all-pairs table.
+	 * @throws NegativeWeightCycleException if the graph has a negative-weight
+	 * cycle.
+	 */
+	public ShortestPathMatrix<N, E> calculateAllPairs(final ForkJoinPool pool)
+	{
+		try
+		{
+			return this.calculateAllPairs(pool, null);
+		}
+		catch(IOException caught)
+		{
+			throw new UnexpectedDannError("heap backed table should never throw an IOException", caught);
+		}
+	}
+
+	/**
+	 * Calculates the shortest paths between every pair of nodes. The graph is
+	 * reweighted once with Bellman-Ford potentials so all edges are
+	 * non-negative, then a Dijkstra search is run from every node in parallel
+	 * and each search stores its own row of the table.
+	 *
+	 * @param pool the pool the single-source searches are run on.
+	 * @param backingFile the file the table is memory-mapped to, null to hold the
+	 * table on the heap.
+	 * @return the calculated all-pairs table.
+	 * @throws IOException if the backing file can not be mapped.
+	 * @throws NegativeWeightCycleException if the graph has a negative-weight
+	 * cycle.
+	 */
+	public ShortestPathMatrix<N, E> calculateAllPairs(final ForkJoinPool pool, final File backingFile) throws IOException
+	{
+		if( pool == null )
+			throw new IllegalArgumentException("pool can not be null");
+
+		final Map<N, Integer> nodeIndexes = new HashMap<N, Integer>(this.graph.getNodes().size() * 2);
+		for(final N node : this.graph.getNodes())
+			nodeIndexes.put(node, nodeIndexes.size());
+		final int nodeCount = nodeIndexes.size();
+
+		final List<E> edges = new ArrayList<E>(this.graph.getEdges());
+		final int[] edgeSources = new int[edges.size()];
+		final int[] edgeDestinations = new int[edges.size()];
+		final double[] edgeCosts = new double[edges.size()];
+		final int[] outStarts = new int[nodeCount + 1];
+		for(int edgeIndex = 0; edgeIndex < edges.size(); edgeIndex++)
+		{
+			final E edge = edges.get(edgeIndex);
+			if( Double.isInfinite(edge.getWeight()) )
+				throw new IllegalArgumentException("graph can not contain infinite weights");
+			edgeSources[edgeIndex] = nodeIndexes.get(edge.getSourceNode());
+			edgeDestinations[edgeIndex] = nodeIndexes.get(edge.getDestinationNode());
+			edgeCosts[edgeIndex] = edge.getWeight();
+			if( edge.getDestinationNode() instanceof Weighted )
+				edgeCosts[edgeIndex] += ((Weighted) edge.getDestinationNode()).getWeight();
+			outStarts[edgeSources[edgeIndex] + 1]++;
+		}
+
+		//lay the edges out contiguously by source node
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			outStarts[nodeIndex + 1] += outStarts[nodeIndex];
+		final int[] outEdges = new int[edges.size()];
+		final int[] fill = Arrays.copyOf(outStarts, nodeCount);
+		for(int edgeIndex = 0; edgeIndex < edges.size(); edgeIndex++)
+			outEdges[fill[edgeSources[edgeIndex]]++] = edgeIndex;
+
+		final double[] potentials = calculatePotentials(nodeCount, edgeSources, edgeDestinations, edgeCosts);
+
+		final ShortestPathMatrix<N, E> matrix = new ShortestPathMatrix<N, E>(nodeIndexes, edges, edgeSources, backingFile);
+		final int grain = Math.max(1, nodeCount / (pool.getParallelism() * 8));
+		pool.invoke(new AllPairsTask(matrix, outStarts, outEdges, edgeDestinations, edgeCosts, potentials, 0, nodeCount, grain));
+
+		this.allPairs = matrix;
+		return matrix;
+	}
+
+	/**
+	 * Bellman-Ford from a virtual node joined to every node by a zero weight edge.
+	 * The resulting distances are potentials which make every reweighted edge
+	 * non-negative.
+	 */
+	private static double[] calculatePotentials(final int nodeCount, final int[] edgeSources, final int[] edgeDestinations, final double[] edgeCosts)
+	{
+		final double[] potentials = new double[nodeCount];
+		//the virtual node adds one to the node count so convergence takes at most
+		//nodeCount rounds, a change in the round after that means a negative cycle
+		for(int round = 0; round <= nodeCount; round++)
+		{
+			boolean changed = false;
+			for(int edgeIndex = 0; edgeIndex < edgeSources.length; edgeIndex++)
+			{
+				final double candidate = potentials[edgeSources[edgeIndex]] + edgeCosts[edgeIndex];
+				if( candidate < potentials[edgeDestinations[edgeIndex]] )
+				{
+					potentials[edgeDestinations[edgeIndex]] = candidate;
+					changed = true;
+				}
+			}
+			if( !changed )
+				return potentials;
+		}
+		throw new NegativeWeightCycleException("negative-weight cycle found in graph");
+	}
+
+	private static final class AllPairsTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 5129640271896519325L;
+		private final ShortestPathMatrix<?, ?> matrix;
+		private final int[] outStarts;
+		private final int[] outEdges;
+		private final int[] edgeDestinations;
+		private final double[] edgeCosts;
+		private final double[] potentials;
+		private final int fromSource;
+		private final int toSource;
+		private final int grain;
+
+		private AllPairsTask(final ShortestPathMatrix<?, ?> matrix, final int[] outStarts, final int[] outEdges, final int[] edgeDestinations, final double[] edgeCosts, final double[] potentials, final int fromSource, final int toSource, final int grain)
+		{
+			this.matrix = matrix;
+			this.outStarts = outStarts;
+			this.outEdges = outEdges;
+			this.edgeDestinations = edgeDestinations;
+			this.edgeCosts = edgeCosts;
+			this.potentials = potentials;
+			this.fromSource = fromSource;
+			this.toSource = toSource;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if( (this.toSource - this.fromSource) > this.grain )
+			{
+				final int middle = (this.fromSource + this.toSource) >>> 1;
+				invokeAll(new AllPairsTask(this.matrix, this.outStarts, this.outEdges, this.edgeDestinations, this.edgeCosts, this.potentials, this.fromSource, middle, this.grain),
+						new AllPairsTask(this.matrix, this.outStarts, this.outEdges, this.edgeDestinations, this.edgeCosts, this.potentials, middle, this.toSource, this.grain));
+				return;
+			}
+
+			//scratch space is reused for every source handled by this task
+			final int nodeCount = this.potentials.length;
+			final double[] distances = new double[nodeCount];
+			final int[] parentEdges = new int[nodeCount];
+			final boolean[] settled = new boolean[nodeCount];
+			final MinHeap heap = new MinHeap(nodeCount);
+			for(int source = this.fromSource; source < this.toSource; source++)
+			{
+				Arrays.fill(distances, Double.POSITIVE_INFINITY);
+				Arrays.fill(parentEdges, ShortestPathMatrix.NO_EDGE);
+				Arrays.fill(settled, false);
+				distances[source] = 0.0;
+				heap.push(0.0, source);
+				while( !heap.isEmpty() )
+				{
+					final int current = heap.popNode();
+					if( settled[current] )
+						continue;
+					settled[current] = true;
+					for(int outIndex = this.outStarts[current]; outIndex < this.outStarts[current + 1]; outIndex++)
+					{
+						final int edgeIndex = this.outEdges[outIndex];
+						final int neighbor = this.edgeDestinations[edgeIndex];
+						if( settled[neighbor] )
+							continue;
+						//rounding can leave a reweighted edge slightly negative
+						final double reweighted = Math.max(0.0, this.edgeCosts[edgeIndex] + this.potentials[current] - this.potentials[neighbor]);
+						final double candidate = distances[current] + reweighted;
+						if( candidate < distances[neighbor] )
+						{
+							distances[neighbor] = candidate;
+							parentEdges[neighbor] = edgeIndex;
+							heap.push(candidate, neighbor);
+						}
+					}
+				}
+
+				//undo the reweighting so the table holds the original path weights
+				for(int destination = 0; destination < nodeCount; destination++)
+					if( !Double.isInfinite(distances[destination]) )
+						distances[destination] += this.potentials[destination] - this.potentials[source];
+				this.matrix.setRow(source, distances, parentEdges);
+			}
+		}
+	}
+
+	/**
+	 * A binary heap of node indexes keyed by distance. Decreasing a key pushes a
+	 * new entry and the stale entry is skipped once its node has been settled.
+	 */
+	private static final class MinHeap
+	{
+		private double[] keys;
+		private int[] nodes;
+		private int size;
+
+		private MinHeap(final int initialCapacity)
+		{
+			this.keys = new double[Math.max(1, initialCapacity)];
+			this.nodes = new int[Math.max(1, initialCapacity)];
+		}
+
+		private boolean isEmpty()
+		{
+			return (this.size == 0);
+		}
+
+		private void push(final double key, final int node)
+		{
+			if( this.size == this.keys.length )
+			{
+				this.keys = Arrays.copyOf(this.keys, this.size * 2);
+				this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+			}
+			int child = this.size++;
+			while( child > 0 )
+			{
+				final int parent = (child - 1) >>> 1;
+				if( this.keys[parent] <= key )
+					break;
+				this.keys[child] = this.keys[parent];
+				this.nodes[child] = this.nodes[parent];
+				child = parent;
+			}
+			this.keys[child] = key;
+			this.nodes[child] = node;
+		}
+
+		private int popNode()
+		{
+			final int top = this.nodes[0];
+			final double lastKey = this.keys[--this.size];
+			final int lastNode = this.nodes[this.size];
+			int parent = 0;
+			while( true )
+			{
+				int child = (parent * 2) + 1;
+				if( child >= this.size )
+					break;
+				if( ((child + 1) < this.size) && (this.keys[child + 1] < this.keys[child]) )
+					child++;
+				if( lastKey <= this.keys[child] )
+					break;
+				this.keys[parent] = this.keys[child];
+				this.nodes[parent] = this.nodes[child];
+				parent = child;
+			}
+			this.keys[parent] = lastKey;
+			this.nodes[parent] = lastNode;
+			return top;
+		}
+	}
 }
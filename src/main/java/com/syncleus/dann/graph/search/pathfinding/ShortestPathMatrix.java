@@ -0,0 +1,198 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.search.pathfinding;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import com.syncleus.dann.graph.WeightedDirectedEdge;
+
+/**
+ * A dense all-pairs table of shortest path weights along with the last edge of
+ * each shortest path. Rows are indexed by source node and columns by
+ * destination node, so a path can be rebuilt by walking the parent edges back
+ * from the destination in time proportional to the length of the path. The
+ * table is either held on the heap or backed by a memory-mapped file, in which
+ * case it is split into blocks of rows so graphs whose table exceeds 2 GB can
+ * still be mapped.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
+public final class ShortestPathMatrix<N, E extends WeightedDirectedEdge<N>>
+{
+	private static final int DOUBLE_BYTES = 8;
+	private static final int INT_BYTES = 4;
+	private static final long MAX_BLOCK_BYTES = 1L << 30;
+	static final int NO_EDGE = -1;
+
+	private final Map<N, Integer> nodeIndexes;
+	private final List<E> edges;
+	private final int[] edgeSources;
+	private final int nodeCount;
+	private final int rowsPerBlock;
+	private final DoubleBuffer[] weightBlocks;
+	private final IntBuffer[] parentBlocks;
+
+	ShortestPathMatrix(final Map<N, Integer> nodeIndexes, final List<E> edges, final int[] edgeSources, final File backingFile) throws IOException
+	{
+		this.nodeIndexes = nodeIndexes;
+		this.edges = edges;
+		this.edgeSources = edgeSources;
+		this.nodeCount = nodeIndexes.size();
+
+		final long rowBytes = Math.max(1L, (long) this.nodeCount * (DOUBLE_BYTES + INT_BYTES));
+		this.rowsPerBlock = (int) Math.max(1L, Math.min(Math.max(1, this.nodeCount), MAX_BLOCK_BYTES / rowBytes));
+		final int blockCount = (this.nodeCount + this.rowsPerBlock - 1) / this.rowsPerBlock;
+		this.weightBlocks = new DoubleBuffer[blockCount];
+		this.parentBlocks = new IntBuffer[blockCount];
+
+		if( backingFile == null )
+		{
+			for(int blockIndex = 0; blockIndex < blockCount; blockIndex++)
+			{
+				final int cells = this.blockRows(blockIndex) * this.nodeCount;
+				this.weightBlocks[blockIndex] = DoubleBuffer.allocate(cells);
+				this.parentBlocks[blockIndex] = IntBuffer.allocate(cells);
+			}
+		}
+		else
+		{
+			final RandomAccessFile file = new RandomAccessFile(backingFile, "rw");
+			try
+			{
+				final FileChannel channel = file.getChannel();
+				long offset = 0L;
+				for(int blockIndex = 0; blockIndex < blockCount; blockIndex++)
+				{
+					final long cells = (long) this.blockRows(blockIndex) * this.nodeCount;
+					final ByteBuffer weightBytes = channel.map(FileChannel.MapMode.READ_WRITE, offset, cells * DOUBLE_BYTES);
+					offset += cells * DOUBLE_BYTES;
+					final ByteBuffer parentBytes = channel.map(FileChannel.MapMode.READ_WRITE, offset, cells * INT_BYTES);
+					offset += cells * INT_BYTES;
+					this.weightBlocks[blockIndex] = weightBytes.asDoubleBuffer();
+					this.parentBlocks[blockIndex] = parentBytes.asIntBuffer();
+				}
+			}
+			finally
+			{
+				//the mappings remain valid once the file is closed
+				file.close();
+			}
+		}
+	}
+
+	private int blockRows(final int blockIndex)
+	{
+		return Math.min(this.rowsPerBlock, this.nodeCount - (blockIndex * this.rowsPerBlock));
+	}
+
+	private int cellIndex(final int sourceIndex, final int destinationIndex)
+	{
+		return ((sourceIndex % this.rowsPerBlock) * this.nodeCount) + destinationIndex;
+	}
+
+	/**
+	 * Stores a complete row of the table. Rows are disjoint regions of the
+	 * underlying buffers so separate threads may store separate rows at the same
+	 * time.
+	 */
+	void setRow(final int sourceIndex, final double[] weights, final int[] parentEdges)
+	{
+		final DoubleBuffer weightBlock = this.weightBlocks[sourceIndex / this.rowsPerBlock];
+		final IntBuffer parentBlock = this.parentBlocks[sourceIndex / this.rowsPerBlock];
+		final int rowStart = this.cellIndex(sourceIndex, 0);
+		for(int destinationIndex = 0; destinationIndex < this.nodeCount; destinationIndex++)
+		{
+			weightBlock.put(rowStart + destinationIndex, weights[destinationIndex]);
+			parentBlock.put(rowStart + destinationIndex, parentEdges[destinationIndex]);
+		}
+	}
+
+	private int getIndex(final N node, final String name)
+	{
+		final Integer index = this.nodeIndexes.get(node);
+		if( index == null )
+			throw new IllegalArgumentException(name + " is not a node in the graph");
+		return index;
+	}
+
+	public int getNodeCount()
+	{
+		return this.nodeCount;
+	}
+
+	public boolean contains(final N node)
+	{
+		return this.nodeIndexes.containsKey(node);
+	}
+
+	/**
+	 * Gets the weight of the shortest path between two nodes.
+	 *
+	 * @param begin the node the path starts at.
+	 * @param end the node the path ends at.
+	 * @return the weight of the shortest path, positive infinity if end can not
+	 *         be reached from begin.
+	 */
+	public double getPathWeight(final N begin, final N end)
+	{
+		final int sourceIndex = this.getIndex(begin, "begin");
+		final int destinationIndex = this.getIndex(end, "end");
+		return this.weightBlocks[sourceIndex / this.rowsPerBlock].get(this.cellIndex(sourceIndex, destinationIndex));
+	}
+
+	/**
+	 * Rebuilds the shortest path between two nodes from the stored parent edges.
+	 *
+	 * @param begin the node the path starts at.
+	 * @param end the node the path ends at.
+	 * @return the edges of the shortest path in order, null if end can not be
+	 *         reached from begin.
+	 */
+	public List<E> getPath(final N begin, final N end)
+	{
+		final int sourceIndex = this.getIndex(begin, "begin");
+		final int destinationIndex = this.getIndex(end, "end");
+		if( sourceIndex == destinationIndex )
+			return Collections.<E>emptyList();
+
+		final IntBuffer parentBlock = this.parentBlocks[sourceIndex / this.rowsPerBlock];
+		final List<E> path = new ArrayList<E>();
+		int currentIndex = destinationIndex;
+		while( currentIndex != sourceIndex )
+		{
+			final int edgeIndex = parentBlock.get(this.cellIndex(sourceIndex, currentIndex));
+			if( edgeIndex == NO_EDGE )
+				return null;
+			path.add(this.edges.get(edgeIndex));
+			currentIndex = this.edgeSources[edgeIndex];
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
@@ -0,0 +1,168 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological;
+
+import java.util.Arrays;
+
+/**
+ * A flow network with integer arc capacities used to compute connectivity. The
+ * maximum flow is found with Dinic's algorithm: a breadth first search builds a
+ * level graph and blocking flows are pushed along it using an explicit stack,
+ * so long paths can not overflow the thread's stack. Arcs are stored in pairs
+ * with the residual arc at the adjacent index, so the reverse of arc a is a^1.
+ * The network can be reset to its original capacities and reused for several
+ * source and sink pairs.
+ */
+final class FlowNetwork
+{
+	private final int nodeCount;
+	private final int[] firstArcs;
+	private int[] arcTargets;
+	private int[] arcNexts;
+	private int[] capacities;
+	private int[] residuals;
+	private int arcCount;
+	private final int[] levels;
+	private final int[] currentArcs;
+	private final int[] queue;
+	private final int[] pathArcs;
+
+	FlowNetwork(final int nodeCount, final int expectedArcs)
+	{
+		this.nodeCount = nodeCount;
+		this.firstArcs = new int[nodeCount];
+		Arrays.fill(this.firstArcs, -1);
+		final int initialArcs = Math.max(16, expectedArcs * 2);
+		this.arcTargets = new int[initialArcs];
+		this.arcNexts = new int[initialArcs];
+		this.capacities = new int[initialArcs];
+		this.levels = new int[nodeCount];
+		this.currentArcs = new int[nodeCount];
+		this.queue = new int[nodeCount];
+		this.pathArcs = new int[nodeCount];
+	}
+
+	void addArc(final int from, final int to, final int capacity)
+	{
+		if( this.arcCount + 2 > this.arcTargets.length )
+		{
+			final int grownLength = this.arcTargets.length * 2;
+			this.arcTargets = Arrays.copyOf(this.arcTargets, grownLength);
+			this.arcNexts = Arrays.copyOf(this.arcNexts, grownLength);
+			this.capacities = Arrays.copyOf(this.capacities, grownLength);
+		}
+		this.insertArc(from, to, capacity);
+		this.insertArc(to, from, 0);
+		this.residuals = null;
+	}
+
+	private void insertArc(final int from, final int to, final int capacity)
+	{
+		this.arcTargets[this.arcCount] = to;
+		this.capacities[this.arcCount] = capacity;
+		this.arcNexts[this.arcCount] = this.firstArcs[from];
+		this.firstArcs[from] = this.arcCount;
+		this.arcCount++;
+	}
+
+	/**
+	 * Calculates the maximum flow from source to sink, starting from the
+	 * original capacities of the network.
+	 *
+	 * @param limit the search stops as soon as this much flow has been found.
+	 * @return the maximum flow, or limit if the maximum flow is at least limit.
+	 */
+	int getMaximumFlow(final int source, final int sink, final int limit)
+	{
+		if( (this.residuals == null) || (this.residuals.length != this.arcCount) )
+			this.residuals = new int[this.arcCount];
+		System.arraycopy(this.capacities, 0, this.residuals, 0, this.arcCount);
+
+		int totalFlow = 0;
+		while( (totalFlow < limit) && this.buildLevels(source, sink) )
+		{
+			System.arraycopy(this.firstArcs, 0, this.currentArcs, 0, this.nodeCount);
+			int pathLength = 0;
+			int node = source;
+			while( totalFlow < limit )
+			{
+				if( node == sink )
+				{
+					int pathFlow = limit - totalFlow;
+					for(int pathIndex = 0; pathIndex < pathLength; pathIndex++)
+						pathFlow = Math.min(pathFlow, this.residuals[this.pathArcs[pathIndex]]);
+					for(int pathIndex = 0; pathIndex < pathLength; pathIndex++)
+					{
+						this.residuals[this.pathArcs[pathIndex]] -= pathFlow;
+						this.residuals[this.pathArcs[pathIndex] ^ 1] += pathFlow;
+					}
+					totalFlow += pathFlow;
+					pathLength = 0;
+					node = source;
+					continue;
+				}
+
+				int arc = this.currentArcs[node];
+				while( (arc >= 0) && ((this.residuals[arc] <= 0) || (this.levels[this.arcTargets[arc]] != this.levels[node] + 1)) )
+					arc = this.arcNexts[arc];
+				this.currentArcs[node] = arc;
+
+				if( arc >= 0 )
+				{
+					this.pathArcs[pathLength++] = arc;
+					node = this.arcTargets[arc];
+				}
+				else
+				{
+					//dead end, remove the node from the level graph and back up
+					if( node == source )
+						break;
+					this.levels[node] = -1;
+					final int previousArc = this.pathArcs[--pathLength];
+					node = this.arcTargets[previousArc ^ 1];
+					this.currentArcs[node] = this.arcNexts[previousArc];
+				}
+			}
+		}
+		return totalFlow;
+	}
+
+	private boolean buildLevels(final int source, final int sink)
+	{
+		Arrays.fill(this.levels, -1);
+		this.levels[source] = 0;
+		this.queue[0] = source;
+		int queueHead = 0;
+		int queueTail = 1;
+		while( queueHead < queueTail )
+		{
+			final int node = this.queue[queueHead++];
+			for(int arc = this.firstArcs[node]; arc >= 0; arc = this.arcNexts[arc])
+			{
+				final int target = this.arcTargets[arc];
+				if( (this.residuals[arc] > 0) && (this.levels[target] < 0) )
+				{
+					this.levels[target] = this.levels[node] + 1;
+					this.queue[queueTail++] = target;
+				}
+			}
+		}
+		return ( this.levels[sink] >= 0 );
+	}
+}
@@ -0,0 +1,646 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import com.syncleus.dann.graph.Edge;
+import com.syncleus.dann.graph.Graph;
+
+/**
+ * Finds structural mappings from the nodes of a pattern graph onto the nodes
+ * of a target graph in the manner of the VF2 and VF3 algorithms. Nodes do not
+ * need to be shared between the graphs, only the way they are connected is
+ * compared. Every way an edge can be traversed counts as an arc, so directed,
+ * undirected, parallel and looped edges are all respected.
+ *
+ * <p>The pattern nodes are matched in a fixed order, each node after the first
+ * of its component being connected to one already matched so that its
+ * candidates are only the neighbors of that node's image. Candidates are
+ * pruned by their degrees, by the arcs to nodes already matched and by counting
+ * the neighbors on the frontier of the partial mapping. Matches are produced
+ * lazily one at a time, and the searches below each candidate for the first
+ * pattern node can be run in parallel.
+ *
+ * @param <N> The node type of the pattern graph
+ * @param <M> The node type of the target graph
+ */
+public final class GraphMatcher<N, M> implements Iterable<Map<N, M>>
+{
+	/**
+	 * The kind of mapping a GraphMatcher searches for.
+	 */
+	public enum Mode
+	{
+		/**
+		 * A bijection between the nodes of the two graphs which preserves every
+		 * arc in both directions.
+		 */
+		ISOMORPHISM,
+		/**
+		 * A mapping of the pattern onto a subset of the target nodes whose arcs
+		 * between one another are exactly those of the pattern.
+		 */
+		INDUCED_SUBGRAPH,
+		/**
+		 * A mapping of the pattern onto a subset of the target nodes which keeps
+		 * every pattern arc, the target may have more arcs between those nodes.
+		 */
+		SUBGRAPH
+	}
+
+	private static final int PARALLEL_TASKS_PER_THREAD = 8;
+
+	private final MatchingGraph<N> pattern;
+	private final MatchingGraph<M> target;
+	private final boolean exact;
+	private final boolean induced;
+	private final boolean compatible;
+	private final int[] order;
+	private final int[] anchors;
+	private final boolean[] anchorOutgoing;
+
+	public GraphMatcher(final Graph<N, ? extends Edge<N>> pattern, final Graph<M, ? extends Edge<M>> target, final Mode mode)
+	{
+		if( pattern == null )
+			throw new IllegalArgumentException("pattern can not be null");
+		if( target == null )
+			throw new IllegalArgumentException("target can not be null");
+		if( mode == null )
+			throw new IllegalArgumentException("mode can not be null");
+
+		this.pattern = new MatchingGraph<N>(pattern);
+		this.target = new MatchingGraph<M>(target);
+		this.exact = (mode == Mode.ISOMORPHISM);
+		this.induced = (mode != Mode.SUBGRAPH);
+
+		if( this.exact )
+			this.compatible = (this.pattern.getNodeCount() == this.target.getNodeCount())
+					&& (this.pattern.getArcCount() == this.target.getArcCount())
+					&& Arrays.equals(this.pattern.getDegreeSequence(), this.target.getDegreeSequence());
+		else
+			this.compatible = (this.pattern.getNodeCount() <= this.target.getNodeCount())
+					&& (this.pattern.getArcCount() <= this.target.getArcCount());
+
+		final int nodeCount = this.pattern.getNodeCount();
+		this.order = new int[nodeCount];
+		this.anchors = new int[nodeCount];
+		this.anchorOutgoing = new boolean[nodeCount];
+		this.orderNodes();
+	}
+
+	private int getDegree(final int node)
+	{
+		return this.pattern.getOutDegree(node) + this.pattern.getInDegree(node);
+	}
+
+	/**
+	 * Orders the pattern nodes so each component starts at its node of highest
+	 * degree and continues with the node most connected to those already
+	 * ordered, breaking ties by degree. Every node but the first of its
+	 * component is anchored to an ordered neighbor whose image supplies its
+	 * candidates.
+	 */
+	private void orderNodes()
+	{
+		final int nodeCount = this.pattern.getNodeCount();
+		final long[] byDegree = new long[nodeCount];
+		for(int node = 0; node < nodeCount; node++)
+			byDegree[node] = (((long) this.getDegree(node)) << 32) | node;
+		Arrays.sort(byDegree);
+
+		final int[] positions = new int[nodeCount];
+		Arrays.fill(positions, -1);
+		final int[] connections = new int[nodeCount];
+		final PriorityQueue<int[]> frontier = new PriorityQueue<int[]>(16, new Comparator<int[]>()
+		{
+			@Override
+			public int compare(final int[] first, final int[] second)
+			{
+				if( first[0] != second[0] )
+					return (first[0] > second[0] ? -1 : 1);
+				if( first[1] != second[1] )
+					return (first[1] > second[1] ? -1 : 1);
+				return (first[2] < second[2] ? -1 : (first[2] == second[2] ? 0 : 1));
+			}
+		});
+
+		int orderSize = 0;
+		int rootCursor = nodeCount - 1;
+		while( orderSize < nodeCount )
+		{
+			while( positions[(int) byDegree[rootCursor]] >= 0 )
+				rootCursor--;
+			final int root = (int) byDegree[rootCursor];
+			frontier.add(new int[] {0, this.getDegree(root), root});
+
+			while( !frontier.isEmpty() )
+			{
+				final int[] entry = frontier.poll();
+				final int node = entry[2];
+				if( (positions[node] >= 0) || (entry[0] != connections[node]) )
+					continue;
+
+				int anchor = -1;
+				for(int position = this.pattern.getNeighborStart(node); position < this.pattern.getNeighborEnd(node); position++)
+				{
+					final int neighbor = this.pattern.getNeighbor(position);
+					if( positions[neighbor] >= 0 )
+					{
+						if( (anchor < 0) || (this.getDegree(neighbor) < this.getDegree(anchor)) )
+							anchor = neighbor;
+					}
+					else
+					{
+						connections[neighbor]++;
+						frontier.add(new int[] {connections[neighbor], this.getDegree(neighbor), neighbor});
+					}
+				}
+
+				positions[node] = orderSize;
+				this.order[orderSize] = node;
+				this.anchors[orderSize] = anchor;
+				this.anchorOutgoing[orderSize] = (anchor >= 0) && (this.pattern.getArcCount(anchor, node) > 0);
+				orderSize++;
+			}
+		}
+	}
+
+	/**
+	 * Lazily enumerates every match. Each match maps every pattern node to the
+	 * target node it was matched with.
+	 */
+	@Override
+	public Iterator<Map<N, M>> iterator()
+	{
+		final Search search = new Search(null);
+		return new Iterator<Map<N, M>>()
+		{
+			private Map<N, M> nextMatch;
+			private boolean exhausted;
+
+			@Override
+			public boolean hasNext()
+			{
+				if( (this.nextMatch == null) && !this.exhausted )
+				{
+					if( search.nextMatch() )
+						this.nextMatch = search.getMatch();
+					else
+						this.exhausted = true;
+				}
+				return (this.nextMatch != null);
+			}
+
+			@Override
+			public Map<N, M> next()
+			{
+				if( !this.hasNext() )
+					throw new NoSuchElementException();
+				final Map<N, M> match = this.nextMatch;
+				this.nextMatch = null;
+				return match;
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException("matches can not be removed");
+			}
+		};
+	}
+
+	/**
+	 * Gets the first match found.
+	 *
+	 * @return the first match, or null if there is none.
+	 */
+	public Map<N, M> getMatch()
+	{
+		final Search search = new Search(null);
+		return (search.nextMatch() ? search.getMatch() : null);
+	}
+
+	public boolean isMatched()
+	{
+		return (new Search(null).nextMatch());
+	}
+
+	public long countMatches()
+	{
+		final Search search = new Search(null);
+		long count = 0;
+		while( search.nextMatch() )
+			count++;
+		return count;
+	}
+
+	/**
+	 * Gets a match by searching below the candidates for the first pattern node
+	 * in parallel. The search stops as soon as any thread finds a match, so
+	 * which match is returned is not fixed.
+	 *
+	 * @param pool the pool to run the search on.
+	 * @return a match, or null if there is none.
+	 */
+	public Map<N, M> getMatch(final ForkJoinPool pool)
+	{
+		if( pool == null )
+			throw new IllegalArgumentException("pool can not be null");
+		if( this.pattern.getNodeCount() == 0 )
+			return this.getMatch();
+
+		final AtomicBoolean stopped = new AtomicBoolean(false);
+		final AtomicReference<Map<N, M>> found = new AtomicReference<Map<N, M>>();
+		pool.invoke(new RootTask(0, this.target.getNodeCount(), this.getRootThreshold(pool), stopped, found, null));
+		return found.get();
+	}
+
+	public boolean isMatched(final ForkJoinPool pool)
+	{
+		return (this.getMatch(pool) != null);
+	}
+
+	/**
+	 * Counts every match by searching below the candidates for the first
+	 * pattern node in parallel.
+	 *
+	 * @param pool the pool to run the search on.
+	 * @return the number of matches.
+	 */
+	public long countMatches(final ForkJoinPool pool)
+	{
+		if( pool == null )
+			throw new IllegalArgumentException("pool can not be null");
+		if( this.pattern.getNodeCount() == 0 )
+			return this.countMatches();
+
+		final AtomicLong count = new AtomicLong();
+		pool.invoke(new RootTask(0, this.target.getNodeCount(), this.getRootThreshold(pool), null, null, count));
+		return count.get();
+	}
+
+	private int getRootThreshold(final ForkJoinPool pool)
+	{
+		return Math.max(1, this.target.getNodeCount() / (pool.getParallelism() * PARALLEL_TASKS_PER_THREAD));
+	}
+
+	/**
+	 * Searches below a range of candidates for the first pattern node, splitting
+	 * the range in half until it is no larger than the threshold. Either the
+	 * first match found is stored and every task is stopped, or the matches are
+	 * counted locally and added to the total once the range is done.
+	 */
+	private final class RootTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 5193528436614736102L;
+		private final int lowCandidate;
+		private final int highCandidate;
+		private final int threshold;
+		private final AtomicBoolean stopped;
+		private final AtomicReference<Map<N, M>> found;
+		private final AtomicLong count;
+
+		RootTask(final int lowCandidate, final int highCandidate, final int threshold, final AtomicBoolean stopped, final AtomicReference<Map<N, M>> found, final AtomicLong count)
+		{
+			this.lowCandidate = lowCandidate;
+			this.highCandidate = highCandidate;
+			this.threshold = threshold;
+			this.stopped = stopped;
+			this.found = found;
+			this.count = count;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if( this.highCandidate - this.lowCandidate > this.threshold )
+			{
+				final int middle = (this.lowCandidate + this.highCandidate) >>> 1;
+				invokeAll(new RootTask(this.lowCandidate, middle, this.threshold, this.stopped, this.found, this.count),
+						new RootTask(middle, this.highCandidate, this.threshold, this.stopped, this.found, this.count));
+				return;
+			}
+
+			final Search search = new Search(this.stopped);
+			long localCount = 0;
+			for(int candidate = this.lowCandidate; candidate < this.highCandidate; candidate++)
+			{
+				if( (this.stopped != null) && this.stopped.get() )
+					break;
+				search.restart(candidate);
+				while( search.nextMatch() )
+				{
+					if( this.found != null )
+					{
+						if( this.found.compareAndSet(null, search.getMatch()) )
+							this.stopped.set(true);
+						break;
+					}
+					localCount++;
+				}
+			}
+			if( this.count != null )
+				this.count.addAndGet(localCount);
+		}
+	}
+
+	/**
+	 * The state of one depth first search over partial mappings, which can be
+	 * resumed after each match.
+	 */
+	private final class Search
+	{
+		private final AtomicBoolean stopped;
+		private final int[] patternImages;
+		private final int[] targetImages;
+		private final int[] patternFrontier;
+		private final int[] targetFrontier;
+		private final int[] cursors;
+		private int depth;
+		private int fixedRoot = -1;
+		private boolean exhausted;
+
+		Search(final AtomicBoolean stopped)
+		{
+			this.stopped = stopped;
+			final int patternCount = GraphMatcher.this.pattern.getNodeCount();
+			final int targetCount = GraphMatcher.this.target.getNodeCount();
+			this.patternImages = new int[patternCount];
+			this.targetImages = new int[targetCount];
+			Arrays.fill(this.patternImages, -1);
+			Arrays.fill(this.targetImages, -1);
+			this.patternFrontier = new int[patternCount];
+			this.targetFrontier = new int[targetCount];
+			this.cursors = new int[patternCount + 1];
+			this.exhausted = !GraphMatcher.this.compatible;
+		}
+
+		/**
+		 * Clears the search and restricts the first pattern node to a single
+		 * candidate.
+		 */
+		void restart(final int root)
+		{
+			while( this.depth > 0 )
+				this.pop();
+			this.cursors[0] = 0;
+			this.fixedRoot = root;
+			this.exhausted = !GraphMatcher.this.compatible;
+		}
+
+		Map<N, M> getMatch()
+		{
+			final Map<N, M> match = new HashMap<N, M>(this.patternImages.length * 2);
+			for(int node = 0; node < this.patternImages.length; node++)
+				match.put(GraphMatcher.this.pattern.getNode(node), GraphMatcher.this.target.getNode(this.patternImages[node]));
+			return match;
+		}
+
+		/**
+		 * Advances to the next complete mapping.
+		 *
+		 * @return true if another match was found, false once there are none
+		 *         left.
+		 */
+		boolean nextMatch()
+		{
+			if( this.exhausted )
+				return false;
+			final int patternCount = this.patternImages.length;
+			if( patternCount == 0 )
+			{
+				this.exhausted = true;
+				return true;
+			}
+
+			if( this.depth == patternCount )
+				this.pop();
+			while( true )
+			{
+				if( (this.stopped != null) && this.stopped.get() )
+				{
+					this.exhausted = true;
+					return false;
+				}
+
+				final int candidate = this.nextCandidate();
+				if( candidate < 0 )
+				{
+					if( this.depth == 0 )
+					{
+						this.exhausted = true;
+						return false;
+					}
+					this.pop();
+					continue;
+				}
+
+				final int node = GraphMatcher.this.order[this.depth];
+				if( this.isFeasible(node, candidate) )
+				{
+					this.push(node, candidate);
+					if( this.depth == patternCount )
+						return true;
+					this.cursors[this.depth] = 0;
+				}
+			}
+		}
+
+		private int nextCandidate()
+		{
+			final MatchingGraph<M> target = GraphMatcher.this.target;
+			if( (this.depth == 0) && (this.fixedRoot >= 0) )
+				return (this.cursors[0]++ == 0 ? this.fixedRoot : -1);
+
+			final int anchor = GraphMatcher.this.anchors[this.depth];
+			if( anchor < 0 )
+			{
+				while( this.cursors[this.depth] < target.getNodeCount() )
+				{
+					final int candidate = this.cursors[this.depth]++;
+					if( this.targetImages[candidate] < 0 )
+						return candidate;
+				}
+				return -1;
+			}
+
+			final int anchorImage = this.patternImages[anchor];
+			if( GraphMatcher.this.anchorOutgoing[this.depth] )
+			{
+				final int end = target.getOutEnd(anchorImage);
+				int position = target.getOutStart(anchorImage) + this.cursors[this.depth];
+				while( position < end )
+				{
+					final int candidate = target.getOutNode(position++);
+					if( this.targetImages[candidate] < 0 )
+					{
+						this.cursors[this.depth] = position - target.getOutStart(anchorImage);
+						return candidate;
+					}
+				}
+				this.cursors[this.depth] = position - target.getOutStart(anchorImage);
+				return -1;
+			}
+			else
+			{
+				final int end = target.getInEnd(anchorImage);
+				int position = target.getInStart(anchorImage) + this.cursors[this.depth];
+				while( position < end )
+				{
+					final int candidate = target.getInNode(position++);
+					if( this.targetImages[candidate] < 0 )
+					{
+						this.cursors[this.depth] = position - target.getInStart(anchorImage);
+						return candidate;
+					}
+				}
+				this.cursors[this.depth] = position - target.getInStart(anchorImage);
+				return -1;
+			}
+		}
+
+		private boolean isFeasible(final int node, final int candidate)
+		{
+			final MatchingGraph<N> pattern = GraphMatcher.this.pattern;
+			final MatchingGraph<M> target = GraphMatcher.this.target;
+			final boolean exact = GraphMatcher.this.exact;
+			final boolean induced = GraphMatcher.this.induced;
+
+			//degrees
+			if( exact )
+			{
+				if( (pattern.getOutDegree(node) != target.getOutDegree(candidate))
+						|| (pattern.getInDegree(node) != target.getInDegree(candidate))
+						|| (pattern.getNeighborEnd(node) - pattern.getNeighborStart(node) != target.getNeighborEnd(candidate) - target.getNeighborStart(candidate)) )
+					return false;
+			}
+			else if( (pattern.getOutDegree(node) > target.getOutDegree(candidate))
+					|| (pattern.getInDegree(node) > target.getInDegree(candidate)) )
+				return false;
+			if( induced ? (pattern.getLoopCount(node) != target.getLoopCount(candidate)) : (pattern.getLoopCount(node) > target.getLoopCount(candidate)) )
+				return false;
+
+			//arcs to nodes already matched
+			int matchedOut = 0;
+			for(int position = pattern.getOutStart(node); position < pattern.getOutEnd(node); position++)
+			{
+				final int image = this.patternImages[pattern.getOutNode(position)];
+				if( image < 0 )
+					continue;
+				matchedOut++;
+				final int targetArcs = target.getArcCount(candidate, image);
+				if( induced ? (targetArcs != pattern.getOutCount(position)) : (targetArcs < pattern.getOutCount(position)) )
+					return false;
+			}
+			int matchedIn = 0;
+			for(int position = pattern.getInStart(node); position < pattern.getInEnd(node); position++)
+			{
+				final int image = this.patternImages[pattern.getInNode(position)];
+				if( image < 0 )
+					continue;
+				matchedIn++;
+				final int targetArcs = target.getArcCount(image, candidate);
+				if( induced ? (targetArcs != pattern.getInCount(position)) : (targetArcs < pattern.getInCount(position)) )
+					return false;
+			}
+			if( induced )
+			{
+				//the target may not have arcs the pattern lacks
+				for(int position = target.getOutStart(candidate); position < target.getOutEnd(candidate); position++)
+					if( (this.targetImages[target.getOutNode(position)] >= 0) && (--matchedOut < 0) )
+						return false;
+				for(int position = target.getInStart(candidate); position < target.getInEnd(candidate); position++)
+					if( (this.targetImages[target.getInNode(position)] >= 0) && (--matchedIn < 0) )
+						return false;
+			}
+
+			//neighbors on the frontier of the mapping and beyond it
+			int patternFrontierCount = 0;
+			int patternRemoteCount = 0;
+			for(int position = pattern.getNeighborStart(node); position < pattern.getNeighborEnd(node); position++)
+			{
+				final int neighbor = pattern.getNeighbor(position);
+				if( this.patternImages[neighbor] >= 0 )
+					continue;
+				if( this.patternFrontier[neighbor] > 0 )
+					patternFrontierCount++;
+				else
+					patternRemoteCount++;
+			}
+			int targetFrontierCount = 0;
+			int targetRemoteCount = 0;
+			for(int position = target.getNeighborStart(candidate); position < target.getNeighborEnd(candidate); position++)
+			{
+				final int neighbor = target.getNeighbor(position);
+				if( this.targetImages[neighbor] >= 0 )
+					continue;
+				if( this.targetFrontier[neighbor] > 0 )
+					targetFrontierCount++;
+				else
+					targetRemoteCount++;
+			}
+			if( exact )
+				return (patternFrontierCount == targetFrontierCount) && (patternRemoteCount == targetRemoteCount);
+			return (patternFrontierCount <= targetFrontierCount) && (patternFrontierCount + patternRemoteCount <= targetFrontierCount + targetRemoteCount);
+		}
+
+		private void push(final int node, final int candidate)
+		{
+			final MatchingGraph<N> pattern = GraphMatcher.this.pattern;
+			final MatchingGraph<M> target = GraphMatcher.this.target;
+			this.patternImages[node] = candidate;
+			this.targetImages[candidate] = node;
+			this.depth++;
+			for(int position = pattern.getNeighborStart(node); position < pattern.getNeighborEnd(node); position++)
+				if( this.patternFrontier[pattern.getNeighbor(position)] == 0 )
+					this.patternFrontier[pattern.getNeighbor(position)] = this.depth;
+			for(int position = target.getNeighborStart(candidate); position < target.getNeighborEnd(candidate); position++)
+				if( this.targetFrontier[target.getNeighbor(position)] == 0 )
+					this.targetFrontier[target.getNeighbor(position)] = this.depth;
+		}
+
+		private void pop()
+		{
+			final MatchingGraph<N> pattern = GraphMatcher.this.pattern;
+			final MatchingGraph<M> target = GraphMatcher.this.target;
+			final int node = GraphMatcher.this.order[this.depth - 1];
+			final int candidate = this.patternImages[node];
+			for(int position = pattern.getNeighborStart(node); position < pattern.getNeighborEnd(node); position++)
+				if( this.patternFrontier[pattern.getNeighbor(position)] == this.depth )
+					this.patternFrontier[pattern.getNeighbor(position)] = 0;
+			for(int position = target.getNeighborStart(candidate); position < target.getNeighborEnd(candidate); position++)
+				if( this.targetFrontier[target.getNeighbor(position)] == this.depth )
+					this.targetFrontier[target.getNeighbor(position)] = 0;
+			this.patternImages[node] = -1;
+			this.targetImages[candidate] = -1;
+			this.depth--;
+		}
+	}
+}
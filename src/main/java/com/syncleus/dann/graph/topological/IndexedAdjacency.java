@@ -0,0 +1,167 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.syncleus.dann.graph.Edge;
+import com.syncleus.dann.graph.Graph;
+
+/**
+ * A compact, read-only snapshot of a graph's adjacency. Each node is assigned a
+ * dense index in the range [0, nodeCount) and the neighbors of every node are
+ * stored contiguously in a single int array, so algorithms can walk the graph
+ * using primitive arrays instead of repeatedly querying the graph and hashing
+ * nodes. The snapshot is not updated if the graph changes after it is built.
+ *
+ * @param <N> The node type
+ */
+public final class IndexedAdjacency<N>
+{
+	private final List<N> nodes;
+	private final Map<N, Integer> indexes;
+	private final int[] neighborStarts;
+	private final int[] neighbors;
+
+	private IndexedAdjacency(final List<N> nodes, final Map<N, Integer> indexes, final int[] neighborStarts, final int[] neighbors)
+	{
+		this.nodes = nodes;
+		this.indexes = indexes;
+		this.neighborStarts = neighborStarts;
+		this.neighbors = neighbors;
+	}
+
+	/**
+	 * Builds a snapshot where the neighbors of a node are the nodes which can be
+	 * traversed to from it, as reported by Graph.getTraversableNodes.
+	 *
+	 * @param graph the graph to index.
+	 * @return an indexed snapshot of the graph's traversable adjacency.
+	 */
+	public static <N, E extends Edge<N>> IndexedAdjacency<N> traversable(final Graph<N, E> graph)
+	{
+		return IndexedAdjacency.build(graph, true);
+	}
+
+	/**
+	 * Builds a snapshot where the neighbors of a node are all nodes it shares an
+	 * edge with, regardless of the direction of the edge, as reported by
+	 * Graph.getAdjacentNodes.
+	 *
+	 * @param graph the graph to index.
+	 * @return an indexed snapshot of the graph's adjacency.
+	 */
+	public static <N, E extends Edge<N>> IndexedAdjacency<N> adjacent(final Graph<N, E> graph)
+	{
+		return IndexedAdjacency.build(graph, false);
+	}
+
+	private static <N, E extends Edge<N>> IndexedAdjacency<N> build(final Graph<N, E> graph, final boolean traversable)
+	{
+		final List<N> nodes = new ArrayList<N>(graph.getNodes());
+		final int nodeCount = nodes.size();
+		final Map<N, Integer> indexes = new HashMap<N, Integer>(nodeCount * 2);
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			indexes.put(nodes.get(nodeIndex), nodeIndex);
+
+		final int[] neighborStarts = new int[nodeCount + 1];
+		int[] neighbors = new int[Math.max(16, graph.getEdges().size() * 2)];
+		int neighborCount = 0;
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+		{
+			final N node = nodes.get(nodeIndex);
+			neighborStarts[nodeIndex] = neighborCount;
+			final List<N> nodeNeighbors = (traversable ? graph.getTraversableNodes(node) : graph.getAdjacentNodes(node));
+			for(final N neighbor : nodeNeighbors)
+			{
+				final Integer neighborIndex = indexes.get(neighbor);
+				if( neighborIndex == null )
+					throw new IllegalArgumentException("graph has an edge connected to a node that is not in the graph");
+				if( neighborCount == neighbors.length )
+				{
+					final int[] grown = new int[neighbors.length * 2];
+					System.arraycopy(neighbors, 0, grown, 0, neighborCount);
+					neighbors = grown;
+				}
+				neighbors[neighborCount++] = neighborIndex;
+			}
+		}
+		neighborStarts[nodeCount] = neighborCount;
+
+		final int[] trimmed = new int[neighborCount];
+		System.arraycopy(neighbors, 0, trimmed, 0, neighborCount);
+		return new IndexedAdjacency<N>(nodes, indexes, neighborStarts, trimmed);
+	}
+
+	public int getNodeCount()
+	{
+		return this.nodes.size();
+	}
+
+	public N getNode(final int nodeIndex)
+	{
+		return this.nodes.get(nodeIndex);
+	}
+
+	/**
+	 * Gets the dense index assigned to a node.
+	 *
+	 * @param node the node to look up.
+	 * @return the index of the node, or -1 if it is not in the indexed graph.
+	 */
+	public int getIndex(final N node)
+	{
+		final Integer index = this.indexes.get(node);
+		return (index == null ? -1 : index);
+	}
+
+	/**
+	 * Gets the position in the neighbor array where the neighbors of the given
+	 * node begin.
+	 */
+	public int getNeighborStart(final int nodeIndex)
+	{
+		return this.neighborStarts[nodeIndex];
+	}
+
+	/**
+	 * Gets the position in the neighbor array just past the last neighbor of the
+	 * given node.
+	 */
+	public int getNeighborEnd(final int nodeIndex)
+	{
+		return this.neighborStarts[nodeIndex + 1];
+	}
+
+	/**
+	 * Gets the index of the neighbor stored at the given position of the
+	 * neighbor array.
+	 */
+	public int getNeighbor(final int position)
+	{
+		return this.neighbors[position];
+	}
+
+	public int getNeighborCount()
+	{
+		return this.neighbors.length;
+	}
+}
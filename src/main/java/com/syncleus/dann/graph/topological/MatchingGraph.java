@@ -0,0 +1,286 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.syncleus.dann.graph.Edge;
+import com.syncleus.dann.graph.Graph;
+
+/**
+ * A graph reduced to arcs between dense node indexes for the isomorphism
+ * matcher. Every way an edge can be traversed from one of its end points
+ * becomes an arc, so undirected edges give an arc in each direction and
+ * parallel edges raise the multiplicity of an arc. The outgoing, incoming and
+ * combined neighbors of each node are held sorted so the multiplicity of an
+ * arc can be found with a binary search.
+ */
+final class MatchingGraph<N>
+{
+	private final List<N> nodes;
+	private final int[] outStarts;
+	private final int[] outNodes;
+	private final int[] outCounts;
+	private final int[] inStarts;
+	private final int[] inNodes;
+	private final int[] inCounts;
+	private final int[] neighborStarts;
+	private final int[] neighbors;
+	private final int[] outDegrees;
+	private final int[] inDegrees;
+	private final int[] loopCounts;
+	private final long arcCount;
+
+	MatchingGraph(final Graph<N, ? extends Edge<N>> graph)
+	{
+		this.nodes = new ArrayList<N>(graph.getNodes());
+		final int nodeCount = this.nodes.size();
+		final Map<N, Integer> indexes = new HashMap<N, Integer>(nodeCount * 2);
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			indexes.put(this.nodes.get(nodeIndex), nodeIndex);
+
+		//each arc is packed as its source in the high word and its
+		//destination in the low word, so sorting groups parallel arcs
+		long[] arcs = new long[16];
+		int arcTotal = 0;
+		for(final Edge<N> edge : graph.getEdges())
+		{
+			final Set<N> endPoints = new HashSet<N>(edge.getNodes());
+			for(final N endPoint : endPoints)
+			{
+				final Integer sourceIndex = indexes.get(endPoint);
+				if( sourceIndex == null )
+					throw new IllegalArgumentException("A node that is an end point in one of the edges was not in the nodes list");
+				for(final N traversableNode : edge.getTraversableNodes(endPoint))
+				{
+					final Integer destinationIndex = indexes.get(traversableNode);
+					if( destinationIndex == null )
+						throw new IllegalArgumentException("A node that is an end point in one of the edges was not in the nodes list");
+					if( arcTotal == arcs.length )
+						arcs = Arrays.copyOf(arcs, arcTotal * 2);
+					arcs[arcTotal++] = (((long) sourceIndex) << 32) | destinationIndex;
+				}
+			}
+		}
+		this.arcCount = arcTotal;
+
+		Arrays.sort(arcs, 0, arcTotal);
+		this.outDegrees = new int[nodeCount];
+		this.inDegrees = new int[nodeCount];
+		this.loopCounts = new int[nodeCount];
+		this.outStarts = new int[nodeCount + 1];
+		this.inStarts = new int[nodeCount + 1];
+		int distinctTotal = 0;
+		for(int arcIndex = 0; arcIndex < arcTotal; arcIndex++)
+		{
+			final int source = (int) (arcs[arcIndex] >>> 32);
+			final int destination = (int) arcs[arcIndex];
+			this.outDegrees[source]++;
+			this.inDegrees[destination]++;
+			if( source == destination )
+				this.loopCounts[source]++;
+			else if( (arcIndex == 0) || (arcs[arcIndex - 1] != arcs[arcIndex]) )
+			{
+				this.outStarts[source + 1]++;
+				this.inStarts[destination + 1]++;
+				distinctTotal++;
+			}
+		}
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+		{
+			this.outStarts[nodeIndex + 1] += this.outStarts[nodeIndex];
+			this.inStarts[nodeIndex + 1] += this.inStarts[nodeIndex];
+		}
+
+		//arcs are sorted by source then destination, so each outgoing list is
+		//filled in order, and walking them by source fills each incoming list
+		//in order as well
+		this.outNodes = new int[distinctTotal];
+		this.outCounts = new int[distinctTotal];
+		this.inNodes = new int[distinctTotal];
+		this.inCounts = new int[distinctTotal];
+		final int[] outFill = Arrays.copyOf(this.outStarts, nodeCount);
+		final int[] inFill = Arrays.copyOf(this.inStarts, nodeCount);
+		for(int arcIndex = 0; arcIndex < arcTotal; )
+		{
+			int arcEnd = arcIndex + 1;
+			while( (arcEnd < arcTotal) && (arcs[arcEnd] == arcs[arcIndex]) )
+				arcEnd++;
+			final int source = (int) (arcs[arcIndex] >>> 32);
+			final int destination = (int) arcs[arcIndex];
+			if( source != destination )
+			{
+				final int outPosition = outFill[source]++;
+				this.outNodes[outPosition] = destination;
+				this.outCounts[outPosition] = arcEnd - arcIndex;
+				final int inPosition = inFill[destination]++;
+				this.inNodes[inPosition] = source;
+				this.inCounts[inPosition] = arcEnd - arcIndex;
+			}
+			arcIndex = arcEnd;
+		}
+
+		//the combined neighbors are the merge of the sorted outgoing and
+		//incoming lists
+		this.neighborStarts = new int[nodeCount + 1];
+		int[] combined = new int[distinctTotal * 2];
+		int combinedTotal = 0;
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+		{
+			int outPosition = this.outStarts[nodeIndex];
+			int inPosition = this.inStarts[nodeIndex];
+			final int outEnd = this.outStarts[nodeIndex + 1];
+			final int inEnd = this.inStarts[nodeIndex + 1];
+			while( (outPosition < outEnd) || (inPosition < inEnd) )
+			{
+				final int next;
+				if( inPosition == inEnd )
+					next = this.outNodes[outPosition++];
+				else if( outPosition == outEnd )
+					next = this.inNodes[inPosition++];
+				else if( this.outNodes[outPosition] < this.inNodes[inPosition] )
+					next = this.outNodes[outPosition++];
+				else if( this.outNodes[outPosition] > this.inNodes[inPosition] )
+					next = this.inNodes[inPosition++];
+				else
+				{
+					next = this.outNodes[outPosition++];
+					inPosition++;
+				}
+				combined[combinedTotal++] = next;
+			}
+			this.neighborStarts[nodeIndex + 1] = combinedTotal;
+		}
+		this.neighbors = Arrays.copyOf(combined, combinedTotal);
+	}
+
+	int getNodeCount()
+	{
+		return this.nodes.size();
+	}
+
+	long getArcCount()
+	{
+		return this.arcCount;
+	}
+
+	N getNode(final int nodeIndex)
+	{
+		return this.nodes.get(nodeIndex);
+	}
+
+	int getOutDegree(final int nodeIndex)
+	{
+		return this.outDegrees[nodeIndex];
+	}
+
+	int getInDegree(final int nodeIndex)
+	{
+		return this.inDegrees[nodeIndex];
+	}
+
+	int getLoopCount(final int nodeIndex)
+	{
+		return this.loopCounts[nodeIndex];
+	}
+
+	int getOutStart(final int nodeIndex)
+	{
+		return this.outStarts[nodeIndex];
+	}
+
+	int getOutEnd(final int nodeIndex)
+	{
+		return this.outStarts[nodeIndex + 1];
+	}
+
+	int getOutNode(final int position)
+	{
+		return this.outNodes[position];
+	}
+
+	int getOutCount(final int position)
+	{
+		return this.outCounts[position];
+	}
+
+	int getInStart(final int nodeIndex)
+	{
+		return this.inStarts[nodeIndex];
+	}
+
+	int getInEnd(final int nodeIndex)
+	{
+		return this.inStarts[nodeIndex + 1];
+	}
+
+	int getInNode(final int position)
+	{
+		return this.inNodes[position];
+	}
+
+	int getInCount(final int position)
+	{
+		return this.inCounts[position];
+	}
+
+	int getNeighborStart(final int nodeIndex)
+	{
+		return this.neighborStarts[nodeIndex];
+	}
+
+	int getNeighborEnd(final int nodeIndex)
+	{
+		return this.neighborStarts[nodeIndex + 1];
+	}
+
+	int getNeighbor(final int position)
+	{
+		return this.neighbors[position];
+	}
+
+	/**
+	 * Gets the number of arcs from source to destination, which must be
+	 * different nodes.
+	 */
+	int getArcCount(final int source, final int destination)
+	{
+		final int position = Arrays.binarySearch(this.outNodes, this.outStarts[source], this.outStarts[source + 1], destination);
+		return (position < 0 ? 0 : this.outCounts[position]);
+	}
+
+	/**
+	 * Gets the sorted degrees of every node, used to reject graphs which can
+	 * not be isomorphic before searching.
+	 */
+	long[] getDegreeSequence()
+	{
+		final int nodeCount = this.nodes.size();
+		final long[] sequence = new long[nodeCount];
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			sequence[nodeIndex] = (((long) this.outDegrees[nodeIndex]) << 40) | (((long) this.inDegrees[nodeIndex]) << 16) | this.loopCounts[nodeIndex];
+		Arrays.sort(sequence);
+		return sequence;
+	}
+}
@@ -18,16 +18,14 @@
  ******************************************************************************/
 package com.syncleus.dann.graph.topological;
 
-import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import com.syncleus.dann.graph.BidirectedEdge;
 import com.syncleus.dann.graph.BidirectedGraph;
 import com.syncleus.dann.graph.Edge;
@@ -36,7 +34,8 @@ import com.syncleus.dann.graph.HyperEdge;
 import com.syncleus.dann.graph.HyperGraph;
 import com.syncleus.dann.graph.ImmutableAdjacencyGraph;
 import com.syncleus.dann.graph.ImmutableHyperEdge;
-import com.syncleus.dann.math.counting.Counters;
+import com.syncleus.dann.graph.Weighted;
+import com.syncleus.dann.graph.tree.DisjointSetForest;
 
 public final class Topography
 {
@@ -118,12 +117,8 @@ public final class Topography
 			}
 		}
 
-		final Set<N> nodes = graph.getNodes();
-		for(final N fromNode : nodes)
-			for(final N toNode : nodes)
-				if( (toNode != fromNode) && (!Topography.isStronglyConnected(graph, toNode, fromNode)) )
-					return false;
-		return true;
+		final IndexedAdjacency<N> adjacency = IndexedAdjacency.traversable(graph);
+		return ( Topography.labelStronglyConnectedComponents(adjacency, new int[adjacency.getNodeCount()]) <= 1 );
 	}
 
 	/**
@@ -147,16 +142,175 @@ public final class Topography
 			}
 		}
 
-		final List<N> remainingNodes = new ArrayList<N>(graph.getNodes());
-		while( remainingNodes.size() >= 2 )
+		final List<N> nodes = new ArrayList<N>(graph.getNodes());
+		final Map<N, Integer> indexes = Topography.indexNodes(nodes);
+		return ( Topography.joinWeaklyConnectedComponents(graph, indexes).getSetCount() <= 1 );
+	}
+
+	/**
+	 * Labels every node of the graph with the strongly connected component it
+	 * belongs to. Two nodes share a label if, and only if, each can be traversed
+	 * to from the other. Labels are consecutive integers starting at 0. This uses
+	 * an iterative form of Tarjan's algorithm and runs in time linear to the
+	 * number of nodes and edges.
+	 *
+	 * @param graph the graph whose nodes are to be labeled.
+	 * @return a map from every node in the graph to its component label.
+	 */
+	public static <N, E extends Edge<N>> Map<N, Integer> getStronglyConnectedComponents(final Graph<N, E> graph)
+	{
+		final IndexedAdjacency<N> adjacency = IndexedAdjacency.traversable(graph);
+		final int[] labels = new int[adjacency.getNodeCount()];
+		Topography.labelStronglyConnectedComponents(adjacency, labels);
+
+		final Map<N, Integer> components = new HashMap<N, Integer>(labels.length * 2);
+		for(int nodeIndex = 0; nodeIndex < labels.length; nodeIndex++)
+			components.put(adjacency.getNode(nodeIndex), labels[nodeIndex]);
+		return components;
+	}
+
+	/**
+	 * Labels every node of the graph with the weakly connected component it
+	 * belongs to. Two nodes share a label if, and only if, they are connected
+	 * when the direction of edges is ignored. Labels are consecutive integers
+	 * starting at 0. This uses a disjoint-set forest over the end points of each
+	 * edge and runs in nearly linear time.
+	 *
+	 * @param graph the graph whose nodes are to be labeled.
+	 * @return a map from every node in the graph to its component label.
+	 */
+	public static <N, E extends Edge<N>> Map<N, Integer> getWeaklyConnectedComponents(final Graph<N, E> graph)
+	{
+		final List<N> nodes = new ArrayList<N>(graph.getNodes());
+		final Map<N, Integer> indexes = Topography.indexNodes(nodes);
+		final int[] labels = Topography.labelWeaklyConnectedComponents(Topography.joinWeaklyConnectedComponents(graph, indexes));
+
+		final Map<N, Integer> components = new HashMap<N, Integer>(labels.length * 2);
+		for(int nodeIndex = 0; nodeIndex < labels.length; nodeIndex++)
+			components.put(nodes.get(nodeIndex), labels[nodeIndex]);
+		return components;
+	}
+
+	private static <N> Map<N, Integer> indexNodes(final List<N> nodes)
+	{
+		final Map<N, Integer> indexes = new HashMap<N, Integer>(nodes.size() * 2);
+		for(int nodeIndex = 0; nodeIndex < nodes.size(); nodeIndex++)
+			indexes.put(nodes.get(nodeIndex), nodeIndex);
+		return indexes;
+	}
+
+	private static <N, E extends Edge<N>> DisjointSetForest joinWeaklyConnectedComponents(final Graph<N, E> graph, final Map<N, Integer> indexes)
+	{
+		final DisjointSetForest components = new DisjointSetForest(indexes.size());
+		for(final E edge : graph.getEdges())
 		{
-			final N fromNode = remainingNodes.get(0);
-			remainingNodes.remove(0);
-			for(final N toNode : remainingNodes)
-				if( (toNode != fromNode) && (!Topography.isWeaklyConnected(graph, toNode, fromNode)) )
-					return false;
+			int firstIndex = -1;
+			for(final N edgeNode : edge.getNodes())
+			{
+				final Integer nodeIndex = indexes.get(edgeNode);
+				if( nodeIndex == null )
+					throw new IllegalArgumentException("graph has an edge connected to a node that is not in the graph");
+				if( firstIndex < 0 )
+					firstIndex = nodeIndex;
+				else
+					components.union(firstIndex, nodeIndex);
+			}
 		}
-		return true;
+		return components;
+	}
+
+	private static int[] labelWeaklyConnectedComponents(final DisjointSetForest components)
+	{
+		final int[] rootLabels = new int[components.getSize()];
+		Arrays.fill(rootLabels, -1);
+		final int[] labels = new int[components.getSize()];
+		int labelCount = 0;
+		for(int nodeIndex = 0; nodeIndex < labels.length; nodeIndex++)
+		{
+			final int root = components.find(nodeIndex);
+			if( rootLabels[root] < 0 )
+				rootLabels[root] = labelCount++;
+			labels[nodeIndex] = rootLabels[root];
+		}
+		return labels;
+	}
+
+	/**
+	 * Iterative Tarjan's algorithm. The call stack of the recursive form is
+	 * replaced by an explicit stack of nodes and the position of the next
+	 * neighbor to visit for each of them, so deep graphs can not overflow the
+	 * thread's stack.
+	 *
+	 * @return the number of strongly connected components found.
+	 */
+	static <N> int labelStronglyConnectedComponents(final IndexedAdjacency<N> adjacency, final int[] labels)
+	{
+		final int nodeCount = adjacency.getNodeCount();
+		final int[] visitOrder = new int[nodeCount];
+		final int[] lowLinks = new int[nodeCount];
+		final boolean[] onStack = new boolean[nodeCount];
+		final int[] componentStack = new int[nodeCount];
+		final int[] callNodes = new int[nodeCount];
+		final int[] callPositions = new int[nodeCount];
+		Arrays.fill(visitOrder, -1);
+
+		int visitCount = 0;
+		int componentCount = 0;
+		int componentDepth = 0;
+		for(int rootIndex = 0; rootIndex < nodeCount; rootIndex++)
+		{
+			if( visitOrder[rootIndex] >= 0 )
+				continue;
+
+			visitOrder[rootIndex] = lowLinks[rootIndex] = visitCount++;
+			componentStack[componentDepth++] = rootIndex;
+			onStack[rootIndex] = true;
+			callNodes[0] = rootIndex;
+			callPositions[0] = adjacency.getNeighborStart(rootIndex);
+			int callDepth = 1;
+
+			while( callDepth > 0 )
+			{
+				final int nodeIndex = callNodes[callDepth - 1];
+				if( callPositions[callDepth - 1] < adjacency.getNeighborEnd(nodeIndex) )
+				{
+					final int neighborIndex = adjacency.getNeighbor(callPositions[callDepth - 1]++);
+					if( visitOrder[neighborIndex] < 0 )
+					{
+						visitOrder[neighborIndex] = lowLinks[neighborIndex] = visitCount++;
+						componentStack[componentDepth++] = neighborIndex;
+						onStack[neighborIndex] = true;
+						callNodes[callDepth] = neighborIndex;
+						callPositions[callDepth] = adjacency.getNeighborStart(neighborIndex);
+						callDepth++;
+					}
+					else if( onStack[neighborIndex] && (visitOrder[neighborIndex] < lowLinks[nodeIndex]) )
+						lowLinks[nodeIndex] = visitOrder[neighborIndex];
+					continue;
+				}
+
+				callDepth--;
+				if( lowLinks[nodeIndex] == visitOrder[nodeIndex] )
+				{
+					int memberIndex;
+					do
+					{
+						memberIndex = componentStack[--componentDepth];
+						onStack[memberIndex] = false;
+						labels[memberIndex] = componentCount;
+					}
+					while( memberIndex != nodeIndex );
+					componentCount++;
+				}
+				if( callDepth > 0 )
+				{
+					final int parentIndex = callNodes[callDepth - 1];
+					if( lowLinks[nodeIndex] < lowLinks[parentIndex] )
+						lowLinks[parentIndex] = lowLinks[nodeIndex];
+				}
+			}
+		}
+		return componentCount;
 	}
 
 	/**
@@ -251,10 +405,10 @@ public final class Topography
 	}
 
 	/**
-	 * Gets the set of maximally-connected components from a graph. The maximally-connected
-	 * components are those with the most connections to other nodes.
-	 * NOTE: This method currently returns null.
-	 * @return <code>null</code>
+	 * Gets the set of maximally-connected components from a graph. Each
+	 * component is the subgraph formed by a weakly connected set of nodes along
+	 * with every edge between them.
+	 * @return the maximally-connected components of the graph
 	 * @see com.syncleus.dann.graph.topological.Topography#getMaximallyConnectedComponents(Graph)
 	 */
 	public static <N, E extends Edge<N>> Set<Graph<N, E>> getMaximallyConnectedComponents(final Graph<N, E> graph)
@@ -272,8 +426,27 @@ public final class Topography
 			}
 		}
 
-		// TODO implement this
-		throw new UnsupportedOperationException();
+		final List<N> nodes = new ArrayList<N>(graph.getNodes());
+		final Map<N, Integer> indexes = Topography.indexNodes(nodes);
+		final DisjointSetForest joined = Topography.joinWeaklyConnectedComponents(graph, indexes);
+		final int[] labels = Topography.labelWeaklyConnectedComponents(joined);
+
+		final List<Set<N>> componentNodes = new ArrayList<Set<N>>(joined.getSetCount());
+		final List<Set<E>> componentEdges = new ArrayList<Set<E>>(joined.getSetCount());
+		for(int componentIndex = 0; componentIndex < joined.getSetCount(); componentIndex++)
+		{
+			componentNodes.add(new HashSet<N>());
+			componentEdges.add(new HashSet<E>());
+		}
+		for(int nodeIndex = 0; nodeIndex < labels.length; nodeIndex++)
+			componentNodes.get(labels[nodeIndex]).add(nodes.get(nodeIndex));
+		for(final E edge : graph.getEdges())
+			componentEdges.get(labels[indexes.get(edge.getNodes().get(0))]).add(edge);
+
+		final Set<Graph<N, E>> components = new HashSet<Graph<N, E>>();
+		for(int componentIndex = 0; componentIndex < componentNodes.size(); componentIndex++)
+			components.add(new ImmutableAdjacencyGraph<N, E>(componentNodes.get(componentIndex), componentEdges.get(componentIndex)));
+		return components;
 	}
 
 	/**
@@ -462,6 +635,15 @@ public final class Topography
 		return Topography.isCut(graph, Collections.<N>emptySet(), Collections.singleton(edge), begin, end);
 	}
 
+	/**
+	 * Gets the node connectivity of the graph, the smallest number of nodes
+	 * which must be removed so the remaining graph is no longer strongly
+	 * connected. A graph where every node is adjacent to every other node has a
+	 * connectivity of one less than the number of nodes. This is calculated with
+	 * a bounded number of maximum flow computations over a network where each
+	 * node is split into an entry and an exit joined by an arc of capacity one.
+	 * @return the node connectivity of the graph
+	 */
 	public static <N, E extends Edge<N>> int getNodeConnectivity(final Graph<N, E> graph)
 	{
 		if( graph instanceof WeakConnectivityOptimizedGraph )
@@ -477,15 +659,49 @@ public final class Topography
 			}
 		}
 
-		final Set<Set<N>> combinations = Counters.everyCombination(graph.getNodes());
-		final SortedSet<Set<N>> sortedCombinations = new TreeSet<Set<N>>(new SizeComparator());
-		sortedCombinations.addAll(combinations);
-		for(final Set<N> cutNodes : sortedCombinations)
-			if( Topography.isCut(graph, cutNodes, Collections.<E>emptySet()) )
-				return cutNodes.size();
-		return graph.getNodes().size();
+		final IndexedAdjacency<N> adjacency = IndexedAdjacency.traversable(graph);
+		final int nodeCount = adjacency.getNodeCount();
+		if( nodeCount < 2 )
+			return 0;
+		final FlowNetwork network = Topography.buildNodeFlowNetwork(adjacency);
+
+		// Even's algorithm: a minimum separating set can not contain all of the
+		// first connectivity + 1 nodes, so only pairs involving one of them
+		// need to be checked.
+		final boolean[] outgoing = new boolean[nodeCount];
+		final boolean[] incoming = new boolean[nodeCount];
+		int connectivity = nodeCount - 1;
+		for(int fromIndex = 0; (fromIndex < nodeCount) && (fromIndex <= connectivity); fromIndex++)
+		{
+			Arrays.fill(outgoing, false);
+			Arrays.fill(incoming, false);
+			for(int position = adjacency.getNeighborStart(fromIndex); position < adjacency.getNeighborEnd(fromIndex); position++)
+				outgoing[adjacency.getNeighbor(position)] = true;
+			for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+				for(int position = adjacency.getNeighborStart(nodeIndex); position < adjacency.getNeighborEnd(nodeIndex); position++)
+					if( adjacency.getNeighbor(position) == fromIndex )
+						incoming[nodeIndex] = true;
+
+			for(int toIndex = 0; toIndex < nodeCount; toIndex++)
+			{
+				if( toIndex == fromIndex )
+					continue;
+				if( !outgoing[toIndex] )
+					connectivity = Math.min(connectivity, network.getMaximumFlow((fromIndex * 2) + 1, toIndex * 2, connectivity));
+				if( !incoming[toIndex] )
+					connectivity = Math.min(connectivity, network.getMaximumFlow((toIndex * 2) + 1, fromIndex * 2, connectivity));
+			}
+		}
+		return connectivity;
 	}
 
+	/**
+	 * Gets the edge connectivity of the graph, the smallest number of edges
+	 * which must be removed so the remaining graph is no longer strongly
+	 * connected. This is calculated with one maximum flow computation in each
+	 * direction between the first node and every other node.
+	 * @return the edge connectivity of the graph
+	 */
 	public static <N, E extends Edge<N>> int getEdgeConnectivity(final Graph<N, E> graph)
 	{
 		if( graph instanceof WeakConnectivityOptimizedGraph )
@@ -501,15 +717,32 @@ public final class Topography
 			}
 		}
 
-		final Set<Set<E>> combinations = Counters.everyCombination(graph.getEdges());
-		final SortedSet<Set<E>> sortedCombinations = new TreeSet<Set<E>>(new SizeComparator());
-		sortedCombinations.addAll(combinations);
-		for(final Set<E> cutEdges : sortedCombinations)
-			if( Topography.isCut(graph, cutEdges) )
-				return cutEdges.size();
-		return graph.getEdges().size();
+		final IndexedAdjacency<N> adjacency = IndexedAdjacency.traversable(graph);
+		final int nodeCount = adjacency.getNodeCount();
+		if( nodeCount < 2 )
+			return 0;
+		final FlowNetwork network = Topography.buildEdgeFlowNetwork(adjacency);
+
+		// every cut separates the first node from some other node in one
+		// direction or the other
+		int connectivity = adjacency.getNeighborCount();
+		for(int nodeIndex = 1; (nodeIndex < nodeCount) && (connectivity > 0); nodeIndex++)
+		{
+			connectivity = Math.min(connectivity, network.getMaximumFlow(0, nodeIndex, connectivity));
+			connectivity = Math.min(connectivity, network.getMaximumFlow(nodeIndex, 0, connectivity));
+		}
+		return connectivity;
 	}
 
+	/**
+	 * Gets the smallest number of nodes, other than begin and end, which must be
+	 * removed so end can no longer be traversed to from begin. This is the
+	 * maximum number of paths from begin to end which share no nodes other than
+	 * their end points.
+	 * @return the number of nodes separating begin from end, or the number of
+	 *         nodes in the graph if end is adjacent to begin and no set of
+	 *         nodes separates them
+	 */
 	public static <N, E extends Edge<N>> int getNodeConnectivity(final Graph<N, E> graph, final N begin, final N end)
 	{
 		if( graph instanceof WeakConnectivityOptimizedGraph )
@@ -525,15 +758,21 @@ public final class Topography
 			}
 		}
 
-		final Set<Set<N>> combinations = Counters.everyCombination(graph.getNodes());
-		final SortedSet<Set<N>> sortedCombinations = new TreeSet<Set<N>>(new SizeComparator());
-		sortedCombinations.addAll(combinations);
-		for(final Set<N> cutNodes : sortedCombinations)
-			if( Topography.isCut(graph, cutNodes, Collections.<E>emptySet(), begin, end) )
-				return cutNodes.size();
-		return graph.getNodes().size();
+		final IndexedAdjacency<N> adjacency = IndexedAdjacency.traversable(graph);
+		final int beginIndex = Topography.getPairIndex(adjacency, begin, end, "begin");
+		final int endIndex = Topography.getPairIndex(adjacency, end, begin, "end");
+		final int nodeCount = adjacency.getNodeCount();
+		// the flow can only reach the node count when begin is adjacent to end,
+		// in which case no set of nodes separates them
+		return Topography.buildNodeFlowNetwork(adjacency).getMaximumFlow((beginIndex * 2) + 1, endIndex * 2, nodeCount);
 	}
 
+	/**
+	 * Gets the smallest number of edges which must be removed so end can no
+	 * longer be traversed to from begin. This is the maximum number of paths
+	 * from begin to end which share no edges.
+	 * @return the number of edges separating begin from end
+	 */
 	public static <N, E extends Edge<N>> int getEdgeConnectivity(final Graph<N, E> graph, final N begin, final N end)
 	{
 		if( graph instanceof WeakConnectivityOptimizedGraph )
@@ -549,13 +788,166 @@ public final class Topography
 			}
 		}
 
-		final Set<Set<E>> combinations = Counters.everyCombination(graph.getEdges());
-		final SortedSet<Set<E>> sortedCombinations = new TreeSet<Set<E>>(new SizeComparator());
-		sortedCombinations.addAll(combinations);
-		for(final Set<E> cutEdges : sortedCombinations)
-			if( Topography.isCut(graph, cutEdges, begin, end) )
-				return cutEdges.size();
-		return graph.getEdges().size();
+		final IndexedAdjacency<N> adjacency = IndexedAdjacency.traversable(graph);
+		final int beginIndex = Topography.getPairIndex(adjacency, begin, end, "begin");
+		final int endIndex = Topography.getPairIndex(adjacency, end, begin, "end");
+		return Topography.buildEdgeFlowNetwork(adjacency).getMaximumFlow(beginIndex, endIndex, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Gets a minimum weight cut of the graph using the Stoer-Wagner algorithm.
+	 * The direction of edges is ignored. Edges which implement Weighted count
+	 * for their weight, all other edges count as one. The nodes are split in to
+	 * two non-empty sides such that the total weight of the edges between the
+	 * sides is as small as possible. The calculation takes time cubic, and
+	 * memory quadratic, in the number of nodes.
+	 *
+	 * @param graph the graph to cut.
+	 * @return the edges which cross the minimum cut, empty if the graph has
+	 *         fewer than two nodes or is not connected.
+	 * @throws IllegalArgumentException if an edge does not have exactly two end
+	 *         points or has a negative weight.
+	 */
+	public static <N, E extends Edge<N>> Set<E> getMinimumCut(final Graph<N, E> graph)
+	{
+		final List<N> nodes = new ArrayList<N>(graph.getNodes());
+		final Map<N, Integer> indexes = Topography.indexNodes(nodes);
+		final int nodeCount = nodes.size();
+		if( nodeCount < 2 )
+			return Collections.<E>emptySet();
+
+		final double[][] weights = new double[nodeCount][nodeCount];
+		for(final E edge : graph.getEdges())
+		{
+			if( edge.getNodes().size() != 2 )
+				throw new IllegalArgumentException("graph can only contain edges with two end points");
+			final double weight = ( edge instanceof Weighted ? ((Weighted)edge).getWeight() : 1.0 );
+			if( !(weight >= 0.0) )
+				throw new IllegalArgumentException("graph can not contain edges with negative weights");
+			final int firstIndex = indexes.get(edge.getNodes().get(0));
+			final int secondIndex = indexes.get(edge.getNodes().get(1));
+			if( firstIndex != secondIndex )
+			{
+				weights[firstIndex][secondIndex] += weight;
+				weights[secondIndex][firstIndex] += weight;
+			}
+		}
+
+		//nodes merged together are kept as linked lists threaded through nextMembers
+		final int[] nextMembers = new int[nodeCount];
+		final int[] lastMembers = new int[nodeCount];
+		final int[] activeNodes = new int[nodeCount];
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+		{
+			nextMembers[nodeIndex] = -1;
+			lastMembers[nodeIndex] = nodeIndex;
+			activeNodes[nodeIndex] = nodeIndex;
+		}
+
+		final boolean[] bestSide = new boolean[nodeCount];
+		final double[] connections = new double[nodeCount];
+		final boolean[] added = new boolean[nodeCount];
+		double bestWeight = Double.POSITIVE_INFINITY;
+		for(int activeCount = nodeCount; activeCount > 1; activeCount--)
+		{
+			//maximum adjacency ordering of the remaining nodes
+			for(int activeIndex = 0; activeIndex < activeCount; activeIndex++)
+			{
+				connections[activeNodes[activeIndex]] = 0.0;
+				added[activeNodes[activeIndex]] = false;
+			}
+			int previous = -1;
+			int last = -1;
+			int lastPosition = -1;
+			for(int order = 0; order < activeCount; order++)
+			{
+				int selectedPosition = -1;
+				for(int activeIndex = 0; activeIndex < activeCount; activeIndex++)
+				{
+					final int candidate = activeNodes[activeIndex];
+					if( !added[candidate] && ((selectedPosition < 0) || (connections[candidate] > connections[activeNodes[selectedPosition]])) )
+						selectedPosition = activeIndex;
+				}
+				final int selected = activeNodes[selectedPosition];
+				added[selected] = true;
+				previous = last;
+				last = selected;
+				lastPosition = selectedPosition;
+				for(int activeIndex = 0; activeIndex < activeCount; activeIndex++)
+					if( !added[activeNodes[activeIndex]] )
+						connections[activeNodes[activeIndex]] += weights[selected][activeNodes[activeIndex]];
+			}
+
+			//the last node added and everything merged in to it form a cut
+			if( connections[last] < bestWeight )
+			{
+				bestWeight = connections[last];
+				Arrays.fill(bestSide, false);
+				for(int member = last; member >= 0; member = nextMembers[member])
+					bestSide[member] = true;
+			}
+
+			//merge the last node in to the one added before it
+			for(int activeIndex = 0; activeIndex < activeCount; activeIndex++)
+			{
+				final int other = activeNodes[activeIndex];
+				weights[previous][other] += weights[last][other];
+				weights[other][previous] = weights[previous][other];
+			}
+			weights[previous][previous] = 0.0;
+			nextMembers[lastMembers[previous]] = last;
+			lastMembers[previous] = lastMembers[last];
+			activeNodes[lastPosition] = activeNodes[activeCount - 1];
+		}
+
+		final Set<E> cutEdges = new HashSet<E>();
+		for(final E edge : graph.getEdges())
+			if( bestSide[indexes.get(edge.getNodes().get(0))] != bestSide[indexes.get(edge.getNodes().get(1))] )
+				cutEdges.add(edge);
+		return cutEdges;
+	}
+
+	private static <N> int getPairIndex(final IndexedAdjacency<N> adjacency, final N node, final N otherNode, final String name)
+	{
+		final int index = adjacency.getIndex(node);
+		if( index < 0 )
+			throw new IllegalArgumentException(name + " is not a node in the graph");
+		if( node.equals(otherNode) )
+			throw new IllegalArgumentException("begin and end must be different nodes");
+		return index;
+	}
+
+	/**
+	 * Each traversable connection becomes an arc with a capacity of one.
+	 */
+	private static <N> FlowNetwork buildEdgeFlowNetwork(final IndexedAdjacency<N> adjacency)
+	{
+		final FlowNetwork network = new FlowNetwork(adjacency.getNodeCount(), adjacency.getNeighborCount());
+		for(int nodeIndex = 0; nodeIndex < adjacency.getNodeCount(); nodeIndex++)
+			for(int position = adjacency.getNeighborStart(nodeIndex); position < adjacency.getNeighborEnd(nodeIndex); position++)
+				if( adjacency.getNeighbor(position) != nodeIndex )
+					network.addArc(nodeIndex, adjacency.getNeighbor(position), 1);
+		return network;
+	}
+
+	/**
+	 * Each node is split in to an entry, at twice its index, and an exit, one
+	 * after that, joined by an arc with a capacity of one. Traversable
+	 * connections go from the exit of one node to the entry of another and can
+	 * not be saturated.
+	 */
+	private static <N> FlowNetwork buildNodeFlowNetwork(final IndexedAdjacency<N> adjacency)
+	{
+		final int nodeCount = adjacency.getNodeCount();
+		final FlowNetwork network = new FlowNetwork(nodeCount * 2, nodeCount + adjacency.getNeighborCount());
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+		{
+			network.addArc(nodeIndex * 2, (nodeIndex * 2) + 1, 1);
+			for(int position = adjacency.getNeighborStart(nodeIndex); position < adjacency.getNeighborEnd(nodeIndex); position++)
+				if( adjacency.getNeighbor(position) != nodeIndex )
+					network.addArc((nodeIndex * 2) + 1, adjacency.getNeighbor(position) * 2, nodeCount);
+		}
+		return network;
 	}
 
 	public static <N, E extends Edge<N>> boolean isComplete(final Graph<N, E> graph)
@@ -685,6 +1077,16 @@ public final class Topography
 		return false;
 	}
 
+	/**
+	 * Determines if two graphs have the same structure, meaning there is a
+	 * one to one mapping between their nodes which keeps every edge. The graphs
+	 * do not need to share any nodes.
+	 *
+	 * @param graph the first graph to compare.
+	 * @param isomorphicGraph the second graph to compare.
+	 * @return true if the graphs are isomorphic.
+	 * @see GraphMatcher
+	 */
 	public static <N, E extends Edge<N>> boolean isIsomorphic(final Graph<N, E> graph, final Graph<N, E> isomorphicGraph)
 	{
 		if( graph instanceof StructureOptimizedGraph )
@@ -700,7 +1102,35 @@ public final class Topography
 			}
 		}
 
-		return (Topography.isHomomorphic(graph, isomorphicGraph) && Topography.isHomomorphic(isomorphicGraph, graph));
+		return new GraphMatcher<N, N>(graph, isomorphicGraph, GraphMatcher.Mode.ISOMORPHISM).isMatched();
+	}
+
+	/**
+	 * Finds a mapping from the nodes of one graph to the nodes of another which
+	 * keeps every edge in both directions.
+	 *
+	 * @param graph the graph whose nodes are mapped.
+	 * @param isomorphicGraph the graph the nodes are mapped onto.
+	 * @return a mapping from every node in graph to a node in isomorphicGraph,
+	 *         or null if the graphs are not isomorphic.
+	 */
+	public static <N, E extends Edge<N>> Map<N, N> getIsomorphism(final Graph<N, E> graph, final Graph<N, E> isomorphicGraph)
+	{
+		return new GraphMatcher<N, N>(graph, isomorphicGraph, GraphMatcher.Mode.ISOMORPHISM).getMatch();
+	}
+
+	/**
+	 * Determines if some subgraph of graph is isomorphic to the specified
+	 * subgraph, that is if the nodes of subgraph can be mapped onto distinct
+	 * nodes of graph so every edge of subgraph is kept.
+	 *
+	 * @param graph the graph to search in.
+	 * @param subgraph the graph to search for.
+	 * @return true if graph contains a copy of subgraph.
+	 */
+	public static <N, E extends Edge<N>> boolean isSubgraphIsomorphic(final Graph<N, E> graph, final Graph<N, E> subgraph)
+	{
+		return new GraphMatcher<N, N>(subgraph, graph, GraphMatcher.Mode.SUBGRAPH).isMatched();
 	}
 
 	public static <N, E extends Edge<N>> boolean isHomomorphic(final Graph<N, E> graph, final Graph<N, E> homomorphicGraph)
@@ -1198,52 +1628,4 @@ public final class Topography
 		// still connected
 		return new ImmutableAdjacencyGraph<N, Edge<N>>(cutNodes, cutEdges);
 	}
-
-	/**
-	 * A SizeComparator compares two collections solely based on size.
-	 */
-	private static class SizeComparator implements Comparator<Collection<?>>, Serializable
-	{
-		private static final long serialVersionUID = -4454396728238585057L;
-
-		/**
-		 * Compares the two collections based on their size.
-		 * @param first The first collection
-		 * @param second The second collection
-		 * @return Which collection is larger
-		 * @see java.util.Comparator#compare(Object, Object)
-		 */
-		@Override
-		public int compare(final Collection<?> first, final Collection<?> second)
-		{
-			if( first.size() < second.size() )
-				return -1;
-			else if( first.size() > second.size() )
-				return 1;
-			return 0;
-		}
-
-		/**
-		 * Returns true if the given object is a non-null SizeComparator. As this class
-		 * has no state, all SizeComparators are equal.
-		 * @param compareWith The object to compare with
-		 * @return If the object is a non-null SizeComparator
-		 */
-		@Override
-		public boolean equals(final Object compareWith)
-		{
-			if( compareWith == null )
-				return false;
-
-			return (compareWith instanceof SizeComparator);
-		}
-
-
-		@Override
-		public int hashCode()
-		{
-			//Method only implemented for checkstyle reasons.
-			return super.hashCode(); //Default implementation; may need to bring in line to equals
-		}
-	}
 }
@@ -0,0 +1,156 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological.sorter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import com.syncleus.dann.graph.BidirectedGraph;
+import com.syncleus.dann.graph.DirectedEdge;
+
+/**
+ * Ranks the nodes of a directed acyclic graph using Kahn's algorithm, where the
+ * nodes of each rank are processed concurrently. The in-degree counters are
+ * decremented atomically and the nodes they release are gathered in to the
+ * next rank, so the result is the same as SimpleTopologicalRanker. This pays
+ * off for graphs with wide ranks; for narrow graphs the sequential ranker is
+ * faster.
+ *
+ * @param <N> The node type
+ */
+public class ParallelTopologicalRanker<N> extends SimpleTopologicalRanker<N>
+{
+	private static final int SEQUENTIAL_THRESHOLD = 1024;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a ranker which uses the common fork/join pool.
+	 */
+	public ParallelTopologicalRanker()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ParallelTopologicalRanker(final ForkJoinPool pool)
+	{
+		if( pool == null )
+			throw new IllegalArgumentException("pool can not be null");
+		this.pool = pool;
+	}
+
+	@Override
+	public List<Set<N>> rank(final BidirectedGraph<? extends N, ? extends DirectedEdge<? extends N>> graph)
+	{
+		final RankingGraph<N> rankingGraph = RankingGraph.build(graph);
+		final AtomicIntegerArray inDegrees = new AtomicIntegerArray(rankingGraph.getInDegrees());
+
+		int[] frontier = new int[rankingGraph.getNodeCount()];
+		int[] nextFrontier = new int[rankingGraph.getNodeCount()];
+		int frontierSize = rankingGraph.getRoots(frontier);
+		final AtomicInteger nextFrontierSize = new AtomicInteger();
+		int rankedCount = 0;
+		final List<Set<N>> topologicalNodes = new ArrayList<Set<N>>();
+		while( frontierSize > 0 )
+		{
+			nextFrontierSize.set(0);
+			this.pool.invoke(new RankTask<N>(rankingGraph, inDegrees, frontier, 0, frontierSize, nextFrontier, nextFrontierSize));
+
+			topologicalNodes.add(rankingGraph.toNodeSet(frontier, frontierSize));
+			rankedCount += frontierSize;
+
+			final int[] swap = frontier;
+			frontier = nextFrontier;
+			frontierSize = nextFrontierSize.get();
+			nextFrontier = swap;
+		}
+
+		//any node never reaching an in degree of 0 is part of or behind a cycle
+		if( rankedCount < rankingGraph.getNodeCount() )
+			return null;
+		return topologicalNodes;
+	}
+
+	/**
+	 * Removes the outgoing edges of a range of the current rank. Nodes released
+	 * by a leaf are buffered locally and then copied in to the next rank as a
+	 * single block.
+	 */
+	private static final class RankTask<N> extends RecursiveAction
+	{
+		private static final long serialVersionUID = 5370312986120528147L;
+		private final RankingGraph<N> rankingGraph;
+		private final AtomicIntegerArray inDegrees;
+		private final int[] frontier;
+		private final int start;
+		private final int end;
+		private final int[] nextFrontier;
+		private final AtomicInteger nextFrontierSize;
+
+		private RankTask(final RankingGraph<N> rankingGraph, final AtomicIntegerArray inDegrees, final int[] frontier, final int start, final int end, final int[] nextFrontier, final AtomicInteger nextFrontierSize)
+		{
+			this.rankingGraph = rankingGraph;
+			this.inDegrees = inDegrees;
+			this.frontier = frontier;
+			this.start = start;
+			this.end = end;
+			this.nextFrontier = nextFrontier;
+			this.nextFrontierSize = nextFrontierSize;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if( this.end - this.start > SEQUENTIAL_THRESHOLD )
+			{
+				final int middle = (this.start + this.end) >>> 1;
+				invokeAll(new RankTask<N>(this.rankingGraph, this.inDegrees, this.frontier, this.start, middle, this.nextFrontier, this.nextFrontierSize),
+						new RankTask<N>(this.rankingGraph, this.inDegrees, this.frontier, middle, this.end, this.nextFrontier, this.nextFrontierSize));
+				return;
+			}
+
+			int[] released = new int[this.end - this.start];
+			int releasedCount = 0;
+			for(int frontierIndex = this.start; frontierIndex < this.end; frontierIndex++)
+			{
+				final int nodeIndex = this.frontier[frontierIndex];
+				for(int position = this.rankingGraph.getTargetStart(nodeIndex); position < this.rankingGraph.getTargetEnd(nodeIndex); position++)
+				{
+					final int targetIndex = this.rankingGraph.getTarget(position);
+					if( this.inDegrees.decrementAndGet(targetIndex) == 0 )
+					{
+						if( releasedCount == released.length )
+							released = Arrays.copyOf(released, released.length * 2);
+						released[releasedCount++] = targetIndex;
+					}
+				}
+			}
+
+			if( releasedCount > 0 )
+			{
+				final int offset = this.nextFrontierSize.getAndAdd(releasedCount);
+				System.arraycopy(released, 0, this.nextFrontier, offset, releasedCount);
+			}
+		}
+	}
+}
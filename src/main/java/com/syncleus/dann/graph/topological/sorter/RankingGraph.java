@@ -0,0 +1,137 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological.sorter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.syncleus.dann.graph.BidirectedGraph;
+import com.syncleus.dann.graph.DirectedEdge;
+
+/**
+ * The outgoing edges and in-degrees of a directed graph stored against dense
+ * node indexes, shared by the topological rankers.
+ */
+final class RankingGraph<N>
+{
+	private final List<N> nodes;
+	private final int[] inDegrees;
+	private final int[] targetStarts;
+	private final int[] targets;
+
+	private RankingGraph(final List<N> nodes, final int[] inDegrees, final int[] targetStarts, final int[] targets)
+	{
+		this.nodes = nodes;
+		this.inDegrees = inDegrees;
+		this.targetStarts = targetStarts;
+		this.targets = targets;
+	}
+
+	static <N> RankingGraph<N> build(final BidirectedGraph<? extends N, ? extends DirectedEdge<? extends N>> graph)
+	{
+		final List<N> nodes = new ArrayList<N>(graph.getNodes());
+		final int nodeCount = nodes.size();
+		final Map<N, Integer> indexes = new HashMap<N, Integer>(nodeCount * 2);
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			indexes.put(nodes.get(nodeIndex), nodeIndex);
+
+		final List<? extends DirectedEdge<? extends N>> edges = new ArrayList<DirectedEdge<? extends N>>(graph.getEdges());
+		final int edgeCount = edges.size();
+		final int[] sources = new int[edgeCount];
+		final int[] destinations = new int[edgeCount];
+		final int[] inDegrees = new int[nodeCount];
+		final int[] targetStarts = new int[nodeCount + 1];
+		for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+		{
+			final DirectedEdge<? extends N> edge = edges.get(edgeIndex);
+			final Integer sourceIndex = indexes.get(edge.getSourceNode());
+			final Integer destinationIndex = indexes.get(edge.getDestinationNode());
+			if( (sourceIndex == null) || (destinationIndex == null) )
+				throw new IllegalArgumentException("A node that is an end point in one of the edges was not in the nodes list");
+			sources[edgeIndex] = sourceIndex;
+			destinations[edgeIndex] = destinationIndex;
+			inDegrees[destinationIndex]++;
+			targetStarts[sourceIndex + 1]++;
+		}
+		for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			targetStarts[nodeIndex + 1] += targetStarts[nodeIndex];
+		final int[] fill = new int[nodeCount];
+		System.arraycopy(targetStarts, 0, fill, 0, nodeCount);
+		final int[] targets = new int[edgeCount];
+		for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+			targets[fill[sources[edgeIndex]]++] = destinations[edgeIndex];
+
+		return new RankingGraph<N>(nodes, inDegrees, targetStarts, targets);
+	}
+
+	int getNodeCount()
+	{
+		return this.nodes.size();
+	}
+
+	/**
+	 * Gets the in-degree counters of the nodes. The array is owned by this
+	 * object and meant to be counted down by a single ranking.
+	 */
+	int[] getInDegrees()
+	{
+		return this.inDegrees;
+	}
+
+	/**
+	 * Stores the indexes of every node without incoming edges in roots, which
+	 * must have room for every node.
+	 *
+	 * @return the number of roots stored.
+	 */
+	int getRoots(final int[] roots)
+	{
+		int rootCount = 0;
+		for(int nodeIndex = 0; nodeIndex < this.inDegrees.length; nodeIndex++)
+			if( this.inDegrees[nodeIndex] == 0 )
+				roots[rootCount++] = nodeIndex;
+		return rootCount;
+	}
+
+	int getTargetStart(final int nodeIndex)
+	{
+		return this.targetStarts[nodeIndex];
+	}
+
+	int getTargetEnd(final int nodeIndex)
+	{
+		return this.targetStarts[nodeIndex + 1];
+	}
+
+	int getTarget(final int position)
+	{
+		return this.targets[position];
+	}
+
+	Set<N> toNodeSet(final int[] nodeIndexes, final int count)
+	{
+		final Set<N> nodeSet = new HashSet<N>(count * 2);
+		for(int index = 0; index < count; index++)
+			nodeSet.add(this.nodes.get(nodeIndexes[index]));
+		return nodeSet;
+	}
+}
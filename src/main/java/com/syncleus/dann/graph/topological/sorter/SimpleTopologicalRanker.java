@@ -19,86 +19,84 @@
 package com.syncleus.dann.graph.topological.sorter;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import com.syncleus.dann.graph.BidirectedGraph;
 import com.syncleus.dann.graph.DirectedEdge;
 
+/**
+ * Ranks the nodes of a directed acyclic graph using Kahn's algorithm. Every
+ * node is given a dense index and the in-degree of each node is kept in a
+ * primitive counter. The first rank holds all nodes without incoming edges,
+ * each following rank holds the nodes whose last remaining incoming edge came
+ * from the rank before it. Each edge is visited once, so ranking takes time
+ * linear to the number of nodes and edges.
+ *
+ * @param <N> The node type
+ */
 public class SimpleTopologicalRanker<N> implements TopologicalRanker<N>
 {
+	/**
+	 * Ranks the nodes of the graph.
+	 *
+	 * @param graph the graph to rank.
+	 * @return the nodes in rank order, or null if the graph contains a cycle
+	 *         and can not be ranked.
+	 */
 	@Override
 	public List<Set<N>> rank(final BidirectedGraph<? extends N, ? extends DirectedEdge<? extends N>> graph)
 	{
-		//initialize data structures
-		final Set<N> remainingNodes = new HashSet<N>(graph.getNodes());
-		final Set<DirectedEdge<? extends N>> remainingEdges = new HashSet<DirectedEdge<? extends N>>(graph.getEdges());
-		final Map<N, Set<DirectedEdge<? extends N>>> remainingNeighborEdges = new HashMap<N, Set<DirectedEdge<? extends N>>>();
+		final RankingGraph<N> rankingGraph = RankingGraph.build(graph);
+		final int[] inDegrees = rankingGraph.getInDegrees();
 
-		//construct the remainingNeighborEdges with the entire graphs adjacency
-		for(final DirectedEdge<? extends N> edge : remainingEdges )
-		{
-			for(final N edgeNode : edge.getNodes())
-			{
-				if( !remainingNodes.contains(edgeNode) )
-					throw new IllegalArgumentException("A node that is an end point in one of the edges was not in the nodes list");
-				java.util.Set<com.syncleus.dann.graph.DirectedEdge<? extends N>> startNeighborEdges = remainingNeighborEdges.get(edgeNode);
-				if( startNeighborEdges == null )
-				{
-					startNeighborEdges = new java.util.HashSet<com.syncleus.dann.graph.DirectedEdge<? extends N>>();
-					remainingNeighborEdges.put(edgeNode, startNeighborEdges);
-				}
-				startNeighborEdges.add(edge);
-			}
-		}
-
-		//pull all nodes of 0 degree then delete as long as nodes are left
+		int[] frontier = new int[rankingGraph.getNodeCount()];
+		int[] nextFrontier = new int[rankingGraph.getNodeCount()];
+		int frontierSize = rankingGraph.getRoots(frontier);
+		int rankedCount = 0;
 		final List<Set<N>> topologicalNodes = new ArrayList<Set<N>>();
-		while( !remainingNodes.isEmpty() )
+		while( frontierSize > 0 )
 		{
-			//find all nodes current with a in degree of 0
-			final Set<N> currentRootNodes = new HashSet<N>();
-			for(final N node : remainingNodes )
-				if( getIndegree(remainingEdges, node) == 0 )
-					currentRootNodes.add(node);
-
-			//if no nodes were found yet some are still remaining then this cant be sorted
-			if( currentRootNodes.isEmpty() )
-				return null;
-
-			//now lets delete all the nodes we found
-			for(N node : currentRootNodes)
+			int nextFrontierSize = 0;
+			for(int frontierIndex = 0; frontierIndex < frontierSize; frontierIndex++)
 			{
-				final Set<DirectedEdge<? extends N>> neighbors = remainingNeighborEdges.get(node);
-				for(final DirectedEdge<? extends N> neighbor : neighbors)
+				final int nodeIndex = frontier[frontierIndex];
+				for(int position = rankingGraph.getTargetStart(nodeIndex); position < rankingGraph.getTargetEnd(nodeIndex); position++)
 				{
-					final List<N> adjacentNodes = new ArrayList<N>(neighbor.getNodes());
-					adjacentNodes.remove(node);
-					final N adjacentNode = adjacentNodes.get(0);
-
-					//delete the edge from the neighbor map
-					final Set<DirectedEdge<? extends N>> deleteFromEdges = remainingNeighborEdges.get(adjacentNode);
-					deleteFromEdges.remove(neighbor);
-
-					//delete the edge from edges
-					remainingEdges.remove(neighbor);
+					final int targetIndex = rankingGraph.getTarget(position);
+					if( --inDegrees[targetIndex] == 0 )
+						nextFrontier[nextFrontierSize++] = targetIndex;
 				}
-				remainingNodes.remove(node);
 			}
 
-			//lets add the current root nodes and continue
-			topologicalNodes.add(currentRootNodes);
+			topologicalNodes.add(rankingGraph.toNodeSet(frontier, frontierSize));
+			rankedCount += frontierSize;
+
+			final int[] swap = frontier;
+			frontier = nextFrontier;
+			frontierSize = nextFrontierSize;
+			nextFrontier = swap;
 		}
 
+		//any node never reaching an in degree of 0 is part of or behind a cycle
+		if( rankedCount < rankingGraph.getNodeCount() )
+			return null;
 		return topologicalNodes;
 	}
 
+	/**
+	 * Sorts the nodes of the graph so that every edge points from an earlier
+	 * node to a later one.
+	 *
+	 * @param graph the graph to sort.
+	 * @return the sorted nodes, or null if the graph contains a cycle and can
+	 *         not be sorted.
+	 */
 	@Override
 	public List<N> sort(final BidirectedGraph<? extends N, ? extends DirectedEdge<? extends N>> graph)
 	{
 		final List<Set<N>> rankedNodes = this.rank(graph);
+		if( rankedNodes == null )
+			return null;
 
 		//convert ranked nodes into sorted nodes
 		final List<N> sortedNodes = new ArrayList<N>(graph.getNodes().size());
@@ -107,13 +105,4 @@ public class SimpleTopologicalRanker<N> implements TopologicalRanker<N>
 
 		return sortedNodes;
 	}
-
-	private int getIndegree(final Set<DirectedEdge<? extends N>> edges, final N node)
-	{
-		int inDegree = 0;
-		for(final DirectedEdge<? extends N> edge : edges)
-			if( edge.getDestinationNode() == node )
-				inDegree++;
-		return inDegree;
-	}
 }
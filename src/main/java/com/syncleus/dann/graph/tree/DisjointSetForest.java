@@ -0,0 +1,137 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.tree;
+
+/**
+ * A disjoint-set forest over the dense indexes 0 to size - 1. Sets are merged
+ * by rank and paths are halved as they are searched, so any sequence of
+ * operations runs in near constant amortized time per operation.
+ *
+ * @author Jeffrey Phillips Freeman
+ * @since 2.0
+ */
+public final class DisjointSetForest
+{
+	private final int[] parents;
+	private final byte[] ranks;
+	private int setCount;
+
+	/**
+	 * Creates a forest where every index starts out in a set of its own.
+	 *
+	 * @param size the number of indexes in the forest.
+	 * @since 2.0
+	 */
+	public DisjointSetForest(final int size)
+	{
+		if( size < 0 )
+			throw new IllegalArgumentException("size can not be negative");
+		this.parents = new int[size];
+		this.ranks = new byte[size];
+		for(int index = 0; index < size; index++)
+			this.parents[index] = index;
+		this.setCount = size;
+	}
+
+	public int getSize()
+	{
+		return this.parents.length;
+	}
+
+	/**
+	 * Gets the number of disjoint sets remaining in the forest.
+	 *
+	 * @return the number of sets.
+	 * @since 2.0
+	 */
+	public int getSetCount()
+	{
+		return this.setCount;
+	}
+
+	/**
+	 * Finds the representative of the set containing the index, shortening the
+	 * path to the representative as it goes.
+	 *
+	 * @param index the index to look up.
+	 * @return the index representing the set containing index.
+	 * @since 2.0
+	 */
+	public int find(final int index)
+	{
+		int current = index;
+		while( this.parents[current] != current )
+		{
+			this.parents[current] = this.parents[this.parents[current]];
+			current = this.parents[current];
+		}
+		return current;
+	}
+
+	/**
+	 * Finds the representative of the set containing the index without
+	 * modifying the forest, so it may be called from several threads at once as
+	 * long as no thread is modifying the forest.
+	 *
+	 * @param index the index to look up.
+	 * @return the index representing the set containing index.
+	 * @since 2.0
+	 */
+	public int findWithoutCompression(final int index)
+	{
+		int current = index;
+		while( this.parents[current] != current )
+			current = this.parents[current];
+		return current;
+	}
+
+	/**
+	 * Merges the sets containing the two indexes.
+	 *
+	 * @param first an index in the first set.
+	 * @param second an index in the second set.
+	 * @return true if the sets were merged, false if both indexes were already in
+	 *         the same set.
+	 * @since 2.0
+	 */
+	public boolean union(final int first, final int second)
+	{
+		final int firstRoot = this.find(first);
+		final int secondRoot = this.find(second);
+		if( firstRoot == secondRoot )
+			return false;
+
+		if( this.ranks[firstRoot] < this.ranks[secondRoot] )
+			this.parents[firstRoot] = secondRoot;
+		else if( this.ranks[firstRoot] > this.ranks[secondRoot] )
+			this.parents[secondRoot] = firstRoot;
+		else
+		{
+			this.parents[secondRoot] = firstRoot;
+			this.ranks[firstRoot]++;
+		}
+		this.setCount--;
+		return true;
+	}
+
+	public boolean isSameSet(final int first, final int second)
+	{
+		return (this.find(first) == this.find(second));
+	}
+}
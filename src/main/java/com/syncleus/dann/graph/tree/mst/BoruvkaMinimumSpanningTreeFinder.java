@@ -0,0 +1,205 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.tree.mst;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import com.syncleus.dann.graph.Edge;
+import com.syncleus.dann.graph.Graph;
+import com.syncleus.dann.graph.Weighted;
+import com.syncleus.dann.graph.tree.DisjointSetForest;
+
+/**
+ * An implementation of
+ * <a href="http://en.wikipedia.org/wiki/Bor%C5%AFvka's_algorithm">
+ *     Bor&#367;vka's minimum spanning tree algorithm</a>.
+ * Each round every component selects the cheapest edge leaving it and all
+ * selected edges are added at once, so there are at most log V rounds. The
+ * search for the cheapest edges is split across a fork/join pool, which makes
+ * this implementation suited to graphs with millions of edges. Ties between
+ * equal weights are broken consistently so the result is the same no matter
+ * how the work is scheduled. If the given graph is connected it computes the
+ * minimum spanning tree, otherwise null is returned. This implementation uses
+ * the hashCode and equals method of the vertices.
+ *
+ * @param <N> The node type
+ * @param <E> The type of edge for the given node type
+ */
+public class BoruvkaMinimumSpanningTreeFinder<N, E extends Edge<N>> implements MinimumSpanningTreeFinder<N, E>
+{
+	private static final int NO_EDGE = -1;
+	private static final int MINIMUM_GRAIN = 1024;
+	private final ForkJoinPool pool;
+
+	public BoruvkaMinimumSpanningTreeFinder()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	public BoruvkaMinimumSpanningTreeFinder(final ForkJoinPool pool)
+	{
+		if( pool == null )
+			throw new IllegalArgumentException("pool can not be null");
+		this.pool = pool;
+	}
+
+	@Override
+	public Set<E> findMinimumSpanningTree(final Graph<N, E> graph)
+	{
+		final Map<N, Integer> nodeIndexes = new HashMap<N, Integer>(graph.getNodes().size() * 2);
+		for(final N node : graph.getNodes())
+			nodeIndexes.put(node, nodeIndexes.size());
+		final int nodeCount = nodeIndexes.size();
+
+		//the end points of edge i are edgeNodes[edgeStarts[i]] to edgeNodes[edgeStarts[i + 1] - 1]
+		final List<E> edges = new ArrayList<E>(graph.getEdges());
+		final int[] edgeStarts = new int[edges.size() + 1];
+		for(int edgeIndex = 0; edgeIndex < edges.size(); edgeIndex++)
+			edgeStarts[edgeIndex + 1] = edgeStarts[edgeIndex] + edges.get(edgeIndex).getNodes().size();
+		final int[] edgeNodes = new int[edgeStarts[edges.size()]];
+		final double[] weights = new double[edges.size()];
+		for(int edgeIndex = 0; edgeIndex < edges.size(); edgeIndex++)
+		{
+			final E edge = edges.get(edgeIndex);
+			int endIndex = edgeStarts[edgeIndex];
+			for(final N endNode : edge.getNodes())
+				edgeNodes[endIndex++] = nodeIndexes.get(endNode);
+			weights[edgeIndex] = (edge instanceof Weighted ? ((Weighted) edge).getWeight() : 0.0);
+		}
+
+		final DisjointSetForest components = new DisjointSetForest(nodeCount);
+		final int[] roots = new int[nodeCount];
+		final AtomicIntegerArray cheapest = new AtomicIntegerArray(nodeCount);
+		final Set<E> mstEdges = new HashSet<E>();
+		final int grain = Math.max(MINIMUM_GRAIN, edges.size() / (this.pool.getParallelism() * 4));
+		while( components.getSetCount() > 1 )
+		{
+			for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			{
+				roots[nodeIndex] = components.find(nodeIndex);
+				cheapest.set(nodeIndex, NO_EDGE);
+			}
+
+			this.pool.invoke(new CheapestEdgeTask(edgeStarts, edgeNodes, weights, roots, cheapest, 0, edges.size(), grain));
+
+			boolean merged = false;
+			for(int nodeIndex = 0; nodeIndex < nodeCount; nodeIndex++)
+			{
+				final int edgeIndex = cheapest.get(nodeIndex);
+				if( edgeIndex == NO_EDGE )
+					continue;
+				//two components may have selected the same edge
+				boolean edgeMerged = false;
+				for(int endIndex = edgeStarts[edgeIndex] + 1; endIndex < edgeStarts[edgeIndex + 1]; endIndex++)
+					if( components.union(edgeNodes[edgeStarts[edgeIndex]], edgeNodes[endIndex]) )
+						edgeMerged = true;
+				if( edgeMerged )
+				{
+					mstEdges.add(edges.get(edgeIndex));
+					merged = true;
+				}
+			}
+
+			//no edge leaves any of the remaining components
+			if( !merged )
+				return null;
+		}
+		return mstEdges;
+	}
+
+	private static boolean isCheaper(final double[] weights, final int edgeIndex, final int currentIndex)
+	{
+		if( currentIndex == NO_EDGE )
+			return true;
+		if( weights[edgeIndex] != weights[currentIndex] )
+			return (weights[edgeIndex] < weights[currentIndex]);
+		return (edgeIndex < currentIndex);
+	}
+
+	private static final class CheapestEdgeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = -2287126573385204128L;
+		private final int[] edgeStarts;
+		private final int[] edgeNodes;
+		private final double[] weights;
+		private final int[] roots;
+		private final AtomicIntegerArray cheapest;
+		private final int fromEdge;
+		private final int toEdge;
+		private final int grain;
+
+		private CheapestEdgeTask(final int[] edgeStarts, final int[] edgeNodes, final double[] weights, final int[] roots, final AtomicIntegerArray cheapest, final int fromEdge, final int toEdge, final int grain)
+		{
+			this.edgeStarts = edgeStarts;
+			this.edgeNodes = edgeNodes;
+			this.weights = weights;
+			this.roots = roots;
+			this.cheapest = cheapest;
+			this.fromEdge = fromEdge;
+			this.toEdge = toEdge;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if( (this.toEdge - this.fromEdge) > this.grain )
+			{
+				final int middle = (this.fromEdge + this.toEdge) >>> 1;
+				invokeAll(new CheapestEdgeTask(this.edgeStarts, this.edgeNodes, this.weights, this.roots, this.cheapest, this.fromEdge, middle, this.grain),
+						new CheapestEdgeTask(this.edgeStarts, this.edgeNodes, this.weights, this.roots, this.cheapest, middle, this.toEdge, this.grain));
+				return;
+			}
+
+			for(int edgeIndex = this.fromEdge; edgeIndex < this.toEdge; edgeIndex++)
+			{
+				final int firstRoot = this.roots[this.edgeNodes[this.edgeStarts[edgeIndex]]];
+				for(int endIndex = this.edgeStarts[edgeIndex] + 1; endIndex < this.edgeStarts[edgeIndex + 1]; endIndex++)
+				{
+					final int otherRoot = this.roots[this.edgeNodes[endIndex]];
+					if( otherRoot != firstRoot )
+					{
+						//the edge leaves both components so it is a candidate for each
+						this.offer(firstRoot, edgeIndex);
+						this.offer(otherRoot, edgeIndex);
+					}
+				}
+			}
+		}
+
+		private void offer(final int root, final int edgeIndex)
+		{
+			while( true )
+			{
+				final int currentIndex = this.cheapest.get(root);
+				if( !isCheaper(this.weights, edgeIndex, currentIndex) )
+					return;
+				if( this.cheapest.compareAndSet(root, currentIndex, edgeIndex) )
+					return;
+			}
+		}
+	}
+}
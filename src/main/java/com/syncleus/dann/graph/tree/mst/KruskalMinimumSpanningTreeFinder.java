@@ -19,70 +19,63 @@
 package com.syncleus.dann.graph.tree.mst;
 
 import java.io.Serializable;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import com.syncleus.dann.graph.Edge;
 import com.syncleus.dann.graph.Graph;
 import com.syncleus.dann.graph.Weighted;
+import com.syncleus.dann.graph.tree.DisjointSetForest;
 
 /**
  * An implementation of
  * <a href="http://en.wikipedia.org/wiki/Kruskal's_algorithm">
  *     Kruskal's minimum spanning tree algorithm</a>.
  * If the given graph is connected it computes the minimum spanning tree,
- * otherwise it computes the minimum spanning forest. The algorithm runs in time
- * O(E log E). This implementation uses the hashCode and equals method of the
- * vertices.
+ * otherwise null is returned. The edges are sorted in parallel and the
+ * components are tracked with a disjoint-set forest over dense node indexes,
+ * so the algorithm runs in time O(E log E). This implementation uses the
+ * hashCode and equals method of the vertices.
  * @author Jeffrey Phillips Freeman
  * @param <N> The node type
  * @param <E> The type of edge for the given node type
  */
 public class KruskalMinimumSpanningTreeFinder<N, E extends Edge<N>> implements MinimumSpanningTreeFinder<N, E>
 {
+	@SuppressWarnings("unchecked")
 	@Override
 	public Set<E> findMinimumSpanningTree(final Graph<N, E> graph)
 	{
-		final Set<Set<N>> componentNodeSets = new HashSet<Set<N>>();
+		final Map<N, Integer> nodeIndexes = new HashMap<N, Integer>(graph.getNodes().size() * 2);
 		for(final N node : graph.getNodes())
-			componentNodeSets.add(Collections.singleton(node));
-		final Queue<E> edgeQueue = new PriorityQueue<E>(graph.getEdges().size(), new WeightComparator<E>());
-		edgeQueue.addAll(graph.getEdges());
+			nodeIndexes.put(node, nodeIndexes.size());
+		final DisjointSetForest components = new DisjointSetForest(nodeIndexes.size());
+
+		final E[] sortedEdges = (E[]) graph.getEdges().toArray(new Edge<?>[graph.getEdges().size()]);
+		Arrays.parallelSort(sortedEdges, new WeightComparator<E>());
+
 		final Set<E> mstEdges = new HashSet<E>();
-		while( componentNodeSets.size() > 1 )
+		for(int edgeIndex = 0; (edgeIndex < sortedEdges.length) && (components.getSetCount() > 1); edgeIndex++)
 		{
-			//find all the componentNodeSets which contains one of the end points
-			//of the next edge
-			final E queuedEdge = edgeQueue.poll();
-			if( queuedEdge == null )
-				return null;
-			final Set<Set<N>> setContainingEndNodes = new HashSet<Set<N>>();
-			for(final Set<N> component : componentNodeSets)
-			{
-				for(final N endNode : queuedEdge.getNodes())
-				{
-					if( component.contains(endNode) )
-					{
-						setContainingEndNodes.add(component);
-					}
-				}
-			}
-			//if more than one set was found then merge them
-			if( setContainingEndNodes.size() > 1 )
-			{
-				final Set<N> mergedSet = new HashSet<N>();
-				for(final Set<N> toMerge : setContainingEndNodes)
-				{
-					mergedSet.addAll(toMerge);
-					componentNodeSets.remove(toMerge);
-				}
-				componentNodeSets.add(mergedSet);
+			//merge every component which contains one of the end points of the
+			//edge, if more than one component was merged the edge is kept
+			final E queuedEdge = sortedEdges[edgeIndex];
+			final List<N> endNodes = queuedEdge.getNodes();
+			final int firstIndex = nodeIndexes.get(endNodes.get(0));
+			boolean merged = false;
+			for(int endIndex = 1; endIndex < endNodes.size(); endIndex++)
+				if( components.union(firstIndex, nodeIndexes.get(endNodes.get(endIndex))) )
+					merged = true;
+			if( merged )
 				mstEdges.add(queuedEdge);
-			}
 		}
+
+		if( components.getSetCount() > 1 )
+			return null;
 		return mstEdges;
 	}
 
@@ -108,6 +108,7 @@ public abstract class AbstractLocalBrain<IN extends InputNeuron, ON extends Outp
 		{
 			this.outMap.get(newSynapse.getSourceNode()).add(newSynapse);
 			this.inMap.get(newSynapse.getDestinationNode()).add(newSynapse);
+			this.fireEdgeAdded(newSynapse);
 			return true;
 		}
 
@@ -135,6 +136,7 @@ public abstract class AbstractLocalBrain<IN extends InputNeuron, ON extends Outp
 				this.outputNeurons.add((ON)newNeuron);
 			if( newNeuron instanceof InputNeuron )
 				this.inputNeurons.add((IN) newNeuron);
+			this.fireNodeAdded(newNeuron);
 			return true;
 		}
 
@@ -156,6 +158,8 @@ public abstract class AbstractLocalBrain<IN extends InputNeuron, ON extends Outp
 		if( newNeurons.size() <= 0 )
 			return false;
 
+		final Set<N> addedNeurons = new HashSet<N>(newNeurons);
+		addedNeurons.removeAll(this.neurons);
 		final boolean added = this.neurons.addAll(newNeurons);
 
 		for(final N newNeuron : newNeurons)
@@ -168,6 +172,8 @@ public abstract class AbstractLocalBrain<IN extends InputNeuron, ON extends Outp
 			if( newNeuron instanceof InputNeuron )
 				this.inputNeurons.add((IN) newNeuron);
 		}
+		for(final N addedNeuron : addedNeurons)
+			this.fireNodeAdded(addedNeuron);
 
 		return added;
 	}
@@ -229,6 +235,7 @@ public abstract class AbstractLocalBrain<IN extends InputNeuron, ON extends Outp
 				this.outMap.get(removeSynapse.getSourceNode()).remove(removeSynapse);
 			if( this.inMap.containsKey(removeSynapse.getDestinationNode()) )
 				this.inMap.get(removeSynapse.getDestinationNode()).remove(removeSynapse);
+			this.fireEdgeRemoved(removeSynapse);
 			return true;
 		}
 		return false;
@@ -248,17 +255,20 @@ public abstract class AbstractLocalBrain<IN extends InputNeuron, ON extends Outp
 
 		if( this.neurons.remove(removeNeuron) )
 		{
-			final Set<Synapse> removeEdges = new HashSet<Synapse>();
+			final Set<S> removeEdges = new HashSet<S>();
 			if( this.outMap.containsKey(removeNeuron) )
 				removeEdges.addAll(this.outMap.remove(removeNeuron));
 			if( this.inMap.containsKey(removeNeuron) )
 				removeEdges.addAll(this.inMap.remove(removeNeuron));
 			this.synapses.removeAll(removeEdges);
+			for(final S removeEdge : removeEdges)
+				this.fireEdgeRemoved(removeEdge);
 
 			if( removeNeuron instanceof OutputNeuron )
 				this.outputNeurons.remove(removeNeuron);
 			if( removeNeuron instanceof InputNeuron )
 				this.inputNeurons.remove(removeNeuron);
+			this.fireNodeRemoved(removeNeuron);
 
 			return true;
 		}
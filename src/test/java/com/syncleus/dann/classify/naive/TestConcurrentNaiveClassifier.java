@@ -0,0 +1,216 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.*;
+import org.junit.*;
+
+public class TestConcurrentNaiveClassifier
+{
+	private static final int THREADS = 4;
+	private static final int ITEMS = 2000;
+
+	private static class SetExtractor implements FeatureExtractor<Integer, Set<Integer>>
+	{
+		@Override
+		public Set<Integer> getFeatures(final Set<Integer> item)
+		{
+			return item;
+		}
+	}
+
+	private static Set<Integer> item(final int index)
+	{
+		final Set<Integer> features = new HashSet<Integer>();
+		for(int feature = index % 50; feature < (index % 50) + 10; feature++)
+			features.add(feature);
+		return features;
+	}
+
+	private static String category(final int index)
+	{
+		return ((index % 50) < 25 ? "low" : "high");
+	}
+
+	@Test
+	public void testConcurrentTraining() throws InterruptedException
+	{
+		final ConcurrentNaiveClassifier<Set<Integer>, Integer, String> classifier = new ConcurrentNaiveClassifier<Set<Integer>, Integer, String>(new SetExtractor(), 8);
+		final Thread[] trainers = new Thread[THREADS];
+		for(int threadIndex = 0; threadIndex < THREADS; threadIndex++)
+		{
+			final int offset = threadIndex;
+			trainers[threadIndex] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for(int index = offset; index < ITEMS; index += THREADS)
+					{
+						classifier.train(item(index), category(index));
+						classifier.classification(item(index));
+					}
+				}
+			});
+			trainers[threadIndex].start();
+		}
+		for(final Thread trainer : trainers)
+			trainer.join();
+		classifier.publish();
+
+		final SimpleNaiveClassifier<Set<Integer>, Integer, String> sequential = new SimpleNaiveClassifier<Set<Integer>, Integer, String>(new SetExtractor());
+		for(int index = 0; index < ITEMS; index++)
+			sequential.train(item(index), category(index));
+
+		Assert.assertEquals(sequential.getCategories(), classifier.getCategories());
+		for(int feature = 0; feature < 60; feature++)
+			for(final String category : sequential.getCategories())
+				Assert.assertEquals(sequential.featureClassificationProbability(feature, category), classifier.featureClassificationProbability(feature, category), 0.0);
+		for(int index = 0; index < 50; index++)
+			Assert.assertEquals(sequential.classification(item(index)), classifier.classification(item(index)));
+	}
+
+	@Test
+	public void testSnapshotUnchanged()
+	{
+		final ConcurrentNaiveClassifier<Set<Integer>, Integer, String> classifier = new ConcurrentNaiveClassifier<Set<Integer>, Integer, String>(new SetExtractor());
+		classifier.train(item(0), "low");
+		final NaiveClassifier<Set<Integer>, Integer, String> snapshot = classifier.getSnapshot();
+		Assert.assertEquals(1.0, snapshot.featureClassificationProbability(0, "low"), 0.0);
+
+		classifier.train(item(0), "high");
+		classifier.publish();
+		Assert.assertEquals(1.0, snapshot.featureClassificationProbability(0, "low"), 0.0);
+		Assert.assertFalse(snapshot.getCategories().contains("high"));
+		Assert.assertEquals(0.0, snapshot.featureClassificationProbability(0, "high"), 0.0);
+		Assert.assertEquals(1.0, classifier.featureClassificationProbability(0, "high"), 0.0);
+		Assert.assertNotSame(snapshot, classifier.getSnapshot());
+	}
+
+	@Test
+	public void testPublishInterval()
+	{
+		final ConcurrentNaiveClassifier<Set<Integer>, Integer, String> classifier = new ConcurrentNaiveClassifier<Set<Integer>, Integer, String>(new SetExtractor());
+		classifier.setPublishInterval(Long.MAX_VALUE);
+		Assert.assertTrue(classifier.getCategories().isEmpty());
+		classifier.train(item(0), "low");
+		Assert.assertTrue(classifier.getCategories().isEmpty());
+
+		classifier.publish();
+		Assert.assertEquals(Collections.singleton("low"), classifier.getCategories());
+		classifier.train(item(0), "high");
+		Assert.assertEquals(1, classifier.getCategories().size());
+	}
+
+	@Test
+	public void testDefaultPublishInterval()
+	{
+		final ConcurrentNaiveClassifier<Set<Integer>, Integer, String> classifier = new ConcurrentNaiveClassifier<Set<Integer>, Integer, String>(new SetExtractor());
+		Assert.assertTrue(classifier.getPublishInterval() > 0);
+		classifier.train(item(0), "low");
+		final NaiveClassifier<Set<Integer>, Integer, String> snapshot = classifier.getSnapshot();
+		classifier.train(item(1), "low");
+		Assert.assertSame(snapshot, classifier.getSnapshot());
+	}
+
+	@Test
+	public void testSnapshotsHoldWholeItems() throws InterruptedException
+	{
+		final ConcurrentNaiveClassifier<Set<Integer>, Integer, String> classifier = new ConcurrentNaiveClassifier<Set<Integer>, Integer, String>(new SetExtractor(), 8);
+		final Thread[] trainers = new Thread[THREADS];
+		for(int threadIndex = 0; threadIndex < THREADS; threadIndex++)
+		{
+			trainers[threadIndex] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for(int index = 0; index < ITEMS; index++)
+						classifier.train(item(0), "low");
+				}
+			});
+			trainers[threadIndex].start();
+		}
+
+		//every item counts each of its features once, so a snapshot holding
+		//only whole items counts every feature as often as the category
+		boolean training = true;
+		while( training )
+		{
+			training = false;
+			for(final Thread trainer : trainers)
+				training |= trainer.isAlive();
+			classifier.publish();
+			final FeatureCountTable<Integer, String> counts = ((SimpleNaiveClassifier<Set<Integer>, Integer, String>) classifier.getSnapshot()).getCounts();
+			final int categoryId = counts.getCategoryId("low");
+			final int total = (categoryId < 0 ? 0 : counts.getCategoryTotal(categoryId));
+			for(int feature = 0; feature < 10; feature++)
+			{
+				final int featureId = counts.getFeatureId(feature);
+				Assert.assertEquals(total, (featureId < 0 ? 0 : counts.getCount(featureId, categoryId)));
+			}
+		}
+		Assert.assertEquals(THREADS * ITEMS, ((SimpleNaiveClassifier<Set<Integer>, Integer, String>) classifier.getSnapshot()).getCounts().getTotal());
+	}
+
+	@Test
+	public void testTrainingDuringPublish() throws InterruptedException
+	{
+		final Thread[] trainer = new Thread[1];
+		final ConcurrentNaiveClassifier<Set<Integer>, Integer, String> classifier = new ConcurrentNaiveClassifier<Set<Integer>, Integer, String>(new SetExtractor())
+		{
+			@Override
+			protected NaiveClassifier<Set<Integer>, Integer, String> createSnapshot(final FeatureCountTable<Integer, String> counts)
+			{
+				//trains from another thread while the publish is still running
+				if( trainer[0] != null )
+				{
+					trainer[0].start();
+					try
+					{
+						trainer[0].join(10000);
+					}
+					catch(InterruptedException caught)
+					{
+						Thread.currentThread().interrupt();
+					}
+					Assert.assertFalse(trainer[0].isAlive());
+				}
+				return super.createSnapshot(counts);
+			}
+		};
+		classifier.train(item(0), "low");
+		trainer[0] = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				classifier.train(item(0), "high");
+			}
+		});
+		classifier.publish();
+		Assert.assertEquals(Collections.singleton("low"), classifier.getCategories());
+
+		trainer[0] = null;
+		classifier.publish();
+		Assert.assertEquals(2, classifier.getCategories().size());
+		Assert.assertEquals(1.0, classifier.featureClassificationProbability(0, "high"), 0.0);
+		Assert.assertEquals(1.0, classifier.featureClassificationProbability(0, "low"), 0.0);
+	}
+}
@@ -0,0 +1,73 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.*;
+import org.junit.*;
+
+public class TestFeatureCountTable
+{
+	@Test
+	public void testCounts()
+	{
+		final FeatureCountTable<String, Integer> table = new FeatureCountTable<String, Integer>();
+		final int first = table.internCategory(1);
+		final int second = table.internCategory(2);
+		Assert.assertEquals(0, first);
+		Assert.assertEquals(1, second);
+		Assert.assertEquals(first, table.internCategory(1));
+
+		final int money = table.internFeature("money");
+		table.incrementFeature(money, first);
+		table.incrementFeature(money, first);
+		table.incrementFeature(money, second);
+		table.incrementCategory(first);
+		table.incrementCategory(second);
+
+		Assert.assertEquals(2, table.getCount(money, first));
+		Assert.assertEquals(1, table.getCount(money, second));
+		Assert.assertEquals(3, table.getFeatureTotal(money));
+		Assert.assertEquals(1, table.getCategoryTotal(first));
+		Assert.assertEquals(2, table.getTotal());
+		Assert.assertEquals(-1, table.getFeatureId("fox"));
+		Assert.assertEquals(-1, table.getCategoryId(3));
+		Assert.assertEquals(Arrays.asList(1, 2), new ArrayList<Integer>(table.getCategories()));
+		Assert.assertTrue(table.getCategories().contains(2));
+	}
+
+	@Test
+	public void testManyFeatures()
+	{
+		final FeatureCountTable<Integer, String> table = new FeatureCountTable<Integer, String>();
+		final int category = table.internCategory(null);
+		for(int feature = 0; feature < 100000; feature++)
+			table.incrementFeature(table.internFeature(feature * 31), category);
+
+		Assert.assertEquals(100000, table.getFeatureSize());
+		for(int feature = 0; feature < 100000; feature++)
+		{
+			final int featureId = table.getFeatureId(feature * 31);
+			Assert.assertEquals(feature, featureId);
+			Assert.assertEquals(Integer.valueOf(feature * 31), table.getFeature(featureId));
+			Assert.assertEquals(1, table.getCount(featureId, category));
+		}
+		Assert.assertNull(table.getCategory(category));
+		Assert.assertEquals(category, table.getCategoryId(null));
+	}
+}
@@ -0,0 +1,132 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive;
+
+import java.util.*;
+import com.syncleus.dann.classify.naive.bayes.SimpleNaiveBayesClassifier;
+import org.junit.*;
+
+public class TestHashingWordExtractor
+{
+	@Test
+	public void testMurmurHash()
+	{
+		//the reference vectors of the UTF-16LE bytes of each sequence
+		Assert.assertEquals(0, MurmurHash.hash("", 0));
+		Assert.assertEquals(0x514E28B7, MurmurHash.hash("", 1));
+		Assert.assertEquals(0xA0F7B07A, MurmurHash.hash("\u4321", 0));
+		Assert.assertEquals(0xF55B516B, MurmurHash.hash("\u4321\u8765", 0));
+		Assert.assertEquals(0x2362F9DE, MurmurHash.hash("\u4321\u8765", 0x5082EDEE));
+		Assert.assertEquals(0x76293B50, MurmurHash.hash("\uFFFF\uFFFF", 0));
+		Assert.assertEquals(MurmurHash.hash("money", 7), MurmurHash.hash(new StringBuilder("the money").subSequence(4, 9), 7));
+	}
+
+	@Test
+	public void testFeatures()
+	{
+		final HashingWordExtractor extractor = new HashingWordExtractor(1 << 16);
+		final Set<Integer> features = extractor.getFeatures("Money money fox, the FOX");
+		final Set<Integer> expected = new HashSet<Integer>();
+		for(final String word : Arrays.asList("money", "fox", "the"))
+			expected.add(extractor.getBucket(word));
+
+		Assert.assertEquals(expected, features);
+		Assert.assertEquals(expected.size(), features.size());
+		Assert.assertFalse(features.contains(-1));
+		int previous = -1;
+		for(final Integer bucket : features)
+		{
+			Assert.assertTrue(bucket > previous);
+			Assert.assertTrue(bucket < extractor.getBucketCount());
+			previous = bucket;
+		}
+	}
+
+	@Test
+	public void testCollisions()
+	{
+		final HashingWordExtractor single = new HashingWordExtractor(1);
+		single.getFeatures("money money money");
+		Assert.assertEquals(0, single.getOccupiedBuckets());
+		single.getTrainingFeatures("money money money");
+		Assert.assertEquals(1, single.getOccupiedBuckets());
+		Assert.assertEquals(0, single.getCollidedBuckets());
+		single.getTrainingFeatures("fox");
+		Assert.assertEquals(1, single.getCollidedBuckets());
+		Assert.assertTrue(Double.isInfinite(single.getEstimatedWordCount()));
+		single.resetStatistics();
+		Assert.assertEquals(0, single.getOccupiedBuckets());
+
+		final HashingWordExtractor extractor = new HashingWordExtractor(1 << 16);
+		final StringBuilder text = new StringBuilder();
+		for(int word = 0; word < 5000; word++)
+			text.append("w").append(word).append(' ');
+		Assert.assertEquals(extractor.getFeatures(text.toString()), extractor.getTrainingFeatures(text.toString()));
+		final int occupied = extractor.getOccupiedBuckets();
+		Assert.assertTrue(occupied > 4700);
+		Assert.assertEquals(5000 - occupied, extractor.getCollidedBuckets(), 10);
+		Assert.assertEquals(5000.0, extractor.getEstimatedWordCount(), 100.0);
+	}
+
+	@Test
+	public void testHashedTable()
+	{
+		final HashedFeatureCountTable<String> table = new HashedFeatureCountTable<String>(8);
+		Assert.assertEquals(8, table.getFeatureSize());
+		Assert.assertEquals(5, table.internFeature(5));
+		Assert.assertEquals(-1, table.getFeatureId(8));
+		Assert.assertEquals(-1, table.getFeatureId(null));
+		final int category = table.internCategory("spam");
+		table.incrementFeature(5, category);
+		table.incrementFeature(5, category);
+		table.incrementCategory(category);
+		Assert.assertEquals(2, table.getCount(5, category));
+		Assert.assertEquals(0, table.getCount(4, category));
+		Assert.assertEquals(2, table.getFeatureTotal(5));
+		Assert.assertEquals(1, table.getTrainedBuckets());
+		Assert.assertEquals(Integer.valueOf(5), table.getFeature(5));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInternOutOfRange()
+	{
+		new HashedFeatureCountTable<String>(8).internFeature(8);
+	}
+
+	@Test
+	public void testClassification()
+	{
+		final HashingWordExtractor extractor = new HashingWordExtractor(1 << 12);
+		final SimpleNaiveBayesClassifier<String, Integer, String> classifier = new SimpleNaiveBayesClassifier<String, Integer, String>(extractor, new HashedFeatureCountTable<String>(extractor.getBucketCount()));
+		classifier.train("Nobody owns the water.", "good");
+		classifier.train("the quick rabbit jumps fences", "good");
+		classifier.train("buy pharmaceuticals now", "bad");
+		classifier.train("make quick money at the online casino", "bad");
+		classifier.train("the quick brown fox jumps", "good");
+		final int occupied = extractor.getOccupiedBuckets();
+		Assert.assertTrue(occupied > 0);
+
+		Assert.assertEquals("good", classifier.classification("quick rabbit"));
+		Assert.assertEquals("bad", classifier.classification("quick money"));
+		//only training is recorded in the statistics
+		classifier.classification("an unseen query full of new words");
+		Assert.assertEquals(occupied, extractor.getOccupiedBuckets());
+		Assert.assertEquals("bad", classifier.featureClassification(extractor.getBucket("money")));
+	}
+}
@@ -0,0 +1,153 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive.bayes;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import com.syncleus.dann.classify.ClassificationListener;
+import com.syncleus.dann.classify.ParallelClassification;
+import com.syncleus.dann.classify.naive.bayes.fisher.StemmingLanguageFisherClassifier;
+import org.junit.*;
+
+public class TestBatchClassification
+{
+	private static final String[] DOCUMENTS = {"Money was here once", "Money destroys the quick brown fox!", "kills the soul", "nonsense is the root of good", "the fox wastes money", "space filler"};
+
+	private static <C extends SimpleNaiveBayesClassifier<String, String, Integer>> C train(final C classifier)
+	{
+		classifier.train("Money is the root of all evil!", 1);
+		classifier.train("Money destroys the soul", 1);
+		classifier.train("Money kills!", 1);
+		classifier.train("The quick brown fox.", 1);
+		classifier.train("Money should be here once", 2);
+		classifier.train("some nonsense to take up space", 2);
+		classifier.train("Even more nonsense cause we can", 2);
+		classifier.train("nonsense was the root of all good", 2);
+		classifier.train("just a filler to waste space", 2);
+		return classifier;
+	}
+
+	private static List<String> documents(final int count)
+	{
+		final List<String> documents = new ArrayList<String>(count);
+		for(int index = 0; index < count; index++)
+			documents.add(DOCUMENTS[index % DOCUMENTS.length]);
+		return documents;
+	}
+
+	private static void assertMatches(final SimpleNaiveBayesClassifier<String, String, Integer> classifier)
+	{
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			classifier.setPool(pool);
+			final List<String> documents = documents(10000);
+			final List<Integer> classifications = classifier.classifyAll(documents);
+			Assert.assertEquals(documents.size(), classifications.size());
+			for(int index = 0; index < documents.size(); index++)
+				Assert.assertEquals(classifier.classification(documents.get(index)), classifications.get(index));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testNaiveBayesBatch()
+	{
+		assertMatches(train(new StemmingLanguageNaiveBayesClassifier<Integer>()));
+	}
+
+	@Test
+	public void testFisherBatch()
+	{
+		assertMatches(train(new StemmingLanguageFisherClassifier<Integer>()));
+	}
+
+	@Test
+	public void testUnordered()
+	{
+		final SimpleNaiveBayesClassifier<String, String, Integer> classifier = train(new SimpleLanguageNaiveBayesClassifier<Integer>());
+		final List<String> documents = documents(9000);
+		final Integer[] classifications = new Integer[documents.size()];
+		classifier.classifyAll(documents.iterator(), new ClassificationListener<String, Integer>()
+		{
+			@Override
+			public boolean classified(final long index, final String item, final Integer category)
+			{
+				Assert.assertNull(classifications[(int) index]);
+				Assert.assertSame(documents.get((int) index), item);
+				classifications[(int) index] = category;
+				return true;
+			}
+		}, false);
+
+		for(int index = 0; index < documents.size(); index++)
+			Assert.assertEquals(classifier.classification(documents.get(index)), classifications[index]);
+	}
+
+	@Test
+	public void testStop()
+	{
+		final ForkJoinPool pool = new ForkJoinPool(3);
+		try
+		{
+			final ParallelClassification<Integer, Integer, int[]> doubling = new ParallelClassification<Integer, Integer, int[]>(pool, 7)
+			{
+				@Override
+				protected int[] createScratch()
+				{
+					return new int[1];
+				}
+
+				@Override
+				protected Integer classification(final Integer item, final int[] scratch)
+				{
+					scratch[0] = item * 2;
+					return scratch[0];
+				}
+			};
+
+			final List<Integer> items = new ArrayList<Integer>();
+			for(int item = 0; item < 100; item++)
+				items.add(item);
+			final List<Long> indexes = new ArrayList<Long>();
+			doubling.classifyAll(items.iterator(), new ClassificationListener<Integer, Integer>()
+			{
+				@Override
+				public boolean classified(final long index, final Integer item, final Integer category)
+				{
+					Assert.assertEquals(item * 2, category.intValue());
+					indexes.add(index);
+					return index < 20;
+				}
+			}, true);
+
+			Assert.assertEquals(21, indexes.size());
+			for(int index = 0; index < indexes.size(); index++)
+				Assert.assertEquals(index, indexes.get(index).longValue());
+			Assert.assertEquals(200, doubling.classifyAll(items.iterator()).size() * 2);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive.bayes;
+
+import java.util.*;
+import com.syncleus.dann.classify.naive.FeatureExtractor;
+import org.junit.*;
+
+public class TestNaiveBayesScoring
+{
+	private static class SetExtractor implements FeatureExtractor<Integer, Set<Integer>>
+	{
+		@Override
+		public Set<Integer> getFeatures(final Set<Integer> item)
+		{
+			return item;
+		}
+	}
+
+	private static Set<Integer> range(final int start, final int end)
+	{
+		final Set<Integer> features = new HashSet<Integer>();
+		for(int feature = start; feature < end; feature++)
+			features.add(feature);
+		return features;
+	}
+
+	@Test
+	public void testMatchesProduct()
+	{
+		final SimpleNaiveBayesClassifier<Set<Integer>, Integer, String> classifier = new SimpleNaiveBayesClassifier<Set<Integer>, Integer, String>(new SetExtractor());
+		classifier.train(range(0, 10), "low");
+		classifier.train(range(5, 15), "low");
+		classifier.train(range(20, 30), "high");
+
+		final Set<Integer> item = range(3, 25);
+		for(final String category : classifier.getCategories())
+		{
+			//the probability as a plain product of the feature probabilities
+			double expected = classifier.getCategoryProbabilities(range(0, 0)).get(category);
+			for(final Integer feature : item)
+				expected *= classifier.featureClassificationWeightedProbability(feature, category);
+			Assert.assertEquals(expected, classifier.classificationProbability(item, category), expected * 1e-9);
+			Assert.assertEquals(Math.log(expected), classifier.getCategoryLogProbabilities(item).get(category), 1e-9);
+		}
+		Assert.assertEquals("low", classifier.classification(range(0, 12)));
+		Assert.assertEquals(0.0, classifier.classificationProbability(item, "unknown"), 0.0);
+	}
+
+	@Test
+	public void testLongItems()
+	{
+		final SimpleNaiveBayesClassifier<Set<Integer>, Integer, String> classifier = new SimpleNaiveBayesClassifier<Set<Integer>, Integer, String>(new SetExtractor());
+		classifier.train(range(0, 5000), "low");
+		classifier.train(range(5000, 10000), "high");
+
+		//a product of this many probabilities underflows to zero
+		Assert.assertEquals(0.0, classifier.classificationProbability(range(0, 4000), "low"), 0.0);
+		Assert.assertEquals("low", classifier.classification(range(0, 4000)));
+		Assert.assertEquals("high", classifier.classification(range(6000, 10000)));
+	}
+}
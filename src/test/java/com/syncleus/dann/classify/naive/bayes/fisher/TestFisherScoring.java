@@ -0,0 +1,85 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive.bayes.fisher;
+
+import java.util.*;
+import com.syncleus.dann.classify.naive.FeatureExtractor;
+import org.junit.*;
+
+public class TestFisherScoring
+{
+	private static class SetExtractor implements FeatureExtractor<Integer, Set<Integer>>
+	{
+		@Override
+		public Set<Integer> getFeatures(final Set<Integer> item)
+		{
+			return item;
+		}
+	}
+
+	private static Set<Integer> range(final int start, final int end)
+	{
+		final Set<Integer> features = new HashSet<Integer>();
+		for(int feature = start; feature < end; feature++)
+			features.add(feature);
+		return features;
+	}
+
+	@Test
+	public void testMatchesSeries()
+	{
+		final SimpleFisherClassifier<Set<Integer>, Integer, String> classifier = new SimpleFisherClassifier<Set<Integer>, Integer, String>(new SetExtractor());
+		classifier.train(range(0, 10), "low");
+		classifier.train(range(5, 15), "low");
+		classifier.train(range(20, 30), "high");
+
+		final Set<Integer> item = range(3, 25);
+		final Map<String, Double> probabilities = classifier.getCategoryProbabilities(item);
+		for(final String category : classifier.getCategories())
+		{
+			//the inverse chi-square series calculated directly
+			double product = 1.0;
+			for(final Integer feature : item)
+				product *= classifier.featureClassificationWeightedProbability(feature, category);
+			final double mean = -Math.log(product);
+			double term = Math.exp(-mean);
+			double sum = term;
+			for(int i = 1; i < item.size(); i++)
+			{
+				term *= mean / i;
+				sum += term;
+			}
+			final double expected = Math.min(sum, 1.0);
+			Assert.assertEquals(expected, classifier.classificationProbability(item, category), 1e-9);
+			Assert.assertEquals(expected, probabilities.get(category), 1e-9);
+		}
+	}
+
+	@Test
+	public void testLongItems()
+	{
+		final SimpleFisherClassifier<Set<Integer>, Integer, String> classifier = new SimpleFisherClassifier<Set<Integer>, Integer, String>(new SetExtractor());
+		classifier.train(range(0, 5000), "low");
+		classifier.train(range(5000, 10000), "high");
+
+		Assert.assertEquals("low", classifier.classification(range(0, 4000)));
+		Assert.assertEquals("high", classifier.classification(range(6000, 10000)));
+		Assert.assertTrue(classifier.classificationProbability(range(0, 4000), "low") > 0.5);
+	}
+}
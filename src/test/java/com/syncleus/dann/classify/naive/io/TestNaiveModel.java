@@ -0,0 +1,218 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.classify.naive.io;
+
+import java.io.*;
+import java.util.*;
+import com.syncleus.dann.classify.naive.FeatureCountTable;
+import com.syncleus.dann.classify.naive.FeatureExtractor;
+import com.syncleus.dann.classify.naive.SimpleNaiveClassifier;
+import com.syncleus.dann.classify.naive.bayes.SimpleNaiveBayesClassifier;
+import com.syncleus.dann.classify.naive.bayes.fisher.SimpleFisherClassifier;
+import com.syncleus.dann.graph.io.NodeCodecs;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestNaiveModel
+{
+	private static final String[] DOCUMENTS = {"money was here once", "money destroys the quick brown fox", "kills the soul", "nonsense is the root of good", "never seen words"};
+
+	private static class WordExtractor implements FeatureExtractor<String, String>
+	{
+		@Override
+		public Set<String> getFeatures(final String item)
+		{
+			return new HashSet<String>(Arrays.asList(item.split(" ")));
+		}
+	}
+
+	//a feature whose hash code differs between runs, as with identity hashing
+	private static final class SaltedWord implements Serializable
+	{
+		private static final long serialVersionUID = 4207356021838511745L;
+		private static int salt;
+		private final String text;
+
+		SaltedWord(final String text)
+		{
+			this.text = text;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.text.hashCode() ^ salt;
+		}
+
+		@Override
+		public boolean equals(final Object other)
+		{
+			return (other instanceof SaltedWord) && ((SaltedWord) other).text.equals(this.text);
+		}
+	}
+
+	private static <C extends SimpleNaiveClassifier<String, String, Integer>> C train(final C classifier)
+	{
+		classifier.train("money is the root of all evil", 1);
+		classifier.train("money destroys the soul", 1);
+		classifier.train("money kills", 1);
+		classifier.train("the quick brown fox", 1);
+		classifier.train("money should be here once", 2);
+		classifier.train("some nonsense to take up space", 2);
+		classifier.train("even more nonsense cause we can", 2);
+		classifier.train("nonsense was the root of all good", 2);
+		classifier.train("just a filler to waste space", 3);
+		return classifier;
+	}
+
+	private static File write(final SimpleNaiveClassifier<String, String, Integer> classifier) throws IOException
+	{
+		final File file = File.createTempFile("model", ".bin");
+		file.deleteOnExit();
+		final NaiveModelWriter<String, Integer> writer = new NaiveModelWriter<String, Integer>(new FileOutputStream(file), NodeCodecs.STRING, NodeCodecs.INTEGER);
+		writer.write(classifier);
+		writer.close();
+		return file;
+	}
+
+	private static MappedFeatureCountTable<String, Integer> map(final File file) throws IOException
+	{
+		return new MappedFeatureCountTable<String, Integer>(file, NodeCodecs.STRING, NodeCodecs.INTEGER);
+	}
+
+	private static void assertSameCounts(final FeatureCountTable<String, Integer> expected, final FeatureCountTable<String, Integer> actual)
+	{
+		Assert.assertEquals(expected.getFeatureSize(), actual.getFeatureSize());
+		Assert.assertEquals(new ArrayList<Integer>(expected.getCategories()), new ArrayList<Integer>(actual.getCategories()));
+		Assert.assertEquals(expected.getTotal(), actual.getTotal());
+		for(int categoryId = 0; categoryId < expected.getCategorySize(); categoryId++)
+			Assert.assertEquals(expected.getCategoryTotal(categoryId), actual.getCategoryTotal(actual.getCategoryId(expected.getCategory(categoryId))));
+		for(int featureId = 0; featureId < expected.getFeatureSize(); featureId++)
+		{
+			final String feature = expected.getFeature(featureId);
+			final int actualId = actual.getFeatureId(feature);
+			Assert.assertEquals(feature, actual.getFeature(actualId));
+			Assert.assertEquals(expected.getFeatureTotal(featureId), actual.getFeatureTotal(actualId));
+			for(int categoryId = 0; categoryId < expected.getCategorySize(); categoryId++)
+				Assert.assertEquals(expected.getCount(featureId, categoryId), actual.getCount(actualId, categoryId));
+		}
+		Assert.assertEquals(-1, actual.getFeatureId("unseen"));
+		Assert.assertEquals(-1, actual.getCategoryId(4));
+	}
+
+	@Test
+	public void testMappedCounts() throws IOException
+	{
+		final SimpleNaiveClassifier<String, String, Integer> classifier = train(new SimpleNaiveClassifier<String, String, Integer>(new WordExtractor()));
+		final MappedFeatureCountTable<String, Integer> mapped = map(write(classifier));
+		assertSameCounts(classifier.getCounts(), mapped);
+		assertSameCounts(classifier.getCounts(), mapped.copy());
+	}
+
+	@Test
+	public void testMappedClassifiers() throws IOException
+	{
+		final SimpleNaiveBayesClassifier<String, String, Integer> bayes = train(new SimpleNaiveBayesClassifier<String, String, Integer>(new WordExtractor()));
+		final SimpleNaiveBayesClassifier<String, String, Integer> mappedBayes = new SimpleNaiveBayesClassifier<String, String, Integer>(new WordExtractor(), map(write(bayes)));
+		final SimpleFisherClassifier<String, String, Integer> fisher = train(new SimpleFisherClassifier<String, String, Integer>(new WordExtractor()));
+		final SimpleFisherClassifier<String, String, Integer> mappedFisher = new SimpleFisherClassifier<String, String, Integer>(new WordExtractor(), map(write(fisher)));
+
+		for(final String document : DOCUMENTS)
+		{
+			Assert.assertEquals(bayes.classification(document), mappedBayes.classification(document));
+			Assert.assertEquals(bayes.getCategoryProbabilities(document), mappedBayes.getCategoryProbabilities(document));
+			Assert.assertEquals(fisher.classification(document), mappedFisher.classification(document));
+			Assert.assertEquals(fisher.getCategoryProbabilities(document), mappedFisher.getCategoryProbabilities(document));
+		}
+		Assert.assertEquals(fisher.featureClassification("money"), mappedFisher.featureClassification("money"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testMappedReadOnly() throws IOException
+	{
+		final SimpleNaiveClassifier<String, String, Integer> classifier = train(new SimpleNaiveClassifier<String, String, Integer>(new WordExtractor()));
+		new SimpleNaiveClassifier<String, String, Integer>(new WordExtractor(), map(write(classifier))).train("more money", 1);
+	}
+
+	@Test
+	public void testImportAndTrain() throws IOException
+	{
+		final SimpleNaiveClassifier<String, String, Integer> classifier = train(new SimpleNaiveClassifier<String, String, Integer>(new WordExtractor()));
+		final SimpleNaiveClassifier<String, String, Integer> imported = new SimpleNaiveClassifier<String, String, Integer>(new WordExtractor(), map(write(classifier)).copy());
+		classifier.train("more money", 2);
+		imported.train("more money", 2);
+		assertSameCounts(classifier.getCounts(), imported.getCounts());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAModel() throws IOException
+	{
+		final File file = File.createTempFile("model", ".bin");
+		file.deleteOnExit();
+		final OutputStream out = new FileOutputStream(file);
+		out.write(new byte[64]);
+		out.close();
+		map(file);
+	}
+
+	@Test
+	public void testCorruptHashSlots()
+	{
+		//the sizes of such files may still be consistent, so the header itself is checked
+		for(final int slots : new int[]{0, -8, 12, 8})
+		{
+			try
+			{
+				NaiveModelFormat.checkHeader(NaiveModelFormat.MAGIC, NaiveModelFormat.VERSION, 8, 2, slots, 10);
+				Assert.fail("a header with " + slots + " hash slots for 8 features was accepted");
+			}
+			catch(IOException caught)
+			{
+				//the header is rejected
+			}
+		}
+	}
+
+	@Test
+	public void testFeatureHashChangedBetweenRuns() throws IOException
+	{
+		final FeatureCountTable<SaltedWord, Integer> counts = new FeatureCountTable<SaltedWord, Integer>();
+		final int categoryId = counts.internCategory(1);
+		for(int word = 0; word < 100; word++)
+			counts.incrementFeature(counts.internFeature(new SaltedWord("word" + word)), categoryId);
+
+		final File file = File.createTempFile("model", ".bin");
+		file.deleteOnExit();
+		final NaiveModelWriter<SaltedWord, Integer> writer = new NaiveModelWriter<SaltedWord, Integer>(new FileOutputStream(file), NodeCodecs.<SaltedWord>serializable(), NodeCodecs.INTEGER);
+		writer.write(counts);
+		writer.close();
+
+		SaltedWord.salt = 0x5BD1E995;
+		try
+		{
+			final MappedFeatureCountTable<SaltedWord, Integer> mapped = new MappedFeatureCountTable<SaltedWord, Integer>(file, NodeCodecs.<SaltedWord>serializable(), NodeCodecs.INTEGER);
+			for(int word = 0; word < 100; word++)
+				Assert.assertEquals(new SaltedWord("word" + word), mapped.getFeature(mapped.getFeatureId(new SaltedWord("word" + word))));
+		}
+		finally
+		{
+			SaltedWord.salt = 0;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.dataprocessing.language.parsing;
+
+import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+import com.syncleus.dann.dataprocessing.language.parsing.stem.CachingStemmer;
+import com.syncleus.dann.dataprocessing.language.parsing.stem.PorterStemmer;
+import com.syncleus.dann.dataprocessing.language.parsing.stem.StemmingWordParser;
+import org.junit.*;
+
+public class TestStreamingWordParser
+{
+	private static final String TEXT = "The QUICK brown_fox, jumped over 2 lazy dogs!\n\u212Aelvin and \u0130stanbul; caf\u00e9 running";
+	private static final List<String> WORDS = Arrays.asList("the", "quick", "brown_fox", "jumped", "over", "2", "lazy", "dogs", "kelvin", "and", "i", "stanbul", "caf", "running");
+
+	private static class CollectingListener implements WordListener
+	{
+		private final List<String> words = new ArrayList<String>();
+		private final int limit;
+
+		CollectingListener(final int limit)
+		{
+			this.limit = limit;
+		}
+
+		@Override
+		public boolean wordFound(final CharSequence word)
+		{
+			this.words.add(word.toString());
+			return this.words.size() < this.limit;
+		}
+	}
+
+	@Test
+	public void testWords()
+	{
+		Assert.assertEquals(WORDS, new BasicWordParser().getWords(TEXT));
+		Assert.assertEquals(new HashSet<String>(WORDS), new BasicWordParser().getUniqueWords(TEXT));
+	}
+
+	@Test
+	public void testSources() throws IOException
+	{
+		final StreamingWordParser parser = new BasicWordParser();
+		final CollectingListener fromBuffer = new CollectingListener(Integer.MAX_VALUE);
+		parser.parse(CharBuffer.wrap(TEXT), fromBuffer);
+		Assert.assertEquals(WORDS, fromBuffer.words);
+
+		final CollectingListener fromReader = new CollectingListener(Integer.MAX_VALUE);
+		parser.parse(new StringReader(TEXT), fromReader);
+		Assert.assertEquals(WORDS, fromReader.words);
+
+		final File file = File.createTempFile("words", ".txt");
+		file.deleteOnExit();
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write(TEXT);
+		writer.close();
+		final CollectingListener fromFile = new CollectingListener(Integer.MAX_VALUE);
+		parser.parse(file, Charset.forName("UTF-8"), fromFile);
+		Assert.assertEquals(WORDS, fromFile.words);
+	}
+
+	@Test
+	public void testLongWordsAcrossReads() throws IOException
+	{
+		final StringBuilder text = new StringBuilder();
+		for(int word = 0; word < 50; word++)
+		{
+			for(int letter = 0; letter < 1000; letter++)
+				text.append((char) ('a' + ((word + letter) % 26)));
+			text.append(' ');
+		}
+		final CollectingListener listener = new CollectingListener(Integer.MAX_VALUE);
+		new BasicWordParser().parse(new StringReader(text.toString()), listener);
+		Assert.assertEquals(new BasicWordParser().getWords(text.toString()), listener.words);
+		Assert.assertEquals(50, listener.words.size());
+		Assert.assertEquals(1000, listener.words.get(49).length());
+	}
+
+	@Test
+	public void testStop()
+	{
+		final CollectingListener listener = new CollectingListener(3);
+		new BasicWordParser().parse(TEXT, listener);
+		Assert.assertEquals(WORDS.subList(0, 3), listener.words);
+	}
+
+	@Test
+	public void testStemmingChain()
+	{
+		final List<String> stems = Arrays.asList("the", "quick", "brown_fox", "jump", "over", "2", "lazi", "dog", "kelvin", "and", "i", "stanbul", "caf", "run");
+		Assert.assertEquals(stems, new StemmingWordParser().getWords(TEXT));
+		final CollectingListener listener = new CollectingListener(Integer.MAX_VALUE);
+		new StemmingWordParser(new CachingStemmer(new PorterStemmer(), 16)).parse(TEXT, listener);
+		Assert.assertEquals(stems, listener.words);
+	}
+}
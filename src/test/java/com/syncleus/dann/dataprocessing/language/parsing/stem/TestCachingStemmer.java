@@ -0,0 +1,71 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.dataprocessing.language.parsing.stem;
+
+import org.junit.*;
+
+public class TestCachingStemmer
+{
+	private static class CountingStemmer implements Stemmer
+	{
+		private final Stemmer stemmer = new PorterStemmer();
+		private int count;
+
+		@Override
+		public String stemWord(final String word)
+		{
+			this.count++;
+			return this.stemmer.stemWord(word);
+		}
+	}
+
+	@Test
+	public void testCached()
+	{
+		final CountingStemmer counting = new CountingStemmer();
+		final CachingStemmer stemmer = new CachingStemmer(counting, 2);
+
+		Assert.assertEquals("run", stemmer.stemWord("running"));
+		Assert.assertEquals("run", stemmer.stem("the running man", 4, 11));
+		Assert.assertEquals(1, counting.count);
+
+		Assert.assertEquals("bowl", stemmer.stemWord("bowling"));
+		Assert.assertEquals("run", stemmer.stemWord("running"));
+		Assert.assertEquals(2, counting.count);
+
+		//hiker is the third word, so the least recently used bowling is dropped
+		Assert.assertEquals("hiker", stemmer.stemWord("hiker"));
+		Assert.assertEquals("run", stemmer.stemWord("running"));
+		Assert.assertEquals(3, counting.count);
+		Assert.assertEquals("bowl", stemmer.stemWord("bowling"));
+		Assert.assertEquals(4, counting.count);
+	}
+
+	@Test
+	public void testSegmented()
+	{
+		final CountingStemmer counting = new CountingStemmer();
+		final CachingStemmer stemmer = new CachingStemmer(counting, 4096);
+		final Stemmer porter = new PorterStemmer();
+		for(int pass = 0; pass < 3; pass++)
+			for(int word = 0; word < 1000; word++)
+				Assert.assertEquals(porter.stemWord("word" + word + "ing"), stemmer.stemWord("word" + word + "ing"));
+		Assert.assertEquals(1000, counting.count);
+	}
+}
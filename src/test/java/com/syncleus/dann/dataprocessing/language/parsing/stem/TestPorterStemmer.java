@@ -18,6 +18,7 @@
  ******************************************************************************/
 package com.syncleus.dann.dataprocessing.language.parsing.stem;
 
+import java.util.Locale;
 import org.junit.*;
 
 public class TestPorterStemmer
@@ -36,4 +37,66 @@ public class TestPorterStemmer
 		Assert.assertTrue("word stem incorrect!", stemmer.stemWord("hiker").compareToIgnoreCase("hiker") == 0);
 		Assert.assertTrue("word stem incorrect!", stemmer.stemWord("Nonsense").compareToIgnoreCase("Nonsens") == 0);
 	}
+
+	@Test
+	public void testRange()
+	{
+		final PorterStemmer stemmer = new PorterStemmer(Locale.ENGLISH);
+		final String text = "The Happiness of Running";
+		Assert.assertEquals("happi", stemmer.stem(text, 4, 13));
+		final char[] stem = new char[16];
+		Assert.assertEquals(3, stemmer.stem(text, 17, 24, stem));
+		Assert.assertEquals("run", new String(stem, 0, 3));
+		Assert.assertEquals("the", stemmer.stem(new StringBuilder(text), 0, 3));
+	}
+
+	@Test
+	public void testLocale()
+	{
+		Assert.assertEquals("\u0131tem", new PorterStemmer(new Locale("tr")).stem("ITEMS", 0, 5));
+		Assert.assertEquals("item", new PorterStemmer(Locale.ENGLISH).stem("ITEMS", 0, 5));
+	}
+
+	@Test
+	public void testFinalSigma()
+	{
+		final PorterStemmer stemmer = new PorterStemmer(Locale.ENGLISH);
+		final String word = "\u039F\u0394\u039F\u03A3";
+		final String stem = stemmer.stemWord(word);
+		Assert.assertEquals("\u03BF\u03B4\u03BF\u03C2", stem);
+		Assert.assertEquals(stem, stemmer.stem(word, 0, word.length()));
+		final char[] destination = new char[word.length()];
+		Assert.assertEquals(stem.length(), stemmer.stem(word, 0, word.length(), destination));
+		Assert.assertEquals(stem, new String(destination, 0, stem.length()));
+	}
+
+	@Test
+	public void testConcurrent() throws InterruptedException
+	{
+		final PorterStemmer stemmer = new PorterStemmer(Locale.ENGLISH);
+		final String[] words = {"bowling", "happiness", "running", "napping", "relational", "conditional", "hopefulness", "generalization"};
+		final String[] stems = new String[words.length];
+		for(int word = 0; word < words.length; word++)
+			stems[word] = new PorterStemmer(Locale.ENGLISH).stemWord(words[word]);
+
+		final boolean[] failed = new boolean[1];
+		final Thread[] threads = new Thread[4];
+		for(int thread = 0; thread < threads.length; thread++)
+		{
+			threads[thread] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for(int pass = 0; pass < 20000; pass++)
+						if( !stems[pass % words.length].equals(stemmer.stemWord(words[pass % words.length])) )
+							failed[0] = true;
+				}
+			});
+			threads[thread].start();
+		}
+		for(final Thread thread : threads)
+			thread.join();
+		Assert.assertFalse("concurrent stems differed", failed[0]);
+	}
 }
@@ -124,4 +124,128 @@ public class TestCooleyTukeyFastFourierTransformer
 			Assert.assertTrue("unexpected RANDOM dominant frequency: " + frequency + '!', checkSingleFrequency(frequency));
 		}
 	}
+
+	@Test
+	public void testBlockSize()
+	{
+		final FastFourierTransformer transformer = new CooleyTukeyFastFourierTransformer(1000, 8000);
+		Assert.assertEquals(1024, transformer.getBlockSize());
+		transformer.setBlockSize(512);
+		Assert.assertEquals(512, transformer.getBlockSize());
+		transformer.setBlockSize(1);
+		Assert.assertEquals(1, transformer.getBlockSize());
+	}
+
+	@Test
+	public void testInPlace()
+	{
+		final Random random = new Random(0);
+		final double[] real = new double[BLOCK_SIZE];
+		final double[] imaginary = new double[BLOCK_SIZE];
+		final ComplexNumber[] dataPoints = new ComplexNumber[BLOCK_SIZE];
+		for(int index = 0; index < BLOCK_SIZE; index++)
+		{
+			real[index] = random.nextGaussian();
+			imaginary[index] = random.nextGaussian();
+			dataPoints[index] = new ComplexNumber(real[index], imaginary[index]);
+		}
+
+		CooleyTukeyFastFourierTransformer.transformInPlace(real, imaginary);
+		final ComplexNumber[] transformed = CooleyTukeyFastFourierTransformer.transformMatrix(dataPoints);
+		for(int index = 0; index < BLOCK_SIZE; index++)
+		{
+			Assert.assertEquals(transformed[index].getRealValue(), real[index], 0.0);
+			Assert.assertEquals(transformed[index].getImaginaryValue(), imaginary[index], 0.0);
+		}
+
+		//the sum of the data points is the zero frequency
+		ComplexNumber sum = ComplexNumber.ZERO;
+		for(final ComplexNumber dataPoint : dataPoints)
+			sum = sum.add(dataPoint);
+		Assert.assertEquals(sum.getRealValue(), real[0], 0.000000001);
+		Assert.assertEquals(sum.getImaginaryValue(), imaginary[0], 0.000000001);
+
+		CooleyTukeyFastFourierTransformer.inverseTransformInPlace(real, imaginary);
+		for(int index = 0; index < BLOCK_SIZE; index++)
+		{
+			Assert.assertEquals(dataPoints[index].getRealValue(), real[index], 0.000000001);
+			Assert.assertEquals(dataPoints[index].getImaginaryValue(), imaginary[index], 0.000000001);
+		}
+	}
+
+	@Test
+	public void testConvolve()
+	{
+		final FastFourierTransformer transformer = new CooleyTukeyFastFourierTransformer(4, 4);
+		final double[] convolved = transformer.linearConvolve(new double[]{1.0, 2.0, 3.0}, new double[]{0.0, 1.0, 0.5});
+		final double[] expected = {0.0, 1.0, 2.5, 4.0, 1.5, 0.0, 0.0, 0.0};
+		Assert.assertEquals(expected.length, convolved.length);
+		for(int index = 0; index < expected.length; index++)
+			Assert.assertEquals(expected[index], convolved[index], 0.000000001);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotPowerOf2()
+	{
+		CooleyTukeyFastFourierTransformer.transformInPlace(new double[6], new double[6]);
+	}
+
+	@Test
+	public void testRealTransform()
+	{
+		final Random random = new Random(1);
+		for(int size = 1; size <= BLOCK_SIZE; size *= 2)
+		{
+			final double[] signal = new double[size];
+			final ComplexNumber[] dataPoints = new ComplexNumber[size];
+			for(int index = 0; index < size; index++)
+			{
+				signal[index] = random.nextGaussian();
+				dataPoints[index] = new ComplexNumber(signal[index], 0.0);
+			}
+
+			final ComplexNumber[] expected = CooleyTukeyFastFourierTransformer.transformMatrix(dataPoints);
+			final DiscreteFourierTransform transformed = new CooleyTukeyFastFourierTransformer(size, size).transform(signal);
+			final double[] real = transformed.getRealTransform();
+			final double[] imaginary = transformed.getImaginaryTransform();
+			Assert.assertEquals(size, transformed.getTransformSize());
+			for(int index = 0; index < size; index++)
+			{
+				Assert.assertEquals(expected[index].getRealValue(), real[index], 0.000000001);
+				Assert.assertEquals(expected[index].getImaginaryValue(), imaginary[index], 0.000000001);
+			}
+		}
+	}
+
+	@Test
+	public void testTransformAll()
+	{
+		final Random random = new Random(2);
+		final CooleyTukeyFastFourierTransformer transformer = new CooleyTukeyFastFourierTransformer(64, 64);
+		final double[][] signals = new double[500][];
+		final double[][] real = new double[signals.length][64];
+		final double[][] imaginary = new double[signals.length][64];
+		for(int signalIndex = 0; signalIndex < signals.length; signalIndex++)
+		{
+			//shorter and longer signals are padded and truncated as by transform
+			signals[signalIndex] = new double[40 + (signalIndex % 50)];
+			for(int index = 0; index < signals[signalIndex].length; index++)
+				signals[signalIndex][index] = random.nextGaussian();
+		}
+
+		transformer.transformAll(signals, real, imaginary);
+		for(int signalIndex = 0; signalIndex < signals.length; signalIndex++)
+		{
+			final DiscreteFourierTransform expected = transformer.transform(signals[signalIndex]);
+			Assert.assertArrayEquals(expected.getRealTransform(), real[signalIndex], 0.0);
+			Assert.assertArrayEquals(expected.getImaginaryTransform(), imaginary[signalIndex], 0.0);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTransformAllShortBuffer()
+	{
+		final CooleyTukeyFastFourierTransformer transformer = new CooleyTukeyFastFourierTransformer(64, 64);
+		transformer.transformAll(new double[][]{new double[64]}, new double[][]{new double[32]}, new double[][]{new double[64]});
+	}
 }
@@ -46,4 +46,33 @@ public class TestDiscreteFourierTransform
 		Assert.assertTrue("minimum frequency mapping is incorrect: " + dft.getMinimumFrequency(), Math.abs(dft.getMinimumFrequency() - 0.0) < 0.001);
 		Assert.assertTrue("maximum frequency mapping is incorrect: " + dft.getMaximumFrequency(), Math.abs(dft.getMaximumFrequency() - 512.0) < 0.001);
 	}
+
+	@Test
+	public void testPrimitiveFrequencies()
+	{
+		final double[] real = {4.0, 1.0, 0.0, -2.0, 0.0, -2.0, 0.0, 1.0};
+		final double[] imaginary = {0.0, 3.0, 4.0, 0.0, 0.0, 0.0, -4.0, -3.0};
+		final DiscreteFourierTransform dft = new DiscreteFourierTransform(real, imaginary, 8);
+		real[0] = 100.0;
+
+		Assert.assertEquals(4.0, dft.getMaximumFrequency(), 0.0);
+		Assert.assertEquals(4.0, dft.getAmplitude(0.0), 0.0);
+		Assert.assertEquals(Math.sqrt(10.0), dft.getAmplitude(1.0), 0.000000001);
+		Assert.assertEquals(Math.PI / 2.0, dft.getPhase(2.0), 0.000000001);
+		Assert.assertNull(dft.getPhasor(1.5));
+		Assert.assertEquals(2.0, dft.getClosestFrequency(1.5), 0.0);
+		Assert.assertEquals(4.0, dft.getClosestAmplitude(1.5), 0.0);
+		Assert.assertEquals(5, dft.getFrequencyPhasors().size());
+		Assert.assertEquals(new ComplexNumber(-2.0, 0.0), dft.getFrequencyPhasors().get(3.0));
+		//phasors 1 and 2 sum to (1, 7)
+		Assert.assertEquals(Math.sqrt(50.0), dft.getBandSum(0.5, 2.0), 0.000000001);
+		Assert.assertEquals(Math.sqrt(50.0) / 2.0, dft.getBandMean(0.5, 2.0), 0.000000001);
+		Assert.assertEquals(4.0, dft.getTransform()[0].getRealValue(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAboveMaximumFrequency()
+	{
+		new DiscreteFourierTransform(generateRandomComplex(8), 8).getClosestFrequency(5.0);
+	}
 }
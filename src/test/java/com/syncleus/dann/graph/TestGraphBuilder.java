@@ -0,0 +1,149 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestGraphBuilder
+{
+	private static <N, E extends Edge<N>> void assertSameGraph(final Graph<N, E> expected, final Graph<N, E> actual)
+	{
+		Assert.assertEquals(expected.getNodes(), actual.getNodes());
+		Assert.assertEquals(expected.getEdges(), actual.getEdges());
+		for(final N node : expected.getNodes())
+		{
+			Assert.assertEquals(expected.getAdjacentEdges(node), actual.getAdjacentEdges(node));
+			final List<N> expectedNeighbors = new ArrayList<N>(expected.getAdjacentNodes(node));
+			final List<N> actualNeighbors = new ArrayList<N>(actual.getAdjacentNodes(node));
+			Assert.assertEquals(expectedNeighbors.size(), actualNeighbors.size());
+			Assert.assertEquals(new HashSet<N>(expectedNeighbors), new HashSet<N>(actualNeighbors));
+		}
+	}
+
+	@Test
+	public void testMatchesSetConstructor()
+	{
+		final Random random = new Random(5);
+		final Set<Integer> nodes = new HashSet<Integer>();
+		for(int node = 0; node < 3000; node++)
+			nodes.add(node);
+		final List<DirectedEdge<Integer>> edgeList = new ArrayList<DirectedEdge<Integer>>();
+		for(int edge = 0; edge < 12000; edge++)
+			edgeList.add(new ImmutableDirectedEdge<Integer>(random.nextInt(3000), (edge % 50 == 0 ? edge % 3000 : random.nextInt(3000))));
+		final Set<DirectedEdge<Integer>> edges = new HashSet<DirectedEdge<Integer>>(edgeList);
+		final ImmutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>> expected = new ImmutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>(nodes, edges);
+
+		final GraphBuilder<Integer, DirectedEdge<Integer>> builder = new GraphBuilder<Integer, DirectedEdge<Integer>>(nodes.size(), edgeList.size());
+		//duplicates are only added once
+		builder.addNodes(nodes).addNodes(nodes).addEdges(edgeList).addEdge(edgeList.get(0));
+		assertSameGraph(expected, new ImmutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>(builder));
+
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			builder.setPool(pool);
+			assertSameGraph(expected, new MutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>(builder));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testHyperEdges()
+	{
+		final Set<String> nodes = new HashSet<String>(Arrays.asList("a", "b", "c", "d"));
+		final Set<HyperEdge<String>> edges = new HashSet<HyperEdge<String>>();
+		edges.add(new ImmutableHyperEdge<String>("a", "b", "c"));
+		edges.add(new ImmutableHyperEdge<String>("b", "c", "d", "b"));
+		edges.add(new ImmutableHyperEdge<String>("d"));
+		final GraphBuilder<String, HyperEdge<String>> builder = new GraphBuilder<String, HyperEdge<String>>();
+		builder.addNodes(nodes).addEdges(edges);
+		assertSameGraph(new ImmutableHyperAdjacencyGraph<String, HyperEdge<String>>(nodes, edges), new ImmutableHyperAdjacencyGraph<String, HyperEdge<String>>(builder));
+	}
+
+	@Test
+	public void testMutableAfterBuild()
+	{
+		final GraphBuilder<String, Edge<String>> builder = new GraphBuilder<String, Edge<String>>();
+		builder.addNode("a").addNode("b").addNode("c").addEdge(new ImmutableUndirectedEdge<String>("a", "b"));
+		final MutableAdjacencyGraph<String, Edge<String>> graph = builder.buildMutable();
+		final ImmutableAdjacencyGraph<String, Edge<String>> original = builder.buildImmutable();
+		Assert.assertTrue(graph.add(new ImmutableUndirectedEdge<String>("b", "c")));
+		Assert.assertTrue(graph.remove("a"));
+		Assert.assertEquals(2, graph.getNodes().size());
+		Assert.assertEquals(Collections.singletonList("b"), graph.getAdjacentNodes("c"));
+		Assert.assertEquals(3, original.getNodes().size());
+		Assert.assertEquals(1, original.getEdges().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingEndPoint()
+	{
+		final GraphBuilder<String, Edge<String>> builder = new GraphBuilder<String, Edge<String>>();
+		builder.addNode("a").addEdge(new ImmutableUndirectedEdge<String>("a", "b"));
+		builder.buildImmutable();
+	}
+
+	@Test
+	public void testContextRefusal()
+	{
+		final Edge<String> loner = new ImmutableUndirectedEdge<String>("a", "b", false, true);
+		final Edge<String> shared = new ImmutableUndirectedEdge<String>("b", "c");
+		final GraphBuilder<String, Edge<String>> builder = new GraphBuilder<String, Edge<String>>();
+		builder.addNodes(Arrays.asList("a", "b", "c")).addEdge(loner).addEdge(shared);
+		Assert.assertEquals(2, builder.buildImmutable().getEdges().size());
+
+		//the edge which only joins one graph refuses the second
+		final ImmutableAdjacencyGraph<String, Edge<String>> second = builder.buildImmutable();
+		Assert.assertEquals(Collections.singleton(shared), second.getEdges());
+		Assert.assertTrue(second.getAdjacentNodes("a").isEmpty());
+
+		builder.setContextEnabled(false);
+		Assert.assertEquals(2, builder.buildImmutable().getEdges().size());
+	}
+
+	@Test
+	public void testTree()
+	{
+		final GraphBuilder<String, DirectedEdge<String>> builder = new GraphBuilder<String, DirectedEdge<String>>();
+		builder.addNodes(Arrays.asList("a", "b", "c"));
+		builder.addEdge(new ImmutableDirectedEdge<String>("a", "b"));
+		builder.addEdge(new ImmutableDirectedEdge<String>("a", "c"));
+		final MutableRootedTreeAdjacencyGraph<String, DirectedEdge<String>> tree = new MutableRootedTreeAdjacencyGraph<String, DirectedEdge<String>>(builder);
+		Assert.assertEquals(2, tree.getAdjacentEdges("a").size());
+		Assert.assertEquals(Arrays.asList("a"), tree.getAdjacentNodes("c"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullNode()
+	{
+		new GraphBuilder<String, DirectedEdge<String>>().addNode(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullInNodes()
+	{
+		new GraphBuilder<String, DirectedEdge<String>>().addNodes(Arrays.asList("a", null));
+	}
+}
@@ -0,0 +1,89 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph;
+
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestGraphListener
+{
+	private static class RecordingListener implements GraphListener<String, BidirectedEdge<String>>
+	{
+		private final List<String> events = new ArrayList<String>();
+
+		@Override
+		public void nodeAdded(final Graph<String, BidirectedEdge<String>> graph, final String node)
+		{
+			this.events.add("+" + node);
+		}
+
+		@Override
+		public void nodeRemoved(final Graph<String, BidirectedEdge<String>> graph, final String node)
+		{
+			this.events.add("-" + node);
+		}
+
+		@Override
+		public void edgeAdded(final Graph<String, BidirectedEdge<String>> graph, final BidirectedEdge<String> edge)
+		{
+			this.events.add("+" + edge.getLeftNode() + edge.getRightNode());
+		}
+
+		@Override
+		public void edgeRemoved(final Graph<String, BidirectedEdge<String>> graph, final BidirectedEdge<String> edge)
+		{
+			this.events.add("-" + edge.getLeftNode() + edge.getRightNode());
+		}
+	}
+
+	@Test
+	public void testMutations()
+	{
+		final MutableAdjacencyGraph<String, BidirectedEdge<String>> graph = new MutableAdjacencyGraph<String, BidirectedEdge<String>>();
+		final RecordingListener listener = new RecordingListener();
+		graph.addGraphListener(listener);
+
+		graph.add("a");
+		graph.add("b");
+		//already present so nothing is reported
+		graph.add("a");
+		graph.add(new ImmutableUndirectedEdge<String>("a", "b"));
+		graph.remove("a");
+		Assert.assertEquals(Arrays.asList("+a", "+b", "+ab", "-ab", "-a"), listener.events);
+
+		Assert.assertTrue(graph.removeGraphListener(listener));
+		graph.add("c");
+		Assert.assertEquals(5, listener.events.size());
+	}
+
+	@Test
+	public void testCopiesAreNotListened()
+	{
+		final MutableAdjacencyGraph<String, BidirectedEdge<String>> graph = new MutableAdjacencyGraph<String, BidirectedEdge<String>>();
+		graph.add("a");
+		final RecordingListener listener = new RecordingListener();
+		graph.addGraphListener(listener);
+
+		final MutableAdjacencyGraph<String, BidirectedEdge<String>> copy = graph.clone();
+		copy.add("b");
+		graph.cloneAdd("c");
+		Assert.assertTrue(listener.events.isEmpty());
+	}
+}
@@ -0,0 +1,295 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph;
+
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPersistentHashMap
+{
+	//keys with only a few distinct hashes force full depth tries and collisions
+	private static final class CollidingKey
+	{
+		private final int value;
+
+		CollidingKey(final int value)
+		{
+			this.value = value;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.value % 7;
+		}
+
+		@Override
+		public boolean equals(final Object other)
+		{
+			return (other instanceof CollidingKey) && (((CollidingKey) other).value == this.value);
+		}
+	}
+
+	//counts how often edges are asked to join a graph
+	private static final class CountingEdge extends AbstractUndirectedEdge<Integer>
+	{
+		private static final long serialVersionUID = 2371459842601193842L;
+		private static int joinCount;
+
+		CountingEdge(final Integer leftNode, final Integer rightNode)
+		{
+			super(leftNode, rightNode);
+		}
+
+		@Override
+		public boolean joiningGraph(final Graph<Integer, ?> graph)
+		{
+			joinCount++;
+			return super.joiningGraph(graph);
+		}
+
+		@Override
+		public CountingEdge disconnect(final Integer node)
+		{
+			return (CountingEdge) super.disconnect(node);
+		}
+
+		@Override
+		public CountingEdge disconnect(final List<Integer> nodes)
+		{
+			return (CountingEdge) super.disconnect(nodes);
+		}
+
+		@Override
+		public CountingEdge clone()
+		{
+			return (CountingEdge) super.clone();
+		}
+	}
+
+	private static <K, V> void assertSame(final Map<K, V> expected, final PersistentHashMap<K, V> actual)
+	{
+		Assert.assertEquals(expected.size(), actual.size());
+		Assert.assertEquals(expected, new HashMap<K, V>(actual));
+		for(final Map.Entry<K, V> entry : expected.entrySet())
+			Assert.assertEquals(entry.getValue(), actual.peek(entry.getKey()));
+	}
+
+	private static void checkRandomEdits(final boolean colliding)
+	{
+		final Random random = new Random(colliding ? 11 : 3);
+		final List<Map<Object, Integer>> expected = new ArrayList<Map<Object, Integer>>();
+		final List<PersistentHashMap<Object, Integer>> actual = new ArrayList<PersistentHashMap<Object, Integer>>();
+		expected.add(new HashMap<Object, Integer>());
+		actual.add(new PersistentHashMap<Object, Integer>(null));
+
+		for(int step = 0; step < 20000; step++)
+		{
+			final int version = random.nextInt(actual.size());
+			final int keyValue = random.nextInt(500);
+			final Object key = (colliding ? new CollidingKey(keyValue) : Integer.valueOf(keyValue));
+			final int action = random.nextInt(10);
+			if( action < 5 )
+				Assert.assertEquals(expected.get(version).put(key, step), actual.get(version).put(key, step));
+			else if( action < 9 )
+				Assert.assertEquals(expected.get(version).remove(key), actual.get(version).remove(key));
+			else if( actual.size() < 30 )
+			{
+				expected.add(new HashMap<Object, Integer>(expected.get(version)));
+				actual.add(actual.get(version).fork());
+			}
+		}
+
+		for(int version = 0; version < actual.size(); version++)
+			assertSame(expected.get(version), actual.get(version));
+	}
+
+	@Test
+	public void testRandomEdits()
+	{
+		checkRandomEdits(false);
+	}
+
+	@Test
+	public void testCollidingKeys()
+	{
+		checkRandomEdits(true);
+	}
+
+	@Test
+	public void testValuesCopiedAfterFork()
+	{
+		final PersistentHashMap<String, List<String>> original = new PersistentHashMap<String, List<String>>(new PersistentHashMap.ValueCopier<List<String>>()
+		{
+			@Override
+			public List<String> copy(final List<String> value)
+			{
+				return new ArrayList<String>(value);
+			}
+		});
+		original.put("a", new ArrayList<String>());
+		original.get("a").add("first");
+
+		final PersistentHashMap<String, List<String>> forked = original.fork();
+		forked.get("a").add("second");
+		original.get("a").add("third");
+
+		Assert.assertEquals(Arrays.asList("first", "third"), original.peek("a"));
+		Assert.assertEquals(Arrays.asList("first", "second"), forked.peek("a"));
+	}
+
+	@Test
+	public void testIteratorRemove()
+	{
+		final PersistentHashMap<Integer, Integer> map = new PersistentHashMap<Integer, Integer>(null);
+		for(int key = 0; key < 1000; key++)
+			map.put(key, key);
+		final PersistentHashMap<Integer, Integer> forked = map.fork();
+
+		final Iterator<Map.Entry<Integer, Integer>> entries = map.entrySet().iterator();
+		int seen = 0;
+		while( entries.hasNext() )
+		{
+			if( (entries.next().getKey() % 2) == 0 )
+				entries.remove();
+			seen++;
+		}
+		Assert.assertEquals(1000, seen);
+		Assert.assertEquals(500, map.size());
+		Assert.assertEquals(1000, forked.size());
+		for(int key = 0; key < 1000; key++)
+			Assert.assertEquals((key % 2) != 0, map.containsKey(key));
+	}
+
+	@Test
+	public void testCloneAddSharesOriginal()
+	{
+		final Set<Integer> nodes = new HashSet<Integer>();
+		final Set<BidirectedEdge<Integer>> edges = new HashSet<BidirectedEdge<Integer>>();
+		for(int node = 0; node < 100; node++)
+		{
+			nodes.add(node);
+			if( node > 0 )
+				edges.add(new ImmutableUndirectedEdge<Integer>(node - 1, node));
+		}
+		final ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>> original = new ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>(nodes, edges);
+
+		final BidirectedEdge<Integer> closing = new ImmutableUndirectedEdge<Integer>(99, 0);
+		final ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>> ring = original.cloneAdd(closing);
+		Assert.assertNotNull(ring);
+		Assert.assertEquals(100, ring.getEdges().size());
+		Assert.assertEquals(99, original.getEdges().size());
+		Assert.assertTrue(ring.getAdjacentNodes(0).contains(99));
+		Assert.assertFalse(original.getAdjacentNodes(0).contains(99));
+		Assert.assertNull(ring.cloneAdd(closing));
+
+		final ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>> opened = ring.cloneRemove(closing);
+		Assert.assertEquals(99, opened.getEdges().size());
+		Assert.assertEquals(100, ring.getEdges().size());
+		Assert.assertEquals(1, opened.getAdjacentEdges(0).size());
+		Assert.assertEquals(2, ring.getAdjacentEdges(0).size());
+
+		final ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>> withoutNode = ring.cloneRemove(Integer.valueOf(50));
+		Assert.assertEquals(99, withoutNode.getNodes().size());
+		Assert.assertEquals(98, withoutNode.getEdges().size());
+		Assert.assertFalse(withoutNode.getAdjacentNodes(49).contains(50));
+		Assert.assertTrue(ring.getAdjacentNodes(49).contains(50));
+
+		final ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>> withNode = original.cloneAdd(Integer.valueOf(100));
+		Assert.assertEquals(101, withNode.getNodes().size());
+		Assert.assertEquals(100, original.getNodes().size());
+	}
+
+	@Test
+	public void testMutableGraphAfterCloneAdd()
+	{
+		final MutableAdjacencyGraph<String, BidirectedEdge<String>> graph = new MutableAdjacencyGraph<String, BidirectedEdge<String>>();
+		graph.add("a");
+		graph.add("b");
+		graph.add("c");
+		graph.add(new ImmutableUndirectedEdge<String>("a", "b"));
+
+		final MutableAdjacencyGraph<String, BidirectedEdge<String>> derived = graph.cloneAdd(new ImmutableUndirectedEdge<String>("b", "c"));
+		graph.add(new ImmutableUndirectedEdge<String>("a", "c"));
+		derived.add("d");
+
+		Assert.assertEquals(2, graph.getEdges().size());
+		Assert.assertEquals(2, derived.getEdges().size());
+		Assert.assertTrue(graph.getAdjacentNodes("a").contains("c"));
+		Assert.assertFalse(derived.getAdjacentNodes("a").contains("c"));
+		Assert.assertTrue(derived.getAdjacentNodes("c").contains("b"));
+		Assert.assertFalse(graph.getAdjacentNodes("c").contains("b"));
+		Assert.assertEquals(3, graph.getNodes().size());
+		Assert.assertEquals(4, derived.getNodes().size());
+	}
+
+	@Test
+	public void testRemoveInheritedFromDerivedMutableGraph()
+	{
+		final MutableAdjacencyGraph<String, BidirectedEdge<String>> graph = new MutableAdjacencyGraph<String, BidirectedEdge<String>>();
+		graph.add("a");
+		graph.add("b");
+		graph.add("c");
+		final BidirectedEdge<String> inheritedEdge = new ImmutableUndirectedEdge<String>("a", "b");
+		graph.add(inheritedEdge);
+
+		final BidirectedEdge<String> newEdge = new ImmutableUndirectedEdge<String>("b", "c");
+		final MutableAdjacencyGraph<String, BidirectedEdge<String>> derived = graph.cloneAdd(newEdge);
+		Assert.assertTrue(derived.remove(inheritedEdge));
+		Assert.assertTrue(derived.remove("c"));
+		Assert.assertTrue(derived.getEdges().isEmpty());
+		Assert.assertEquals(2, derived.getNodes().size());
+
+		final MutableAdjacencyGraph<String, BidirectedEdge<String>> removed = graph.cloneRemove(inheritedEdge);
+		Assert.assertTrue(removed.remove("a"));
+		Assert.assertTrue(graph.remove(inheritedEdge));
+		Assert.assertTrue(graph.remove("a"));
+		Assert.assertEquals(2, graph.getNodes().size());
+		Assert.assertEquals(2, removed.getNodes().size());
+	}
+
+	@Test
+	public void testCloneAddJoinsOnlyNewElements()
+	{
+		final MutableAdjacencyGraph<Integer, CountingEdge> graph = new MutableAdjacencyGraph<Integer, CountingEdge>();
+		for(int node = 0; node < 10000; node++)
+		{
+			graph.add(node);
+			if( node > 0 )
+				graph.add(new CountingEdge(node - 1, node));
+		}
+		Assert.assertEquals(9999, CountingEdge.joinCount);
+
+		CountingEdge.joinCount = 0;
+		final CountingEdge closing = new CountingEdge(9999, 0);
+		final MutableAdjacencyGraph<Integer, CountingEdge> ring = graph.cloneAdd(closing);
+		final MutableAdjacencyGraph<Integer, CountingEdge> opened = ring.cloneRemove(closing);
+		Assert.assertEquals(1, CountingEdge.joinCount);
+		Assert.assertEquals(10000, ring.getEdges().size());
+		Assert.assertEquals(9999, opened.getEdges().size());
+
+		//inherited edges which never joined the derived graph can still leave it
+		final CountingEdge inherited = graph.getAdjacentEdges(0).iterator().next();
+		Assert.assertTrue(ring.remove(inherited));
+		Assert.assertTrue(ring.add(inherited));
+		Assert.assertEquals(2, CountingEdge.joinCount);
+		Assert.assertTrue(graph.getEdges().contains(inherited));
+	}
+}
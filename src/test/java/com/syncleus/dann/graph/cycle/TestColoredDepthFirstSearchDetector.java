@@ -172,4 +172,34 @@ public class TestColoredDepthFirstSearchDetector
 		final CycleDetector detector = new ColoredDepthFirstSearchDetector();
 		Assert.assertTrue("cycle not detected when there should be one.", detector.hasCycle(graph));
 	}
+
+	@Test
+	public void testLongChains()
+	{
+		//long enough that a recursive search would overflow the stack
+		final int nodeCount = 200000;
+		final MutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>> directed = new MutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>();
+		final MutableAdjacencyGraph<Integer, BidirectedEdge<Integer>> undirected = new MutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>();
+		for(int node = 0; node < nodeCount; node++)
+		{
+			directed.add(node);
+			undirected.add(node);
+		}
+		for(int node = 1; node < nodeCount; node++)
+		{
+			directed.add(new ImmutableDirectedEdge<Integer>(node - 1, node));
+			undirected.add(new ImmutableUndirectedEdge<Integer>(node - 1, node));
+		}
+
+		final CycleDetector detector = new ColoredDepthFirstSearchDetector();
+		Assert.assertFalse("cycle detected when there should be none.", detector.hasCycle(directed));
+		Assert.assertFalse("cycle detected when there should be none.", detector.hasCycle(undirected));
+
+		directed.add(new ImmutableDirectedEdge<Integer>(0, nodeCount - 1));
+		Assert.assertFalse("cycle detected when there should be none.", detector.hasCycle(directed));
+		directed.add(new ImmutableDirectedEdge<Integer>(nodeCount - 1, 0));
+		Assert.assertTrue("cycle not detected when there should be one.", detector.hasCycle(directed));
+		undirected.add(new ImmutableUndirectedEdge<Integer>(nodeCount - 1, 0));
+		Assert.assertTrue("cycle not detected when there should be one.", detector.hasCycle(undirected));
+	}
 }
@@ -0,0 +1,261 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.cycle;
+
+import java.util.*;
+import com.syncleus.dann.graph.*;
+import org.junit.*;
+
+public class TestJohnsonCycleFinder
+{
+	private static BidirectedGraph<Object, DirectedEdge<Object>> directedWithCycles()
+	{
+		final Set<Object> nodes = new HashSet<Object>(Arrays.<Object>asList("tippyTop", "top", "left", "right", "bottom"));
+		final Set<DirectedEdge<Object>> edges = new HashSet<DirectedEdge<Object>>();
+		edges.add(new ImmutableDirectedEdge<Object>("bottom", "left"));
+		edges.add(new ImmutableDirectedEdge<Object>("left", "right"));
+		edges.add(new ImmutableDirectedEdge<Object>("right", "bottom"));
+		edges.add(new ImmutableDirectedEdge<Object>("left", "top"));
+		edges.add(new ImmutableDirectedEdge<Object>("top", "right"));
+		edges.add(new ImmutableDirectedEdge<Object>("left", "tippyTop"));
+		edges.add(new ImmutableDirectedEdge<Object>("tippyTop", "right"));
+		return new ImmutableDirectedAdjacencyGraph<Object, DirectedEdge<Object>>(nodes, edges);
+	}
+
+	private static Graph<Object, BidirectedEdge<Object>> undirectedWithCycles()
+	{
+		final Set<Object> nodes = new HashSet<Object>(Arrays.<Object>asList("top", "left", "right", "bottom"));
+		final Set<BidirectedEdge<Object>> edges = new HashSet<BidirectedEdge<Object>>();
+		edges.add(new ImmutableUndirectedEdge<Object>("right", "bottom"));
+		edges.add(new ImmutableUndirectedEdge<Object>("bottom", "left"));
+		edges.add(new ImmutableUndirectedEdge<Object>("top", "right"));
+		edges.add(new ImmutableUndirectedEdge<Object>("right", "left"));
+		edges.add(new ImmutableUndirectedEdge<Object>("left", "top"));
+		return new ImmutableAdjacencyGraph<Object, BidirectedEdge<Object>>(nodes, edges);
+	}
+
+	private static Graph<Integer, BidirectedEdge<Integer>> ring(final int nodeCount)
+	{
+		return chain(nodeCount, true);
+	}
+
+	private static Graph<Integer, BidirectedEdge<Integer>> chain(final int nodeCount, final boolean closed)
+	{
+		final Set<Integer> nodes = new HashSet<Integer>();
+		final Set<BidirectedEdge<Integer>> edges = new HashSet<BidirectedEdge<Integer>>();
+		for(int node = 0; node < nodeCount; node++)
+		{
+			nodes.add(node);
+			if( closed || (node + 1 < nodeCount) )
+				edges.add(new ImmutableUndirectedEdge<Integer>(node, (node + 1) % nodeCount));
+		}
+		return new ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>(nodes, edges);
+	}
+
+	@Test
+	public void testDirectedWithCycles()
+	{
+		final JohnsonCycleFinder<Object, DirectedEdge<Object>> finder = new JohnsonCycleFinder<Object, DirectedEdge<Object>>();
+		final BidirectedGraph<Object, DirectedEdge<Object>> graph = directedWithCycles();
+		Assert.assertEquals(3, finder.cycleCount(graph));
+		Assert.assertEquals(3, finder.findCycles(graph).size());
+		Assert.assertEquals(3, finder.girth(graph));
+		Assert.assertEquals(4, finder.circumference(graph));
+		for(final Cycle<Object, DirectedEdge<Object>> cycle : finder.findCycles(graph))
+			Assert.assertTrue(cycle.isClosed());
+	}
+
+	@Test
+	public void testUndirectedWithCycles()
+	{
+		final JohnsonCycleFinder<Object, BidirectedEdge<Object>> finder = new JohnsonCycleFinder<Object, BidirectedEdge<Object>>();
+		final Graph<Object, BidirectedEdge<Object>> graph = undirectedWithCycles();
+		Assert.assertEquals(3, finder.cycleCount(graph));
+		Assert.assertEquals(3, finder.girth(graph));
+		Assert.assertEquals(4, finder.circumference(graph));
+		Assert.assertTrue(finder.isPancyclic(graph));
+		Assert.assertFalse(finder.isUnicyclic(graph));
+	}
+
+	@Test
+	public void testUndirectedDoubleEdge()
+	{
+		final Set<Object> nodes = new HashSet<Object>(Arrays.<Object>asList("center", "top", "left", "right"));
+		final Set<BidirectedEdge<Object>> edges = new HashSet<BidirectedEdge<Object>>();
+		edges.add(new ImmutableUndirectedEdge<Object>("center", "top"));
+		edges.add(new ImmutableUndirectedEdge<Object>("center", "left"));
+		edges.add(new ImmutableUndirectedEdge<Object>("center", "right"));
+		edges.add(new ImmutableUndirectedEdge<Object>("center", "right"));
+		final Graph<Object, BidirectedEdge<Object>> graph = new ImmutableAdjacencyGraph<Object, BidirectedEdge<Object>>(nodes, edges);
+
+		final JohnsonCycleFinder<Object, BidirectedEdge<Object>> finder = new JohnsonCycleFinder<Object, BidirectedEdge<Object>>();
+		Assert.assertEquals(1, finder.cycleCount(graph));
+		Assert.assertEquals(2, finder.girth(graph));
+	}
+
+	@Test
+	public void testAcyclic()
+	{
+		final Graph<Integer, BidirectedEdge<Integer>> graph = chain(10, false);
+		final JohnsonCycleFinder<Integer, BidirectedEdge<Integer>> finder = new JohnsonCycleFinder<Integer, BidirectedEdge<Integer>>();
+		Assert.assertEquals(0, finder.cycleCount(graph));
+		Assert.assertEquals(0, finder.girth(graph));
+		Assert.assertEquals(0, finder.circumference(graph));
+		Assert.assertFalse(finder.iterateCycles(graph).hasNext());
+	}
+
+	@Test
+	public void testCompleteGraph()
+	{
+		final Set<Integer> nodes = new HashSet<Integer>();
+		final Set<BidirectedEdge<Integer>> edges = new HashSet<BidirectedEdge<Integer>>();
+		for(int first = 0; first < 6; first++)
+		{
+			nodes.add(first);
+			for(int second = first + 1; second < 6; second++)
+				edges.add(new ImmutableUndirectedEdge<Integer>(first, second));
+		}
+		final Graph<Integer, BidirectedEdge<Integer>> graph = new ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>(nodes, edges);
+		final JohnsonCycleFinder<Integer, BidirectedEdge<Integer>> finder = new JohnsonCycleFinder<Integer, BidirectedEdge<Integer>>();
+
+		//a complete graph of 6 nodes has 20 triangles, 45 cycles of 4, 72 of 5 and 60 of 6
+		Assert.assertEquals(197, finder.cycleCount(graph));
+		Assert.assertTrue(finder.isPancyclic(graph));
+
+		final int[] lengthCounts = new int[7];
+		finder.findCycles(graph, 4, new CycleListener<Integer, BidirectedEdge<Integer>>()
+		{
+			@Override
+			public boolean cycleFound(final Cycle<Integer, BidirectedEdge<Integer>> cycle)
+			{
+				lengthCounts[cycle.getLength()]++;
+				return true;
+			}
+		});
+		Assert.assertEquals(20, lengthCounts[3]);
+		Assert.assertEquals(45, lengthCounts[4]);
+		Assert.assertEquals(0, lengthCounts[5] + lengthCounts[6]);
+	}
+
+	@Test
+	public void testLazyIteration()
+	{
+		final Graph<Integer, BidirectedEdge<Integer>> graph = ring(100000);
+		final JohnsonCycleFinder<Integer, BidirectedEdge<Integer>> finder = new JohnsonCycleFinder<Integer, BidirectedEdge<Integer>>();
+		final Iterator<Cycle<Integer, BidirectedEdge<Integer>>> cycles = finder.iterateCycles(graph);
+		Assert.assertTrue(cycles.hasNext());
+		Assert.assertEquals(100000, cycles.next().getLength());
+		Assert.assertFalse(cycles.hasNext());
+
+		Assert.assertEquals(100000, finder.circumference(graph));
+		Assert.assertEquals(2000, finder.girth(ring(2000)));
+	}
+
+	@Test
+	public void testListenerStops()
+	{
+		final JohnsonCycleFinder<Object, BidirectedEdge<Object>> finder = new JohnsonCycleFinder<Object, BidirectedEdge<Object>>();
+		final int[] found = new int[1];
+		finder.findCycles(undirectedWithCycles(), new CycleListener<Object, BidirectedEdge<Object>>()
+		{
+			@Override
+			public boolean cycleFound(final Cycle<Object, BidirectedEdge<Object>> cycle)
+			{
+				found[0]++;
+				return false;
+			}
+		});
+		Assert.assertEquals(1, found[0]);
+	}
+
+	private static Graph<Integer, Edge<Integer>> mixed(final int nodeCount, final List<Edge<Integer>> edges)
+	{
+		final Set<Integer> nodes = new HashSet<Integer>();
+		for(int node = 1; node <= nodeCount; node++)
+			nodes.add(node);
+		return new ImmutableAdjacencyGraph<Integer, Edge<Integer>>(nodes, new HashSet<Edge<Integer>>(edges));
+	}
+
+	//the length of the shortest closed walk from start which never repeats a node or an edge
+	private static int bruteForceGirth(final Graph<Integer, Edge<Integer>> graph, final Integer start, final Integer node, final Set<Integer> visited, final Set<Edge<Integer>> used, final int length)
+	{
+		int girth = Integer.MAX_VALUE;
+		for(final Edge<Integer> edge : graph.getTraversableEdges(node))
+		{
+			if( used.contains(edge) )
+				continue;
+			final List<Integer> neighbors = new ArrayList<Integer>(edge.getNodes());
+			neighbors.remove(node);
+			if( neighbors.isEmpty() )
+				neighbors.add(node);
+			for(final Integer neighbor : neighbors)
+			{
+				if( neighbor.equals(start) )
+					girth = Math.min(girth, length + 1);
+				else if( !visited.contains(neighbor) )
+				{
+					visited.add(neighbor);
+					used.add(edge);
+					girth = Math.min(girth, bruteForceGirth(graph, start, neighbor, visited, used, length + 1));
+					used.remove(edge);
+					visited.remove(neighbor);
+				}
+			}
+		}
+		return girth;
+	}
+
+	@Test
+	public void testMixedGirth()
+	{
+		final JohnsonCycleFinder<Integer, Edge<Integer>> finder = new JohnsonCycleFinder<Integer, Edge<Integer>>();
+		final List<Edge<Integer>> twoCycle = new ArrayList<Edge<Integer>>();
+		twoCycle.add(new ImmutableDirectedEdge<Integer>(1, 2));
+		twoCycle.add(new ImmutableUndirectedEdge<Integer>(2, 1));
+		Assert.assertEquals(2, finder.girth(mixed(2, twoCycle)));
+		final List<Edge<Integer>> triangle = new ArrayList<Edge<Integer>>();
+		triangle.add(new ImmutableDirectedEdge<Integer>(2, 4));
+		triangle.add(new ImmutableUndirectedEdge<Integer>(4, 1));
+		triangle.add(new ImmutableUndirectedEdge<Integer>(1, 2));
+		Assert.assertEquals(3, finder.girth(mixed(4, triangle)));
+		final List<Edge<Integer>> path = new ArrayList<Edge<Integer>>();
+		path.add(new ImmutableDirectedEdge<Integer>(1, 2));
+		path.add(new ImmutableUndirectedEdge<Integer>(2, 3));
+		Assert.assertEquals(0, finder.girth(mixed(3, path)));
+
+		final Random random = new Random(7);
+		for(int graphIndex = 0; graphIndex < 300; graphIndex++)
+		{
+			final int nodeCount = 2 + random.nextInt(5);
+			final int edgeCount = 1 + random.nextInt(8);
+			final List<Edge<Integer>> edges = new ArrayList<Edge<Integer>>(edgeCount);
+			for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+			{
+				final int first = 1 + random.nextInt(nodeCount);
+				final int second = 1 + random.nextInt(nodeCount);
+				edges.add( random.nextBoolean() ? new ImmutableDirectedEdge<Integer>(first, second) : new ImmutableUndirectedEdge<Integer>(first, second) );
+			}
+			final Graph<Integer, Edge<Integer>> graph = mixed(nodeCount, edges);
+			int expected = Integer.MAX_VALUE;
+			for(final Integer start : graph.getNodes())
+				expected = Math.min(expected, bruteForceGirth(graph, start, start, new HashSet<Integer>(), new HashSet<Edge<Integer>>(), 0));
+			Assert.assertEquals("girth of " + graph.getEdges(), ( expected == Integer.MAX_VALUE ? 0 : expected ), finder.girth(graph));
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.drawing.hyperassociativemap;
+
+import java.util.*;
+import com.syncleus.dann.graph.*;
+import com.syncleus.dann.math.Vector;
+import org.junit.*;
+
+public class TestIncrementalMap
+{
+	private static final int CHAIN_LENGTH = 30;
+
+	private static boolean moved(final Vector before, final Vector after)
+	{
+		return after.calculateRelativeTo(before).getDistance() != 0.0;
+	}
+
+	@Test
+	public void testOnlyNearbyNodesMove()
+	{
+		final MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>> graph = new MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>();
+		final SimpleNode[] chain = new SimpleNode[CHAIN_LENGTH];
+		for(int nodeIndex = 0; nodeIndex < CHAIN_LENGTH; nodeIndex++)
+		{
+			chain[nodeIndex] = new SimpleNode(nodeIndex);
+			graph.add(chain[nodeIndex]);
+			if( nodeIndex > 0 )
+				graph.add(new ImmutableUndirectedEdge<SimpleNode>(chain[nodeIndex - 1], chain[nodeIndex]));
+		}
+
+		final HyperassociativeMap<MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>, SimpleNode> testMap = new HyperassociativeMap<MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>, SimpleNode>(graph, 3);
+		for(int alignCount = 0; alignCount < 20; alignCount++)
+			testMap.align();
+
+		testMap.setIncremental(true);
+		testMap.setIncrementalHops(2);
+		final Map<SimpleNode, Vector> before = new HashMap<SimpleNode, Vector>(testMap.getCoordinates());
+
+		//nothing changed so nothing moves
+		testMap.align();
+		for(final SimpleNode node : chain)
+			Assert.assertFalse(moved(before.get(node), testMap.getCoordinates().get(node)));
+
+		final SimpleNode added = new SimpleNode(CHAIN_LENGTH);
+		graph.add(added);
+		graph.add(new ImmutableUndirectedEdge<SimpleNode>(chain[CHAIN_LENGTH - 1], added));
+		testMap.align();
+		final double placedDistance = testMap.getCoordinates().get(added).calculateRelativeTo(testMap.getCoordinates().get(chain[CHAIN_LENGTH - 1])).getDistance();
+		for(int alignCount = 0; alignCount < 4; alignCount++)
+			testMap.align();
+
+		Assert.assertTrue("added node was not placed near its neighbor: " + placedDistance, placedDistance < 2.0 * testMap.getEquilibriumDistance());
+		//the new node and the nodes within two hops of its neighbor move
+		for(int nodeIndex = 0; nodeIndex < CHAIN_LENGTH - 3; nodeIndex++)
+			Assert.assertFalse("node " + nodeIndex + " moved", moved(before.get(chain[nodeIndex]), testMap.getCoordinates().get(chain[nodeIndex])));
+		boolean nearbyMoved = false;
+		for(int nodeIndex = CHAIN_LENGTH - 3; nodeIndex < CHAIN_LENGTH; nodeIndex++)
+			nearbyMoved |= moved(before.get(chain[nodeIndex]), testMap.getCoordinates().get(chain[nodeIndex]));
+		Assert.assertTrue("no node near the change moved", nearbyMoved);
+
+		testMap.alignGlobally();
+		Assert.assertTrue("global alignment left the layout frozen", moved(before.get(chain[0]), testMap.getCoordinates().get(chain[0])));
+	}
+}
@@ -25,6 +25,17 @@ public class TestLayeredLoopMap
 {
 	@Test
 	public void testLayeredLoopAverage()
+	{
+		checkLayeredLoopAverage(0.0);
+	}
+
+	@Test
+	public void testApproximateLayeredLoopAverage()
+	{
+		checkLayeredLoopAverage(0.7);
+	}
+
+	private static void checkLayeredLoopAverage(final double repulsionTheta)
 	{
 		final int cores = Runtime.getRuntime().availableProcessors();
 		final ThreadPoolExecutor executor = new ThreadPoolExecutor(cores + 1, cores * 2, 20, TimeUnit.SECONDS, new LinkedBlockingQueue());
@@ -32,6 +43,7 @@ public class TestLayeredLoopMap
 		try
 		{
 			final LayeredHyperassociativeMap testMap = new LayeredHyperassociativeMap(10, executor);
+			testMap.setRepulsionTheta(repulsionTheta);
 
 			//align the testMap
 			for(int alignCount = 0; alignCount < 10; alignCount++)
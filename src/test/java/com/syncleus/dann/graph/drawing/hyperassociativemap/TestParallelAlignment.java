@@ -0,0 +1,85 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.drawing.hyperassociativemap;
+
+import java.util.*;
+import java.util.concurrent.*;
+import com.syncleus.dann.graph.*;
+import com.syncleus.dann.math.Vector;
+import org.junit.*;
+
+public class TestParallelAlignment
+{
+	//enough nodes to be aligned in several blocks
+	private static final int NODE_COUNT = 700;
+
+	private static MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>> randomGraph()
+	{
+		final Random random = new Random(3);
+		final MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>> graph = new MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>();
+		final SimpleNode[] nodes = new SimpleNode[NODE_COUNT];
+		for(int nodeIndex = 0; nodeIndex < NODE_COUNT; nodeIndex++)
+		{
+			nodes[nodeIndex] = new SimpleNode(nodeIndex);
+			graph.add(nodes[nodeIndex]);
+			if( nodeIndex > 0 )
+				graph.add(new ImmutableUndirectedEdge<SimpleNode>(nodes[random.nextInt(nodeIndex)], nodes[nodeIndex]));
+		}
+		return graph;
+	}
+
+	@Test
+	public void testExecutorMatchesSequential()
+	{
+		final MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>> graph = randomGraph();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			final HyperassociativeMap<MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>, SimpleNode> sequential = new HyperassociativeMap<MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>, SimpleNode>(graph, 3);
+			final HyperassociativeMap<MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>, SimpleNode> parallel = new HyperassociativeMap<MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>, SimpleNode>(graph, 3, executor);
+			for(final Map.Entry<SimpleNode, Vector> entry : sequential.getCoordinates().entrySet())
+				parallel.setCoordinates(entry.getKey(), entry.getValue());
+
+			for(int alignCount = 0; alignCount < 10; alignCount++)
+			{
+				sequential.align();
+				parallel.align();
+				for(final SimpleNode node : graph.getNodes())
+				{
+					final Vector expected = sequential.getCoordinates().get(node);
+					final Vector actual = parallel.getCoordinates().get(node);
+					for(int dimension = 1; dimension <= 3; dimension++)
+						Assert.assertEquals("node " + node.getLayer() + " after " + (alignCount + 1) + " alignments", expected.getCoordinate(dimension), actual.getCoordinate(dimension), 0.0);
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetCoordinatesDimensions()
+	{
+		final MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>> graph = randomGraph();
+		final HyperassociativeMap<MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>, SimpleNode> map = new HyperassociativeMap<MutableAdjacencyGraph<SimpleNode, BidirectedEdge<SimpleNode>>, SimpleNode>(graph, 3);
+		map.setCoordinates(graph.getNodes().iterator().next(), new Vector(1.0, 2.0));
+	}
+}
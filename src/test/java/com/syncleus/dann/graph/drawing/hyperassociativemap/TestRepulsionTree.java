@@ -0,0 +1,84 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.drawing.hyperassociativemap;
+
+import java.util.Random;
+import org.junit.*;
+
+public class TestRepulsionTree
+{
+	private static final int DIMENSIONS = 3;
+
+	private static double[] bruteForce(final double[] points, final int self)
+	{
+		final double[] force = new double[DIMENSIONS];
+		for(int point = 0; point < points.length / DIMENSIONS; point++)
+		{
+			if( point == self )
+				continue;
+			double squared = 0.0;
+			for(int dimension = 0; dimension < DIMENSIONS; dimension++)
+				squared += Math.pow(points[point * DIMENSIONS + dimension] - points[self * DIMENSIONS + dimension], 2.0);
+			final double distance = Math.sqrt(squared);
+			final double magnitude = -Math.min(1.0 / (distance * distance), 1.0);
+			for(int dimension = 0; dimension < DIMENSIONS; dimension++)
+				force[dimension] += (points[point * DIMENSIONS + dimension] - points[self * DIMENSIONS + dimension]) * magnitude / distance;
+		}
+		return force;
+	}
+
+	private static double error(final double[] expected, final double[] actual)
+	{
+		double difference = 0.0;
+		double length = 0.0;
+		for(int dimension = 0; dimension < DIMENSIONS; dimension++)
+		{
+			difference += Math.pow(expected[dimension] - actual[dimension], 2.0);
+			length += Math.pow(expected[dimension], 2.0);
+		}
+		return Math.sqrt(difference / length);
+	}
+
+	@Test
+	public void testRepulsion()
+	{
+		final Random random = new Random(13);
+		final double[] points = new double[3000 * DIMENSIONS];
+		for(int coordinate = 0; coordinate < points.length; coordinate++)
+			points[coordinate] = random.nextGaussian() * 10.0;
+		//coincident points must not break the tree
+		for(int dimension = 0; dimension < DIMENSIONS; dimension++)
+			points[DIMENSIONS + dimension] = points[dimension];
+
+		final RepulsionTree tree = new RepulsionTree(points, DIMENSIONS);
+		for(int self = 0; self < 3000; self += 101)
+		{
+			final double[] expected = bruteForce(points, self);
+			final double[] exact = new double[DIMENSIONS];
+			tree.addRepulsion(self, 0.0, 2.0, 1.0, 1.0, exact);
+			final double[] approximate = new double[DIMENSIONS];
+			tree.addRepulsion(self, 0.5, 2.0, 1.0, 1.0, approximate);
+			if( self > 1 )
+			{
+				Assert.assertTrue("exact repulsion differs", error(expected, exact) < 1e-9);
+				Assert.assertTrue("approximate repulsion is too far off", error(expected, approximate) < 0.05);
+			}
+		}
+	}
+}
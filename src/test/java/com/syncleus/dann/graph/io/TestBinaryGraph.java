@@ -0,0 +1,351 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.io;
+
+import java.io.*;
+import java.util.*;
+import com.syncleus.dann.graph.*;
+import com.syncleus.dann.graph.context.ContextGraphElement;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBinaryGraph
+{
+	private static ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>> randomGraph()
+	{
+		final Random random = new Random(7);
+		final Set<String> nodes = new HashSet<String>();
+		for(int node = 0; node < 500; node++)
+			nodes.add("node" + node);
+		final List<String> nodeList = new ArrayList<String>(nodes);
+		final Set<DirectedEdge<String>> edges = new HashSet<DirectedEdge<String>>();
+		for(int edge = 0; edge < 2000; edge++)
+		{
+			final String source = nodeList.get(random.nextInt(nodeList.size()));
+			final String destination = (edge % 100 == 0 ? source : nodeList.get(random.nextInt(nodeList.size())));
+			edges.add(new ImmutableWeightedDirectedEdge<String>(source, destination, random.nextDouble()));
+		}
+		return new ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>>(nodes, edges);
+	}
+
+	private static String describe(final BidirectedEdge<?> edge)
+	{
+		return edge.getLeftNode() + (edge instanceof DirectedEdge ? "->" : "--") + edge.getRightNode() + (edge instanceof Weighted ? ":" + ((Weighted) edge).getWeight() : "");
+	}
+
+	private static List<String> describe(final Collection<? extends BidirectedEdge<?>> edges)
+	{
+		final List<String> descriptions = new ArrayList<String>();
+		for(final BidirectedEdge<?> edge : edges)
+			descriptions.add(describe(edge));
+		Collections.sort(descriptions);
+		return descriptions;
+	}
+
+	private static <N> List<N> sorted(final List<N> nodes)
+	{
+		final List<N> sortedNodes = new ArrayList<N>(nodes);
+		Collections.sort(sortedNodes, new Comparator<N>()
+		{
+			@Override
+			public int compare(final N first, final N second)
+			{
+				return first.toString().compareTo(second.toString());
+			}
+		});
+		return sortedNodes;
+	}
+
+	private static <N> byte[] write(final Graph<N, ? extends BidirectedEdge<N>> graph, final NodeCodec<N> codec) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final BinaryGraphWriter<N> writer = new BinaryGraphWriter<N>(bytes, codec);
+		writer.write(graph);
+		writer.close();
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void testStreamRoundTrip() throws IOException
+	{
+		final ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>> graph = randomGraph();
+		final BinaryGraphReader<String> reader = new BinaryGraphReader<String>(new ByteArrayInputStream(write(graph, NodeCodecs.STRING)), NodeCodecs.STRING);
+		Assert.assertTrue(reader.isDirected());
+		Assert.assertTrue(reader.isWeighted());
+		final ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>> copy = new ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>>(reader.readDirectedGraph());
+		reader.close();
+
+		Assert.assertEquals(graph.getNodes(), copy.getNodes());
+		Assert.assertEquals(describe(graph.getEdges()), describe(copy.getEdges()));
+		for(final String node : graph.getNodes())
+			Assert.assertEquals(sorted(graph.getAdjacentNodes(node)), sorted(copy.getAdjacentNodes(node)));
+	}
+
+	@Test
+	public void testStreamingReads() throws IOException
+	{
+		final Set<Integer> nodes = new HashSet<Integer>(Arrays.asList(1, 2, 3));
+		final Set<BidirectedEdge<Integer>> edges = new HashSet<BidirectedEdge<Integer>>();
+		edges.add(new ImmutableUndirectedEdge<Integer>(1, 2));
+		edges.add(new ImmutableUndirectedEdge<Integer>(3, 3));
+		final byte[] bytes = write(new ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>(nodes, edges), NodeCodecs.INTEGER);
+
+		final BinaryGraphReader<Integer> reader = new BinaryGraphReader<Integer>(new ByteArrayInputStream(bytes), NodeCodecs.INTEGER);
+		Assert.assertFalse(reader.isDirected());
+		Assert.assertFalse(reader.isWeighted());
+		Assert.assertEquals(3, reader.getNodeCount());
+		Assert.assertEquals(2, reader.getEdgeCount());
+		//reading an edge first reads the nodes
+		final List<BidirectedEdge<Integer>> readEdges = new ArrayList<BidirectedEdge<Integer>>();
+		while( reader.hasNextEdge() )
+			readEdges.add(reader.nextEdge());
+		Assert.assertEquals(nodes, new HashSet<Integer>(reader.getNodesRead()));
+		Assert.assertEquals(describe(edges), describe(readEdges));
+	}
+
+	@Test
+	public void testMappedGraph() throws IOException
+	{
+		final ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>> graph = randomGraph();
+		final File file = File.createTempFile("graph", ".bin");
+		file.deleteOnExit();
+		final BinaryGraphWriter<String> writer = new BinaryGraphWriter<String>(new FileOutputStream(file), NodeCodecs.STRING);
+		writer.write(graph);
+		writer.close();
+
+		final MappedGraph<String> mapped = new MappedGraph<String>(file, NodeCodecs.STRING);
+		Assert.assertEquals(graph.getNodes(), new HashSet<String>(mapped.getNodes()));
+		Assert.assertEquals(graph.getNodes().size(), mapped.getNodes().size());
+		Assert.assertEquals(describe(graph.getEdges()), describe(mapped.getEdges()));
+		for(final String node : graph.getNodes())
+		{
+			Assert.assertTrue(mapped.getNodes().contains(node));
+			Assert.assertEquals(sorted(graph.getAdjacentNodes(node)), sorted(mapped.getAdjacentNodes(node)));
+			Assert.assertEquals(describe(graph.getAdjacentEdges(node)), describe(mapped.getAdjacentEdges(node)));
+			Assert.assertEquals(describe(graph.getTraversableEdges(node)), describe(mapped.getTraversableEdges(node)));
+			Assert.assertEquals(describe(graph.getInEdges(node)), describe(mapped.getInEdges(node)));
+			for(final BidirectedEdge<String> edge : mapped.getAdjacentEdges(node))
+				Assert.assertTrue(mapped.getEdges().contains(edge));
+		}
+
+		//elements are created once
+		Assert.assertSame(mapped.getEdges().iterator().next(), mapped.getEdges().iterator().next());
+		Assert.assertFalse(mapped.getNodes().contains("missing"));
+		Assert.assertTrue(mapped.getAdjacentEdges("missing").isEmpty());
+		Assert.assertEquals(graph.getNodes().size() + 1, mapped.cloneAdd("extra").getNodes().size());
+	}
+
+	@Test
+	public void testEmptyDirectedGraph() throws IOException
+	{
+		final Set<String> nodes = new HashSet<String>(Arrays.asList("first", "second"));
+		final ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>> graph = new ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>>(nodes, new HashSet<DirectedEdge<String>>());
+		final BinaryGraphReader<String> reader = new BinaryGraphReader<String>(new ByteArrayInputStream(write(graph, NodeCodecs.STRING)), NodeCodecs.STRING);
+		Assert.assertTrue(reader.isDirected());
+		final ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>> copy = new ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>>(reader.readDirectedGraph());
+		reader.close();
+		Assert.assertEquals(nodes, copy.getNodes());
+		Assert.assertTrue(copy.getEdges().isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUndirectedAsDirected() throws IOException
+	{
+		final Set<Integer> nodes = new HashSet<Integer>(Arrays.asList(1, 2));
+		final Set<BidirectedEdge<Integer>> edges = Collections.<BidirectedEdge<Integer>>singleton(new ImmutableUndirectedEdge<Integer>(1, 2));
+		final byte[] bytes = write(new ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>(nodes, edges), NodeCodecs.INTEGER);
+		new BinaryGraphReader<Integer>(new ByteArrayInputStream(bytes), NodeCodecs.INTEGER).readDirectedGraph();
+	}
+
+	/**
+	 * A node which only equals itself, so a decoded copy never equals the
+	 * node it was written from.
+	 */
+	private static final class IdentityNode implements Serializable
+	{
+		private static final long serialVersionUID = 2651876380436951117L;
+		private final String name;
+
+		IdentityNode(final String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.name;
+		}
+	}
+
+	@Test
+	public void testMappedIdentityNodes() throws IOException
+	{
+		final List<IdentityNode> nodes = new ArrayList<IdentityNode>();
+		for(int node = 0; node < 50; node++)
+			nodes.add(new IdentityNode("node" + node));
+		final Set<DirectedEdge<IdentityNode>> edges = new HashSet<DirectedEdge<IdentityNode>>();
+		for(int node = 0; node < nodes.size(); node++)
+			edges.add(new ImmutableDirectedEdge<IdentityNode>(nodes.get(node), nodes.get((node + 1) % nodes.size())));
+		final ImmutableDirectedAdjacencyGraph<IdentityNode, DirectedEdge<IdentityNode>> graph = new ImmutableDirectedAdjacencyGraph<IdentityNode, DirectedEdge<IdentityNode>>(new HashSet<IdentityNode>(nodes), edges);
+
+		final File file = File.createTempFile("graph", ".bin");
+		file.deleteOnExit();
+		final BinaryGraphWriter<IdentityNode> writer = new BinaryGraphWriter<IdentityNode>(new FileOutputStream(file), NodeCodecs.<IdentityNode>serializable());
+		writer.write(graph);
+		writer.close();
+
+		final MappedGraph<IdentityNode> mapped = new MappedGraph<IdentityNode>(file, NodeCodecs.<IdentityNode>serializable());
+		for(final IdentityNode node : mapped.getNodes())
+		{
+			Assert.assertTrue(mapped.getNodes().contains(node));
+			Assert.assertEquals(2, mapped.getAdjacentEdges(node).size());
+			Assert.assertEquals(2, mapped.getAdjacentNodes(node).size());
+		}
+		Assert.assertFalse(mapped.getNodes().contains("node0"));
+	}
+
+	@Test
+	public void testMixedEdges() throws IOException
+	{
+		final Set<Integer> nodes = new HashSet<Integer>(Arrays.asList(1, 2, 3));
+		final Set<BidirectedEdge<Integer>> directedEdges = new HashSet<BidirectedEdge<Integer>>();
+		directedEdges.add(new ImmutableDirectedEdge<Integer>(1, 2));
+		directedEdges.add(new ImmutableUndirectedEdge<Integer>(2, 3));
+		final Set<BidirectedEdge<Integer>> weightedEdges = new HashSet<BidirectedEdge<Integer>>();
+		weightedEdges.add(new ImmutableWeightedUndirectedEdge<Integer>(1, 2, 0.5));
+		weightedEdges.add(new ImmutableUndirectedEdge<Integer>(2, 3));
+		for(final Set<BidirectedEdge<Integer>> edges : Arrays.asList(directedEdges, weightedEdges))
+		{
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final BinaryGraphWriter<Integer> writer = new BinaryGraphWriter<Integer>(bytes, NodeCodecs.INTEGER);
+			try
+			{
+				writer.write(new ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>(nodes, edges));
+				Assert.fail("a graph of mixed edges was written");
+			}
+			catch(IllegalArgumentException caught)
+			{
+				//nothing is written for a graph that can not be read back
+				writer.close();
+				Assert.assertEquals(0, bytes.size());
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAGraph() throws IOException
+	{
+		new BinaryGraphReader<String>(new ByteArrayInputStream(new byte[32]), NodeCodecs.STRING);
+	}
+
+	@Test
+	public void testMappedCopiesNotJoined() throws IOException
+	{
+		final File file = File.createTempFile("graph", ".bin");
+		file.deleteOnExit();
+		final BinaryGraphWriter<String> writer = new BinaryGraphWriter<String>(new FileOutputStream(file), NodeCodecs.STRING);
+		writer.write(randomGraph());
+		writer.close();
+
+		final MappedGraph<String> mapped = new MappedGraph<String>(file, NodeCodecs.STRING);
+		mapped.clone();
+		mapped.cloneAdd("extra");
+		for(final BidirectedEdge<String> edge : mapped.getEdges())
+			Assert.assertFalse(((ContextGraphElement<?>) edge).isGraphMember());
+	}
+
+	@Test
+	public void testCorruptHashSlots() throws IOException
+	{
+		final byte[] bytes = write(randomGraph(), NodeCodecs.STRING);
+		//the slot count is the last int of the header
+		final int slotsOffset = 5 * 4;
+		for(final int slots : new int[]{0, -1, 3, 768, 256})
+		{
+			final ByteArrayOutputStream corrupt = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(corrupt);
+			out.write(bytes, 0, slotsOffset);
+			out.writeInt(slots);
+			out.write(bytes, slotsOffset + 4, bytes.length - slotsOffset - 4);
+			out.close();
+			final File file = File.createTempFile("graph", ".bin");
+			file.deleteOnExit();
+			final FileOutputStream fileOut = new FileOutputStream(file);
+			fileOut.write(corrupt.toByteArray());
+			fileOut.close();
+
+			try
+			{
+				new MappedGraph<String>(file, NodeCodecs.STRING);
+				Assert.fail("a mapped graph was opened with " + slots + " hash slots");
+			}
+			catch(IOException caught)
+			{
+				//the header is rejected
+			}
+			try
+			{
+				new BinaryGraphReader<String>(new ByteArrayInputStream(corrupt.toByteArray()), NodeCodecs.STRING);
+				Assert.fail("a graph was read with " + slots + " hash slots");
+			}
+			catch(IOException caught)
+			{
+				//the header is rejected
+			}
+		}
+	}
+
+	@Test
+	public void testFullHashTable() throws IOException
+	{
+		final ImmutableDirectedAdjacencyGraph<String, DirectedEdge<String>> graph = randomGraph();
+		final byte[] bytes = write(graph, NodeCodecs.STRING);
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		in.skipBytes(3 * 4);
+		final int nodeCount = in.readInt();
+		in.skipBytes(4);
+		final int slots = in.readInt();
+		final long indexPosition = new DataInputStream(new ByteArrayInputStream(bytes, bytes.length - 8, 8)).readLong();
+
+		//fill every slot with the first node so no probe ends at an empty slot
+		final int hashOffset = (int) (indexPosition + 8L * (nodeCount + 1));
+		for(int slot = 0; slot < slots; slot++)
+		{
+			Arrays.fill(bytes, hashOffset + 4 * slot, hashOffset + 4 * slot + 3, (byte) 0);
+			bytes[hashOffset + 4 * slot + 3] = 1;
+		}
+		final File file = File.createTempFile("graph", ".bin");
+		file.deleteOnExit();
+		final FileOutputStream fileOut = new FileOutputStream(file);
+		fileOut.write(bytes);
+		fileOut.close();
+
+		final MappedGraph<String> mapped = new MappedGraph<String>(file, NodeCodecs.STRING);
+		try
+		{
+			mapped.getNodes().contains("missing");
+			Assert.fail("a lookup in a full hash table returned");
+		}
+		catch(IllegalStateException caught)
+		{
+			Assert.assertTrue(caught.getMessage().contains(file.getPath()));
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.search.pathfinding;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import com.syncleus.dann.graph.*;
+
+/**
+ * Small directed fixture shared by the path finder tests that need negative
+ * edge weights. The only cycle is E -&gt; C -&gt; B -&gt; D -&gt; E, whose total
+ * weight is the closing weight minus two, so a closing weight below two makes
+ * it a negative weight cycle.
+ */
+final class NegativeWeightGraphs
+{
+	private NegativeWeightGraphs()
+	{
+	}
+
+	static MutableDirectedAdjacencyGraph<String, WeightedDirectedEdge<String>> negativeGraph(final double closingWeight)
+	{
+		final MutableDirectedAdjacencyGraph<String, WeightedDirectedEdge<String>> graph = new MutableDirectedAdjacencyGraph<String, WeightedDirectedEdge<String>>(new HashSet<String>(Arrays.asList("A", "B", "C", "D", "E")), new HashSet<WeightedDirectedEdge<String>>());
+		graph.add(new SimpleWeightedDirectedEdge<String>("A", "B", 4.0));
+		graph.add(new SimpleWeightedDirectedEdge<String>("A", "C", 2.0));
+		graph.add(new SimpleWeightedDirectedEdge<String>("C", "B", -1.0));
+		graph.add(new SimpleWeightedDirectedEdge<String>("B", "D", 2.0));
+		graph.add(new SimpleWeightedDirectedEdge<String>("C", "D", 5.0));
+		graph.add(new SimpleWeightedDirectedEdge<String>("D", "E", -3.0));
+		graph.add(new SimpleWeightedDirectedEdge<String>("E", "C", closingWeight));
+		return graph;
+	}
+}
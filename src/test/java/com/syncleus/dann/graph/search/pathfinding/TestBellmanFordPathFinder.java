@@ -117,4 +117,61 @@ public class TestBellmanFordPathFinder
 
 		Assert.assertTrue("incorrect path found!", checkSolution(startNode, path, EASY_GRID_SOLUTION));
 	}
+
+	@Test
+	public void testHardGridQueued()
+	{
+		final DirectedGrid hardGrid = new DirectedGrid(HARD_GRID);
+		final BellmanFordPathFinder<GridNode, DirectedEdge<GridNode>> pathFinder = new BellmanFordPathFinder<GridNode, DirectedEdge<GridNode>>(hardGrid, true);
+
+		final GridNode startNode = hardGrid.getNode(HARD_GRID_START[0], HARD_GRID_START[1]);
+		final GridNode endNode = hardGrid.getNode(HARD_GRID_END[0], HARD_GRID_END[1]);
+
+		final List<DirectedEdge<GridNode>> path = pathFinder.getBestPath(startNode, endNode);
+
+		Assert.assertTrue("incorrect path found!", checkSolution(startNode, path, HARD_GRID_SOLUTION));
+	}
+
+	@Test
+	public void testInfinityGridQueued()
+	{
+		final DirectedGrid infinityGrid = new DirectedGrid(EASY_GRID);
+		final BellmanFordPathFinder<GridNode, DirectedEdge<GridNode>> pathFinder = new BellmanFordPathFinder<GridNode, DirectedEdge<GridNode>>(infinityGrid, true);
+
+		final GridNode startNode = infinityGrid.getNode(EASY_GRID_START[0], EASY_GRID_START[1]);
+		final GridNode endNode = infinityGrid.getNode(EASY_GRID_END[0], EASY_GRID_END[1]);
+
+		final List<DirectedEdge<GridNode>> path = pathFinder.getBestPath(startNode, endNode);
+
+		Assert.assertTrue("incorrect path found!", checkSolution(startNode, path, EASY_GRID_SOLUTION));
+	}
+
+	@Test
+	public void testNegativeWeights()
+	{
+		for(final boolean queueBased : new boolean[]{false, true})
+		{
+			final BellmanFordPathFinder<String, WeightedDirectedEdge<String>> pathFinder = new BellmanFordPathFinder<String, WeightedDirectedEdge<String>>(NegativeWeightGraphs.negativeGraph(4.0), queueBased);
+
+			final List<WeightedDirectedEdge<String>> path = pathFinder.getBestPath("A", "E");
+			Assert.assertEquals("incorrect path length", 4, path.size());
+			Assert.assertEquals("incorrect first step", "C", path.get(0).getDestinationNode());
+			Assert.assertEquals("incorrect path weight", 0.0, pathFinder.getPathWeight("E"), 0.000001);
+			Assert.assertNull("A should not be reachable", pathFinder.getBestPath("B", "A"));
+		}
+	}
+
+	@Test(expected = NegativeWeightCycleException.class)
+	public void testNegativeCycle()
+	{
+		final BellmanFordPathFinder<String, WeightedDirectedEdge<String>> pathFinder = new BellmanFordPathFinder<String, WeightedDirectedEdge<String>>(NegativeWeightGraphs.negativeGraph(1.0));
+		pathFinder.getBestPath("A", "E");
+	}
+
+	@Test(expected = NegativeWeightCycleException.class)
+	public void testNegativeCycleQueued()
+	{
+		final BellmanFordPathFinder<String, WeightedDirectedEdge<String>> pathFinder = new BellmanFordPathFinder<String, WeightedDirectedEdge<String>>(NegativeWeightGraphs.negativeGraph(1.0), true);
+		pathFinder.getBestPath("A", "E");
+	}
 }
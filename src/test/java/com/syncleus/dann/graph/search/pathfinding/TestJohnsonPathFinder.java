@@ -18,7 +18,10 @@
  ******************************************************************************/
 package com.syncleus.dann.graph.search.pathfinding;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import com.syncleus.dann.graph.*;
 import com.syncleus.dann.graph.search.*;
 import org.junit.*;
@@ -117,4 +120,77 @@ public class TestJohnsonPathFinder
 
 		Assert.assertTrue("incorrect path found!", checkSolution(startNode, path, EASY_GRID_SOLUTION));
 	}
+
+	@Test
+	public void testHardGridAllPairs()
+	{
+		final WeightedDirectedGrid hardGrid = new WeightedDirectedGrid(HARD_GRID);
+		final JohnsonPathFinder<GridNode, WeightedDirectedEdge<GridNode>> pathFinder = new JohnsonPathFinder<GridNode, WeightedDirectedEdge<GridNode>>(hardGrid);
+		pathFinder.calculateAllPairs();
+
+		final GridNode startNode = hardGrid.getNode(HARD_GRID_START[0], HARD_GRID_START[1]);
+		final GridNode endNode = hardGrid.getNode(HARD_GRID_END[0], HARD_GRID_END[1]);
+
+		final List<WeightedDirectedEdge<GridNode>> path = pathFinder.getBestPath(startNode, endNode);
+
+		Assert.assertTrue("incorrect path found!", checkSolution(startNode, path, HARD_GRID_SOLUTION));
+	}
+
+	@Test
+	public void testNegativeWeightsAllPairs()
+	{
+		final JohnsonPathFinder<String, WeightedDirectedEdge<String>> pathFinder = new JohnsonPathFinder<String, WeightedDirectedEdge<String>>(NegativeWeightGraphs.negativeGraph(4.0));
+		final ForkJoinPool pool = new ForkJoinPool(2);
+		final ShortestPathMatrix<String, WeightedDirectedEdge<String>> allPairs;
+		try
+		{
+			allPairs = pathFinder.calculateAllPairs(pool);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		Assert.assertEquals("incorrect weight to B", 1.0, allPairs.getPathWeight("A", "B"), 0.000001);
+		Assert.assertEquals("incorrect weight to C", 2.0, allPairs.getPathWeight("A", "C"), 0.000001);
+		Assert.assertEquals("incorrect weight to D", 3.0, allPairs.getPathWeight("A", "D"), 0.000001);
+		Assert.assertEquals("incorrect weight to E", 0.0, allPairs.getPathWeight("A", "E"), 0.000001);
+		Assert.assertEquals("incorrect weight from E to B", 3.0, allPairs.getPathWeight("E", "B"), 0.000001);
+		Assert.assertTrue("A should not be reachable", Double.isInfinite(allPairs.getPathWeight("B", "A")));
+		Assert.assertNull("A should not be reachable", pathFinder.getBestPath("B", "A"));
+
+		final List<WeightedDirectedEdge<String>> path = pathFinder.getBestPath("A", "E");
+		Assert.assertEquals("incorrect path length", 4, path.size());
+		Assert.assertEquals("incorrect first step", "C", path.get(0).getDestinationNode());
+		Assert.assertEquals("incorrect last step", "E", path.get(3).getDestinationNode());
+	}
+
+	@Test(expected = NegativeWeightCycleException.class)
+	public void testNegativeCycleAllPairs()
+	{
+		final JohnsonPathFinder<String, WeightedDirectedEdge<String>> pathFinder = new JohnsonPathFinder<String, WeightedDirectedEdge<String>>(NegativeWeightGraphs.negativeGraph(1.0));
+		pathFinder.calculateAllPairs();
+	}
+
+	@Test
+	public void testMappedAllPairs() throws IOException
+	{
+		final File backingFile = File.createTempFile("johnson", ".matrix");
+		backingFile.deleteOnExit();
+		final JohnsonPathFinder<String, WeightedDirectedEdge<String>> pathFinder = new JohnsonPathFinder<String, WeightedDirectedEdge<String>>(NegativeWeightGraphs.negativeGraph(4.0));
+		final ForkJoinPool pool = new ForkJoinPool();
+		final ShortestPathMatrix<String, WeightedDirectedEdge<String>> allPairs;
+		try
+		{
+			allPairs = pathFinder.calculateAllPairs(pool, backingFile);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		Assert.assertEquals("incorrect weight to D", 3.0, allPairs.getPathWeight("A", "D"), 0.000001);
+		Assert.assertEquals("incorrect path length", 3, pathFinder.getBestPath("A", "D").size());
+		Assert.assertTrue("table was not written to the backing file", backingFile.length() > 0);
+	}
 }
@@ -0,0 +1,184 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import com.syncleus.dann.graph.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestGraphMatcher
+{
+	private static <N> Graph<N, BidirectedEdge<N>> undirected(final List<N> nodes, final int[][] pairs)
+	{
+		final Set<BidirectedEdge<N>> edges = new HashSet<BidirectedEdge<N>>();
+		for(final int[] pair : pairs)
+			edges.add(new ImmutableUndirectedEdge<N>(nodes.get(pair[0]), nodes.get(pair[1])));
+		return new ImmutableAdjacencyGraph<N, BidirectedEdge<N>>(new HashSet<N>(nodes), edges);
+	}
+
+	private static <N> Graph<N, DirectedEdge<N>> directed(final List<N> nodes, final int[][] pairs)
+	{
+		final Set<DirectedEdge<N>> edges = new HashSet<DirectedEdge<N>>();
+		for(final int[] pair : pairs)
+			edges.add(new ImmutableDirectedEdge<N>(nodes.get(pair[0]), nodes.get(pair[1])));
+		return new ImmutableDirectedAdjacencyGraph<N, DirectedEdge<N>>(new HashSet<N>(nodes), edges);
+	}
+
+	private static List<Integer> integers(final int count)
+	{
+		final List<Integer> nodes = new ArrayList<Integer>();
+		for(int node = 0; node < count; node++)
+			nodes.add(node);
+		return nodes;
+	}
+
+	private static List<String> strings(final int count)
+	{
+		final List<String> nodes = new ArrayList<String>();
+		for(int node = 0; node < count; node++)
+			nodes.add("node" + node);
+		return nodes;
+	}
+
+	private static int[][] ring(final int count)
+	{
+		final int[][] pairs = new int[count][];
+		for(int node = 0; node < count; node++)
+			pairs[node] = new int[] {node, (node + 1) % count};
+		return pairs;
+	}
+
+	private static int[][] complete(final int count)
+	{
+		final List<int[]> pairs = new ArrayList<int[]>();
+		for(int first = 0; first < count; first++)
+			for(int second = first + 1; second < count; second++)
+				pairs.add(new int[] {first, second});
+		return pairs.toArray(new int[pairs.size()][]);
+	}
+
+	@Test
+	public void testRingAutomorphisms()
+	{
+		final Graph<Integer, BidirectedEdge<Integer>> first = undirected(integers(5), ring(5));
+		final Graph<String, BidirectedEdge<String>> second = undirected(strings(5), new int[][] {{0, 2}, {2, 4}, {4, 1}, {1, 3}, {3, 0}});
+		final GraphMatcher<Integer, String> matcher = new GraphMatcher<Integer, String>(first, second, GraphMatcher.Mode.ISOMORPHISM);
+		Assert.assertTrue(matcher.isMatched());
+		//five rotations and their reflections
+		Assert.assertEquals(10, matcher.countMatches());
+		Assert.assertEquals(10, matcher.countMatches(ForkJoinPool.commonPool()));
+
+		int lazyCount = 0;
+		for(final Map<Integer, String> match : matcher)
+		{
+			Assert.assertEquals(5, new HashSet<String>(match.values()).size());
+			lazyCount++;
+		}
+		Assert.assertEquals(10, lazyCount);
+	}
+
+	@Test
+	public void testNotIsomorphic()
+	{
+		final Graph<Integer, BidirectedEdge<Integer>> ring = undirected(integers(6), ring(6));
+		final Graph<Integer, BidirectedEdge<Integer>> triangles = undirected(integers(6), new int[][] {{0, 1}, {1, 2}, {2, 0}, {3, 4}, {4, 5}, {5, 3}});
+		Assert.assertFalse(new GraphMatcher<Integer, Integer>(ring, triangles, GraphMatcher.Mode.ISOMORPHISM).isMatched());
+		Assert.assertFalse(Topography.isIsomorphic(ring, triangles));
+		Assert.assertNull(Topography.getIsomorphism(ring, triangles));
+
+		final Graph<Integer, BidirectedEdge<Integer>> path = undirected(integers(6), new int[][] {{0, 1}, {1, 2}, {2, 3}, {3, 4}, {4, 5}});
+		Assert.assertFalse(Topography.isIsomorphic(ring, path));
+		Assert.assertTrue(Topography.isSubgraphIsomorphic(ring, path));
+		Assert.assertFalse(Topography.isSubgraphIsomorphic(path, ring));
+	}
+
+	@Test
+	public void testDirected()
+	{
+		final Graph<Integer, DirectedEdge<Integer>> cycle = directed(integers(3), new int[][] {{0, 1}, {1, 2}, {2, 0}});
+		final Graph<Integer, DirectedEdge<Integer>> reversed = directed(integers(3), new int[][] {{1, 0}, {2, 1}, {0, 2}});
+		final Graph<Integer, DirectedEdge<Integer>> transitive = directed(integers(3), new int[][] {{0, 1}, {1, 2}, {0, 2}});
+		Assert.assertTrue(Topography.isIsomorphic(cycle, reversed));
+		Assert.assertFalse(Topography.isIsomorphic(cycle, transitive));
+		Assert.assertEquals(3, new GraphMatcher<Integer, Integer>(cycle, reversed, GraphMatcher.Mode.ISOMORPHISM).countMatches());
+		Assert.assertEquals(1, new GraphMatcher<Integer, Integer>(transitive, transitive, GraphMatcher.Mode.ISOMORPHISM).countMatches());
+	}
+
+	@Test
+	public void testParallelEdges()
+	{
+		final List<Integer> nodes = integers(2);
+		final Set<BidirectedEdge<Integer>> edges = new HashSet<BidirectedEdge<Integer>>();
+		edges.add(new ImmutableUndirectedEdge<Integer>(0, 1));
+		edges.add(new ImmutableUndirectedEdge<Integer>(0, 1));
+		final Graph<Integer, BidirectedEdge<Integer>> doubled = new ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>(new HashSet<Integer>(nodes), edges);
+		final Graph<Integer, BidirectedEdge<Integer>> single = undirected(nodes, new int[][] {{0, 1}});
+		Assert.assertFalse(Topography.isIsomorphic(doubled, single));
+		Assert.assertTrue(Topography.isSubgraphIsomorphic(doubled, single));
+		Assert.assertFalse(new GraphMatcher<Integer, Integer>(single, doubled, GraphMatcher.Mode.INDUCED_SUBGRAPH).isMatched());
+	}
+
+	@Test
+	public void testSubgraphModes()
+	{
+		final Graph<Integer, BidirectedEdge<Integer>> complete = undirected(integers(4), complete(4));
+		final Graph<Integer, BidirectedEdge<Integer>> triangle = undirected(integers(3), ring(3));
+		final Graph<Integer, BidirectedEdge<Integer>> path = undirected(integers(3), new int[][] {{0, 1}, {1, 2}});
+		Assert.assertEquals(24, new GraphMatcher<Integer, Integer>(triangle, complete, GraphMatcher.Mode.INDUCED_SUBGRAPH).countMatches());
+		Assert.assertEquals(24, new GraphMatcher<Integer, Integer>(path, complete, GraphMatcher.Mode.SUBGRAPH).countMatches());
+		Assert.assertEquals(0, new GraphMatcher<Integer, Integer>(path, complete, GraphMatcher.Mode.INDUCED_SUBGRAPH).countMatches());
+		Assert.assertEquals(24, new GraphMatcher<Integer, Integer>(path, complete, GraphMatcher.Mode.SUBGRAPH).countMatches(ForkJoinPool.commonPool()));
+	}
+
+	@Test
+	public void testLargePermutedGraph()
+	{
+		final int nodeCount = 2000;
+		final Random random = new Random(7);
+		final List<int[]> pairs = new ArrayList<int[]>();
+		for(int node = 1; node < nodeCount; node++)
+			pairs.add(new int[] {node, random.nextInt(node)});
+		for(int extra = 0; extra < nodeCount * 2; extra++)
+		{
+			final int first = random.nextInt(nodeCount);
+			final int second = random.nextInt(nodeCount);
+			if( first != second )
+				pairs.add(new int[] {first, second});
+		}
+		final List<Integer> permutation = integers(nodeCount);
+		Collections.shuffle(permutation, random);
+		final int[][] permutedPairs = new int[pairs.size()][];
+		for(int pairIndex = 0; pairIndex < pairs.size(); pairIndex++)
+			permutedPairs[pairIndex] = new int[] {permutation.get(pairs.get(pairIndex)[0]), permutation.get(pairs.get(pairIndex)[1])};
+
+		final Graph<Integer, BidirectedEdge<Integer>> first = undirected(integers(nodeCount), pairs.toArray(new int[pairs.size()][]));
+		final Graph<String, BidirectedEdge<String>> second = undirected(strings(nodeCount), permutedPairs);
+		final GraphMatcher<Integer, String> matcher = new GraphMatcher<Integer, String>(first, second, GraphMatcher.Mode.ISOMORPHISM);
+		final Map<Integer, String> match = matcher.getMatch(ForkJoinPool.commonPool());
+		Assert.assertNotNull(match);
+		for(final BidirectedEdge<Integer> edge : first.getEdges())
+		{
+			final String left = match.get(edge.getLeftNode());
+			final String right = match.get(edge.getRightNode());
+			Assert.assertTrue(second.getAdjacentNodes(left).contains(right));
+		}
+	}
+}
@@ -0,0 +1,213 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological;
+
+import java.util.*;
+import com.syncleus.dann.graph.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTopography
+{
+	private static MutableDirectedAdjacencyGraph<String, DirectedEdge<String>> twoCycles()
+	{
+		final MutableDirectedAdjacencyGraph<String, DirectedEdge<String>> graph = new MutableDirectedAdjacencyGraph<String, DirectedEdge<String>>();
+		for(final String node : Arrays.asList("a", "b", "c", "d", "e", "f"))
+			graph.add(node);
+		//a -> b -> c -> a and d -> e -> d joined by c -> d, f on its own
+		graph.add(new ImmutableDirectedEdge<String>("a", "b"));
+		graph.add(new ImmutableDirectedEdge<String>("b", "c"));
+		graph.add(new ImmutableDirectedEdge<String>("c", "a"));
+		graph.add(new ImmutableDirectedEdge<String>("c", "d"));
+		graph.add(new ImmutableDirectedEdge<String>("d", "e"));
+		graph.add(new ImmutableDirectedEdge<String>("e", "d"));
+		return graph;
+	}
+
+	@Test
+	public void testStronglyConnectedComponents()
+	{
+		final Map<String, Integer> components = Topography.getStronglyConnectedComponents(twoCycles());
+		Assert.assertEquals(6, components.size());
+		Assert.assertEquals(components.get("a"), components.get("b"));
+		Assert.assertEquals(components.get("a"), components.get("c"));
+		Assert.assertEquals(components.get("d"), components.get("e"));
+		Assert.assertFalse(components.get("a").equals(components.get("d")));
+		Assert.assertFalse(components.get("f").equals(components.get("a")));
+		Assert.assertFalse(components.get("f").equals(components.get("d")));
+		Assert.assertEquals(3, new HashSet<Integer>(components.values()).size());
+	}
+
+	@Test
+	public void testWeaklyConnectedComponents()
+	{
+		final Map<String, Integer> components = Topography.getWeaklyConnectedComponents(twoCycles());
+		Assert.assertEquals(6, components.size());
+		for(final String node : Arrays.asList("b", "c", "d", "e"))
+			Assert.assertEquals(components.get("a"), components.get(node));
+		Assert.assertFalse(components.get("f").equals(components.get("a")));
+		Assert.assertEquals(2, new HashSet<Integer>(components.values()).size());
+	}
+
+	@Test
+	public void testConnectivity()
+	{
+		final MutableDirectedAdjacencyGraph<String, DirectedEdge<String>> graph = twoCycles();
+		Assert.assertFalse(Topography.isWeaklyConnected(graph));
+		Assert.assertFalse(Topography.isStronglyConnected(graph));
+
+		graph.add(new ImmutableDirectedEdge<String>("f", "a"));
+		Assert.assertTrue(Topography.isWeaklyConnected(graph));
+		Assert.assertFalse(Topography.isStronglyConnected(graph));
+
+		graph.add(new ImmutableDirectedEdge<String>("e", "f"));
+		Assert.assertTrue(Topography.isWeaklyConnected(graph));
+		Assert.assertTrue(Topography.isStronglyConnected(graph));
+	}
+
+	@Test
+	public void testDeepChain()
+	{
+		//long enough that a recursive search would overflow the stack
+		final int nodeCount = 200000;
+		final MutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>> graph = new MutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>();
+		for(int node = 0; node < nodeCount; node++)
+			graph.add(node);
+		for(int node = 1; node < nodeCount; node++)
+			graph.add(new ImmutableDirectedEdge<Integer>(node - 1, node));
+		Assert.assertFalse(Topography.isStronglyConnected(graph));
+
+		graph.add(new ImmutableDirectedEdge<Integer>(nodeCount - 1, 0));
+		Assert.assertTrue(Topography.isStronglyConnected(graph));
+	}
+
+	@Test
+	public void testMaximallyConnectedComponents()
+	{
+		final Set<Graph<String, DirectedEdge<String>>> components = Topography.getMaximallyConnectedComponents(twoCycles());
+		Assert.assertEquals(2, components.size());
+		int edgeCount = 0;
+		for(final Graph<String, DirectedEdge<String>> component : components)
+		{
+			Assert.assertTrue(Topography.isWeaklyConnected(component));
+			if( component.getNodes().contains("f") )
+				Assert.assertEquals(1, component.getNodes().size());
+			else
+				Assert.assertEquals(5, component.getNodes().size());
+			edgeCount += component.getEdges().size();
+		}
+		Assert.assertEquals(6, edgeCount);
+	}
+
+	private static ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>> undirected(final int nodeCount, final int[][] connections)
+	{
+		final Set<Integer> nodes = new HashSet<Integer>();
+		for(int node = 0; node < nodeCount; node++)
+			nodes.add(node);
+		final Set<BidirectedEdge<Integer>> edges = new HashSet<BidirectedEdge<Integer>>();
+		for(final int[] connection : connections)
+			edges.add(new ImmutableUndirectedEdge<Integer>(connection[0], connection[1]));
+		return new ImmutableAdjacencyGraph<Integer, BidirectedEdge<Integer>>(nodes, edges);
+	}
+
+	private static int[][] ring(final int nodeCount)
+	{
+		final int[][] connections = new int[nodeCount][];
+		for(int node = 0; node < nodeCount; node++)
+			connections[node] = new int[] {node, (node + 1) % nodeCount};
+		return connections;
+	}
+
+	private static int[][] complete(final int nodeCount)
+	{
+		final List<int[]> connections = new ArrayList<int[]>();
+		for(int first = 0; first < nodeCount; first++)
+			for(int second = first + 1; second < nodeCount; second++)
+				connections.add(new int[] {first, second});
+		return connections.toArray(new int[connections.size()][]);
+	}
+
+	@Test
+	public void testRingConnectivity()
+	{
+		final Graph<Integer, BidirectedEdge<Integer>> graph = undirected(1000, ring(1000));
+		Assert.assertEquals(2, Topography.getNodeConnectivity(graph));
+		Assert.assertEquals(2, Topography.getEdgeConnectivity(graph));
+		Assert.assertEquals(2, Topography.getNodeConnectivity(graph, 0, 500));
+		Assert.assertEquals(2, Topography.getEdgeConnectivity(graph, 0, 500));
+		//adjacent nodes can not be separated by removing other nodes
+		Assert.assertEquals(1000, Topography.getNodeConnectivity(graph, 0, 1));
+	}
+
+	@Test
+	public void testCompleteConnectivity()
+	{
+		final Graph<Integer, BidirectedEdge<Integer>> graph = undirected(6, complete(6));
+		Assert.assertEquals(5, Topography.getNodeConnectivity(graph));
+		Assert.assertEquals(5, Topography.getEdgeConnectivity(graph));
+	}
+
+	@Test
+	public void testBridgedConnectivity()
+	{
+		//two complete graphs of four nodes joined through node 0 by two edges
+		final int[][] connections = new int[][] {{0, 1}, {0, 2}, {0, 3}, {1, 2}, {1, 3}, {2, 3},
+				{4, 5}, {4, 6}, {4, 7}, {5, 6}, {5, 7}, {6, 7}, {0, 4}, {0, 5}};
+		final Graph<Integer, BidirectedEdge<Integer>> graph = undirected(8, connections);
+		Assert.assertEquals(1, Topography.getNodeConnectivity(graph));
+		Assert.assertEquals(2, Topography.getEdgeConnectivity(graph));
+		Assert.assertEquals(1, Topography.getNodeConnectivity(graph, 1, 6));
+		Assert.assertEquals(2, Topography.getEdgeConnectivity(graph, 1, 6));
+		Assert.assertEquals(3, Topography.getEdgeConnectivity(graph, 1, 2));
+
+		final Set<BidirectedEdge<Integer>> cut = Topography.getMinimumCut(graph);
+		Assert.assertEquals(2, cut.size());
+		for(final BidirectedEdge<Integer> edge : cut)
+			Assert.assertTrue(edge.getNodes().contains(0) && (edge.getNodes().contains(4) || edge.getNodes().contains(5)));
+	}
+
+	@Test
+	public void testWeightedMinimumCut()
+	{
+		final Set<String> nodes = new HashSet<String>(Arrays.asList("a", "b", "c", "d"));
+		final Set<WeightedBidirectedEdge<String>> edges = new HashSet<WeightedBidirectedEdge<String>>();
+		edges.add(new SimpleWeightedUndirectedEdge<String>("a", "b", 5.0));
+		edges.add(new SimpleWeightedUndirectedEdge<String>("b", "c", 1.0));
+		edges.add(new SimpleWeightedUndirectedEdge<String>("c", "d", 5.0));
+		edges.add(new SimpleWeightedUndirectedEdge<String>("d", "a", 2.0));
+		edges.add(new SimpleWeightedUndirectedEdge<String>("a", "c", 0.5));
+		final Graph<String, WeightedBidirectedEdge<String>> graph = new ImmutableAdjacencyGraph<String, WeightedBidirectedEdge<String>>(nodes, edges);
+
+		double cutWeight = 0.0;
+		for(final WeightedBidirectedEdge<String> edge : Topography.getMinimumCut(graph))
+			cutWeight += edge.getWeight();
+		Assert.assertEquals(3.5, cutWeight, 0.0);
+	}
+
+	@Test
+	public void testDirectedConnectivity()
+	{
+		final MutableDirectedAdjacencyGraph<String, DirectedEdge<String>> graph = twoCycles();
+		Assert.assertEquals(0, Topography.getEdgeConnectivity(graph));
+		Assert.assertEquals(0, Topography.getNodeConnectivity(graph));
+		Assert.assertEquals(1, Topography.getEdgeConnectivity(graph, "a", "e"));
+		Assert.assertEquals(0, Topography.getEdgeConnectivity(graph, "e", "a"));
+		Assert.assertEquals(1, Topography.getNodeConnectivity(graph, "a", "e"));
+	}
+}
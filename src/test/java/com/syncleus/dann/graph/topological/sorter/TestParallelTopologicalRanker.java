@@ -0,0 +1,73 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.topological.sorter;
+
+import java.util.*;
+import com.syncleus.dann.graph.*;
+import org.junit.*;
+
+public class TestParallelTopologicalRanker
+{
+	private static final Random RANDOM = new Random(2604);
+
+	private static BidirectedGraph<Integer, DirectedEdge<Integer>> randomDag(final int nodeCount, final int edgeCount)
+	{
+		final Set<Integer> nodes = new HashSet<Integer>();
+		for(int node = 0; node < nodeCount; node++)
+			nodes.add(node);
+		final Set<DirectedEdge<Integer>> edges = new HashSet<DirectedEdge<Integer>>();
+		for(int edgeIndex = 0; edgeIndex < edgeCount; edgeIndex++)
+		{
+			final int first = RANDOM.nextInt(nodeCount);
+			final int second = RANDOM.nextInt(nodeCount);
+			if( first != second )
+				edges.add(new ImmutableDirectedEdge<Integer>(Math.min(first, second), Math.max(first, second)));
+		}
+		return new ImmutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>(nodes, edges);
+	}
+
+	@Test
+	public void testMatchesSimpleRanker()
+	{
+		final BidirectedGraph<Integer, DirectedEdge<Integer>> graph = randomDag(20000, 60000);
+		final List<Set<Integer>> expected = new SimpleTopologicalRanker<Integer>().rank(graph);
+		final List<Set<Integer>> ranks = new ParallelTopologicalRanker<Integer>().rank(graph);
+		Assert.assertEquals(expected, ranks);
+
+		final List<Integer> sorted = new ParallelTopologicalRanker<Integer>().sort(graph);
+		final Map<Integer, Integer> positions = new HashMap<Integer, Integer>();
+		for(int position = 0; position < sorted.size(); position++)
+			positions.put(sorted.get(position), position);
+		Assert.assertEquals(graph.getNodes().size(), positions.size());
+		for(final DirectedEdge<Integer> edge : graph.getEdges())
+			Assert.assertTrue("edge points backwards", positions.get(edge.getSourceNode()) < positions.get(edge.getDestinationNode()));
+	}
+
+	@Test
+	public void testCycle()
+	{
+		final Set<Integer> nodes = new HashSet<Integer>(Arrays.asList(0, 1, 2));
+		final Set<DirectedEdge<Integer>> edges = new HashSet<DirectedEdge<Integer>>();
+		edges.add(new ImmutableDirectedEdge<Integer>(0, 1));
+		edges.add(new ImmutableDirectedEdge<Integer>(1, 2));
+		edges.add(new ImmutableDirectedEdge<Integer>(2, 0));
+		final BidirectedGraph<Integer, DirectedEdge<Integer>> graph = new ImmutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>(nodes, edges);
+		Assert.assertNull(new ParallelTopologicalRanker<Integer>().rank(graph));
+	}
+}
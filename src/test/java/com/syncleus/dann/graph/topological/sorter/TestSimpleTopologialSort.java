@@ -57,4 +57,38 @@ public class TestSimpleTopologialSort
 		Assert.assertTrue("center node is not the first node!", sortedNodes.get(0) == centerNode);
 		Assert.assertTrue("left node is not before leftiest node!", sortedNodes.indexOf(leftNode) < sortedNodes.indexOf(leftiestNode));
 	}
+
+	@Test
+	public void testRanks()
+	{
+		final Set<Integer> nodes = new HashSet<Integer>(Arrays.asList(0, 1, 2, 3, 4));
+		final Set<DirectedEdge<Integer>> edges = new HashSet<DirectedEdge<Integer>>();
+		edges.add(new ImmutableDirectedEdge<Integer>(0, 1));
+		edges.add(new ImmutableDirectedEdge<Integer>(0, 2));
+		edges.add(new ImmutableDirectedEdge<Integer>(1, 3));
+		edges.add(new ImmutableDirectedEdge<Integer>(2, 3));
+		edges.add(new ImmutableDirectedEdge<Integer>(0, 3));
+		final BidirectedGraph<Integer, DirectedEdge<Integer>> graph = new ImmutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>(nodes, edges);
+
+		final List<Set<Integer>> ranks = new SimpleTopologicalRanker<Integer>().rank(graph);
+		Assert.assertEquals(3, ranks.size());
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(0, 4)), ranks.get(0));
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(1, 2)), ranks.get(1));
+		Assert.assertEquals(Collections.singleton(3), ranks.get(2));
+	}
+
+	@Test
+	public void testCycle()
+	{
+		final Set<Integer> nodes = new HashSet<Integer>(Arrays.asList(0, 1, 2, 3));
+		final Set<DirectedEdge<Integer>> edges = new HashSet<DirectedEdge<Integer>>();
+		edges.add(new ImmutableDirectedEdge<Integer>(0, 1));
+		edges.add(new ImmutableDirectedEdge<Integer>(1, 2));
+		edges.add(new ImmutableDirectedEdge<Integer>(2, 1));
+		edges.add(new ImmutableDirectedEdge<Integer>(2, 3));
+		final BidirectedGraph<Integer, DirectedEdge<Integer>> graph = new ImmutableDirectedAdjacencyGraph<Integer, DirectedEdge<Integer>>(nodes, edges);
+
+		Assert.assertNull(new SimpleTopologicalRanker<Integer>().rank(graph));
+		Assert.assertNull(new SimpleTopologicalRanker<Integer>().sort(graph));
+	}
 }
@@ -0,0 +1,111 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package com.syncleus.dann.graph.tree.mst;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import com.syncleus.dann.graph.*;
+import com.syncleus.dann.graph.cycle.*;
+import com.syncleus.dann.graph.topological.Topography;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBoruvkaMinimumSpanningTreeFinder
+{
+	private static final Random RANDOM = new Random(2604);
+
+	private static double totalWeight(final Set<? extends Weighted> edges)
+	{
+		double total = 0.0;
+		for(final Weighted edge : edges)
+			total += edge.getWeight();
+		return total;
+	}
+
+	private static Graph<Integer, WeightedBidirectedEdge<Integer>> randomGraph(final int nodeCount, final int edgeCount)
+	{
+		final Set<Integer> nodes = new HashSet<Integer>();
+		for(int node = 0; node < nodeCount; node++)
+			nodes.add(node);
+		final Set<WeightedBidirectedEdge<Integer>> edges = new HashSet<WeightedBidirectedEdge<Integer>>();
+		//a chain guarantees the graph is connected
+		for(int node = 1; node < nodeCount; node++)
+			edges.add(new SimpleWeightedUndirectedEdge<Integer>(node - 1, node, 100.0 + RANDOM.nextInt(100)));
+		while( edges.size() < edgeCount )
+			edges.add(new SimpleWeightedUndirectedEdge<Integer>(RANDOM.nextInt(nodeCount), RANDOM.nextInt(nodeCount), RANDOM.nextInt(150)));
+		return new ImmutableAdjacencyGraph<Integer, WeightedBidirectedEdge<Integer>>(nodes, edges);
+	}
+
+	@Test
+	public void testUndirected()
+	{
+		final Set<Object> nodes = new HashSet<Object>(Arrays.<Object>asList("centerNode", "topNode", "leftNode", "rightNode"));
+		final Set<BidirectedEdge<Object>> edges = new HashSet<BidirectedEdge<Object>>();
+		edges.add(new ImmutableUndirectedEdge<Object>("centerNode", "topNode"));
+		edges.add(new ImmutableUndirectedEdge<Object>("centerNode", "leftNode"));
+		edges.add(new ImmutableUndirectedEdge<Object>("centerNode", "rightNode"));
+		edges.add(new ImmutableUndirectedEdge<Object>("topNode", "rightNode"));
+		edges.add(new ImmutableUndirectedEdge<Object>("rightNode", "leftNode"));
+		edges.add(new ImmutableUndirectedEdge<Object>("leftNode", "topNode"));
+		final Graph<Object, BidirectedEdge<Object>> graph = new ImmutableAdjacencyGraph<Object, BidirectedEdge<Object>>(nodes, edges);
+
+		final MinimumSpanningTreeFinder<Object, BidirectedEdge<Object>> finder = new BoruvkaMinimumSpanningTreeFinder<Object, BidirectedEdge<Object>>();
+		final Set<BidirectedEdge<Object>> mstEdges = finder.findMinimumSpanningTree(graph);
+		final TreeGraph<Object, BidirectedEdge<Object>> mst = new ImmutableTreeAdjacencyGraph<Object, BidirectedEdge<Object>>(graph.getNodes(), mstEdges);
+
+		final CycleDetector detector = new ColoredDepthFirstSearchDetector();
+		Assert.assertTrue("mst was not acyclic", !detector.hasCycle(mst));
+		Assert.assertTrue("mst was not connected", Topography.isStronglyConnected(mst));
+		Assert.assertEquals("mst has the wrong number of edges", 3, mstEdges.size());
+	}
+
+	@Test
+	public void testMatchesKruskal()
+	{
+		final Graph<Integer, WeightedBidirectedEdge<Integer>> graph = randomGraph(500, 5000);
+
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		final Set<WeightedBidirectedEdge<Integer>> boruvkaEdges;
+		try
+		{
+			boruvkaEdges = new BoruvkaMinimumSpanningTreeFinder<Integer, WeightedBidirectedEdge<Integer>>(pool).findMinimumSpanningTree(graph);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		final Set<WeightedBidirectedEdge<Integer>> kruskalEdges = new KruskalMinimumSpanningTreeFinder<Integer, WeightedBidirectedEdge<Integer>>().findMinimumSpanningTree(graph);
+
+		Assert.assertEquals("mst has the wrong number of edges", 499, boruvkaEdges.size());
+		Assert.assertEquals("kruskal mst has the wrong number of edges", 499, kruskalEdges.size());
+		Assert.assertEquals("mst weights differ", totalWeight(kruskalEdges), totalWeight(boruvkaEdges), 0.000001);
+	}
+
+	@Test
+	public void testDisconnected()
+	{
+		final Set<Object> nodes = new HashSet<Object>(Arrays.<Object>asList("first", "second", "third"));
+		final Set<BidirectedEdge<Object>> edges = new HashSet<BidirectedEdge<Object>>();
+		edges.add(new ImmutableUndirectedEdge<Object>("first", "second"));
+		final Graph<Object, BidirectedEdge<Object>> graph = new ImmutableAdjacencyGraph<Object, BidirectedEdge<Object>>(nodes, edges);
+
+		Assert.assertNull("disconnected graph should have no mst", new BoruvkaMinimumSpanningTreeFinder<Object, BidirectedEdge<Object>>().findMinimumSpanningTree(graph));
+		Assert.assertNull("disconnected graph should have no kruskal mst", new KruskalMinimumSpanningTreeFinder<Object, BidirectedEdge<Object>>().findMinimumSpanningTree(graph));
+	}
+}